@@ -0,0 +1,59 @@
+package com.esteban.franquicias_api.benchmark;
+
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.Producto;
+import com.esteban.franquicias_api.model.Sucursal;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Resolver una sucursal y un producto por id dentro de una franquicia ya cargada (la que leen los
+// índices en memoria o la que arma CollectionProductoStore). Las lecturas del servicio resuelven esto en Mongo con
+// proyecciones; esto mide lo que cuesta cuando el documento ya está en memoria: recorriendo las
+// listas (el peor caso, el último elemento) o con el índice por id de Franquicia y Sucursal.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BusquedasBenchmark {
+
+    @Benchmark
+    public Sucursal sucursal(Formas formas) {
+        return buscarSucursal(formas.franquicia, formas.ultimaSucursalId);
+    }
+
+    @Benchmark
+    public Producto producto(Formas formas) {
+        return buscarSucursal(formas.franquicia, formas.ultimaSucursalId).getProductos().stream()
+                .filter(p -> p.getId().equals(formas.ultimoProductoId))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    // Índice ya armado por una búsqueda anterior sobre el mismo documento
+    @Benchmark
+    public Sucursal sucursalIndexada(Formas formas) {
+        return formas.franquicia.sucursal(formas.ultimaSucursalId).orElseThrow();
+    }
+
+    @Benchmark
+    public Producto productoIndexado(Formas formas) {
+        return formas.franquicia.sucursal(formas.ultimaSucursalId)
+                .flatMap(s -> s.producto(formas.ultimoProductoId))
+                .orElseThrow();
+    }
+
+    // Primera búsqueda en una sucursal recién leída: incluye armar el índice de sus productos
+    @Benchmark
+    public Producto productoPrimeraBusqueda(Formas formas) {
+        Sucursal leida = formas.franquicia.sucursal(formas.ultimaSucursalId).orElseThrow();
+        return new Sucursal(leida.getId(), leida.getNombre(), leida.getProductos())
+                .producto(formas.ultimoProductoId)
+                .orElseThrow();
+    }
+
+    private static Sucursal buscarSucursal(Franquicia franquicia, String sucursalId) {
+        return franquicia.getSucursales().stream()
+                .filter(s -> s.getId().equals(sucursalId))
+                .findFirst()
+                .orElseThrow();
+    }
+}
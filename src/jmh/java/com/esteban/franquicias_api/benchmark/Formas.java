@@ -0,0 +1,53 @@
+package com.esteban.franquicias_api.benchmark;
+
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.Producto;
+import com.esteban.franquicias_api.model.Sucursal;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+// Franquicias de distintas formas (sucursales x productos por sucursal). No se cruzan todos los
+// tamaños: 5000 x 10000 son 50 millones de productos, muy lejos de un documento real.
+@State(Scope.Benchmark)
+public class Formas {
+
+    @Param({"10x10", "100x100", "10x10000", "1000x1000", "5000x10", "5000x200"})
+    public String forma;
+
+    public Franquicia franquicia;
+
+    // Los últimos de cada lista: el peor caso de una búsqueda lineal
+    public String ultimaSucursalId;
+    public String ultimoProductoId;
+
+    @Setup(Level.Trial)
+    public void generar() {
+        String[] partes = forma.split("x");
+        franquicia = generar(Integer.parseInt(partes[0]), Integer.parseInt(partes[1]));
+
+        Sucursal ultima = franquicia.getSucursales().get(franquicia.getSucursales().size() - 1);
+        ultimaSucursalId = ultima.getId();
+        ultimoProductoId = ultima.getProductos().get(ultima.getProductos().size() - 1).getId();
+    }
+
+    public static Franquicia generar(int sucursales, int productosPorSucursal) {
+        SplittableRandom random = new SplittableRandom(42);
+        List<Sucursal> lista = new ArrayList<>(sucursales);
+        for (int s = 0; s < sucursales; s++) {
+            List<Producto> productos = new ArrayList<>(productosPorSucursal);
+            for (int p = 0; p < productosPorSucursal; p++) {
+                productos.add(new Producto(UUID.randomUUID().toString(), "Producto " + p, random.nextInt(10_000)));
+            }
+            lista.add(new Sucursal(UUID.randomUUID().toString(), "Sucursal " + s, productos));
+        }
+        return new Franquicia(UUID.randomUUID().toString(), "Franquicia", lista);
+    }
+}
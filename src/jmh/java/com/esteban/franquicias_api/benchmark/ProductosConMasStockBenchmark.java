@@ -0,0 +1,53 @@
+package com.esteban.franquicias_api.benchmark;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.index.TopStockIndex;
+import com.esteban.franquicias_api.repository.FranquiciaRepository;
+import com.esteban.franquicias_api.repository.ProductoStore;
+import com.esteban.franquicias_api.repository.ProductosConMasStock;
+import com.esteban.franquicias_api.service.impl.FranquiciaServiceImpl;
+import com.esteban.franquicias_api.service.impl.MarcasProyeccion;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// El producto con más stock de cada sucursal: la reducción sobre la franquicia completa contra la
+// consulta al índice en memoria que usa FranquiciaServiceImpl.obtenerProductosConMasStock
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ProductosConMasStockBenchmark {
+
+    private FranquiciaServiceImpl servicio;
+
+    @Setup(Level.Trial)
+    public void preparar(Formas formas) {
+        ProductoStore store = mock(ProductoStore.class);
+        when(store.franquiciaCompleta(formas.franquicia.getId())).thenReturn(Optional.of(formas.franquicia));
+
+        FranquiciasProperties properties = new FranquiciasProperties();
+        servicio = new FranquiciaServiceImpl(mock(FranquiciaRepository.class), store,
+                new TopStockIndex(store, properties), properties, mock(ApplicationEventPublisher.class),
+                mock(MarcasProyeccion.class));
+
+        // La primera consulta carga el índice; las medidas son las siguientes
+        servicio.obtenerProductosConMasStock(formas.franquicia.getId());
+    }
+
+    @Benchmark
+    public List<ProductoDTO> reduccion(Formas formas) {
+        return ProductosConMasStock.calcular(formas.franquicia);
+    }
+
+    @Benchmark
+    public List<ProductoDTO> indice(Formas formas) {
+        return servicio.obtenerProductosConMasStock(formas.franquicia.getId());
+    }
+}
@@ -0,0 +1,45 @@
+package com.esteban.franquicias_api.benchmark;
+
+import com.esteban.franquicias_api.dto.FranquiciaDTO;
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.dto.SucursalDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+// Jackson escribiendo una FranquiciaDTO con todas sus sucursales y productos, con la misma
+// configuración base que usa Spring para las respuestas
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class SerializacionBenchmark {
+
+    private ObjectWriter writer;
+    private FranquiciaDTO dto;
+
+    @Setup(Level.Trial)
+    public void preparar(Formas formas) {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = mapper.writerFor(FranquiciaDTO.class);
+
+        dto = new FranquiciaDTO();
+        dto.setId(formas.franquicia.getId());
+        dto.setNombre(formas.franquicia.getNombre());
+        dto.setSucursales(formas.franquicia.getSucursales().stream()
+                .map(s -> new SucursalDTO(s.getId(), s.getNombre(), formas.franquicia.getId(), s.getProductos().stream()
+                        .map(p -> new ProductoDTO(p.getId(), p.getNombre(), p.getStock(), s.getId()))
+                        .toList(), null))
+                .toList());
+    }
+
+    // Se escribe a un stream que descarta, como hace el conversor HTTP con la respuesta
+    @Benchmark
+    public void franquicia() throws IOException {
+        writer.writeValue(OutputStream.nullOutputStream(), dto);
+    }
+}
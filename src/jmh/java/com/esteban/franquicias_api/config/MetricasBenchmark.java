@@ -0,0 +1,90 @@
+package com.esteban.franquicias_api.config;
+
+import com.esteban.franquicias_api.benchmark.Formas;
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.index.TopStockIndex;
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.repository.FranquiciaRepository;
+import com.esteban.franquicias_api.repository.ProductoStore;
+import com.esteban.franquicias_api.service.FranquiciaService;
+import com.esteban.franquicias_api.service.impl.FranquiciaServiceImpl;
+import com.esteban.franquicias_api.service.impl.MarcasProyeccion;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Costo de la instrumentación: una llamada barata al servicio (top-stock desde el índice) directa y
+// a través del proxy de MetricasServicios con el registro de Prometheus, y el tamaño de un documento
+// de franquicia leído del encabezado binario contra volver a codificarlo
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class MetricasBenchmark {
+
+    @Param({"10x10", "100x100"})
+    public String forma;
+
+    private String franquiciaId;
+    private FranquiciaService directo;
+    private FranquiciaService instrumentado;
+    private Document documento;
+    private RawBsonDocument binario;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        String[] dimensiones = forma.split("x");
+        Franquicia franquicia = Formas.generar(Integer.parseInt(dimensiones[0]), Integer.parseInt(dimensiones[1]));
+        franquiciaId = franquicia.getId();
+
+        ProductoStore store = mock(ProductoStore.class);
+        when(store.franquiciaCompleta(franquiciaId)).thenReturn(Optional.of(franquicia));
+        FranquiciasProperties properties = new FranquiciasProperties();
+        directo = new FranquiciaServiceImpl(mock(FranquiciaRepository.class), store,
+                new TopStockIndex(store, properties), properties, mock(ApplicationEventPublisher.class),
+                mock(MarcasProyeccion.class));
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        instrumentado = (FranquiciaService) MetricasServicios.instrumentar(directo, FranquiciaService.class, () -> registry);
+        directo.obtenerProductosConMasStock(franquiciaId);
+
+        MongoMappingContext contexto = new MongoMappingContext();
+        contexto.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, contexto);
+        converter.afterPropertiesSet();
+        documento = new Document();
+        converter.write(franquicia, documento);
+        binario = RawBsonDocument.parse(documento.toJson());
+    }
+
+    @Benchmark
+    public List<ProductoDTO> servicioDirecto() {
+        return directo.obtenerProductosConMasStock(franquiciaId);
+    }
+
+    @Benchmark
+    public List<ProductoDTO> servicioInstrumentado() {
+        return instrumentado.obtenerProductosConMasStock(franquiciaId);
+    }
+
+    @Benchmark
+    public int bytesDocumento() {
+        return MetricasMongo.bytes(documento);
+    }
+
+    @Benchmark
+    public int bytesBinario() {
+        return MetricasMongo.bytes(binario);
+    }
+}
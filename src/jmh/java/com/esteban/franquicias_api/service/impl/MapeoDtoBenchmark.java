@@ -0,0 +1,40 @@
+package com.esteban.franquicias_api.service.impl;
+
+import com.esteban.franquicias_api.benchmark.Formas;
+import com.esteban.franquicias_api.dto.FranquiciaDTO;
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.dto.SucursalDTO;
+import com.esteban.franquicias_api.model.Sucursal;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Entidad -> DTO con los mismos helpers que usan los servicios (por eso vive en este paquete)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MapeoDtoBenchmark {
+
+    @Benchmark
+    public FranquiciaDTO franquicia(Formas formas) {
+        return FranquiciaServiceImpl.toDTO(formas.franquicia);
+    }
+
+    @Benchmark
+    public void sucursales(Formas formas, Blackhole blackhole) {
+        for (Sucursal sucursal : formas.franquicia.getSucursales()) {
+            SucursalDTO dto = SucursalServiceImpl.toDTO(sucursal, formas.franquicia.getId());
+            blackhole.consume(dto);
+        }
+    }
+
+    @Benchmark
+    public void productos(Formas formas, Blackhole blackhole) {
+        for (Sucursal sucursal : formas.franquicia.getSucursales()) {
+            sucursal.getProductos().forEach(producto -> {
+                ProductoDTO dto = ProductoServiceImpl.toDTO(producto, sucursal.getId());
+                blackhole.consume(dto);
+            });
+        }
+    }
+}
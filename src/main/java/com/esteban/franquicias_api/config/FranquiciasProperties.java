@@ -0,0 +1,229 @@
+package com.esteban.franquicias_api.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "franquicias")
+public class FranquiciasProperties {
+
+    // mongo: Spring Data sobre MongoDB; memoria: FranquiciaRepositoryEnMemoria (perfil memoria)
+    private String repositorio = "mongo";
+    private Stock stock = new Stock();
+    private TopStock topStock = new TopStock();
+    private Productos productos = new Productos();
+    private Indices indices = new Indices();
+    private Memoria memoria = new Memoria();
+    private Metricas metricas = new Metricas();
+    private Paginacion paginacion = new Paginacion();
+    private Importacion importacion = new Importacion();
+    private Etag etag = new Etag();
+    private Eventos eventos = new Eventos();
+    private Analitica analitica = new Analitica();
+    private Alertas alertas = new Alertas();
+    private Busqueda busqueda = new Busqueda();
+    private Admision admision = new Admision();
+    private Lecturas lecturas = new Lecturas();
+    private Movimientos movimientos = new Movimientos();
+    private Proyeccion proyeccion = new Proyeccion();
+
+    @Data
+    public static class Stock {
+        // Entradas por bulkWrite en la actualización masiva de stock
+        private int tamanoLote = 1000;
+        private Diferido diferido = new Diferido();
+    }
+
+    @Data
+    public static class Diferido {
+        // Los descuentos y reposiciones (POST .../stock/delta) se escriben cada "intervalo", o antes si
+        // se juntan "maxPendientes" productos con cambios sin escribir
+        private Duration intervalo = Duration.ofSeconds(1);
+        private int maxPendientes = 1000;
+        // Tope duro de productos pendientes (también los que vuelven de un lote fallido): con Mongo caído un
+        // producto nuevo responde 429 en lugar de hacer crecer el mapa sin fin
+        private int limitePendientes = 100_000;
+        // Cuánto reintenta el último vaciado al apagar antes de dar lo pendiente por perdido
+        private Duration plazoApagado = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class TopStock {
+        // Con varias instancias cada una solo ve sus propias escrituras; en ese caso conviene desactivarlo
+        private boolean indiceHabilitado = true;
+        // Carga todas las franquicias al iniciar en lugar de hacerlo en la primera consulta
+        private boolean precargar = false;
+        // Franquicias indexadas a la vez; las que pasan "inactividad" sin consultas se sueltan y la próxima
+        // consulta las vuelve a cargar
+        private long maximoFranquicias = 10_000;
+        private Duration inactividad = Duration.ofMinutes(30);
+        private Verificacion verificacion = new Verificacion();
+    }
+
+    @Data
+    public static class Verificacion {
+        // Los eventos de stock llevan el valor absoluto y se aplican en el orden en que llegan: dos escrituras
+        // simultáneas del mismo producto pueden dejar el índice con la más vieja. Cada "intervalo" se comparan
+        // "franquiciasPorIntervalo" franquicias indexadas con Mongo y las que difieren se recargan
+        private boolean habilitada = true;
+        private Duration intervalo = Duration.ofSeconds(10);
+        private int franquiciasPorIntervalo = 10;
+    }
+
+    @Data
+    public static class Productos {
+        // embebido: dentro de sucursales.productos; coleccion: en la colección "productos"
+        private String almacenamiento = "embebido";
+        private Migracion migracion = new Migracion();
+    }
+
+    @Data
+    public static class Migracion {
+        // Copia los productos embebidos a la colección al iniciar; se puede repetir sin duplicar
+        private boolean habilitada = false;
+        private int tamanoLote = 1000;
+    }
+
+    @Data
+    public static class Indices {
+        // Crea y verifica los índices de Mongo al iniciar (ver IndicesMongo)
+        private boolean crearAlIniciar = true;
+    }
+
+    @Data
+    public static class Memoria {
+        // Demora de cada llamada al repositorio en memoria, para simular la ida y vuelta a Mongo
+        private Duration latencia = Duration.ZERO;
+        private Generador generador = new Generador();
+    }
+
+    @Data
+    public static class Generador {
+        // Franquicias sintéticas cargadas al iniciar; la i-ésima (desde 1) tiene id %024x de i
+        private int franquicias = 0;
+        private int sucursales = 10;
+        private int productos = 100;
+        private long semilla = 42;
+    }
+
+    @Data
+    public static class Metricas {
+        // Fracción de las franquicias leídas completas cuyo tamaño BSON se mide: hay que volver a
+        // codificar el documento, que cuesta casi lo mismo que leerlo
+        private double muestreoDocumentos = 0.01;
+    }
+
+    @Data
+    public static class Paginacion {
+        // Elementos por página cuando no se pide un "limite"; pedir más que el máximo es un error
+        private int limitePorDefecto = 100;
+        private int limiteMaximo = 1000;
+    }
+
+    @Data
+    public static class Importacion {
+        // Productos por escritura al importar el catálogo: la memoria usada depende de esto y no del archivo
+        private int tamanoLote = 1000;
+        // Fallos detallados en la respuesta
+        private int maxFallos = 1000;
+    }
+
+    @Data
+    public static class Etag {
+        // Cache-Control de las lecturas con ETag; no-cache obliga a revalidar y con If-None-Match sale un 304
+        private String cacheControl = "no-cache";
+        // Franquicias con versión en memoria a la vez; las que pasan "inactividad" sin lecturas ni escrituras
+        // se olvidan y vuelven con una versión nueva
+        private long maximoFranquicias = 100_000;
+        private Duration inactividad = Duration.ofHours(1);
+    }
+
+    @Data
+    public static class Eventos {
+        // Eventos distintos pendientes por suscriptor de GET .../events; los de stock de un mismo producto
+        // se juntan en uno, y un suscriptor que llega al máximo se desconecta
+        private int capacidad = 256;
+        // Duración de cada conexión: al vencer el cliente SSE se vuelve a conectar solo
+        private Duration timeout = Duration.ofMinutes(30);
+    }
+
+    @Data
+    public static class Analitica {
+        // Umbral por defecto de GET /api/analitica/productos/stock-bajo: productos con stock menor a este
+        private int umbralStockBajo = 10;
+    }
+
+    @Data
+    public static class Alertas {
+        // Umbral de stock bajo de las sucursales que no tienen uno propio; 0 no genera alertas
+        private int umbralPorDefecto = 0;
+        private Barrido barrido = new Barrido();
+    }
+
+    @Data
+    public static class Barrido {
+        // Recorre todas las franquicias de a "franquiciasPorIntervalo" cada "intervalo": a lo sumo esa
+        // cantidad de lecturas completas por intervalo, sin importar cuántas franquicias haya
+        private boolean habilitado = true;
+        private Duration intervalo = Duration.ofSeconds(1);
+        private int franquiciasPorIntervalo = 10;
+    }
+
+    @Data
+    public static class Busqueda {
+        // Índice de nombres de productos en memoria, cargado al iniciar; sin él, o mientras carga, se busca en
+        // Mongo con el índice de texto. Como el de top-stock, solo ve las escrituras de esta instancia
+        private boolean indiceHabilitado = true;
+        // Largo máximo del texto a buscar
+        private int largoMaximo = 100;
+    }
+
+    @Data
+    public static class Admision {
+        // Límites por franquicia de las rutas /api/franquicias/{id}/**, para que una sola no ocupe todas las
+        // conexiones a Mongo (100 por defecto). Se cambian en caliente con /actuator/admision
+        private boolean habilitada = true;
+        // Peticiones en curso a la vez; 0 sin límite
+        private int concurrenciaMaxima = 50;
+        // Peticiones por segundo sostenidas y cuántas pueden llegar juntas; 0 sin límite
+        private double peticionesPorSegundo = 500;
+        private int rafaga = 1000;
+        // Franquicias con cupo en memoria a la vez; las que pasan "inactividad" sin peticiones se olvidan
+        private long maximoFranquicias = 10_000;
+        private Duration inactividad = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Lecturas {
+        // Las lecturas iguales de una franquicia que llegan mientras otra espera al repositorio usan su
+        // resultado (ver LecturasCompartidas)
+        private boolean compartidas = true;
+    }
+
+    @Data
+    public static class Movimientos {
+        // Historial de cada cambio de stock (ver MovimientosStockService): se encola sin esperar y se escribe en
+        // lotes de "tamanoLote" cada "intervalo", o antes si la cola junta un lote
+        private boolean habilitado = true;
+        // Movimientos en cola; lo que llega con la cola llena se descarta (franquicias.movimientos.descartados)
+        private int capacidad = 100_000;
+        private int tamanoLote = 1000;
+        private Duration intervalo = Duration.ofSeconds(1);
+        // Mongo borra los movimientos sueltos con esta antigüedad; los resúmenes por hora quedan. 0 los conserva
+        private Duration retencion = Duration.ofDays(90);
+    }
+
+    @Data
+    public static class Proyeccion {
+        // Vista por sucursal (GET .../vista/sucursales, ver VistaSucursalesService): cada escritura deja una marca y
+        // las marcas se proyectan en lotes de "tamanoLote" cada "intervalo", o apenas termina la escritura. Apagada
+        // por defecto: cada escritura paga dos upserts de la marca más la relectura de la sucursal al proyectar
+        private boolean habilitada = false;
+        private int tamanoLote = 500;
+        private Duration intervalo = Duration.ofSeconds(1);
+        // Una escritura abierta hace más que esto se da por perdida (el proceso murió) y la sucursal se proyecta igual
+        private Duration plazo = Duration.ofSeconds(30);
+    }
+}
@@ -0,0 +1,65 @@
+package com.esteban.franquicias_api.config;
+
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.Producto;
+import com.esteban.franquicias_api.model.Sucursal;
+import com.esteban.franquicias_api.repository.FranquiciaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+// Carga franquicias sintéticas al iniciar en modo memoria. Con la misma semilla se generan siempre los
+// mismos ids, nombres y stocks, así que una prueba de carga puede apuntar a ids conocidos.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "franquicias.repositorio", havingValue = "memoria")
+@RequiredArgsConstructor
+public class GeneradorFranquicias implements ApplicationRunner {
+
+    private final FranquiciaRepository franquiciaRepository;
+    private final FranquiciasProperties properties;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        FranquiciasProperties.Generador config = properties.getMemoria().getGenerador();
+        if (config.getFranquicias() <= 0) return;
+
+        SplittableRandom random = new SplittableRandom(config.getSemilla());
+        List<Franquicia> franquicias = new ArrayList<>(config.getFranquicias());
+        for (int i = 1; i <= config.getFranquicias(); i++) {
+            franquicias.add(franquicia(i, config, random));
+        }
+        franquiciaRepository.saveAll(franquicias);
+        log.info("Generadas {} franquicias de {} sucursales con {} productos (ids {} a {})", config.getFranquicias(),
+                config.getSucursales(), config.getProductos(), id(1), id(config.getFranquicias()));
+    }
+
+    public static String id(int franquicia) {
+        return String.format("%024x", franquicia);
+    }
+
+    // La franquicia "numero" (desde 1); AnaliticaBenchmark la usa para cargar el mismo catálogo en Mongo
+    public static Franquicia franquicia(int numero, FranquiciasProperties.Generador config, SplittableRandom random) {
+        List<Sucursal> sucursales = new ArrayList<>(config.getSucursales());
+        for (int s = 0; s < config.getSucursales(); s++) {
+            List<Producto> productos = new ArrayList<>(config.getProductos());
+            for (int p = 0; p < config.getProductos(); p++) {
+                productos.add(new Producto(uuid(random), "Producto " + p, random.nextInt(1_000)));
+            }
+            sucursales.add(new Sucursal(uuid(random), "Sucursal " + s, productos));
+        }
+        return new Franquicia(id(numero), "Franquicia " + numero, sucursales);
+    }
+
+    private static String uuid(SplittableRandom random) {
+        return new UUID(random.nextLong(), random.nextLong()).toString();
+    }
+}
@@ -0,0 +1,139 @@
+package com.esteban.franquicias_api.config;
+
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.MarcaProyeccion;
+import com.esteban.franquicias_api.model.MovimientosHora;
+import com.esteban.franquicias_api.model.ProductoDocument;
+import com.esteban.franquicias_api.model.VistaSucursal;
+import com.esteban.franquicias_api.repository.HistorialStockMongo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+
+// Crea al iniciar los índices que usan las consultas y verifica que existan. createIndex no hace
+// nada si el índice ya está, así que es seguro correrlo en cada arranque y desde varias instancias.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "franquicias.repositorio", havingValue = "mongo", matchIfMissing = true)
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class IndicesMongo implements ApplicationRunner {
+
+    private final MongoTemplate mongoTemplate;
+    private final FranquiciasProperties properties;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (properties.getIndices().isCrearAlIniciar()) {
+            asegurar();
+        }
+    }
+
+    public void asegurar() {
+        crearSerieMovimientos();
+        esperados().forEach((tipo, indices) -> {
+            IndexOperations operaciones = mongoTemplate.indexOps(tipo);
+            indices.forEach(operaciones::createIndex);
+
+            Set<String> existentes = operaciones.getIndexInfo().stream()
+                    .map(IndexInfo::getName)
+                    .collect(Collectors.toSet());
+            List<String> faltantes = indices.stream()
+                    .map(indice -> indice.getIndexOptions().getString("name"))
+                    .filter(nombre -> !existentes.contains(nombre))
+                    .toList();
+            if (!faltantes.isEmpty()) {
+                throw new IllegalStateException("Faltan índices en " + mongoTemplate.getCollectionName(tipo) + ": " + faltantes);
+            }
+            log.info("Índices verificados en {}: {}", mongoTemplate.getCollectionName(tipo), existentes);
+        });
+    }
+
+    // Tiene que existir antes del primer movimiento: el insert crearía una colección común
+    private void crearSerieMovimientos() {
+        FranquiciasProperties.Movimientos movimientos = properties.getMovimientos();
+        if (!movimientos.isHabilitado() || mongoTemplate.collectionExists(HistorialStockMongo.COLECCION)) return;
+        Duration retencion = movimientos.getRetencion();
+        try {
+            mongoTemplate.createCollection(HistorialStockMongo.COLECCION, CollectionOptions.timeSeries("instante",
+                    serie -> retencion.isZero()
+                            ? serie.metaField("producto").granularity(Granularity.MINUTES)
+                            : serie.metaField("producto").granularity(Granularity.MINUTES).expireAfter(retencion)));
+            log.info("Colección time-series {} creada", HistorialStockMongo.COLECCION);
+        } catch (DataAccessException e) {
+            // Otra instancia la creó al mismo tiempo
+            if (!mongoTemplate.collectionExists(HistorialStockMongo.COLECCION)) throw e;
+        }
+    }
+
+    // Búsqueda de productos sin el índice en memoria (ver BusquedaService). Sin idioma: ni raíces ni
+    // palabras vacías, los nombres se comparan palabra por palabra
+    private static IndexDefinition textoNombres(String campo, String nombre) {
+        return TextIndexDefinition.builder().onField(campo).withDefaultLanguage("none").named(nombre).build();
+    }
+
+    private Map<Class<?>, List<IndexDefinition>> esperados() {
+        FranquiciasProperties.Productos productos = properties.getProductos();
+        boolean enColeccion = "coleccion".equals(productos.getAlmacenamiento());
+
+        List<IndexDefinition> franquicias = new ArrayList<>(List.of(
+                new Index().on("nombre", Sort.Direction.ASC).named("nombre"),
+                new Index().on("sucursales._id", Sort.Direction.ASC).named("sucursales_id"),
+                // Disperso: solo las sucursales con umbral propio. El barrido de alertas pregunta en cada paso si hay alguno
+                new Index().on("sucursales.umbralStock", Sort.Direction.ASC).sparse().named("sucursales_umbral_stock")));
+        if (!enColeccion) {
+            franquicias.add(new Index().on("sucursales.productos._id", Sort.Direction.ASC).named("sucursales_productos_id"));
+            // Multikey: el reporte de stock bajo solo desarma las franquicias con algún producto bajo el umbral
+            franquicias.add(new Index().on("sucursales.productos.stock", Sort.Direction.ASC).named("sucursales_productos_stock"));
+            franquicias.add(textoNombres("sucursales.productos.nombre", "sucursales_productos_nombre_texto"));
+        }
+
+        Map<Class<?>, List<IndexDefinition>> esperados = new LinkedHashMap<>();
+        esperados.put(Franquicia.class, franquicias);
+        if (enColeccion || productos.getMigracion().isHabilitada()) {
+            List<IndexDefinition> coleccion = new ArrayList<>();
+            new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                    .resolveIndexFor(ProductoDocument.class)
+                    .forEach(coleccion::add);
+            coleccion.add(textoNombres("nombre", "nombre_texto"));
+            esperados.put(ProductoDocument.class, coleccion);
+        }
+        if (properties.getMovimientos().isHabilitado()) {
+            esperados.put(MovimientosHora.class, anotados(MovimientosHora.class));
+        }
+        if (properties.getProyeccion().isHabilitada()) {
+            esperados.put(MarcaProyeccion.class, anotados(MarcaProyeccion.class));
+            esperados.put(VistaSucursal.class, anotados(VistaSucursal.class));
+        }
+        return esperados;
+    }
+
+    // Los que declara la clase con @Indexed y @CompoundIndex
+    private List<IndexDefinition> anotados(Class<?> tipo) {
+        List<IndexDefinition> indices = new ArrayList<>();
+        new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(tipo)
+                .forEach(indices::add);
+        return indices;
+    }
+}
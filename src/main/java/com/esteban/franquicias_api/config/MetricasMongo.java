@@ -0,0 +1,130 @@
+package com.esteban.franquicias_api.config;
+
+import com.esteban.franquicias_api.model.Franquicia;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.BsonReader;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterConvertEvent;
+import org.springframework.util.function.SingletonSupplier;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+// Métricas del lado de Mongo. La latencia por comando ya la registra Spring Boot
+// (mongodb.driver.commands, MongoMetricsCommandListener); acá se suman los bytes de cada comando y
+// la cantidad de productos de los documentos de franquicia que se leen completos y el tamaño de una
+// muestra de ellos (franquicias.metricas.muestreo-documentos).
+@Configuration
+@ConditionalOnProperty(name = "franquicias.repositorio", havingValue = "mongo", matchIfMissing = true)
+public class MetricasMongo {
+
+    // Armar el codec crea su registro de codecs: se comparte entre llamadas
+    private static final DocumentCodec DOCUMENTOS = new DocumentCodec();
+    private static final BsonDocumentCodec BSON = new BsonDocumentCodec();
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer bytesComandosMongo(ObjectProvider<MeterRegistry> registry) {
+        BytesComandos listener = new BytesComandos(SingletonSupplier.of(registry::getObject));
+        return settings -> settings.addCommandListener(listener);
+    }
+
+    @Bean
+    public AbstractMongoEventListener<Franquicia> documentosFranquicia(MeterRegistry registry, FranquiciasProperties properties) {
+        double muestreo = properties.getMetricas().getMuestreoDocumentos();
+        DistributionSummary bytes = DistributionSummary.builder("franquicias.documento.bytes")
+                .description("Tamaño BSON de una muestra de los documentos de franquicia leídos completos")
+                .baseUnit("bytes")
+                .register(registry);
+        DistributionSummary productos = DistributionSummary.builder("franquicias.documento.productos")
+                .description("Productos embebidos por documento de franquicia leído")
+                .register(registry);
+
+        return new AbstractMongoEventListener<>() {
+            @Override
+            public void onAfterConvert(AfterConvertEvent<Franquicia> event) {
+                if (!esCompleto(event.getDocument())) return;
+                if (ThreadLocalRandom.current().nextDouble() < muestreo) {
+                    bytes.record(bytes(event.getDocument()));
+                }
+                productos.record(event.getSource().getSucursales().stream()
+                        .mapToInt(s -> s.getProductos() != null ? s.getProductos().size() : 0)
+                        .sum());
+            }
+        };
+    }
+
+    // Las proyecciones se leen con el mismo tipo; solo cuenta el documento con todos sus campos
+    static boolean esCompleto(Document documento) {
+        if (documento == null || !documento.containsKey("_id") || !documento.containsKey("nombre")) return false;
+        List<?> sucursales = documento.get("sucursales", List.class);
+        return sucursales == null || sucursales.stream().allMatch(s -> s instanceof Document d && d.containsKey("productos"));
+    }
+
+    static int bytes(Document documento) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        DOCUMENTOS.encode(new BsonBinaryWriter(buffer), documento, EncoderContext.builder().build());
+        return buffer.getSize();
+    }
+
+    // Los documentos que llegan del driver están en binario: el tamaño son sus primeros 4 bytes
+    static int bytes(BsonDocument documento) {
+        if (documento instanceof RawBsonDocument binario) return binario.getByteBuffer().remaining();
+        try (BsonReader reader = documento.asBsonReader()) {
+            if (reader instanceof BsonBinaryReader binario) {
+                return binario.getBsonInput().readInt32();
+            }
+        }
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        BSON.encode(new BsonBinaryWriter(buffer), documento, EncoderContext.builder().build());
+        return buffer.getSize();
+    }
+
+    static final class BytesComandos implements CommandListener {
+
+        private final Supplier<MeterRegistry> registry;
+        private final Map<String, DistributionSummary> resumenes = new ConcurrentHashMap<>();
+
+        BytesComandos(Supplier<MeterRegistry> registry) {
+            this.registry = registry;
+        }
+
+        @Override
+        public void commandStarted(CommandStartedEvent event) {
+            resumen(event.getCommandName(), "solicitud").record(bytes(event.getCommand()));
+        }
+
+        @Override
+        public void commandSucceeded(CommandSucceededEvent event) {
+            resumen(event.getCommandName(), "respuesta").record(bytes(event.getResponse()));
+        }
+
+        private DistributionSummary resumen(String comando, String direccion) {
+            return resumenes.computeIfAbsent(comando + ' ' + direccion, k -> DistributionSummary.builder("mongodb.driver.commands.bytes")
+                    .description("Bytes BSON enviados y recibidos por comando")
+                    .baseUnit("bytes")
+                    .tags("command", comando, "direccion", direccion)
+                    .register(registry.get()));
+        }
+    }
+}
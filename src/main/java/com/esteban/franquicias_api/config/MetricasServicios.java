@@ -0,0 +1,136 @@
+package com.esteban.franquicias_api.config;
+
+import com.esteban.franquicias_api.service.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.function.SingletonSupplier;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Timer franquicias.servicio por cada método de los servicios, con tags servicio, operacion, resultado
+// (exito | error) y excepcion. El conteo de llamadas sale del mismo timer (_count en Prometheus).
+// Se envuelve cada servicio en un proxy en lugar de usar @Timed para no depender de AspectJ.
+@Component
+public class MetricasServicios implements BeanPostProcessor {
+
+    public static final String METRICA = "franquicias.servicio";
+
+    private static final List<Class<?>> SERVICIOS = List.of(
+            FranquiciaService.class,
+            SucursalService.class,
+            ProductoService.class,
+            ImportacionService.class,
+            StockDiferidoService.class,
+            AnaliticaService.class,
+            BusquedaService.class,
+            ReactiveFranquiciaService.class,
+            ReactiveSucursalService.class,
+            ReactiveProductoService.class);
+
+    private final Supplier<MeterRegistry> registry;
+
+    public MetricasServicios(ObjectProvider<MeterRegistry> registry) {
+        // Los BeanPostProcessor se crean antes que el registro: se resuelve en la primera llamada
+        this.registry = SingletonSupplier.of(registry::getObject);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        return SERVICIOS.stream()
+                .filter(servicio -> servicio.isInstance(bean))
+                .findFirst()
+                .map(servicio -> instrumentar(bean, servicio, registry))
+                .orElse(bean);
+    }
+
+    static Object instrumentar(Object bean, Class<?> servicio, Supplier<MeterRegistry> registry) {
+        ProxyFactory proxy = new ProxyFactory(bean);
+        proxy.addAdvice(new Medicion(servicio.getSimpleName(), registry));
+        return proxy.getProxy();
+    }
+
+    private static final class Medicion implements MethodInterceptor {
+
+        private final String servicio;
+        private final Supplier<MeterRegistry> registry;
+
+        // Los timers de éxito se reutilizan: evita armar el Meter.Id en cada llamada
+        private final Map<Method, Timer> exitos = new ConcurrentHashMap<>();
+
+        Medicion(String servicio, Supplier<MeterRegistry> registry) {
+            this.servicio = servicio;
+            this.registry = registry;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Method metodo = invocation.getMethod();
+            if (metodo.getDeclaringClass() == Object.class) return invocation.proceed();
+
+            // En los servicios reactivos se mide desde la suscripción hasta que el publisher termina
+            if (Mono.class.isAssignableFrom(metodo.getReturnType())) {
+                return Mono.defer(() -> {
+                    Timer.Sample muestra = Timer.start(registry.get());
+                    return ((Mono<?>) proceder(invocation))
+                            .doOnSuccess(valor -> exito(muestra, metodo))
+                            .doOnError(e -> error(muestra, metodo, e));
+                });
+            }
+            if (Flux.class.isAssignableFrom(metodo.getReturnType())) {
+                return Flux.defer(() -> {
+                    Timer.Sample muestra = Timer.start(registry.get());
+                    return ((Flux<?>) proceder(invocation))
+                            .doOnComplete(() -> exito(muestra, metodo))
+                            .doOnError(e -> error(muestra, metodo, e));
+                });
+            }
+
+            Timer.Sample muestra = Timer.start(registry.get());
+            try {
+                Object resultado = invocation.proceed();
+                exito(muestra, metodo);
+                return resultado;
+            } catch (Throwable e) {
+                error(muestra, metodo, e);
+                throw e;
+            }
+        }
+
+        private void exito(Timer.Sample muestra, Method metodo) {
+            muestra.stop(exitos.computeIfAbsent(metodo, m -> timer(m, "exito", "none")));
+        }
+
+        private void error(Timer.Sample muestra, Method metodo, Throwable e) {
+            muestra.stop(timer(metodo, "error", e.getClass().getSimpleName()));
+        }
+
+        private Timer timer(Method metodo, String resultado, String excepcion) {
+            return Timer.builder(METRICA)
+                    .description("Duración de los métodos de los servicios")
+                    .tags("servicio", servicio, "operacion", metodo.getName(), "resultado", resultado, "excepcion", excepcion)
+                    .register(registry.get());
+        }
+
+        private static Object proceder(MethodInvocation invocation) {
+            try {
+                return invocation.proceed();
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.esteban.franquicias_api.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+// Modo memoria (franquicias.repositorio=memoria, perfil memoria): FranquiciaRepositoryEnMemoria en lugar
+// de Mongo, para pruebas de carga y perfilado sin un cluster. El perfil excluye la autoconfiguración de Mongo.
+@Configuration
+@ConditionalOnProperty(name = "franquicias.repositorio", havingValue = "memoria")
+public class ModoMemoriaConfig {
+
+    public ModoMemoriaConfig(FranquiciasProperties properties, Environment environment) {
+        if ("coleccion".equals(properties.getProductos().getAlmacenamiento())) {
+            throw new IllegalStateException("El modo memoria solo trabaja con productos embebidos "
+                    + "(franquicias.productos.almacenamiento=embebido)");
+        }
+        if ("reactive".equalsIgnoreCase(environment.getProperty("spring.main.web-application-type"))) {
+            throw new IllegalStateException("El modo memoria no tiene repositorio reactivo; usarlo sin el perfil reactive");
+        }
+    }
+}
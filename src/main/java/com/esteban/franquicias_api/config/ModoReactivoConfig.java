@@ -0,0 +1,26 @@
+package com.esteban.franquicias_api.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Modo reactivo (spring.main.web-application-type=reactive, perfil reactive): WebFlux sobre Netty con
+// el driver reactivo de Mongo. Los controladores bloqueantes no se registran en este modo.
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ModoReactivoConfig {
+
+    public ModoReactivoConfig(FranquiciasProperties properties) {
+        if ("coleccion".equals(properties.getProductos().getAlmacenamiento())) {
+            throw new IllegalStateException("El modo reactivo solo trabaja con productos embebidos "
+                    + "(franquicias.productos.almacenamiento=embebido)");
+        }
+    }
+
+    // Con spring-boot-starter-web en el classpath Boot elegiría Tomcat también para WebFlux
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
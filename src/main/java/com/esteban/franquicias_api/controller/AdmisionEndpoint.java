@@ -0,0 +1,54 @@
+package com.esteban.franquicias_api.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// /actuator/admision: límites por defecto y propios de cada franquicia, cambiables sin reiniciar.
+// Un POST cambia solo los campos enviados (concurrenciaMaxima, peticionesPorSegundo, rafaga)
+@Component
+@Endpoint(id = "admision")
+@RequiredArgsConstructor
+public class AdmisionEndpoint {
+
+    private final AdmisionFranquicias admision;
+
+    @ReadOperation
+    public Map<String, Object> estado() {
+        return Map.of("porDefecto", admision.porDefecto(), "franquicias", admision.propios());
+    }
+
+    @ReadOperation
+    public Map<String, Object> franquicia(@Selector String franquiciaId) {
+        return Map.of("franquiciaId", franquiciaId,
+                "limites", admision.limites(franquiciaId),
+                "propios", admision.propios().containsKey(franquiciaId),
+                "enCurso", admision.enCurso(franquiciaId));
+    }
+
+    @WriteOperation
+    public Map<String, Object> cambiarPorDefecto(@Nullable Integer concurrenciaMaxima, @Nullable Double peticionesPorSegundo,
+                                                 @Nullable Integer rafaga) {
+        admision.cambiarPorDefecto(admision.porDefecto().con(concurrenciaMaxima, peticionesPorSegundo, rafaga));
+        return estado();
+    }
+
+    @WriteOperation
+    public Map<String, Object> cambiar(@Selector String franquiciaId, @Nullable Integer concurrenciaMaxima,
+                                       @Nullable Double peticionesPorSegundo, @Nullable Integer rafaga) {
+        admision.cambiar(franquiciaId, admision.limites(franquiciaId).con(concurrenciaMaxima, peticionesPorSegundo, rafaga));
+        return franquicia(franquiciaId);
+    }
+
+    @DeleteOperation
+    public Map<String, Object> quitar(@Selector String franquiciaId) {
+        return Map.of("franquiciaId", franquiciaId, "quitados", admision.quitar(franquiciaId));
+    }
+}
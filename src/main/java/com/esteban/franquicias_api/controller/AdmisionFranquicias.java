@@ -0,0 +1,213 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.exception.BusinessException;
+import com.esteban.franquicias_api.exception.SobrecargaException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Control de admisión por franquicia: un máximo de peticiones en curso (bulkhead) y un límite de peticiones
+// por segundo con ráfaga, como un token bucket. El bucket se guarda como el instante teórico de la próxima
+// llegada (GCRA), así cada franquicia es un AtomicInteger y un AtomicLong y admitir es un compareAndSet, sin
+// candados. Lo que no entra se rechaza en el momento: esperar también ocuparía un hilo.
+// El id sale de la URL sin validar, así que los cupos viven en una caché acotada que olvida las franquicias
+// inactivas y se lleva con ellas sus métricas: ni el heap ni las series crecen con ids inventados.
+@Component
+class AdmisionFranquicias {
+
+    static final String CONCURRENCIA = "concurrencia";
+    static final String TASA = "tasa";
+
+    private final boolean habilitada;
+    private final MeterRegistry registry;
+    private final LongSupplier reloj;
+
+    private volatile Limites porDefecto;
+    private final ConcurrentMap<String, Limites> propios = new ConcurrentHashMap<>();
+    private final Cache<String, Cupo> cupos;
+
+    @Autowired
+    AdmisionFranquicias(FranquiciasProperties properties, MeterRegistry registry) {
+        this(properties, registry, System::nanoTime);
+    }
+
+    // Para las pruebas, con un reloj propio
+    AdmisionFranquicias(FranquiciasProperties properties, MeterRegistry registry, LongSupplier reloj) {
+        FranquiciasProperties.Admision config = properties.getAdmision();
+        this.habilitada = config.isHabilitada();
+        this.registry = registry;
+        this.reloj = reloj;
+        this.porDefecto = new Limites(config.getConcurrenciaMaxima(), config.getPeticionesPorSegundo(), config.getRafaga())
+                .validar();
+        this.cupos = Caffeine.newBuilder()
+                .maximumSize(config.getMaximoFranquicias())
+                .expireAfterAccess(config.getInactividad())
+                .ticker(reloj::getAsLong)
+                // Quitar las métricas es barato: se hace en el mismo hilo que desaloja
+                .executor(Runnable::run)
+                .<String, Cupo>removalListener((franquiciaId, cupo, causa) -> olvidar(franquiciaId, cupo, causa))
+                .build();
+    }
+
+    // Ocupa un lugar de la franquicia o lanza SobrecargaException. Lo devuelto libera ese lugar: es el mismo
+    // cupo aunque la caché lo haya desalojado mientras tanto
+    Runnable admitir(String franquiciaId) {
+        if (!habilitada) return () -> {
+        };
+        Limites limites = limites(franquiciaId);
+        Cupo cupo = cupos.get(franquiciaId, this::nuevoCupo);
+
+        if (!cupo.ocupar(limites.concurrenciaMaxima())) {
+            throw rechazo(franquiciaId, CONCURRENCIA, TimeUnit.SECONDS.toNanos(1),
+                    "La franquicia " + franquiciaId + " tiene " + limites.concurrenciaMaxima() + " peticiones en curso");
+        }
+        long espera = cupo.consumir(limites, reloj.getAsLong());
+        if (espera > 0) {
+            cupo.liberar();
+            throw rechazo(franquiciaId, TASA, espera,
+                    "La franquicia " + franquiciaId + " superó " + limites.peticionesPorSegundo() + " peticiones por segundo");
+        }
+        return cupo::liberar;
+    }
+
+    Limites limites(String franquiciaId) {
+        return propios.getOrDefault(franquiciaId, porDefecto);
+    }
+
+    Limites porDefecto() {
+        return porDefecto;
+    }
+
+    Map<String, Limites> propios() {
+        return Map.copyOf(propios);
+    }
+
+    int enCurso(String franquiciaId) {
+        Cupo cupo = cupos.getIfPresent(franquiciaId);
+        return cupo == null ? 0 : cupo.enCurso.get();
+    }
+
+    // Con límites nuevos el bucket empieza lleno: lo que se debía con los anteriores no cuenta
+    void cambiarPorDefecto(Limites limites) {
+        porDefecto = limites.validar();
+        cupos.asMap().forEach((franquiciaId, cupo) -> {
+            if (!propios.containsKey(franquiciaId)) cupo.llenar(reloj.getAsLong());
+        });
+    }
+
+    void cambiar(String franquiciaId, Limites limites) {
+        propios.put(franquiciaId, limites.validar());
+        llenar(franquiciaId);
+    }
+
+    // Vuelve a los límites por defecto
+    boolean quitar(String franquiciaId) {
+        boolean quitados = propios.remove(franquiciaId) != null;
+        llenar(franquiciaId);
+        return quitados;
+    }
+
+    private void llenar(String franquiciaId) {
+        Cupo cupo = cupos.getIfPresent(franquiciaId);
+        if (cupo != null) cupo.llenar(reloj.getAsLong());
+    }
+
+    private Cupo nuevoCupo(String franquiciaId) {
+        Cupo cupo = new Cupo(reloj.getAsLong());
+        cupo.gauge = Gauge.builder("franquicias.admision.en-curso", cupo.enCurso, AtomicInteger::get)
+                .description("Peticiones de la franquicia admitidas y sin terminar")
+                .tag("franquicia", franquiciaId)
+                .register(registry);
+        return cupo;
+    }
+
+    // Una franquicia que vuelve después de desalojada empieza con el bucket lleno y sus series de cero
+    private void olvidar(String franquiciaId, Cupo cupo, RemovalCause causa) {
+        if (franquiciaId == null || cupo == null || !causa.wasEvicted()) return;
+        registry.remove(cupo.gauge);
+        registry.find("franquicias.admision.rechazadas").tag("franquicia", franquiciaId).counters()
+                .forEach(registry::remove);
+    }
+
+    private SobrecargaException rechazo(String franquiciaId, String motivo, long esperaNanos, String mensaje) {
+        registry.counter("franquicias.admision.rechazadas", "franquicia", franquiciaId, "motivo", motivo).increment();
+        long segundos = Math.max(1, (esperaNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        return new SobrecargaException(mensaje, segundos);
+    }
+
+    // 0 en concurrenciaMaxima o en peticionesPorSegundo es sin límite
+    record Limites(int concurrenciaMaxima, double peticionesPorSegundo, int rafaga) {
+
+        // Cambia solo los valores no nulos
+        Limites con(Integer concurrenciaMaxima, Double peticionesPorSegundo, Integer rafaga) {
+            return new Limites(concurrenciaMaxima != null ? concurrenciaMaxima : this.concurrenciaMaxima,
+                    peticionesPorSegundo != null ? peticionesPorSegundo : this.peticionesPorSegundo,
+                    rafaga != null ? rafaga : this.rafaga);
+        }
+
+        Limites validar() {
+            if (concurrenciaMaxima < 0 || peticionesPorSegundo < 0 || Double.isNaN(peticionesPorSegundo)) {
+                throw new BusinessException("Los límites de admisión no pueden ser negativos");
+            }
+            if (peticionesPorSegundo > 0 && rafaga < 1) {
+                throw new BusinessException("La ráfaga debe ser de al menos 1 petición");
+            }
+            return this;
+        }
+    }
+
+    private static final class Cupo {
+
+        final AtomicInteger enCurso = new AtomicInteger();
+        Gauge gauge;
+        // Instante (nanoTime) en que el bucket vuelve a estar lleno
+        final AtomicLong llegadaTeorica;
+
+        Cupo(long ahora) {
+            this.llegadaTeorica = new AtomicLong(ahora);
+        }
+
+        boolean ocupar(int maximo) {
+            while (true) {
+                int actual = enCurso.get();
+                if (maximo > 0 && actual >= maximo) return false;
+                if (enCurso.compareAndSet(actual, actual + 1)) return true;
+            }
+        }
+
+        void liberar() {
+            enCurso.decrementAndGet();
+        }
+
+        void llenar(long ahora) {
+            llegadaTeorica.set(ahora);
+        }
+
+        // Nanos que faltan para que haya lugar, o 0 si la petición entra y ya se descontó
+        long consumir(Limites limites, long ahora) {
+            if (limites.peticionesPorSegundo() <= 0) return 0;
+            long intervalo = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / limites.peticionesPorSegundo()));
+            long tolerancia = intervalo * (limites.rafaga() - 1);
+            while (true) {
+                long teorica = llegadaTeorica.get();
+                long desde = teorica - ahora > 0 ? teorica : ahora;
+                long adelanto = desde - ahora;
+                if (adelanto > tolerancia) return adelanto - tolerancia;
+                if (llegadaTeorica.compareAndSet(teorica, desde + intervalo)) return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.esteban.franquicias_api.controller;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Map;
+
+// Aplica AdmisionFranquicias a las rutas de una franquicia: FranquiciaController la llama {id} y el resto
+// {franquiciaId}. Una SSE o un catálogo en streaming liberan su lugar al pasar a asíncronos
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+class AdmisionInterceptor implements AsyncHandlerInterceptor, WebMvcConfigurer {
+
+    private static final String ADMITIDA = AdmisionInterceptor.class.getName() + ".liberar";
+
+    private final AdmisionFranquicias admision;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this).addPathPatterns("/api/franquicias/*/**");
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // El reenvío de una petición asíncrona ya pasó por aquí
+        if (request.getDispatcherType() != DispatcherType.REQUEST) return true;
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (variables == null) return true;
+        String franquiciaId = variables.getOrDefault("franquiciaId", variables.get("id"));
+        if (franquiciaId == null) return true;
+
+        request.setAttribute(ADMITIDA, admision.admitir(franquiciaId));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        liberar(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        liberar(request);
+    }
+
+    private void liberar(HttpServletRequest request) {
+        Object liberar = request.getAttribute(ADMITIDA);
+        if (liberar != null) {
+            request.removeAttribute(ADMITIDA);
+            ((Runnable) liberar).run();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.dto.AlertaStockDTO;
+import com.esteban.franquicias_api.index.AlertasStockBajo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/alertas")
+@RequiredArgsConstructor
+public class AlertasController {
+
+    private final AlertasStockBajo alertas;
+
+    // Alertas abiertas en esta instancia, una por producto; con franquiciaId solo las de esa franquicia
+    @GetMapping("/stock-bajo")
+    public List<AlertaStockDTO> stockBajo(@RequestParam(required = false) String franquiciaId) {
+        return alertas.abiertas(franquiciaId);
+    }
+}
@@ -0,0 +1,48 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.dto.LineaCatalogoDTO;
+import com.esteban.franquicias_api.dto.TotalesFranquiciaDTO;
+import com.esteban.franquicias_api.service.AnaliticaService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+
+// Reportes sobre todas las franquicias; la siguiente página va en el encabezado Link
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/analitica")
+@RequiredArgsConstructor
+public class AnaliticaController {
+
+    private final AnaliticaService analiticaService;
+
+    @GetMapping("/productos/mayor-stock")
+    public ResponseEntity<List<LineaCatalogoDTO>> productosConMasStock(@RequestParam(required = false) String despues,
+                                                                       @RequestParam(required = false) Integer limite) {
+        return EnlacesPagina.respuesta(analiticaService.productosConMasStock(despues, limite),
+                ServletUriComponentsBuilder.fromCurrentRequest());
+    }
+
+    @GetMapping("/productos/stock-bajo")
+    public ResponseEntity<List<LineaCatalogoDTO>> productosConStockBajo(@RequestParam(required = false) Integer umbral,
+                                                                        @RequestParam(required = false) String despues,
+                                                                        @RequestParam(required = false) Integer limite) {
+        return EnlacesPagina.respuesta(analiticaService.productosConStockBajo(umbral, despues, limite),
+                ServletUriComponentsBuilder.fromCurrentRequest());
+    }
+
+    // Sucursales, productos y stock total de cada franquicia, ordenadas por id
+    @GetMapping("/franquicias/totales")
+    public ResponseEntity<List<TotalesFranquiciaDTO>> totalesPorFranquicia(@RequestParam(required = false) String despues,
+                                                                           @RequestParam(required = false) Integer limite) {
+        return EnlacesPagina.respuesta(analiticaService.totalesPorFranquicia(despues, limite),
+                ServletUriComponentsBuilder.fromCurrentRequest());
+    }
+}
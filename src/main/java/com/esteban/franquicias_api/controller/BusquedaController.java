@@ -0,0 +1,34 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.dto.ProductoEncontradoDTO;
+import com.esteban.franquicias_api.service.BusquedaService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/busqueda")
+@RequiredArgsConstructor
+public class BusquedaController {
+
+    private final BusquedaService busquedaService;
+
+    // Productos por nombre, de todas las franquicias o de una; la siguiente página va en el encabezado Link
+    @GetMapping("/productos")
+    public ResponseEntity<List<ProductoEncontradoDTO>> buscarProductos(@RequestParam(required = false) String texto,
+                                                                       @RequestParam(required = false) String franquiciaId,
+                                                                       @RequestParam(required = false) String modo,
+                                                                       @RequestParam(required = false) String despues,
+                                                                       @RequestParam(required = false) Integer limite) {
+        return EnlacesPagina.respuesta(busquedaService.buscarProductos(texto, franquiciaId, modo, despues, limite),
+                ServletUriComponentsBuilder.fromCurrentRequest());
+    }
+}
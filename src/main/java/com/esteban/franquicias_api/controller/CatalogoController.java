@@ -0,0 +1,72 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.dto.LineaCatalogoDTO;
+import com.esteban.franquicias_api.dto.ResultadoImportacionDTO;
+import com.esteban.franquicias_api.service.ImportacionService;
+import com.esteban.franquicias_api.service.ProductoService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/catalogo")
+@RequiredArgsConstructor
+public class CatalogoController {
+
+    static final String TEXT_CSV = "text/csv";
+
+    // CSV con encabezado; las columnas se asocian por nombre y las desconocidas se ignoran
+    private static final ObjectReader CSV = CsvMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build()
+            .readerFor(LineaCatalogoDTO.class)
+            .with(CsvSchema.emptySchema().withHeader());
+
+    private final ProductoService productoService;
+    private final ImportacionService importacionService;
+    private final ObjectMapper objectMapper;
+
+    // Todo el catálogo en NDJSON, un producto por línea. Cada línea se escribe apenas llega del cursor
+    // de Mongo, así que la memoria usada no depende del tamaño del catálogo
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportar(HttpServletResponse respuesta) throws IOException {
+        respuesta.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        try (Stream<LineaCatalogoDTO> lineas = productoService.catalogo();
+             JsonGenerator json = objectMapper.createGenerator(respuesta.getOutputStream())) {
+            for (Iterator<LineaCatalogoDTO> it = lineas.iterator(); it.hasNext(); ) {
+                json.writeObject(it.next());
+                json.writeRaw('\n');
+            }
+        }
+    }
+
+    // Crea franquicias nuevas a partir de un catálogo en NDJSON (mismo formato que la exportación) o en
+    // CSV con las columnas franquicia,sucursal,producto,stock. Los ids que vengan se ignoran. El cuerpo
+    // se lee en streaming y se escribe por lotes; los errores de cada fila vuelven en la respuesta
+    @PostMapping(consumes = {MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV})
+    public ResultadoImportacionDTO importar(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType tipo,
+                                            InputStream cuerpo) throws IOException {
+        ObjectReader lector = MediaType.parseMediaType(TEXT_CSV).includes(tipo)
+                ? CSV
+                : objectMapper.readerFor(LineaCatalogoDTO.class);
+        try (MappingIterator<LineaCatalogoDTO> filas = lector.readValues(cuerpo)) {
+            return importacionService.importarCatalogo(new FilasCatalogo(filas));
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.dto.PaginaDTO;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Los listados paginados responden un arreglo JSON, igual que los demás; la siguiente página va en el
+// encabezado Link (rel="next") con la misma URL y "despues" apuntando al último id devuelto
+final class EnlacesPagina {
+
+    private EnlacesPagina() {
+    }
+
+    static <T> ResponseEntity<List<T>> respuesta(PaginaDTO<T> pagina, UriComponentsBuilder actual) {
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+        if (pagina.siguiente() != null) {
+            String siguiente = actual
+                    .replaceQueryParam("despues", UriUtils.encodeQueryParam(pagina.siguiente(), StandardCharsets.UTF_8))
+                    .build(true)
+                    .toUriString();
+            respuesta.header(HttpHeaders.LINK, "<" + siguiente + ">; rel=\"next\"");
+        }
+        return respuesta.body(pagina.elementos());
+    }
+}
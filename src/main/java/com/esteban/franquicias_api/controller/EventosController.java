@@ -0,0 +1,40 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.event.BusEventosFranquicia;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/franquicias/{franquiciaId}")
+@RequiredArgsConstructor
+public class EventosController {
+
+    private final BusEventosFranquicia bus;
+    private final FranquiciasProperties properties;
+
+    // Cambios de la franquicia hechos por esta instancia desde que se abre la conexión; el nombre de cada
+    // evento SSE es su tipo. Un cliente desconectado por lento debe volver a leer lo que le interese.
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter eventos(@PathVariable String franquiciaId) throws IOException {
+        SseEmitter emitter = new SseEmitter(properties.getEventos().getTimeout().toMillis());
+        BusEventosFranquicia.Suscripcion suscripcion = bus.suscribir(franquiciaId,
+                evento -> emitter.send(SseEmitter.event().name(evento.getTipo()).data(evento, MediaType.APPLICATION_JSON)),
+                emitter::complete);
+        emitter.onCompletion(suscripcion::cancelar);
+        emitter.onTimeout(suscripcion::cancelar);
+        emitter.onError(e -> suscripcion.cancelar());
+        // Sin un primer envío la respuesta no se confirma y el cliente no sabe que ya está suscrito
+        emitter.send(SseEmitter.event().comment("suscrito"));
+        return emitter;
+    }
+}
@@ -0,0 +1,65 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.dto.LineaCatalogoDTO;
+import com.esteban.franquicias_api.exception.BusinessException;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Filas del catálogo leídas en streaming para ImportacionService. Una fila con un valor inválido
+// se informa como BusinessException y se sigue con la próxima; un error de sintaxis también se
+// informa, pero termina la lectura porque no se sabe dónde empieza la fila siguiente.
+final class FilasCatalogo implements Iterator<LineaCatalogoDTO> {
+
+    private final MappingIterator<LineaCatalogoDTO> filas;
+    private BusinessException errorPendiente;
+    private boolean terminado;
+
+    FilasCatalogo(MappingIterator<LineaCatalogoDTO> filas) {
+        this.filas = filas;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (errorPendiente != null) return true;
+        if (terminado) return false;
+        try {
+            return filas.hasNextValue();
+        } catch (JsonParseException e) {
+            terminado = true;
+            errorPendiente = ilegible(e);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public LineaCatalogoDTO next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        if (errorPendiente != null) {
+            BusinessException error = errorPendiente;
+            errorPendiente = null;
+            throw error;
+        }
+        try {
+            return filas.nextValue();
+        } catch (JsonParseException e) {
+            terminado = true;
+            throw ilegible(e);
+        } catch (JsonMappingException e) {
+            throw new BusinessException("Fila inválida: " + e.getOriginalMessage(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static BusinessException ilegible(JsonParseException e) {
+        return new BusinessException("Fila ilegible, no se leyó el resto del archivo: " + e.getOriginalMessage(), e);
+    }
+}
@@ -5,18 +5,33 @@ import com.esteban.franquicias_api.dto.ProductoDTO;
 import com.esteban.franquicias_api.model.*;
 import com.esteban.franquicias_api.service.FranquiciaService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.util.List;
 import java.util.Map;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/franquicias")
 @RequiredArgsConstructor
 public class FranquiciaController {
 
     private final FranquiciaService franquiciaService;
+    private final VersionesFranquicia versiones;
+
+    // Paginación por keyset: solo id y nombre, ordenadas por id; la siguiente página va en el encabezado Link
+    @GetMapping
+    public ResponseEntity<List<FranquiciaDTO>> listarFranquicias(@RequestParam(required = false) String despues,
+                                                                 @RequestParam(required = false) Integer limite) {
+        return EnlacesPagina.respuesta(franquiciaService.listarFranquicias(despues, limite),
+                ServletUriComponentsBuilder.fromCurrentRequest());
+    }
 
     @PostMapping
     public FranquiciaDTO crearFranquicia(@RequestBody FranquiciaDTO franquicia) {
@@ -24,14 +39,16 @@ public class FranquiciaController {
     }
 
     @PutMapping("/{id}")
-    public FranquiciaDTO actualizarNombre(@PathVariable String id, @RequestBody Map<String, String> body) {
+    public FranquiciaDTO actualizarNombre(@PathVariable String id, @RequestBody Map<String, String> body,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         String nuevoNombre = body.get("nuevoNombre");
-        return franquiciaService.actualizarNombreFranquicia(id, nuevoNombre);
+        return versiones.escribir(id, ifMatch, () -> franquiciaService.actualizarNombreFranquicia(id, nuevoNombre));
     }
 
+    // Con If-None-Match igual a la versión actual responde 304 sin consultar el índice ni Mongo
     @GetMapping("/{id}/productos/top-stock")
-    public List<ProductoDTO> obtenerProductosConMasStock(@PathVariable String id) {
-        return franquiciaService.obtenerProductosConMasStock(id);
+    public List<ProductoDTO> obtenerProductosConMasStock(@PathVariable String id, ServletWebRequest request) {
+        return versiones.leer(id, request, () -> franquiciaService.obtenerProductosConMasStock(id));
     }
 }
 
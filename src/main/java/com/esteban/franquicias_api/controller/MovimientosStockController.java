@@ -0,0 +1,44 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.dto.ResumenMovimientosDTO;
+import com.esteban.franquicias_api.service.MovimientosStockService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// Resúmenes del historial de stock por hora o por día; no leen la colección de franquicias
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/franquicias/{franquiciaId}")
+@RequiredArgsConstructor
+public class MovimientosStockController {
+
+    private final MovimientosStockService movimientosStockService;
+
+    @GetMapping("/movimientos")
+    public List<ResumenMovimientosDTO> deFranquicia(@PathVariable String franquiciaId,
+                                                    @RequestParam(required = false) String granularidad,
+                                                    @RequestParam(required = false) String desde,
+                                                    @RequestParam(required = false) String hasta) {
+        return movimientosStockService.resumen(franquiciaId, null, null, granularidad, desde, hasta);
+    }
+
+    @GetMapping("/sucursales/{sucursalId}/movimientos")
+    public List<ResumenMovimientosDTO> deSucursal(@PathVariable String franquiciaId, @PathVariable String sucursalId,
+                                                  @RequestParam(required = false) String granularidad,
+                                                  @RequestParam(required = false) String desde,
+                                                  @RequestParam(required = false) String hasta) {
+        return movimientosStockService.resumen(franquiciaId, sucursalId, null, granularidad, desde, hasta);
+    }
+
+    @GetMapping("/sucursales/{sucursalId}/productos/{productoId}/movimientos")
+    public List<ResumenMovimientosDTO> deProducto(@PathVariable String franquiciaId, @PathVariable String sucursalId,
+                                                  @PathVariable String productoId,
+                                                  @RequestParam(required = false) String granularidad,
+                                                  @RequestParam(required = false) String desde,
+                                                  @RequestParam(required = false) String hasta) {
+        return movimientosStockService.resumen(franquiciaId, sucursalId, productoId, granularidad, desde, hasta);
+    }
+}
@@ -2,49 +2,102 @@ package com.esteban.franquicias_api.controller;
 
 import com.esteban.franquicias_api.dto.ProductoDTO;
 import com.esteban.franquicias_api.service.ProductoService;
+import com.esteban.franquicias_api.service.StockDiferidoService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/franquicias/{franquiciaId}/sucursales/{sucursalId}/productos")
 @RequiredArgsConstructor
 public class ProductoController {
 
     private final ProductoService productoService;
+    private final StockDiferidoService stockDiferidoService;
+    private final VersionesFranquicia versiones;
 
     @PostMapping
     public ProductoDTO crearProducto(@PathVariable String franquiciaId,
                                      @PathVariable String sucursalId,
-                                     @RequestBody ProductoDTO productoDTO) {
-        return productoService.agregarProducto(franquiciaId, sucursalId, productoDTO);
+                                     @RequestBody ProductoDTO productoDTO,
+                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return versiones.escribir(franquiciaId, ifMatch,
+                () -> productoService.agregarProducto(franquiciaId, sucursalId, productoDTO));
+    }
+
+    // Sin "despues" ni "limite" devuelve todos los productos en el orden de la sucursal, como siempre;
+    // con alguno de los dos pagina por keyset sobre el id (ver FranquiciaController#listarFranquicias)
+    @GetMapping
+    public ResponseEntity<List<ProductoDTO>> listarProductos(@PathVariable String franquiciaId,
+                                                             @PathVariable String sucursalId,
+                                                             @RequestParam(required = false) String despues,
+                                                             @RequestParam(required = false) Integer limite,
+                                                             ServletWebRequest request) {
+        return versiones.leer(franquiciaId, request, () -> {
+            if (despues == null && limite == null) {
+                return ResponseEntity.ok(productoService.obtenerProductos(franquiciaId, sucursalId));
+            }
+            return EnlacesPagina.respuesta(productoService.listarProductos(franquiciaId, sucursalId, despues, limite),
+                    ServletUriComponentsBuilder.fromCurrentRequest());
+        });
+    }
+
+    @GetMapping("/{productoId}")
+    public ProductoDTO obtenerProducto(@PathVariable String franquiciaId,
+                                       @PathVariable String sucursalId,
+                                       @PathVariable String productoId,
+                                       ServletWebRequest request) {
+        return versiones.leer(franquiciaId, request, () -> productoService.obtenerProducto(franquiciaId, sucursalId, productoId));
     }
 
     @PutMapping("/{productoId}")
     public ProductoDTO actualizarNombre(@PathVariable String franquiciaId,
                                         @PathVariable String sucursalId,
                                         @PathVariable String productoId,
-                                        @RequestBody Map<String, String> body) {
+                                        @RequestBody Map<String, String> body,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         String nuevoNombre = body.get("nuevoNombre");
-        return productoService.actualizarNombreProducto(franquiciaId, sucursalId, productoId, nuevoNombre);
+        return versiones.escribir(franquiciaId, ifMatch,
+                () -> productoService.actualizarNombreProducto(franquiciaId, sucursalId, productoId, nuevoNombre));
     }
 
     @PutMapping("/{productoId}/stock")
     public ProductoDTO actualizarStock(@PathVariable String franquiciaId,
                                        @PathVariable String sucursalId,
                                        @PathVariable String productoId,
-                                       @RequestBody Map<String, Integer> body) {
+                                       @RequestBody Map<String, Integer> body,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         int nuevoStock = body.getOrDefault("nuevoStock", 0);
-        return productoService.actualizarStock(franquiciaId, sucursalId, productoId, nuevoStock);
+        return versiones.escribir(franquiciaId, ifMatch,
+                () -> productoService.actualizarStock(franquiciaId, sucursalId, productoId, nuevoStock));
+    }
+
+    // Venta (delta negativo) o reposición relativa: responde 202 y se escribe en Mongo en el próximo vaciado
+    // del stock diferido, junto con los demás cambios del mismo producto
+    @PostMapping("/{productoId}/stock/delta")
+    public ResponseEntity<Map<String, Integer>> acumularStock(@PathVariable String franquiciaId,
+                                                              @PathVariable String sucursalId,
+                                                              @PathVariable String productoId,
+                                                              @RequestBody Map<String, Integer> body) {
+        int pendiente = stockDiferidoService.acumular(franquiciaId, sucursalId, productoId, body.get("delta"));
+        return ResponseEntity.accepted().body(Map.of("pendiente", pendiente));
     }
 
     @DeleteMapping("/{productoId}")
     public ResponseEntity<?> eliminarProducto(@PathVariable String franquiciaId,
                                               @PathVariable String sucursalId,
-                                              @PathVariable String productoId) {
-        boolean eliminado = productoService.eliminarProducto(franquiciaId, sucursalId, productoId);
+                                              @PathVariable String productoId,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        boolean eliminado = versiones.escribir(franquiciaId, ifMatch,
+                () -> productoService.eliminarProducto(franquiciaId, sucursalId, productoId));
         return eliminado
                 ? ResponseEntity.ok(Map.of("mensaje", "Producto eliminado correctamente"))
                 : ResponseEntity.status(404).body(Map.of("error", "Producto no encontrado"));
@@ -0,0 +1,43 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.repository.PendientesProyeccion;
+import com.esteban.franquicias_api.service.VistaSucursalesService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+// /actuator/proyeccion: sucursales pendientes de pasar a la vista y desde cuándo. Un POST marca todas las
+// sucursales para reconstruir la vista; sigue respondiendo mientras se pone al día
+@Component
+@ConditionalOnProperty(prefix = "franquicias.proyeccion", name = "habilitada", havingValue = "true")
+@Endpoint(id = "proyeccion")
+@RequiredArgsConstructor
+public class ProyeccionEndpoint {
+
+    private final PendientesProyeccion pendientes;
+    private final VistaSucursalesService vistaSucursalesService;
+
+    @ReadOperation
+    public Map<String, Object> estado() {
+        Optional<Instant> masAntigua = pendientes.masAntigua();
+        Map<String, Object> estado = new LinkedHashMap<>();
+        estado.put("pendientes", pendientes.cantidad());
+        estado.put("masAntigua", masAntigua.orElse(null));
+        estado.put("retrasoSegundos", masAntigua.map(desde -> Duration.between(desde, Instant.now()).toMillis() / 1000.0).orElse(0.0));
+        return estado;
+    }
+
+    @WriteOperation
+    public Map<String, Object> reconstruir() {
+        return Map.of("marcadas", vistaSucursalesService.reconstruir());
+    }
+}
@@ -0,0 +1,27 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.dto.LineaCatalogoDTO;
+import com.esteban.franquicias_api.service.ReactiveProductoService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+// Misma ruta que CatalogoController para el modo reactivo (perfil reactive); WebFlux escribe cada
+// elemento del Flux como una línea y pide más al cursor solo a medida que la respuesta avanza
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/catalogo")
+@RequiredArgsConstructor
+public class ReactiveCatalogoController {
+
+    private final ReactiveProductoService productoService;
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<LineaCatalogoDTO> exportar() {
+        return productoService.catalogo();
+    }
+}
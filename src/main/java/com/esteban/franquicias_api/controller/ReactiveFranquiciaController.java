@@ -0,0 +1,48 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.dto.FranquiciaDTO;
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.service.ReactiveFranquiciaService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+// Mismas rutas que FranquiciaController para el modo reactivo (perfil reactive)
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/franquicias")
+@RequiredArgsConstructor
+public class ReactiveFranquiciaController {
+
+    private final ReactiveFranquiciaService franquiciaService;
+
+    @GetMapping
+    public Mono<ResponseEntity<List<FranquiciaDTO>>> listarFranquicias(@RequestParam(required = false) String despues,
+                                                                       @RequestParam(required = false) Integer limite,
+                                                                       ServerHttpRequest request) {
+        return franquiciaService.listarFranquicias(despues, limite)
+                .map(pagina -> EnlacesPagina.respuesta(pagina, UriComponentsBuilder.fromUri(request.getURI())));
+    }
+
+    @PostMapping
+    public Mono<FranquiciaDTO> crearFranquicia(@RequestBody FranquiciaDTO franquicia) {
+        return franquiciaService.crearFranquicia(franquicia);
+    }
+
+    @PutMapping("/{id}")
+    public Mono<FranquiciaDTO> actualizarNombre(@PathVariable String id, @RequestBody Map<String, String> body) {
+        return franquiciaService.actualizarNombreFranquicia(id, body.get("nuevoNombre"));
+    }
+
+    @GetMapping("/{id}/productos/top-stock")
+    public Mono<List<ProductoDTO>> obtenerProductosConMasStock(@PathVariable String id) {
+        return franquiciaService.obtenerProductosConMasStock(id);
+    }
+}
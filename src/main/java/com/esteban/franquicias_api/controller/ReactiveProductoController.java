@@ -0,0 +1,78 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.service.ReactiveProductoService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+// Mismas rutas que ProductoController para el modo reactivo (perfil reactive)
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/franquicias/{franquiciaId}/sucursales/{sucursalId}/productos")
+@RequiredArgsConstructor
+public class ReactiveProductoController {
+
+    private final ReactiveProductoService productoService;
+
+    @PostMapping
+    public Mono<ProductoDTO> crearProducto(@PathVariable String franquiciaId,
+                                           @PathVariable String sucursalId,
+                                           @RequestBody ProductoDTO productoDTO) {
+        return productoService.agregarProducto(franquiciaId, sucursalId, productoDTO);
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<List<ProductoDTO>>> listarProductos(@PathVariable String franquiciaId,
+                                                                   @PathVariable String sucursalId,
+                                                                   @RequestParam(required = false) String despues,
+                                                                   @RequestParam(required = false) Integer limite,
+                                                                   ServerHttpRequest request) {
+        if (despues == null && limite == null) {
+            return productoService.obtenerProductos(franquiciaId, sucursalId).collectList().map(ResponseEntity::ok);
+        }
+        return productoService.listarProductos(franquiciaId, sucursalId, despues, limite)
+                .map(pagina -> EnlacesPagina.respuesta(pagina, UriComponentsBuilder.fromUri(request.getURI())));
+    }
+
+    @GetMapping("/{productoId}")
+    public Mono<ProductoDTO> obtenerProducto(@PathVariable String franquiciaId,
+                                             @PathVariable String sucursalId,
+                                             @PathVariable String productoId) {
+        return productoService.obtenerProducto(franquiciaId, sucursalId, productoId);
+    }
+
+    @PutMapping("/{productoId}")
+    public Mono<ProductoDTO> actualizarNombre(@PathVariable String franquiciaId,
+                                              @PathVariable String sucursalId,
+                                              @PathVariable String productoId,
+                                              @RequestBody Map<String, String> body) {
+        return productoService.actualizarNombreProducto(franquiciaId, sucursalId, productoId, body.get("nuevoNombre"));
+    }
+
+    @PutMapping("/{productoId}/stock")
+    public Mono<ProductoDTO> actualizarStock(@PathVariable String franquiciaId,
+                                             @PathVariable String sucursalId,
+                                             @PathVariable String productoId,
+                                             @RequestBody Map<String, Integer> body) {
+        return productoService.actualizarStock(franquiciaId, sucursalId, productoId, body.getOrDefault("nuevoStock", 0));
+    }
+
+    @DeleteMapping("/{productoId}")
+    public Mono<ResponseEntity<?>> eliminarProducto(@PathVariable String franquiciaId,
+                                                    @PathVariable String sucursalId,
+                                                    @PathVariable String productoId) {
+        return productoService.eliminarProducto(franquiciaId, sucursalId, productoId)
+                .map(eliminado -> eliminado
+                        ? ResponseEntity.ok(Map.of("mensaje", "Producto eliminado correctamente"))
+                        : ResponseEntity.status(404).body(Map.of("error", "Producto no encontrado")));
+    }
+}
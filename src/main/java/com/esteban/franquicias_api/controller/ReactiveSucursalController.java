@@ -0,0 +1,50 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.dto.SucursalDTO;
+import com.esteban.franquicias_api.model.Sucursal;
+import com.esteban.franquicias_api.service.ReactiveSucursalService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+// Mismas rutas que SucursalController para el modo reactivo (perfil reactive)
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/franquicias/{franquiciaId}/sucursales")
+@RequiredArgsConstructor
+public class ReactiveSucursalController {
+
+    private final ReactiveSucursalService sucursalService;
+
+    @PostMapping
+    public Mono<SucursalDTO> crearSucursal(@PathVariable String franquiciaId, @RequestBody SucursalDTO sucursal) {
+        return sucursalService.agregarSucursal(franquiciaId, sucursal);
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<List<SucursalDTO>>> listarSucursales(@PathVariable String franquiciaId,
+                                                                    @RequestParam(required = false) String despues,
+                                                                    @RequestParam(required = false) Integer limite,
+                                                                    ServerHttpRequest request) {
+        return sucursalService.listarSucursales(franquiciaId, despues, limite)
+                .map(pagina -> EnlacesPagina.respuesta(pagina, UriComponentsBuilder.fromUri(request.getURI())));
+    }
+
+    @GetMapping("/{sucursalId}")
+    public Mono<SucursalDTO> obtenerSucursal(@PathVariable String franquiciaId, @PathVariable String sucursalId) {
+        return sucursalService.obtenerSucursal(franquiciaId, sucursalId);
+    }
+
+    @PutMapping("/{sucursalId}")
+    public Mono<SucursalDTO> actualizarNombre(@PathVariable String franquiciaId,
+                                              @PathVariable String sucursalId,
+                                              @RequestBody Sucursal sucursalActualizada) {
+        return sucursalService.actualizarNombreSucursal(franquiciaId, sucursalId, sucursalActualizada.getNombre());
+    }
+}
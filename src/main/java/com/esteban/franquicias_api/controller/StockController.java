@@ -0,0 +1,47 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.dto.ActualizacionStockDTO;
+import com.esteban.franquicias_api.dto.ResultadoLoteStockDTO;
+import com.esteban.franquicias_api.exception.BusinessException;
+import com.esteban.franquicias_api.service.ProductoService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/franquicias/{franquiciaId}")
+@RequiredArgsConstructor
+public class StockController {
+
+    private final ProductoService productoService;
+    private final ObjectMapper objectMapper;
+    private final VersionesFranquicia versiones;
+
+    // Acepta un arreglo JSON o NDJSON (una actualización por línea); en ambos casos el cuerpo se lee en streaming
+    @PutMapping(value = "/stock:batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResultadoLoteStockDTO actualizarStockEnLote(@PathVariable String franquiciaId, InputStream cuerpo,
+                                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) throws IOException {
+        try (MappingIterator<ActualizacionStockDTO> actualizaciones =
+                     objectMapper.readerFor(ActualizacionStockDTO.class).readValues(cuerpo)) {
+            return versiones.escribir(franquiciaId, ifMatch, () -> productoService.actualizarStockEnLote(franquiciaId, actualizaciones));
+        } catch (JsonProcessingException | RuntimeJsonMappingException e) {
+            throw new BusinessException("El lote contiene una entrada inválida", e);
+        } catch (RuntimeException e) {
+            // MappingIterator envuelve los errores de sintaxis en una RuntimeException genérica
+            if (e.getCause() instanceof JsonProcessingException) {
+                throw new BusinessException("El lote contiene una entrada inválida", e);
+            }
+            throw e;
+        }
+    }
+}
@@ -4,28 +4,65 @@ import com.esteban.franquicias_api.dto.SucursalDTO;
 import com.esteban.franquicias_api.model.Sucursal;
 import com.esteban.franquicias_api.service.SucursalService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/franquicias/{franquiciaId}/sucursales")
 @RequiredArgsConstructor
 public class SucursalController {
 
     private final SucursalService sucursalService;
+    private final VersionesFranquicia versiones;
 
     @PostMapping
-    public SucursalDTO crearSucursal(@PathVariable String franquiciaId, @RequestBody SucursalDTO sucursal) {
-        return sucursalService.agregarSucursal(franquiciaId, sucursal);
+    public SucursalDTO crearSucursal(@PathVariable String franquiciaId, @RequestBody SucursalDTO sucursal,
+                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return versiones.escribir(franquiciaId, ifMatch, () -> sucursalService.agregarSucursal(franquiciaId, sucursal));
+    }
+
+    // Sucursales sin productos, paginadas por keyset sobre el id (ver FranquiciaController#listarFranquicias)
+    @GetMapping
+    public ResponseEntity<List<SucursalDTO>> listarSucursales(@PathVariable String franquiciaId,
+                                                              @RequestParam(required = false) String despues,
+                                                              @RequestParam(required = false) Integer limite,
+                                                              ServletWebRequest request) {
+        return versiones.leer(franquiciaId, request, () -> EnlacesPagina.respuesta(
+                sucursalService.listarSucursales(franquiciaId, despues, limite), ServletUriComponentsBuilder.fromCurrentRequest()));
+    }
+
+    @GetMapping("/{sucursalId}")
+    public SucursalDTO obtenerSucursal(@PathVariable String franquiciaId, @PathVariable String sucursalId,
+                                       ServletWebRequest request) {
+        return versiones.leer(franquiciaId, request, () -> sucursalService.obtenerSucursal(franquiciaId, sucursalId));
     }
 
     @PutMapping("/{sucursalId}")
     public SucursalDTO actualizarNombre(
             @PathVariable String franquiciaId,
             @PathVariable String sucursalId,
-            @RequestBody Sucursal sucursalActualizada) {
-        return sucursalService.actualizarNombreSucursal(franquiciaId, sucursalId, sucursalActualizada.getNombre());
+            @RequestBody Sucursal sucursalActualizada,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return versiones.escribir(franquiciaId, ifMatch,
+                () -> sucursalService.actualizarNombreSucursal(franquiciaId, sucursalId, sucursalActualizada.getNombre()));
+    }
+
+    // {"umbral": 5}: alerta cuando un producto de la sucursal queda con menos de 5 (ver GET /api/alertas/stock-bajo)
+    @PutMapping("/{sucursalId}/umbral-stock")
+    public Map<String, Integer> actualizarUmbralStock(@PathVariable String franquiciaId, @PathVariable String sucursalId,
+                                                      @RequestBody Map<String, Integer> body,
+                                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        int umbral = versiones.escribir(franquiciaId, ifMatch,
+                () -> sucursalService.actualizarUmbralStock(franquiciaId, sucursalId, body.get("umbral")));
+        return Map.of("umbralStock", umbral);
     }
 }
@@ -0,0 +1,106 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.event.FranquiciaEvent;
+import com.esteban.franquicias_api.exception.PrecondicionFallidaException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// Versión por franquicia que sube con cada evento de escritura y se publica como ETag fuerte en las
+// lecturas de la franquicia. Vive en memoria: la época de la instancia (arranque y un valor al azar) va en
+// el ETag, así que ni un reinicio ni otra instancia repiten valores. Con varias instancias sin afinidad los
+// ETag de una no sirven en otra y las escrituras de las demás no cambian la versión de esta.
+// Las versiones salen de un solo contador y viven en una caché acotada que olvida las franquicias inactivas:
+// una franquicia olvidada vuelve con un valor nuevo del contador, mayor que cualquiera que haya tenido, y
+// lo peor que pasa es un 200 (o un 412) de más, nunca un 304 con datos viejos.
+@Component
+class VersionesFranquicia {
+
+    private static final int FRANJAS = 64;
+
+    private final String epoca = Long.toString(System.currentTimeMillis(), 36)
+            + Long.toString(ThreadLocalRandom.current().nextLong(1L << 32), 36);
+    private final AtomicLong contador = new AtomicLong();
+    private final Cache<String, Long> versiones;
+    // If-Match toma la franja en exclusiva; el resto de las escrituras la comparten
+    private final ReadWriteLock[] candados = new ReadWriteLock[FRANJAS];
+    private final String cacheControl;
+
+    @Autowired
+    VersionesFranquicia(FranquiciasProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    // Para las pruebas, con un reloj propio
+    VersionesFranquicia(FranquiciasProperties properties, LongSupplier reloj) {
+        FranquiciasProperties.Etag config = properties.getEtag();
+        this.versiones = Caffeine.newBuilder()
+                .maximumSize(config.getMaximoFranquicias())
+                .expireAfterAccess(config.getInactividad())
+                .ticker(reloj::getAsLong)
+                .build();
+        for (int i = 0; i < FRANJAS; i++) {
+            candados[i] = new ReentrantReadWriteLock();
+        }
+        this.cacheControl = config.getCacheControl();
+    }
+
+    // Después del resto de listeners: quien lea la versión nueva ya ve los índices al día
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void incrementar(FranquiciaEvent evento) {
+        versiones.put(evento.franquiciaId(), contador.incrementAndGet());
+    }
+
+    String etag(String franquiciaId) {
+        return "\"" + epoca + "-" + versiones.get(franquiciaId, id -> contador.incrementAndGet()) + "\"";
+    }
+
+    // Con un If-None-Match vigente responde 304 sin ejecutar la lectura. El ETag se toma antes de leer:
+    // si una escritura entra en medio, la respuesta sale con la versión vieja y el cliente vuelve a pedirla
+    <T> T leer(String franquiciaId, ServletWebRequest request, Supplier<T> lectura) {
+        if (request.getResponse() != null && !cacheControl.isBlank()) {
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        }
+        return request.checkNotModified(etag(franquiciaId)) ? null : lectura.get();
+    }
+
+    // Sin If-Match la escritura es incondicional; con If-Match falla con 412 si la franquicia cambió
+    <T> T escribir(String franquiciaId, String ifMatch, Supplier<T> escritura) {
+        ReadWriteLock candado = candados[Math.floorMod(franquiciaId.hashCode(), FRANJAS)];
+        Lock lock = ifMatch == null ? candado.readLock() : candado.writeLock();
+        lock.lock();
+        try {
+            if (ifMatch != null && !coincide(ifMatch, etag(franquiciaId))) {
+                throw new PrecondicionFallidaException("La franquicia " + franquiciaId + " cambió desde " + ifMatch);
+            }
+            return escritura.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Comparación fuerte: los ETag débiles (W/) nunca coinciden
+    private static boolean coincide(String ifMatch, String etag) {
+        for (String candidato : ifMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.equals("*") || valor.equals(etag)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,36 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.dto.VistaSucursalDTO;
+import com.esteban.franquicias_api.service.VistaSucursalesService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+
+// Sucursales ya armadas con sus productos y totales, leídas de la vista y no de la franquicia
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "franquicias.proyeccion", name = "habilitada", havingValue = "true")
+@RequestMapping("/api/franquicias/{franquiciaId}/vista/sucursales")
+@RequiredArgsConstructor
+public class VistaSucursalesController {
+
+    private final VistaSucursalesService vistaSucursalesService;
+
+    @GetMapping
+    public ResponseEntity<List<VistaSucursalDTO>> listarSucursales(@PathVariable String franquiciaId,
+                                                                   @RequestParam(required = false) String despues,
+                                                                   @RequestParam(required = false) Integer limite) {
+        return EnlacesPagina.respuesta(vistaSucursalesService.listarSucursales(franquiciaId, despues, limite),
+                ServletUriComponentsBuilder.fromCurrentRequest());
+    }
+
+    @GetMapping("/{sucursalId}")
+    public VistaSucursalDTO obtenerSucursal(@PathVariable String franquiciaId, @PathVariable String sucursalId) {
+        return vistaSucursalesService.obtenerSucursal(franquiciaId, sucursalId);
+    }
+}
@@ -0,0 +1,16 @@
+package com.esteban.franquicias_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ActualizacionStockDTO {
+    private String sucursalId;
+    private String productoId;
+    private Integer nuevoStock;
+}
@@ -0,0 +1,22 @@
+package com.esteban.franquicias_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// Un producto con stock por debajo del umbral de su sucursal; "desde" es cuándo bajó del umbral
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class AlertaStockDTO {
+    private String franquiciaId;
+    private String sucursalId;
+    private String productoId;
+    private int stock;
+    private int umbral;
+    private Instant desde;
+}
@@ -0,0 +1,27 @@
+package com.esteban.franquicias_api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Un evento del stream SSE de una franquicia; solo van los campos que aplican al tipo
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EventoFranquiciaDTO {
+    // franquicia-renombrada, sucursal-agregada, sucursal-renombrada, producto-agregado, producto-renombrado,
+    // producto-eliminado, stock-actualizado (stock final), stock-incrementado (delta aplicado) o
+    // umbral-stock-actualizado
+    private String tipo;
+    private String franquiciaId;
+    private String sucursalId;
+    private String productoId;
+    private String nombre;
+    private Integer stock;
+    private Integer delta;
+    private Integer umbralStock;
+}
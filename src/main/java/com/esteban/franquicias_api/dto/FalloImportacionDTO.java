@@ -0,0 +1,17 @@
+package com.esteban.franquicias_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FalloImportacionDTO {
+    // Posición (desde 0) de la fila dentro del archivo, sin contar el encabezado del CSV
+    private int posicion;
+    private String franquicia;
+    private String sucursal;
+    private String producto;
+    private String error;
+}
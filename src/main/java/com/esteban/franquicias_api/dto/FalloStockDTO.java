@@ -0,0 +1,16 @@
+package com.esteban.franquicias_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FalloStockDTO {
+    // Posición (desde 0) de la entrada dentro del lote recibido
+    private int posicion;
+    private String sucursalId;
+    private String productoId;
+    private String error;
+}
@@ -0,0 +1,21 @@
+package com.esteban.franquicias_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Una línea del catálogo exportado en NDJSON: un producto con su sucursal y su franquicia
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LineaCatalogoDTO {
+    private String franquiciaId;
+    private String franquicia;
+    private String sucursalId;
+    private String sucursal;
+    private String productoId;
+    private String producto;
+    private int stock;
+}
@@ -0,0 +1,18 @@
+package com.esteban.franquicias_api.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Una página de una paginación por keyset: "siguiente" es el id a pasar como "despues" para leer la
+// próxima página, o null si esta es la última
+public record PaginaDTO<T>(List<T> elementos, String siguiente) {
+
+    // Se leen limite + 1 elementos: si sobra uno hay otra página y empieza después del último devuelto
+    public static <T> PaginaDTO<T> de(List<T> leidos, int limite, Function<T, String> id) {
+        if (leidos.size() <= limite) {
+            return new PaginaDTO<>(leidos, null);
+        }
+        List<T> elementos = leidos.subList(0, limite);
+        return new PaginaDTO<>(elementos, id.apply(elementos.get(limite - 1)));
+    }
+}
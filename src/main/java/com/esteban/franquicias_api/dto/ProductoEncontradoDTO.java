@@ -0,0 +1,20 @@
+package com.esteban.franquicias_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Resultado de la búsqueda de productos por nombre. "coincidencia" es "exacta", "prefijo" o "contiene",
+// en ese orden de relevancia
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductoEncontradoDTO {
+    private String franquiciaId;
+    private String sucursalId;
+    private String productoId;
+    private String nombre;
+    private String coincidencia;
+}
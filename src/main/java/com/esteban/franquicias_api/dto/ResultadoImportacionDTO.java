@@ -0,0 +1,25 @@
+package com.esteban.franquicias_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ResultadoImportacionDTO {
+    // Filas leídas y productos creados
+    private int total;
+    private int exitosos;
+    private int franquicias;
+    private int sucursales;
+    // Solo los primeros franquicias.importacion.max-fallos; el resto de las filas sin importar se
+    // cuenta igual en total - exitosos
+    @Builder.Default
+    private List<FalloImportacionDTO> fallidos = new ArrayList<>();
+}
@@ -0,0 +1,21 @@
+package com.esteban.franquicias_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ResultadoLoteStockDTO {
+    private int total;
+    private int exitosos;
+    // Las entradas que no aparecen aquí se aplicaron correctamente
+    @Builder.Default
+    private List<FalloStockDTO> fallidos = new ArrayList<>();
+}
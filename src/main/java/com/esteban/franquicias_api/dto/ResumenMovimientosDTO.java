@@ -0,0 +1,24 @@
+package com.esteban.franquicias_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// Movimientos de stock de una hora o un día (UTC) que empieza en "periodo". stockMinimo y stockMaximo solo
+// vienen en el resumen de un producto y solo si en el período se conoció algún valor final de su stock
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ResumenMovimientosDTO {
+    private Instant periodo;
+    private long movimientos;
+    private long entradas;
+    private long salidas;
+    private long ajustes;
+    private Integer stockMinimo;
+    private Integer stockMaximo;
+}
@@ -1,5 +1,6 @@
 package com.esteban.franquicias_api.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 import java.util.List;
@@ -16,6 +17,9 @@ public class SucursalDTO {
     // Solo se manda el ID de la franquicia
     private String franquiciaId;
     private List<ProductoDTO> productos;
+    // Umbral de la alerta de stock bajo; no se manda si la sucursal usa el umbral por defecto
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer umbralStock;
 
     public SucursalDTO(String id, String nombre, String franquiciaId) {
         this.id = id;
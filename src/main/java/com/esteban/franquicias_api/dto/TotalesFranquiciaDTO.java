@@ -0,0 +1,19 @@
+package com.esteban.franquicias_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Totales de una franquicia para la analítica global
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TotalesFranquiciaDTO {
+    private String franquiciaId;
+    private String nombre;
+    private int sucursales;
+    private long productos;
+    private long stock;
+}
@@ -0,0 +1,25 @@
+package com.esteban.franquicias_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+// Sucursal leída de la vista: "actualizada" dice cuándo se proyectó por última vez
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VistaSucursalDTO {
+    private String id;
+    private String nombre;
+    private String franquiciaId;
+    private List<ProductoDTO> productos;
+    private int totalProductos;
+    private long stockTotal;
+    private ProductoDTO productoConMasStock;
+    private Instant actualizada;
+}
@@ -0,0 +1,267 @@
+package com.esteban.franquicias_api.event;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.dto.EventoFranquiciaDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.function.ThrowingConsumer;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Reparte los eventos del servicio a los suscriptores de cada franquicia (GET .../events). Quien escribe
+// solo encola: cada suscriptor tiene su propia cola acotada y la vacía un hilo virtual, así que un cliente
+// lento nunca frena las escrituras. Mientras un evento de stock espera, los siguientes del mismo producto
+// se juntan con él; si aun así se llena la cola, el suscriptor se desconecta y el cliente vuelve a leer.
+@Slf4j
+@Component
+public class BusEventosFranquicia implements SmartLifecycle {
+
+    private final Map<String, Set<Suscriptor>> suscriptores = new ConcurrentHashMap<>();
+    private final AtomicInteger activos = new AtomicInteger();
+    private final ExecutorService entregas = Executors.newVirtualThreadPerTaskExecutor();
+    private final int capacidad;
+    private volatile boolean corriendo;
+
+    private final Timer latencia;
+    private final Counter conflados;
+    private final Counter descartados;
+
+    public BusEventosFranquicia(FranquiciasProperties properties, MeterRegistry registry) {
+        this.capacidad = properties.getEventos().getCapacidad();
+        Gauge.builder("franquicias.eventos.suscriptores", activos, AtomicInteger::get)
+                .description("Suscriptores conectados al stream de eventos")
+                .register(registry);
+        this.latencia = Timer.builder("franquicias.eventos.entrega")
+                .description("Tiempo desde que se publica un evento hasta que se envía al suscriptor")
+                .register(registry);
+        this.conflados = Counter.builder("franquicias.eventos.conflados")
+                .description("Eventos de stock juntados con uno pendiente del mismo producto")
+                .register(registry);
+        this.descartados = Counter.builder("franquicias.eventos.suscriptores.descartados")
+                .description("Suscriptores desconectados por no leer al ritmo de las escrituras")
+                .register(registry);
+    }
+
+    public interface Suscripcion {
+        void cancelar();
+    }
+
+    // "entrega" corre en un hilo de entregas y puede bloquear; si falla, la suscripción se cancela.
+    // "alDescartar" se llama (también fuera del hilo que escribe) cuando el bus desconecta al suscriptor.
+    public Suscripcion suscribir(String franquiciaId, ThrowingConsumer<EventoFranquiciaDTO> entrega, Runnable alDescartar) {
+        Suscriptor suscriptor = new Suscriptor(franquiciaId, entrega, alDescartar);
+        // compute y no computeIfAbsent + add: quitar puede estar sacando el conjunto vacío al mismo tiempo
+        suscriptores.compute(franquiciaId, (id, set) -> {
+            Set<Suscriptor> actual = set == null ? ConcurrentHashMap.newKeySet() : set;
+            actual.add(suscriptor);
+            return actual;
+        });
+        activos.incrementAndGet();
+        return suscriptor;
+    }
+
+    @EventListener
+    public void publicar(FranquiciaEvent evento) {
+        Set<Suscriptor> interesados = suscriptores.get(evento.franquiciaId());
+        if (interesados == null || interesados.isEmpty()) return;
+
+        Pendiente pendiente = new Pendiente(aDTO(evento), System.nanoTime());
+        for (Suscriptor suscriptor : interesados) {
+            suscriptor.ofrecer(pendiente);
+        }
+    }
+
+    @Override
+    public void start() {
+        corriendo = true;
+    }
+
+    // Fase por defecto: se detiene antes que el servidor web, que si no esperaría en el apagado ordenado
+    // a que terminen las conexiones SSE abiertas
+    @Override
+    public void stop() {
+        corriendo = false;
+        suscriptores.values().forEach(set -> set.forEach(Suscriptor::descartar));
+    }
+
+    @Override
+    public boolean isRunning() {
+        return corriendo;
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        entregas.shutdown();
+    }
+
+    private void ejecutar(Runnable tarea) {
+        try {
+            entregas.execute(tarea);
+        } catch (RejectedExecutionException e) {
+            // Apagando: las conexiones se cierran con el servidor
+        }
+    }
+
+    private void quitar(Suscriptor suscriptor) {
+        if (suscriptor.activo.compareAndSet(true, false)) {
+            suscriptores.computeIfPresent(suscriptor.franquiciaId, (id, set) -> {
+                set.remove(suscriptor);
+                return set.isEmpty() ? null : set;
+            });
+            activos.decrementAndGet();
+        }
+    }
+
+    static EventoFranquiciaDTO aDTO(FranquiciaEvent evento) {
+        EventoFranquiciaDTO.EventoFranquiciaDTOBuilder dto = EventoFranquiciaDTO.builder().franquiciaId(evento.franquiciaId());
+        return switch (evento) {
+            case FranquiciaRenombradaEvent e -> dto.tipo("franquicia-renombrada").nombre(e.nombre()).build();
+            case SucursalAgregadaEvent e -> dto.tipo("sucursal-agregada")
+                    .sucursalId(e.sucursal().getId()).nombre(e.sucursal().getNombre()).build();
+            case SucursalRenombradaEvent e -> dto.tipo("sucursal-renombrada")
+                    .sucursalId(e.sucursalId()).nombre(e.nombre()).build();
+            case UmbralStockActualizadoEvent e -> dto.tipo("umbral-stock-actualizado")
+                    .sucursalId(e.sucursalId()).umbralStock(e.umbral()).build();
+            case ProductoAgregadoEvent e -> dto.tipo("producto-agregado").sucursalId(e.sucursalId())
+                    .productoId(e.producto().getId()).nombre(e.producto().getNombre()).stock(e.producto().getStock()).build();
+            case ProductoRenombradoEvent e -> dto.tipo("producto-renombrado").sucursalId(e.sucursalId())
+                    .productoId(e.productoId()).nombre(e.nombre()).build();
+            case StockActualizadoEvent e -> dto.tipo("stock-actualizado").sucursalId(e.sucursalId())
+                    .productoId(e.productoId()).stock(e.stock()).build();
+            case StockIncrementadoEvent e -> dto.tipo("stock-incrementado").sucursalId(e.sucursalId())
+                    .productoId(e.productoId()).delta(e.delta()).build();
+            case ProductoEliminadoEvent e -> dto.tipo("producto-eliminado").sucursalId(e.sucursalId())
+                    .productoId(e.productoId()).build();
+        };
+    }
+
+    // Solo los eventos de stock se juntan: el resto usa una clave única y conserva su orden
+    private static Object clave(EventoFranquiciaDTO evento) {
+        return evento.getTipo().startsWith("stock-")
+                ? new ClaveStock(evento.getSucursalId(), evento.getProductoId())
+                : new Object();
+    }
+
+    // Un stock final reemplaza lo anterior; un delta se suma al stock o al delta pendiente
+    private static EventoFranquiciaDTO juntar(EventoFranquiciaDTO previo, EventoFranquiciaDTO nuevo) {
+        if (nuevo.getDelta() == null) return nuevo;
+        return previo.getDelta() == null
+                ? previo.toBuilder().stock(previo.getStock() + nuevo.getDelta()).build()
+                : previo.toBuilder().delta(previo.getDelta() + nuevo.getDelta()).build();
+    }
+
+    private record ClaveStock(String sucursalId, String productoId) {
+    }
+
+    private record Pendiente(EventoFranquiciaDTO evento, long publicado) {
+    }
+
+    private final class Suscriptor implements Suscripcion {
+
+        private final String franquiciaId;
+        private final ThrowingConsumer<EventoFranquiciaDTO> entrega;
+        private final Runnable alDescartar;
+        private final AtomicBoolean activo = new AtomicBoolean(true);
+
+        // Protegidos por el monitor del suscriptor; nunca se envía con el monitor tomado
+        private final LinkedHashMap<Object, Pendiente> pendientes = new LinkedHashMap<>();
+        private boolean entregando;
+        private boolean cerrado;
+
+        Suscriptor(String franquiciaId, ThrowingConsumer<EventoFranquiciaDTO> entrega, Runnable alDescartar) {
+            this.franquiciaId = franquiciaId;
+            this.entrega = entrega;
+            this.alDescartar = alDescartar;
+        }
+
+        void ofrecer(Pendiente pendiente) {
+            boolean lanzar;
+            synchronized (this) {
+                if (cerrado) return;
+                Object clave = clave(pendiente.evento());
+                Pendiente previo = pendientes.get(clave);
+                if (previo != null) {
+                    // Conserva la posición y la hora del primero: la latencia mide lo que esperó el dato más viejo
+                    pendientes.put(clave, new Pendiente(juntar(previo.evento(), pendiente.evento()), previo.publicado()));
+                    conflados.increment();
+                    return;
+                }
+                if (pendientes.size() < capacidad) {
+                    pendientes.put(clave, pendiente);
+                    if (entregando) return;
+                    entregando = true;
+                    lanzar = true;
+                } else {
+                    lanzar = false;
+                }
+            }
+            if (lanzar) {
+                ejecutar(this::vaciar);
+            } else {
+                log.warn("Suscriptor de eventos de la franquicia {} desconectado: {} eventos sin leer", franquiciaId, capacidad);
+                descartados.increment();
+                descartar();
+            }
+        }
+
+        private void vaciar() {
+            while (true) {
+                Pendiente siguiente;
+                synchronized (this) {
+                    Iterator<Pendiente> it = pendientes.values().iterator();
+                    if (cerrado || !it.hasNext()) {
+                        entregando = false;
+                        return;
+                    }
+                    siguiente = it.next();
+                    it.remove();
+                }
+                try {
+                    entrega.acceptWithException(siguiente.evento());
+                    latencia.record(System.nanoTime() - siguiente.publicado(), TimeUnit.NANOSECONDS);
+                } catch (Exception e) {
+                    // El cliente se fue
+                    cancelar();
+                    return;
+                }
+            }
+        }
+
+        void descartar() {
+            if (cerrarCola()) {
+                quitar(this);
+                ejecutar(alDescartar);
+            }
+        }
+
+        @Override
+        public void cancelar() {
+            cerrarCola();
+            quitar(this);
+        }
+
+        private synchronized boolean cerrarCola() {
+            if (cerrado) return false;
+            cerrado = true;
+            pendientes.clear();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.esteban.franquicias_api.event;
+
+// Eventos que publica la capa de servicio después de cada escritura confirmada en Mongo
+public sealed interface FranquiciaEvent permits FranquiciaRenombradaEvent, SucursalAgregadaEvent, SucursalRenombradaEvent,
+        ProductoAgregadoEvent, ProductoRenombradoEvent, StockActualizadoEvent, StockIncrementadoEvent, ProductoEliminadoEvent,
+        UmbralStockActualizadoEvent {
+
+    String franquiciaId();
+}
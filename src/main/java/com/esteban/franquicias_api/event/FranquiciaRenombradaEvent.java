@@ -0,0 +1,4 @@
+package com.esteban.franquicias_api.event;
+
+public record FranquiciaRenombradaEvent(String franquiciaId, String nombre) implements FranquiciaEvent {
+}
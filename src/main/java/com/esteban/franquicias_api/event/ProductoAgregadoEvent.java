@@ -0,0 +1,6 @@
+package com.esteban.franquicias_api.event;
+
+import com.esteban.franquicias_api.model.Producto;
+
+public record ProductoAgregadoEvent(String franquiciaId, String sucursalId, Producto producto) implements FranquiciaEvent {
+}
@@ -0,0 +1,4 @@
+package com.esteban.franquicias_api.event;
+
+public record ProductoEliminadoEvent(String franquiciaId, String sucursalId, String productoId) implements FranquiciaEvent {
+}
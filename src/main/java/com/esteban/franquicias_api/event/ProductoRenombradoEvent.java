@@ -0,0 +1,5 @@
+package com.esteban.franquicias_api.event;
+
+public record ProductoRenombradoEvent(String franquiciaId, String sucursalId, String productoId, String nombre)
+        implements FranquiciaEvent {
+}
@@ -0,0 +1,5 @@
+package com.esteban.franquicias_api.event;
+
+public record StockActualizadoEvent(String franquiciaId, String sucursalId, String productoId, int stock)
+        implements FranquiciaEvent {
+}
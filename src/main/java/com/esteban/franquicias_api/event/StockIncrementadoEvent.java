@@ -0,0 +1,8 @@
+package com.esteban.franquicias_api.event;
+
+// Stock sumado con $inc (ver StockDiferidoService): la diferencia aplicada, para el historial, y el stock
+// leído después de escribir, para los índices. Volver a sumar el delta no es seguro: una carga que leyó
+// después del $inc ya lo incluye
+public record StockIncrementadoEvent(String franquiciaId, String sucursalId, String productoId, int delta, int stock)
+        implements FranquiciaEvent {
+}
@@ -0,0 +1,6 @@
+package com.esteban.franquicias_api.event;
+
+import com.esteban.franquicias_api.model.Sucursal;
+
+public record SucursalAgregadaEvent(String franquiciaId, Sucursal sucursal) implements FranquiciaEvent {
+}
@@ -0,0 +1,4 @@
+package com.esteban.franquicias_api.event;
+
+public record SucursalRenombradaEvent(String franquiciaId, String sucursalId, String nombre) implements FranquiciaEvent {
+}
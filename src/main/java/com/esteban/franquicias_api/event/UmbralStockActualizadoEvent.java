@@ -0,0 +1,4 @@
+package com.esteban.franquicias_api.event;
+
+public record UmbralStockActualizadoEvent(String franquiciaId, String sucursalId, int umbral) implements FranquiciaEvent {
+}
@@ -0,0 +1,8 @@
+package com.esteban.franquicias_api.exception;
+
+public class PrecondicionFallidaException extends RuntimeException {
+
+    public PrecondicionFallidaException(String message) {
+        super(message);
+    }
+}
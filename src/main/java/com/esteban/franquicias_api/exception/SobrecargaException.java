@@ -0,0 +1,16 @@
+package com.esteban.franquicias_api.exception;
+
+import lombok.Getter;
+
+// La franquicia superó sus peticiones en curso o por segundo, o el stock diferido está lleno: se responde 429
+// con Retry-After
+@Getter
+public class SobrecargaException extends RuntimeException {
+
+    private final long reintentarEnSegundos;
+
+    public SobrecargaException(String message, long reintentarEnSegundos) {
+        super(message);
+        this.reintentarEnSegundos = reintentarEnSegundos;
+    }
+}
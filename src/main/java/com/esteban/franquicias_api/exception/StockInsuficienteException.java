@@ -0,0 +1,9 @@
+package com.esteban.franquicias_api.exception;
+
+// Un descuento de stock que dejaría el producto en negativo: se responde 409
+public class StockInsuficienteException extends RuntimeException {
+
+    public StockInsuficienteException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,253 @@
+package com.esteban.franquicias_api.index;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.dto.AlertaStockDTO;
+import com.esteban.franquicias_api.event.*;
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.Producto;
+import com.esteban.franquicias_api.model.Sucursal;
+import com.esteban.franquicias_api.repository.FranquiciaRepository;
+import com.esteban.franquicias_api.repository.ProductoStore;
+import com.esteban.franquicias_api.repository.PuntosControl;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Productos con stock por debajo del umbral de su sucursal. Se mantiene con los eventos del servicio
+// (PUT .../stock, productos agregados o eliminados, cambios de umbral) y lo completa un barrido que
+// recorre todas las franquicias por _id (ver BarridoAlertasStock), así que también aparecen los productos
+// que bajaron por otra instancia o por un incremento diferido. Cada producto tiene a lo sumo una alerta
+// abierta: se abre al bajar del umbral y se cierra al volver a alcanzarlo.
+// Los eventos se aplican sin leer de Mongo (el modo reactivo los publica desde el event loop): si todavía
+// no se conocen los umbrales de la franquicia, el próximo paso del barrido la revisa antes que el resto.
+@Slf4j
+@Component
+public class AlertasStockBajo {
+
+    static final String BARRIDO = "alertas-stock-bajo";
+
+    private static final Comparator<AlertaStockDTO> ORDEN = Comparator.comparing(AlertaStockDTO::getFranquiciaId)
+            .thenComparing(AlertaStockDTO::getSucursalId)
+            .thenComparing(AlertaStockDTO::getProductoId);
+
+    private final FranquiciaRepository franquiciaRepository;
+    private final ProductoStore productoStore;
+    private final PuntosControl puntosControl;
+    private final FranquiciasProperties.Alertas config;
+
+    // franquicia -> alertas abiertas por producto
+    private final ConcurrentMap<String, ConcurrentMap<ClaveProducto, AlertaStockDTO>> abiertas = new ConcurrentHashMap<>();
+    // franquicia -> umbral de cada sucursal, ya con el umbral por defecto aplicado
+    private final ConcurrentMap<String, ConcurrentMap<String, Integer>> umbrales = new ConcurrentHashMap<>();
+
+    // Como en TopStockIndex: el barrido descarta lo leído de una franquicia que se modificó mientras la leía
+    private final AtomicLong secuencia = new AtomicLong();
+    private final ConcurrentMap<String, Long> ultimaModificacion = new ConcurrentHashMap<>();
+
+    // Franquicias que el próximo paso del barrido revisa antes de seguir con el recorrido por _id
+    private final Set<String> prioritarias = ConcurrentHashMap.newKeySet();
+
+    // Solo lo usa el barrido, que corre de a un paso por vez (ReentrantLock y no synchronized: el paso lee de Mongo)
+    private final ReentrantLock paso = new ReentrantLock();
+    private String despues;
+    private boolean retomado;
+
+    private final Counter emitidas;
+    private final Counter resueltas;
+    private final Counter barridas;
+    private final Counter vueltas;
+
+    public AlertasStockBajo(FranquiciaRepository franquiciaRepository, ProductoStore productoStore,
+                            PuntosControl puntosControl, FranquiciasProperties properties, MeterRegistry registry) {
+        this.franquiciaRepository = franquiciaRepository;
+        this.productoStore = productoStore;
+        this.puntosControl = puntosControl;
+        this.config = properties.getAlertas();
+        Gauge.builder("franquicias.alertas.stock-bajo.abiertas", abiertas,
+                        mapa -> mapa.values().stream().mapToInt(Map::size).sum())
+                .description("Productos con stock por debajo del umbral de su sucursal")
+                .register(registry);
+        this.emitidas = Counter.builder("franquicias.alertas.stock-bajo.emitidas")
+                .description("Alertas abiertas: una por producto cada vez que baja del umbral")
+                .register(registry);
+        this.resueltas = Counter.builder("franquicias.alertas.stock-bajo.resueltas")
+                .description("Alertas cerradas porque el stock volvió a alcanzar el umbral")
+                .register(registry);
+        this.barridas = Counter.builder("franquicias.alertas.barrido.franquicias")
+                .description("Franquicias revisadas por el barrido de alertas")
+                .register(registry);
+        this.vueltas = Counter.builder("franquicias.alertas.barrido.vueltas")
+                .description("Vueltas completas del barrido de alertas")
+                .register(registry);
+    }
+
+    // Todas las abiertas o solo las de una franquicia, ordenadas por franquicia, sucursal y producto
+    public List<AlertaStockDTO> abiertas(String franquiciaId) {
+        return (franquiciaId == null ? abiertas.values().stream() : Optional.ofNullable(abiertas.get(franquiciaId)).stream())
+                .flatMap(alertas -> alertas.values().stream())
+                .sorted(ORDEN)
+                .toList();
+    }
+
+    @EventListener
+    public void aplicar(FranquiciaEvent evento) {
+        String franquiciaId = evento.franquiciaId();
+        ultimaModificacion.merge(franquiciaId, secuencia.incrementAndGet(), Math::max);
+
+        switch (evento) {
+            case StockActualizadoEvent e -> evaluar(franquiciaId, e.sucursalId(), e.productoId(), e.stock());
+            case StockIncrementadoEvent e -> evaluar(franquiciaId, e.sucursalId(), e.productoId(), e.stock());
+            case ProductoAgregadoEvent e -> evaluar(franquiciaId, e.sucursalId(), e.producto().getId(), e.producto().getStock());
+            case ProductoEliminadoEvent e -> Optional.ofNullable(abiertas.get(franquiciaId))
+                    .ifPresent(alertas -> alertas.remove(new ClaveProducto(e.sucursalId(), e.productoId())));
+            case SucursalAgregadaEvent e -> {
+                int umbral = recordarUmbral(franquiciaId, e.sucursal());
+                productos(e.sucursal()).forEach(p -> evaluar(franquiciaId, e.sucursal().getId(), p.getId(), p.getStock(), umbral));
+            }
+            case UmbralStockActualizadoEvent e -> {
+                umbralesDe(franquiciaId).put(e.sucursalId(), e.umbral());
+                Optional.ofNullable(abiertas.get(franquiciaId)).ifPresent(alertas -> alertas.values().stream()
+                        .filter(alerta -> alerta.getSucursalId().equals(e.sucursalId()))
+                        .forEach(alerta -> evaluar(franquiciaId, e.sucursalId(), alerta.getProductoId(), alerta.getStock(), e.umbral())));
+                // Con un umbral más alto pueden quedar por debajo productos que no tenían alerta
+                prioritarias.add(franquiciaId);
+            }
+            case FranquiciaRenombradaEvent e -> {
+            }
+            case SucursalRenombradaEvent e -> {
+            }
+            case ProductoRenombradoEvent e -> {
+            }
+        }
+    }
+
+    // Un paso del barrido: revisa a lo sumo franquiciasPorIntervalo franquicias, primero las prioritarias y
+    // después las siguientes al último _id guardado en PuntosControl. Devuelve cuántas revisó. Al llegar al
+    // final la próxima vuelta empieza de nuevo. Sin umbral por defecto ni ninguna sucursal con umbral propio
+    // no puede haber alertas, así que el paso no lee nada más.
+    public int barrer() {
+        paso.lock();
+        try {
+            return barrerLote();
+        } finally {
+            paso.unlock();
+        }
+    }
+
+    private int barrerLote() {
+        if (config.getUmbralPorDefecto() <= 0 && !franquiciaRepository.hayUmbralStock()) {
+            // Las que los eventos dejaron pendientes tampoco tienen nada que revisar
+            prioritarias.clear();
+            return 0;
+        }
+        int lote = config.getBarrido().getFranquiciasPorIntervalo();
+        int revisadas = 0;
+        for (Iterator<String> it = prioritarias.iterator(); it.hasNext() && revisadas < lote; revisadas++) {
+            String franquiciaId = it.next();
+            it.remove();
+            revisar(franquiciaId);
+        }
+        if (revisadas == lote) return revisadas;
+
+        if (!retomado) {
+            despues = puntosControl.leer(BARRIDO).orElse(null);
+            retomado = true;
+        }
+        int restantes = lote - revisadas;
+        List<Franquicia> pagina = franquiciaRepository.paginaFranquicias(despues, restantes);
+        pagina.forEach(resumen -> revisar(resumen.getId()));
+
+        despues = pagina.size() < restantes ? null : pagina.get(pagina.size() - 1).getId();
+        if (despues == null) {
+            vueltas.increment();
+        }
+        puntosControl.guardar(BARRIDO, despues);
+        return revisadas + pagina.size();
+    }
+
+    // Lectura propia y proyectada: solo umbrales y stock, fuera de las lecturas compartidas de las peticiones
+    private void revisar(String franquiciaId) {
+        long inicio = secuencia.get();
+        productoStore.stockYUmbrales(franquiciaId).ifPresent(franquicia -> reconciliar(franquicia, inicio));
+        barridas.increment();
+    }
+
+    // Deja las alertas de la franquicia iguales a lo leído: abre las que falten, actualiza el stock de las
+    // abiertas y cierra las de productos que ya no están por debajo o que no existen
+    private void reconciliar(Franquicia franquicia, long inicio) {
+        String franquiciaId = franquicia.getId();
+        // Los eventos posteriores a la lectura ya dejaron las alertas al día. Los umbrales leídos igual sirven
+        // para los que falten: putIfAbsent no pisa un cambio de umbral más nuevo que la lectura
+        if (ultimaModificacion.getOrDefault(franquiciaId, 0L) > inicio) {
+            franquicia.getSucursales().forEach(s -> umbralesDe(franquiciaId).putIfAbsent(s.getId(), umbralEfectivo(s)));
+            return;
+        }
+
+        Set<ClaveProducto> vistos = new HashSet<>();
+        for (Sucursal sucursal : franquicia.getSucursales()) {
+            int umbral = recordarUmbral(franquiciaId, sucursal);
+            for (Producto producto : productos(sucursal)) {
+                evaluar(franquiciaId, sucursal.getId(), producto.getId(), producto.getStock(), umbral);
+                vistos.add(new ClaveProducto(sucursal.getId(), producto.getId()));
+            }
+        }
+        Optional.ofNullable(abiertas.get(franquiciaId)).ifPresent(alertas -> alertas.keySet().retainAll(vistos));
+    }
+
+    private void evaluar(String franquiciaId, String sucursalId, String productoId, int stock) {
+        Integer umbral = umbralesDe(franquiciaId).get(sucursalId);
+        if (umbral == null) {
+            prioritarias.add(franquiciaId);
+        } else {
+            evaluar(franquiciaId, sucursalId, productoId, stock, umbral);
+        }
+    }
+
+    private void evaluar(String franquiciaId, String sucursalId, String productoId, int stock, int umbral) {
+        abiertas.computeIfAbsent(franquiciaId, id -> new ConcurrentHashMap<>()).compute(new ClaveProducto(sucursalId, productoId),
+                (clave, actual) -> {
+                    if (stock >= umbral) {
+                        if (actual != null) resueltas.increment();
+                        return null;
+                    }
+                    if (actual != null) {
+                        return actual.toBuilder().stock(stock).umbral(umbral).build();
+                    }
+                    emitidas.increment();
+                    log.info("Stock bajo: producto {} de la sucursal {} (franquicia {}) con {} y umbral {}",
+                            productoId, sucursalId, franquiciaId, stock, umbral);
+                    return new AlertaStockDTO(franquiciaId, sucursalId, productoId, stock, umbral, Instant.now());
+                });
+    }
+
+    private int recordarUmbral(String franquiciaId, Sucursal sucursal) {
+        int umbral = umbralEfectivo(sucursal);
+        umbralesDe(franquiciaId).put(sucursal.getId(), umbral);
+        return umbral;
+    }
+
+    private ConcurrentMap<String, Integer> umbralesDe(String franquiciaId) {
+        return umbrales.computeIfAbsent(franquiciaId, id -> new ConcurrentHashMap<>());
+    }
+
+    private int umbralEfectivo(Sucursal sucursal) {
+        return Optional.ofNullable(sucursal.getUmbralStock()).orElse(config.getUmbralPorDefecto());
+    }
+
+    private static List<Producto> productos(Sucursal sucursal) {
+        return Optional.ofNullable(sucursal.getProductos()).orElse(List.of());
+    }
+
+    private record ClaveProducto(String sucursalId, String productoId) {
+    }
+}
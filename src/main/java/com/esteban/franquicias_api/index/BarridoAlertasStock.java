@@ -0,0 +1,54 @@
+package com.esteban.franquicias_api.index;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ScheduledFuture;
+
+// Da un paso del barrido de alertas cada franquicias.alertas.barrido.intervalo. Cada paso lee a lo sumo
+// franquiciasPorIntervalo franquicias, así que el barrido avanza a ritmo fijo sin importar el tráfico.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BarridoAlertasStock implements SmartLifecycle {
+
+    private final AlertasStockBajo alertas;
+    private final TaskScheduler scheduler;
+    private final FranquiciasProperties properties;
+
+    private volatile ScheduledFuture<?> periodico;
+
+    @Override
+    public void start() {
+        FranquiciasProperties.Barrido config = properties.getAlertas().getBarrido();
+        if (config.isHabilitado()) {
+            periodico = scheduler.scheduleWithFixedDelay(this::barrer, config.getIntervalo());
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (periodico != null) {
+            periodico.cancel(false);
+            periodico = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return periodico != null;
+    }
+
+    // Una excepción cancelaría las ejecuciones siguientes; el paso fallido se repite desde el mismo punto
+    private void barrer() {
+        try {
+            alertas.barrer();
+        } catch (RuntimeException e) {
+            log.warn("Falló un paso del barrido de alertas de stock", e);
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.esteban.franquicias_api.index;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.dto.ProductoEncontradoDTO;
+import com.esteban.franquicias_api.event.*;
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.Producto;
+import com.esteban.franquicias_api.model.Sucursal;
+import com.esteban.franquicias_api.repository.PosicionBusqueda;
+import com.esteban.franquicias_api.repository.PrimerosN;
+import com.esteban.franquicias_api.repository.ProductoStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+// Índice en memoria de los nombres de productos de todas las franquicias, para la búsqueda por nombre.
+// Los productos se agrupan por nombre normalizado (ver PosicionBusqueda), así un nombre repetido en muchas
+// sucursales se guarda una sola vez: los nombres van en un mapa ordenado, que resuelve los prefijos, y cada
+// trigrama apunta a los nombres que lo contienen, así "contiene" solo compara los nombres que tienen el
+// trigrama menos frecuente del texto. Se carga completo al iniciar y desde ahí se mantiene con los eventos
+// del servicio; como TopStockIndex, solo ve las escrituras hechas por esta instancia.
+@Slf4j
+@Component
+public class IndiceNombresProductos {
+
+    static final int N = 3;
+    private static final int INTENTOS_RECARGA = 3;
+
+    // Tamaños aproximados en una JVM de 64 bits con compressed oops, para la métrica de memoria: la entrada
+    // de cada producto con sus nodos en dos mapas, cada nombre como clave (más 2 bytes por char), cada
+    // trigrama con su conjunto y cada referencia de un trigrama a un nombre
+    private static final long BYTES_PRODUCTO = 150;
+    private static final long BYTES_NOMBRE = 120;
+    private static final long BYTES_TRIGRAMA = 150;
+    private static final long BYTES_REFERENCIA = 40;
+
+    private final ProductoStore productoStore;
+    private final FranquiciasProperties.Busqueda config;
+
+    // nombre normalizado -> productos con ese nombre
+    private final ConcurrentSkipListMap<String, Set<Entrada>> porNombre = new ConcurrentSkipListMap<>();
+    // trigrama -> nombres normalizados que lo contienen
+    private final ConcurrentMap<String, Set<String>> porTrigrama = new ConcurrentHashMap<>();
+    // franquicia -> sus productos, para renombrar, eliminar y recargar una franquicia entera
+    private final ConcurrentMap<String, ConcurrentMap<ClaveProducto, Entrada>> porFranquicia = new ConcurrentHashMap<>();
+
+    // Una escritura cambia varios mapas: van de a una. Las búsquedas no bloquean; a lo sumo no ven un
+    // producto que se está agregando o ven uno que se está quitando
+    private final ReentrantLock escritura = new ReentrantLock();
+
+    private final AtomicLong productos = new AtomicLong();
+    private final AtomicLong nombres = new AtomicLong();
+    private final AtomicLong caracteres = new AtomicLong();
+    private final AtomicLong referencias = new AtomicLong();
+
+    // Como en TopStockIndex: una franquicia que recibió escrituras mientras se leía se vuelve a leer
+    private final AtomicLong secuencia = new AtomicLong();
+    private final ConcurrentMap<String, Long> ultimaModificacion = new ConcurrentHashMap<>();
+    private volatile boolean listo;
+
+    public IndiceNombresProductos(ProductoStore productoStore, FranquiciasProperties properties, MeterRegistry registry) {
+        this.productoStore = productoStore;
+        this.config = properties.getBusqueda();
+        Gauge.builder("franquicias.busqueda.indice.productos", productos, AtomicLong::get)
+                .description("Productos en el índice de nombres")
+                .register(registry);
+        Gauge.builder("franquicias.busqueda.indice.nombres", nombres, AtomicLong::get)
+                .description("Nombres distintos en el índice de nombres")
+                .register(registry);
+        Gauge.builder("franquicias.busqueda.indice.bytes", this, IndiceNombresProductos::bytesEstimados)
+                .description("Memoria aproximada del índice de nombres")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    // false mientras carga o si está deshabilitado: la búsqueda va a Mongo
+    public boolean listo() {
+        return listo;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        if (!config.isIndiceHabilitado()) return;
+        try {
+            reconstruir();
+        } catch (RuntimeException e) {
+            // La aplicación arranca igual: la búsqueda sigue con el índice de texto de Mongo
+            log.error("No se pudo cargar el índice de nombres de productos", e);
+        }
+    }
+
+    // Carga todas las franquicias recorriendo la colección con un cursor
+    public int reconstruir() {
+        long inicio = secuencia.get();
+        List<String> modificadas = new ArrayList<>();
+        int cargadas = 0;
+        try (Stream<Franquicia> todas = productoStore.franquiciasCompletas()) {
+            for (Iterator<Franquicia> it = todas.iterator(); it.hasNext(); cargadas++) {
+                Franquicia franquicia = it.next();
+                reemplazar(franquicia);
+                if (ultimaModificacion.getOrDefault(franquicia.getId(), 0L) > inicio) {
+                    modificadas.add(franquicia.getId());
+                }
+            }
+        }
+        modificadas.forEach(this::recargar);
+        listo = true;
+        log.info("Índice de nombres de productos cargado con {} franquicias y {} productos", cargadas, productos.get());
+        return cargadas;
+    }
+
+    // Productos de todas las franquicias, o de una si "franquiciaId" no es null, en el orden de PosicionBusqueda.
+    // Un texto de menos de N caracteres no tiene trigramas: solo encuentra nombres que empiezan con él
+    public List<ProductoEncontradoDTO> buscar(String franquiciaId, String texto, boolean soloPrefijo,
+                                              PosicionBusqueda despues, int limite) {
+        String consulta = PosicionBusqueda.normalizar(texto);
+        int hasta = soloPrefijo || consulta.length() < N ? PosicionBusqueda.PREFIJO : PosicionBusqueda.CONTIENE;
+        return candidatos(consulta, hasta)
+                .flatMap(nombre -> {
+                    int coincidencia = PosicionBusqueda.coincidencia(nombre, consulta);
+                    if (coincidencia < 0 || coincidencia > hasta) return Stream.empty();
+                    return Optional.ofNullable(porNombre.get(nombre)).stream()
+                            .flatMap(Set::stream)
+                            .filter(e -> franquiciaId == null || franquiciaId.equals(e.franquiciaId()))
+                            .map(e -> new ProductoEncontradoDTO(e.franquiciaId(), e.sucursalId(), e.productoId(), e.nombre(),
+                                    PosicionBusqueda.COINCIDENCIAS.get(coincidencia)));
+                })
+                .filter(producto -> despues == null || PosicionBusqueda.ORDEN.compare(PosicionBusqueda.de(producto), despues) > 0)
+                .collect(PrimerosN.de(limite, PosicionBusqueda.RESULTADOS));
+    }
+
+    @EventListener
+    public void aplicar(FranquiciaEvent evento) {
+        if (!config.isIndiceHabilitado()) return;
+        String franquiciaId = evento.franquiciaId();
+        // Primero la secuencia y después el índice: una carga concurrente o ve este evento o se repite
+        ultimaModificacion.merge(franquiciaId, secuencia.incrementAndGet(), Math::max);
+
+        escritura.lock();
+        try {
+            switch (evento) {
+                case ProductoAgregadoEvent e -> agregar(franquiciaId, e.sucursalId(), e.producto().getId(), e.producto().getNombre());
+                case ProductoRenombradoEvent e -> agregar(franquiciaId, e.sucursalId(), e.productoId(), e.nombre());
+                case ProductoEliminadoEvent e -> quitar(franquiciaId, e.sucursalId(), e.productoId());
+                case SucursalAgregadaEvent e -> productos(e.sucursal())
+                        .forEach(p -> agregar(franquiciaId, e.sucursal().getId(), p.getId(), p.getNombre()));
+                case FranquiciaRenombradaEvent e -> {
+                }
+                case SucursalRenombradaEvent e -> {
+                }
+                case UmbralStockActualizadoEvent e -> {
+                }
+                case StockActualizadoEvent e -> {
+                }
+                case StockIncrementadoEvent e -> {
+                }
+            }
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    private Stream<String> candidatos(String consulta, int hasta) {
+        if (hasta == PosicionBusqueda.PREFIJO) {
+            return porNombre.subMap(consulta, true, consulta + Character.MAX_VALUE, false).keySet().stream();
+        }
+        Set<String> menor = null;
+        for (String trigrama : trigramas(consulta)) {
+            Set<String> conTrigrama = porTrigrama.get(trigrama);
+            if (conTrigrama == null) return Stream.empty();
+            if (menor == null || conTrigrama.size() < menor.size()) menor = conTrigrama;
+        }
+        return menor.stream();
+    }
+
+    private void recargar(String franquiciaId) {
+        for (int intento = 0; intento < INTENTOS_RECARGA; intento++) {
+            long inicio = secuencia.get();
+            productoStore.franquiciaCompleta(franquiciaId).ifPresent(this::reemplazar);
+            if (ultimaModificacion.getOrDefault(franquiciaId, 0L) <= inicio) return;
+        }
+        log.warn("La franquicia {} cambió en cada lectura; el índice de nombres queda con los eventos aplicados", franquiciaId);
+    }
+
+    private void reemplazar(Franquicia franquicia) {
+        escritura.lock();
+        try {
+            Optional.ofNullable(porFranquicia.remove(franquicia.getId())).ifPresent(anteriores -> anteriores.values().forEach(e -> {
+                desindexar(e);
+                productos.decrementAndGet();
+            }));
+            for (Sucursal sucursal : franquicia.getSucursales()) {
+                productos(sucursal).forEach(p -> agregar(franquicia.getId(), sucursal.getId(), p.getId(), p.getNombre()));
+            }
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    // Con la escritura tomada; también sirve para renombrar
+    private void agregar(String franquiciaId, String sucursalId, String productoId, String nombre) {
+        if (nombre == null) {
+            quitar(franquiciaId, sucursalId, productoId);
+            return;
+        }
+        Entrada nueva = new Entrada(franquiciaId, sucursalId, productoId, nombre, PosicionBusqueda.normalizar(nombre));
+        Entrada anterior = porFranquicia.computeIfAbsent(franquiciaId, id -> new ConcurrentHashMap<>())
+                .put(new ClaveProducto(sucursalId, productoId), nueva);
+        if (anterior == null) {
+            productos.incrementAndGet();
+        } else {
+            desindexar(anterior);
+        }
+        indexar(nueva);
+    }
+
+    private void quitar(String franquiciaId, String sucursalId, String productoId) {
+        ConcurrentMap<ClaveProducto, Entrada> deFranquicia = porFranquicia.get(franquiciaId);
+        Entrada anterior = deFranquicia == null ? null : deFranquicia.remove(new ClaveProducto(sucursalId, productoId));
+        if (anterior != null) {
+            desindexar(anterior);
+            productos.decrementAndGet();
+        }
+    }
+
+    private void indexar(Entrada entrada) {
+        String nombre = entrada.normalizado();
+        Set<Entrada> conNombre = porNombre.get(nombre);
+        if (conNombre != null) {
+            conNombre.add(entrada);
+            return;
+        }
+        // Nombre nuevo: primero el nombre con su producto y después los trigramas que llevan a él
+        conNombre = ConcurrentHashMap.newKeySet();
+        conNombre.add(entrada);
+        porNombre.put(nombre, conNombre);
+        nombres.incrementAndGet();
+        caracteres.addAndGet(nombre.length());
+        for (String trigrama : trigramas(nombre)) {
+            porTrigrama.computeIfAbsent(trigrama, t -> ConcurrentHashMap.newKeySet()).add(nombre);
+            referencias.incrementAndGet();
+        }
+    }
+
+    private void desindexar(Entrada entrada) {
+        String nombre = entrada.normalizado();
+        Set<Entrada> conNombre = porNombre.get(nombre);
+        if (conNombre == null) return;
+        conNombre.remove(entrada);
+        if (!conNombre.isEmpty()) return;
+
+        porNombre.remove(nombre);
+        nombres.decrementAndGet();
+        caracteres.addAndGet(-nombre.length());
+        for (String trigrama : trigramas(nombre)) {
+            porTrigrama.computeIfPresent(trigrama, (t, conTrigrama) -> {
+                conTrigrama.remove(nombre);
+                return conTrigrama.isEmpty() ? null : conTrigrama;
+            });
+            referencias.decrementAndGet();
+        }
+    }
+
+    private double bytesEstimados() {
+        return productos.get() * BYTES_PRODUCTO
+                + nombres.get() * BYTES_NOMBRE + caracteres.get() * 2
+                + porTrigrama.size() * BYTES_TRIGRAMA
+                + referencias.get() * BYTES_REFERENCIA;
+    }
+
+    static Set<String> trigramas(String texto) {
+        Set<String> trigramas = new HashSet<>();
+        for (int i = 0; i + N <= texto.length(); i++) {
+            trigramas.add(texto.substring(i, i + N));
+        }
+        return trigramas;
+    }
+
+    private static List<Producto> productos(Sucursal sucursal) {
+        return Optional.ofNullable(sucursal.getProductos()).orElse(List.of());
+    }
+
+    private record Entrada(String franquiciaId, String sucursalId, String productoId, String nombre, String normalizado) {
+    }
+
+    private record ClaveProducto(String sucursalId, String productoId) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.esteban.franquicias_api.index;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// /actuator/topstock: estado, verificación y reconstrucción del índice de top-stock
+@Component
+@Endpoint(id = "topstock")
+@RequiredArgsConstructor
+public class TopStockEndpoint {
+
+    private final TopStockIndex topStockIndex;
+
+    @ReadOperation
+    public Map<String, Object> estado() {
+        return Map.of("franquiciasIndexadas", topStockIndex.franquiciasIndexadas().size());
+    }
+
+    @ReadOperation
+    public Map<String, Object> verificar(@Selector String franquiciaId) {
+        return Map.of("franquiciaId", franquiciaId, "consistente", topStockIndex.verificar(franquiciaId));
+    }
+
+    @WriteOperation
+    public Map<String, Object> reconstruirTodo() {
+        return Map.of("franquiciasIndexadas", topStockIndex.reconstruirTodo());
+    }
+
+    @WriteOperation
+    public Map<String, Object> reconstruir(@Selector String franquiciaId) {
+        return Map.of("franquiciaId", franquiciaId, "existe", topStockIndex.reconstruir(franquiciaId).isPresent());
+    }
+}
@@ -0,0 +1,368 @@
+package com.esteban.franquicias_api.index;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.event.*;
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.Producto;
+import com.esteban.franquicias_api.model.Sucursal;
+import com.esteban.franquicias_api.repository.ProductoStore;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+// Índice en memoria del producto con más stock de cada sucursal. Cada franquicia se carga desde
+// Mongo la primera vez que se consulta y desde ahí se mantiene con los eventos del servicio, así
+// que la consulta recorre solo las sucursales. Solo ve las escrituras hechas por esta instancia, y dos
+// cambios de stock simultáneos pueden llegar al revés de como quedaron en Mongo: VerificacionTopStock
+// compara las franquicias indexadas por turnos y recarga las que difieren, leyendo de Mongo sin juntarse
+// con otra lectura en vuelo. Indexa a lo sumo maximo-franquicias y suelta las que pasan "inactividad" sin
+// consultas: la verificación y los eventos no cuentan como uso.
+@Slf4j
+@Component
+public class TopStockIndex {
+
+    // A igual stock gana el producto que aparece primero en la sucursal, como en la agregación
+    private static final Comparator<Entrada> ORDEN = Comparator.comparingInt(Entrada::stock).reversed()
+            .thenComparingLong(Entrada::orden);
+
+    private final ProductoStore productoStore;
+    private final FranquiciasProperties properties;
+
+    private final Cache<String, IndiceFranquicia> franquicias;
+    // La verificación por turnos recorre las indexadas ordenadas por id y sigue después de esta
+    private volatile String ultimaVerificada = "";
+
+    // Una carga solo se publica si la franquicia no recibió escrituras desde que se empezó a leer de Mongo.
+    // Los eventos anotan su secuencia solo en las franquicias con una carga en curso (y en los recorridos de
+    // reconstruirTodo), así nada de esto queda en memoria después de la carga
+    private final AtomicLong secuencia = new AtomicLong();
+    private final ConcurrentMap<String, Carga> cargas = new ConcurrentHashMap<>();
+    private final Set<ConcurrentMap<String, Long>> recorridos = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public TopStockIndex(ProductoStore productoStore, FranquiciasProperties properties) {
+        this(productoStore, properties, System::nanoTime);
+    }
+
+    // Para las pruebas, con un reloj propio
+    TopStockIndex(ProductoStore productoStore, FranquiciasProperties properties, LongSupplier reloj) {
+        this.productoStore = productoStore;
+        this.properties = properties;
+        FranquiciasProperties.TopStock config = properties.getTopStock();
+        this.franquicias = Caffeine.newBuilder()
+                .maximumSize(config.getMaximoFranquicias())
+                .expireAfterAccess(config.getInactividad())
+                .ticker(reloj::getAsLong)
+                .build();
+    }
+
+    // Vacío si la franquicia no existe
+    public Optional<List<ProductoDTO>> productosConMasStock(String franquiciaId) {
+        IndiceFranquicia indice = franquicias.getIfPresent(franquiciaId);
+        if (indice != null) {
+            return Optional.of(indice.productosConMasStock());
+        }
+        return cargar(franquiciaId, productoStore::franquiciaCompleta).map(IndiceFranquicia::productosConMasStock);
+    }
+
+    // Con una lectura propia: la de otra consulta en vuelo pudo empezar antes de la escritura que se busca ver
+    public Optional<List<ProductoDTO>> reconstruir(String franquiciaId) {
+        franquicias.invalidate(franquiciaId);
+        return cargar(franquiciaId, productoStore::releerFranquiciaCompleta).map(IndiceFranquicia::productosConMasStock);
+    }
+
+    // Carga en frío de todas las franquicias recorriendo la colección con un cursor; con más de
+    // maximo-franquicias quedan indexadas las últimas leídas
+    public int reconstruirTodo() {
+        ConcurrentMap<String, Long> modificadas = new ConcurrentHashMap<>();
+        recorridos.add(modificadas);
+        long inicio = secuencia.get();
+        int cargadas = 0;
+        try (Stream<Franquicia> todas = productoStore.franquiciasCompletas()) {
+            for (Iterator<Franquicia> it = todas.iterator(); it.hasNext(); cargadas++) {
+                Franquicia franquicia = it.next();
+                publicar(franquicia.getId(), new IndiceFranquicia(franquicia),
+                        () -> modificadas.getOrDefault(franquicia.getId(), 0L) > inicio);
+            }
+        } finally {
+            recorridos.remove(modificadas);
+        }
+        log.info("Índice de top-stock reconstruido con {} franquicias", cargadas);
+        return cargadas;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void precargar() {
+        FranquiciasProperties.TopStock config = properties.getTopStock();
+        if (config.isIndiceHabilitado() && config.isPrecargar()) {
+            reconstruirTodo();
+        }
+    }
+
+    // Compara el índice con la agregación en Mongo; si difieren se recarga la franquicia
+    public boolean verificar(String franquiciaId) {
+        IndiceFranquicia indice = franquicias.policy().getIfPresentQuietly(franquiciaId);
+        if (indice == null) return true;
+
+        List<ProductoDTO> enMongo = productoStore.productosConMasStock(franquiciaId);
+        if (enMongo.equals(indice.productosConMasStock())) return true;
+
+        log.warn("Índice de top-stock inconsistente para la franquicia {}, se recarga", franquiciaId);
+        reconstruir(franquiciaId);
+        return false;
+    }
+
+    // Verifica las siguientes franquicias indexadas después de la última verificada y vuelve a empezar al
+    // llegar al final; devuelve cuántas tuvo que recargar
+    public int verificarSiguientes(int cantidad) {
+        NavigableSet<String> indexadas = new TreeSet<>(franquicias.asMap().keySet());
+        List<String> turno = new ArrayList<>(cantidad);
+        for (String franquiciaId : indexadas.tailSet(ultimaVerificada, false)) {
+            if (turno.size() == cantidad) break;
+            turno.add(franquiciaId);
+        }
+        for (String franquiciaId : indexadas) {
+            if (turno.size() == cantidad || turno.contains(franquiciaId)) break;
+            turno.add(franquiciaId);
+        }
+
+        int recargadas = 0;
+        for (String franquiciaId : turno) {
+            if (!verificar(franquiciaId)) recargadas++;
+            ultimaVerificada = franquiciaId;
+        }
+        return recargadas;
+    }
+
+    public Set<String> franquiciasIndexadas() {
+        return Collections.unmodifiableSet(franquicias.asMap().keySet());
+    }
+
+    @EventListener
+    public void aplicar(FranquiciaEvent evento) {
+        // Primero la secuencia y después el índice: una carga concurrente o ve este evento o se descarta.
+        // Una carga que se registra después de tomar la secuencia lee la suya propia después, así que ya la cubre
+        long numero = secuencia.incrementAndGet();
+        cargas.computeIfPresent(evento.franquiciaId(), (id, carga) -> carga.modificada(numero));
+        recorridos.forEach(modificadas -> modificadas.merge(evento.franquiciaId(), numero, Math::max));
+
+        IndiceFranquicia indice = franquicias.policy().getIfPresentQuietly(evento.franquiciaId());
+        if (indice == null) return;
+
+        try {
+            indice.aplicar(evento);
+        } catch (RuntimeException e) {
+            // La escritura ya está en Mongo: se descarta la franquicia y la próxima consulta la recarga
+            log.warn("No se pudo aplicar {} al índice de top-stock, se descarta la franquicia", evento, e);
+            franquicias.asMap().remove(evento.franquiciaId(), indice);
+        }
+    }
+
+    private Optional<IndiceFranquicia> cargar(String franquiciaId, Function<String, Optional<Franquicia>> lectura) {
+        Carga carga = cargas.compute(franquiciaId, (id, actual) -> (actual == null ? new Carga() : actual).empezar());
+        try {
+            long inicio = secuencia.get();
+            Optional<IndiceFranquicia> cargado = lectura.apply(franquiciaId).map(IndiceFranquicia::new);
+            cargado.ifPresent(indice -> publicar(franquiciaId, indice, () -> carga.ultimaModificacion > inicio));
+            return cargado;
+        } finally {
+            cargas.computeIfPresent(franquiciaId, (id, actual) -> actual.terminar());
+        }
+    }
+
+    // Un evento que llega entre el put y la comprobación ya se aplicó al índice publicado o lo descarta
+    private void publicar(String franquiciaId, IndiceFranquicia indice, BooleanSupplier modificadaDuranteLaLectura) {
+        franquicias.put(franquiciaId, indice);
+        if (modificadaDuranteLaLectura.getAsBoolean()) {
+            franquicias.asMap().remove(franquiciaId, indice);
+        }
+    }
+
+    // Cargas en curso de una franquicia y la secuencia del último evento que llegó mientras tanto.
+    // enCurso solo se toca dentro de compute
+    private static final class Carga {
+
+        private int enCurso;
+        private volatile long ultimaModificacion;
+
+        Carga empezar() {
+            enCurso++;
+            return this;
+        }
+
+        // null quita la entrada del mapa
+        Carga terminar() {
+            return --enCurso == 0 ? null : this;
+        }
+
+        Carga modificada(long numero) {
+            ultimaModificacion = Math.max(ultimaModificacion, numero);
+            return this;
+        }
+    }
+
+    private static final class IndiceFranquicia {
+
+        // En el mismo orden que en el documento
+        private final List<IndiceSucursal> sucursales = new CopyOnWriteArrayList<>();
+        private final Map<String, IndiceSucursal> porId = new ConcurrentHashMap<>();
+
+        IndiceFranquicia(Franquicia franquicia) {
+            franquicia.getSucursales().forEach(this::agregarSucursal);
+        }
+
+        List<ProductoDTO> productosConMasStock() {
+            List<ProductoDTO> productos = new ArrayList<>(sucursales.size());
+            for (IndiceSucursal sucursal : sucursales) {
+                ProductoDTO top = sucursal.top;
+                if (top != null) productos.add(top);
+            }
+            return productos;
+        }
+
+        void aplicar(FranquiciaEvent evento) {
+            switch (evento) {
+                case FranquiciaRenombradaEvent e -> {
+                }
+                case SucursalAgregadaEvent e -> agregarSucursal(e.sucursal());
+                case SucursalRenombradaEvent e -> sucursal(e.sucursalId()).renombrar(e.nombre());
+                case UmbralStockActualizadoEvent e -> {
+                }
+                case ProductoAgregadoEvent e -> sucursal(e.sucursalId()).agregar(e.producto());
+                case ProductoRenombradoEvent e -> sucursal(e.sucursalId()).renombrarProducto(e.productoId(), e.nombre());
+                case StockActualizadoEvent e -> sucursal(e.sucursalId()).actualizarStock(e.productoId(), e.stock());
+                case StockIncrementadoEvent e -> sucursal(e.sucursalId()).actualizarStock(e.productoId(), e.stock());
+                case ProductoEliminadoEvent e -> sucursal(e.sucursalId()).eliminar(e.productoId());
+            }
+        }
+
+        private void agregarSucursal(Sucursal sucursal) {
+            IndiceSucursal indice = new IndiceSucursal(sucursal);
+            if (porId.putIfAbsent(sucursal.getId(), indice) == null) {
+                sucursales.add(indice);
+            }
+        }
+
+        private IndiceSucursal sucursal(String sucursalId) {
+            IndiceSucursal sucursal = porId.get(sucursalId);
+            if (sucursal == null) {
+                throw new IllegalStateException("Sucursal " + sucursalId + " no indexada");
+            }
+            return sucursal;
+        }
+    }
+
+    private static final class IndiceSucursal {
+
+        private final String id;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Entrada> porProducto = new HashMap<>();
+        private final TreeSet<Entrada> porStock = new TreeSet<>(ORDEN);
+        private String nombre;
+        private long siguienteOrden;
+
+        // Resultado ya armado para que la lectura no tome el lock
+        private volatile ProductoDTO top;
+
+        IndiceSucursal(Sucursal sucursal) {
+            this.id = sucursal.getId();
+            this.nombre = sucursal.getNombre();
+            Optional.ofNullable(sucursal.getProductos()).orElse(List.of()).forEach(this::insertar);
+            recalcular();
+        }
+
+        void renombrar(String nuevoNombre) {
+            modificar(() -> nombre = nuevoNombre);
+        }
+
+        void agregar(Producto producto) {
+            modificar(() -> {
+                Entrada existente = porProducto.get(producto.getId());
+                if (existente == null) {
+                    insertar(producto);
+                } else {
+                    reemplazar(existente, new Entrada(existente.productoId(), producto.getNombre(), producto.getStock(), existente.orden()));
+                }
+            });
+        }
+
+        void renombrarProducto(String productoId, String nuevoNombre) {
+            modificar(() -> {
+                Entrada actual = entrada(productoId);
+                reemplazar(actual, new Entrada(productoId, nuevoNombre, actual.stock(), actual.orden()));
+            });
+        }
+
+        void actualizarStock(String productoId, int stock) {
+            modificar(() -> {
+                Entrada actual = entrada(productoId);
+                reemplazar(actual, new Entrada(productoId, actual.nombre(), stock, actual.orden()));
+            });
+        }
+
+        void eliminar(String productoId) {
+            modificar(() -> {
+                Entrada entrada = porProducto.remove(productoId);
+                if (entrada != null) porStock.remove(entrada);
+            });
+        }
+
+        private void modificar(Runnable cambio) {
+            lock.lock();
+            try {
+                cambio.run();
+                recalcular();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void insertar(Producto producto) {
+            Entrada entrada = new Entrada(producto.getId(), producto.getNombre(), producto.getStock(), siguienteOrden++);
+            porProducto.put(entrada.productoId(), entrada);
+            porStock.add(entrada);
+        }
+
+        private void reemplazar(Entrada anterior, Entrada nueva) {
+            porStock.remove(anterior);
+            porStock.add(nueva);
+            porProducto.put(nueva.productoId(), nueva);
+        }
+
+        private Entrada entrada(String productoId) {
+            Entrada entrada = porProducto.get(productoId);
+            if (entrada == null) {
+                throw new IllegalStateException("Producto " + productoId + " no indexado en la sucursal " + id);
+            }
+            return entrada;
+        }
+
+        private void recalcular() {
+            top = porStock.isEmpty() ? null : ProductoDTO.builder()
+                    .id(porStock.first().productoId())
+                    .nombre(porStock.first().nombre() + " (Sucursal: " + nombre + ")")
+                    .stock(porStock.first().stock())
+                    .sucursalId(id)
+                    .build();
+        }
+    }
+
+    private record Entrada(String productoId, String nombre, int stock, long orden) {
+    }
+}
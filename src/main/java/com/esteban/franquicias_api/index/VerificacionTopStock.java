@@ -0,0 +1,54 @@
+package com.esteban.franquicias_api.index;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ScheduledFuture;
+
+// Verifica franquicias.top-stock.verificacion.franquicias-por-intervalo franquicias indexadas cada intervalo,
+// así un evento de stock aplicado fuera de orden no queda en el índice más que una vuelta.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VerificacionTopStock implements SmartLifecycle {
+
+    private final TopStockIndex topStockIndex;
+    private final TaskScheduler scheduler;
+    private final FranquiciasProperties properties;
+
+    private volatile ScheduledFuture<?> periodico;
+
+    @Override
+    public void start() {
+        FranquiciasProperties.TopStock config = properties.getTopStock();
+        if (config.isIndiceHabilitado() && config.getVerificacion().isHabilitada()) {
+            periodico = scheduler.scheduleWithFixedDelay(this::verificar, config.getVerificacion().getIntervalo());
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (periodico != null) {
+            periodico.cancel(false);
+            periodico = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return periodico != null;
+    }
+
+    // Una excepción cancelaría las ejecuciones siguientes
+    private void verificar() {
+        try {
+            topStockIndex.verificarSiguientes(properties.getTopStock().getVerificacion().getFranquiciasPorIntervalo());
+        } catch (RuntimeException e) {
+            log.warn("Falló un paso de la verificación del índice de top-stock", e);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.esteban.franquicias_api.migracion;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.config.IndicesMongo;
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.ProductoDocument;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+// Pasa los productos embebidos a la colección "productos". Recorre las franquicias con un cursor,
+// escribe lotes acotados con upserts por _id y después quita de cada franquicia solo los productos
+// ya copiados, así que se puede cortar y volver a correr sin duplicar ni perder productos.
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "franquicias.productos.migracion", name = "habilitada", havingValue = "true")
+@RequiredArgsConstructor
+public class ProductosColeccionMigracion implements ApplicationRunner {
+
+    private final MongoTemplate mongoTemplate;
+    private final FranquiciasProperties properties;
+    private final IndicesMongo indicesMongo;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        indicesMongo.asegurar();
+
+        int tamanoLote = properties.getProductos().getMigracion().getTamanoLote();
+        Lote lote = new Lote(tamanoLote);
+        long franquicias = 0;
+
+        Query query = new Query(Criteria.where("sucursales.productos.0").exists(true));
+        query.fields().include("sucursales._id", "sucursales.productos");
+        query.cursorBatchSize(Math.max(1, tamanoLote / 10));
+
+        try (Stream<Document> cursor = mongoTemplate.stream(query, Document.class, coleccion())) {
+            for (Iterator<Document> it = cursor.iterator(); it.hasNext(); franquicias++) {
+                Document franquicia = it.next();
+                String franquiciaId = idTexto(franquicia.get("_id"));
+
+                for (Document sucursal : franquicia.getList("sucursales", Document.class, List.of())) {
+                    List<Document> productos = sucursal.getList("productos", Document.class, List.of());
+                    for (int orden = 0; orden < productos.size(); orden++) {
+                        lote.agregar(franquicia.get("_id"), documento(franquiciaId, sucursal.getString("_id"), productos.get(orden), orden));
+                        if (lote.lleno()) escribir(lote);
+                    }
+                }
+            }
+        }
+        if (!lote.vacio()) escribir(lote);
+
+        log.info("Migración de productos terminada: {} franquicias, {} productos", franquicias, lote.escritos);
+    }
+
+    private void escribir(Lote lote) {
+        BulkOperations productos = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ProductoDocument.class);
+        lote.documentos.forEach(doc -> productos.replaceOne(
+                new Query(Criteria.where("_id").is(doc.get("_id"))), doc, FindAndReplaceOptions.options().upsert()));
+        productos.execute();
+
+        // Recién con la copia confirmada se quitan de cada franquicia los productos de este lote
+        BulkOperations franquicias = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, coleccion());
+        lote.porFranquicia.forEach((id, ids) -> franquicias.updateOne(
+                new Query(Criteria.where("_id").is(id)),
+                new Update().pull("sucursales.$[].productos", new Document("_id", new Document("$in", ids)))));
+        franquicias.execute();
+
+        lote.limpiar();
+    }
+
+    private static Document documento(String franquiciaId, String sucursalId, Document producto, int orden) {
+        return new Document("_id", producto.get("_id"))
+                .append("franquiciaId", franquiciaId)
+                .append("sucursalId", sucursalId)
+                .append("nombre", producto.get("nombre"))
+                .append("stock", producto.get("stock", 0))
+                .append("orden", (long) orden);
+    }
+
+    private static String idTexto(Object id) {
+        return id instanceof ObjectId objectId ? objectId.toHexString() : String.valueOf(id);
+    }
+
+    private String coleccion() {
+        return mongoTemplate.getCollectionName(Franquicia.class);
+    }
+
+    private static final class Lote {
+
+        private final int tamano;
+        private final List<Document> documentos;
+        private final Map<Object, List<Object>> porFranquicia = new LinkedHashMap<>();
+        private long escritos;
+
+        Lote(int tamano) {
+            this.tamano = tamano;
+            this.documentos = new ArrayList<>(tamano);
+        }
+
+        void agregar(Object franquiciaId, Document producto) {
+            documentos.add(producto);
+            porFranquicia.computeIfAbsent(franquiciaId, id -> new ArrayList<>()).add(producto.get("_id"));
+        }
+
+        boolean lleno() {
+            return documentos.size() >= tamano;
+        }
+
+        boolean vacio() {
+            return documentos.isEmpty();
+        }
+
+        void limpiar() {
+            escritos += documentos.size();
+            documentos.clear();
+            porFranquicia.clear();
+        }
+    }
+}
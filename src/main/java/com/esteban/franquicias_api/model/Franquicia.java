@@ -1,15 +1,20 @@
 package com.esteban.franquicias_api.model;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 import lombok.Builder;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Document(collection = "franquicias")
 @Data
@@ -26,4 +31,23 @@ public class Franquicia {
     // Sucursales embebidas dentro de la franquicia
     @Builder.Default
     private List<Sucursal> sucursales = new ArrayList<>();
+
+    // No se guarda en Mongo ni entra en el constructor, equals o toString (ver IndicePorId)
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    @Transient
+    private final transient IndicePorId<Sucursal> indiceSucursales = new IndicePorId<>(Sucursal::getId);
+
+    public Optional<Sucursal> sucursal(String sucursalId) {
+        return indiceSucursales.buscar(sucursales, sucursalId);
+    }
+
+    // Por acá el índice de sucursales se actualiza sin volver a armarse
+    public void agregarSucursal(Sucursal sucursal) {
+        indiceSucursales.agregar(sucursales, sucursal);
+    }
+
+    public void agregarSucursales(Collection<Sucursal> nuevas) {
+        indiceSucursales.agregarTodos(sucursales, nuevas);
+    }
 }
@@ -0,0 +1,100 @@
+package com.esteban.franquicias_api.model;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+// Índice id -> posición de una lista embebida (las sucursales de una franquicia o los productos de una
+// sucursal), armado en la primera búsqueda. agregar y quitar cambian la lista y el índice a la vez, sin
+// volver a armarlo. Si la lista cambia por fuera (otro tamaño, otra lista, o un acierto que ya no está en
+// su posición) la búsqueda que lo nota vuelve a indexar, así que nunca devuelve otro elemento. Un id que no
+// está en el índice se da por inexistente: reemplazar un elemento con set sin pasar por quitar y agregar no
+// deja encontrar al nuevo hasta que se vuelva a indexar.
+// Un documento que nadie modifica se puede consultar desde varios hilos: cada índice armado se publica
+// entero. agregar y quitar son para documentos que usa un solo hilo, como cualquier escritura del modelo.
+public final class IndicePorId<T> {
+
+    private final Function<T, String> id;
+    private volatile Posiciones<T> posiciones;
+
+    public IndicePorId(Function<T, String> id) {
+        this.id = id;
+    }
+
+    public Optional<T> buscar(List<T> elementos, String buscado) {
+        if (elementos == null || buscado == null) return Optional.empty();
+
+        Posiciones<T> actual = posiciones;
+        boolean recienArmado = actual == null || !actual.indexa(elementos);
+        if (recienArmado) actual = indexar(elementos);
+
+        Integer posicion = actual.porId.get(buscado);
+        if (posicion == null) return Optional.empty();
+        T elemento = elementos.get(posicion);
+        if (buscado.equals(id.apply(elemento))) return Optional.of(elemento);
+        // La posición quedó vieja: la lista cambió por fuera con el mismo tamaño
+        return recienArmado ? Optional.empty() : buscar(elementos, buscado, indexar(elementos));
+    }
+
+    public void agregar(List<T> elementos, T elemento) {
+        elementos.add(elemento);
+        Posiciones<T> actual = posiciones;
+        if (actual != null && actual.elementos == elementos && actual.tamano == elementos.size() - 1) {
+            // Con ids repetidos gana el primero, como en una búsqueda lineal
+            actual.porId.putIfAbsent(id.apply(elemento), actual.tamano++);
+        }
+    }
+
+    public void agregarTodos(List<T> elementos, Collection<T> nuevos) {
+        nuevos.forEach(elemento -> agregar(elementos, elemento));
+    }
+
+    // Quita el elemento con ese id; los siguientes corren su posición en el mismo mapa, como en la lista
+    public boolean quitar(List<T> elementos, String quitado) {
+        Optional<T> encontrado = buscar(elementos, quitado);
+        if (encontrado.isEmpty()) return false;
+
+        Posiciones<T> actual = posiciones;
+        int posicion = actual.porId.remove(quitado);
+        elementos.remove(posicion);
+        actual.porId.replaceAll((clave, valor) -> valor > posicion ? valor - 1 : valor);
+        actual.tamano--;
+        return true;
+    }
+
+    private Optional<T> buscar(List<T> elementos, String buscado, Posiciones<T> actual) {
+        Integer posicion = actual.porId.get(buscado);
+        return posicion == null ? Optional.empty() : Optional.of(elementos.get(posicion));
+    }
+
+    private Posiciones<T> indexar(List<T> elementos) {
+        Map<String, Integer> porId = new HashMap<>((int) (elementos.size() / 0.75f) + 1);
+        for (int i = 0; i < elementos.size(); i++) {
+            porId.putIfAbsent(id.apply(elementos.get(i)), i);
+        }
+        Posiciones<T> nuevas = new Posiciones<>(elementos, porId, elementos.size());
+        posiciones = nuevas;
+        return nuevas;
+    }
+
+    private static final class Posiciones<T> {
+
+        private final List<T> elementos;
+        private final Map<String, Integer> porId;
+        // Tamaño de la lista que refleja porId; si no coincide, la lista cambió por fuera
+        private int tamano;
+
+        private Posiciones(List<T> elementos, Map<String, Integer> porId, int tamano) {
+            this.elementos = elementos;
+            this.porId = porId;
+            this.tamano = tamano;
+        }
+
+        boolean indexa(List<T> lista) {
+            return elementos == lista && tamano == lista.size();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.esteban.franquicias_api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+// Outbox de la vista por sucursal (ver PendientesProyeccion): una marca por sucursal con cambios sin proyectar.
+// Cada escritura suma en "abiertas" antes de tocar la franquicia y resta al terminar, y cada paso sube la
+// versión: el proyector solo borra la marca si nadie la tocó mientras proyectaba
+@Document(collection = "vista_sucursales_pendientes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MarcaProyeccion {
+
+    // franquiciaId/sucursalId
+    @Id
+    private String id;
+    private String franquiciaId;
+    private String sucursalId;
+    private long version;
+    // Escrituras empezadas y sin terminar; puede quedar negativa si el proyector borró la marca en el medio
+    private int abiertas;
+    // Primer cambio sin proyectar: de acá sale el retraso de la vista
+    @Indexed(name = "desde")
+    private Instant desde;
+    private Instant tocada;
+
+    public static String id(String franquiciaId, String sucursalId) {
+        return franquiciaId + "/" + sucursalId;
+    }
+}
@@ -0,0 +1,38 @@
+package com.esteban.franquicias_api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+// Resumen por hora de los movimientos de stock de un producto (ver HistorialStockMongo): cada lote de
+// movimientos suma con $inc en el de su hora, y los reportes por hora o por día agrupan estos en lugar de
+// recorrer los movimientos sueltos
+@Document(collection = "movimientos_stock_horas")
+@CompoundIndex(name = "producto_hora", def = "{ 'franquiciaId': 1, 'sucursalId': 1, 'productoId': 1, 'hora': 1 }", unique = true)
+// Resumen de toda la franquicia
+@CompoundIndex(name = "franquicia_hora", def = "{ 'franquiciaId': 1, 'hora': 1 }")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MovimientosHora {
+
+    @Id
+    private String id;
+    private String franquiciaId;
+    private String sucursalId;
+    private String productoId;
+    private Instant hora;
+    private long movimientos;
+    private long entradas;
+    private long salidas;
+    private long ajustes;
+    private Integer stockMinimo;
+    private Integer stockMaximo;
+}
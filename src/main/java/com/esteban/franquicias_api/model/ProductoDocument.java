@@ -0,0 +1,37 @@
+package com.esteban.franquicias_api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// Producto guardado en su propia colección (franquicias.productos.almacenamiento=coleccion)
+@Document(collection = "productos")
+@CompoundIndex(name = "franquicia_sucursal_stock", def = "{ 'franquiciaId': 1, 'sucursalId': 1, 'stock': -1, 'orden': 1 }")
+// Paginación de los productos de una sucursal y recorrido del catálogo por franquicia
+@CompoundIndex(name = "franquicia_sucursal_id", def = "{ 'franquiciaId': 1, 'sucursalId': 1, '_id': 1 }")
+// Analítica global: de menor a mayor stock (stock bajo) y en sentido inverso (mayor stock), ver PosicionStock
+@CompoundIndex(name = "stock_franquicia_sucursal_id", def = "{ 'stock': 1, 'franquiciaId': 1, 'sucursalId': 1, '_id': 1 }")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductoDocument {
+
+    @Id
+    private String id;
+    private String franquiciaId;
+    private String sucursalId;
+    private String nombre;
+    private int stock;
+
+    // Posición del producto dentro de su sucursal, para desempatar igual que en el modelo embebido
+    private long orden;
+
+    public Producto toProducto() {
+        return new Producto(id, nombre, stock);
+    }
+}
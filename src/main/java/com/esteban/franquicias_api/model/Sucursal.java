@@ -2,13 +2,19 @@ package com.esteban.franquicias_api.model;
 
 
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Builder;
+import lombok.ToString;
+import org.springframework.data.annotation.Transient;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Data
 @NoArgsConstructor
@@ -22,4 +28,39 @@ public class Sucursal {
     // Productos embebidos dentro de la sucursal
     @Builder.Default
     private List<Producto> productos = new ArrayList<>();
+
+    // Alerta de stock bajo para los productos con stock menor a este; null usa franquicias.alertas.umbral-por-defecto
+    private Integer umbralStock;
+
+    // No se guarda en Mongo ni entra en el constructor, equals o toString (ver IndicePorId)
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    @Transient
+    private final transient IndicePorId<Producto> indiceProductos = new IndicePorId<>(Producto::getId);
+
+    public Sucursal(String id, String nombre, List<Producto> productos) {
+        this(id, nombre, productos, null);
+    }
+
+    // Copia con los mismos datos de la sucursal y otros productos
+    public Sucursal conProductos(List<Producto> productos) {
+        return new Sucursal(id, nombre, productos, umbralStock);
+    }
+
+    public Optional<Producto> producto(String productoId) {
+        return indiceProductos.buscar(productos, productoId);
+    }
+
+    // Por acá el índice de productos se actualiza sin volver a armarse
+    public void agregarProducto(Producto producto) {
+        indiceProductos.agregar(productos, producto);
+    }
+
+    public void agregarProductos(Collection<Producto> nuevos) {
+        indiceProductos.agregarTodos(productos, nuevos);
+    }
+
+    public boolean quitarProducto(String productoId) {
+        return indiceProductos.quitar(productos, productoId);
+    }
 }
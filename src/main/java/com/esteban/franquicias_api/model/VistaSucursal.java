@@ -0,0 +1,38 @@
+package com.esteban.franquicias_api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// Lado de lectura: una sucursal ya armada, con sus productos y totales, para no traer la franquicia entera.
+// La escribe solo VistaSucursalesService a partir de las marcas pendientes; puede ir detrás del modelo de escritura
+@Document(collection = "vista_sucursales")
+// Sucursales de una franquicia paginadas por id
+@CompoundIndex(name = "franquicia_id", def = "{ 'franquiciaId': 1, '_id': 1 }")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VistaSucursal {
+
+    // Id de la sucursal
+    @Id
+    private String id;
+    private String franquiciaId;
+    private String nombre;
+    @Builder.Default
+    private List<Producto> productos = new ArrayList<>();
+    private int totalProductos;
+    private long stockTotal;
+    // Mayor stock; a igual stock, el primero de la sucursal. null si no tiene productos
+    private Producto productoConMasStock;
+    private Instant actualizada;
+}
@@ -0,0 +1,4 @@
+package com.esteban.franquicias_api.repository;
+
+public record ActualizacionStock(String sucursalId, String productoId, int stock) {
+}
@@ -0,0 +1,39 @@
+package com.esteban.franquicias_api.repository;
+
+import com.esteban.franquicias_api.dto.ResumenMovimientosDTO;
+
+import java.time.Instant;
+import java.util.function.BinaryOperator;
+
+// Lo que suman los movimientos de un período: entradas y salidas son los deltas positivos y negativos, ajustes
+// los movimientos sin delta conocido, y el mínimo y el máximo salen de los valores finales conocidos
+record AcumuladoMovimientos(long movimientos, long entradas, long salidas, long ajustes,
+                            Integer stockMinimo, Integer stockMaximo) {
+
+    static AcumuladoMovimientos de(MovimientoStock movimiento) {
+        Integer delta = movimiento.delta();
+        return new AcumuladoMovimientos(1,
+                delta != null && delta > 0 ? delta : 0,
+                delta != null && delta < 0 ? -(long) delta : 0,
+                delta == null ? 1 : 0,
+                movimiento.stock(), movimiento.stock());
+    }
+
+    AcumuladoMovimientos sumar(AcumuladoMovimientos otro) {
+        return new AcumuladoMovimientos(movimientos + otro.movimientos, entradas + otro.entradas,
+                salidas + otro.salidas, ajustes + otro.ajustes,
+                extremo(stockMinimo, otro.stockMinimo, Math::min), extremo(stockMaximo, otro.stockMaximo, Math::max));
+    }
+
+    // El mínimo y el máximo de stock solo tienen sentido para un producto
+    ResumenMovimientosDTO resumen(Instant periodo, boolean conStock) {
+        return new ResumenMovimientosDTO(periodo, movimientos, entradas, salidas, ajustes,
+                conStock ? stockMinimo : null, conStock ? stockMaximo : null);
+    }
+
+    private static Integer extremo(Integer a, Integer b, BinaryOperator<Integer> elegir) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return elegir.apply(a, b);
+    }
+}
@@ -0,0 +1,446 @@
+package com.esteban.franquicias_api.repository;
+
+import com.esteban.franquicias_api.dto.LineaCatalogoDTO;
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.dto.ProductoEncontradoDTO;
+import com.esteban.franquicias_api.dto.TotalesFranquiciaDTO;
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.Producto;
+import com.esteban.franquicias_api.model.ProductoDocument;
+import com.esteban.franquicias_api.model.Sucursal;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Productos en la colección "productos", un documento por producto. El documento de la franquicia
+// queda con las sucursales vacías, así que crece con las sucursales y no con el catálogo.
+@Component
+@ConditionalOnProperty(prefix = "franquicias.productos", name = "almacenamiento", havingValue = "coleccion")
+@RequiredArgsConstructor
+public class CollectionProductoStore implements ProductoStore {
+
+    private static final FindAndModifyOptions DEVOLVER_NUEVO = FindAndModifyOptions.options().returnNew(true);
+
+    // Los productos migrados conservan su posición (0..n); los nuevos van siempre detrás
+    private static final AtomicLong SECUENCIA = new AtomicLong(System.currentTimeMillis() * 1_000);
+
+    private final MongoTemplate mongoTemplate;
+    private final FranquiciaRepository franquiciaRepository;
+    private final LecturasCompartidas lecturas;
+
+    @Override
+    public boolean agregarSucursal(String franquiciaId, Sucursal sucursal) {
+        List<Producto> productos = Optional.ofNullable(sucursal.getProductos()).orElse(List.of());
+        Sucursal sinProductos = sucursal.conProductos(new ArrayList<>());
+        if (!franquiciaRepository.agregarSucursal(franquiciaId, sinProductos)) return false;
+
+        if (!productos.isEmpty()) {
+            mongoTemplate.insertAll(productos.stream()
+                    .map(p -> documento(franquiciaId, sucursal.getId(), p))
+                    .toList());
+        }
+        return true;
+    }
+
+    @Override
+    public Optional<Sucursal> actualizarNombreSucursal(String franquiciaId, String sucursalId, String nuevoNombre) {
+        return franquiciaRepository.actualizarNombreSucursal(franquiciaId, sucursalId, nuevoNombre)
+                .map(sucursal -> {
+                    sucursal.setProductos(productosDeSucursal(franquiciaId, sucursalId));
+                    return sucursal;
+                });
+    }
+
+    @Override
+    public boolean agregar(String franquiciaId, String sucursalId, Producto producto) {
+        if (!franquiciaRepository.existeSucursal(franquiciaId, sucursalId)) return false;
+        mongoTemplate.insert(documento(franquiciaId, sucursalId, producto));
+        return true;
+    }
+
+    @Override
+    public Optional<Producto> actualizarNombre(String franquiciaId, String sucursalId, String productoId, String nuevoNombre) {
+        return modificar(franquiciaId, sucursalId, productoId, new Update().set("nombre", nuevoNombre));
+    }
+
+    @Override
+    public Optional<Producto> actualizarStock(String franquiciaId, String sucursalId, String productoId, int nuevoStock) {
+        return modificar(franquiciaId, sucursalId, productoId, new Update().set("stock", nuevoStock));
+    }
+
+    @Override
+    public boolean eliminar(String franquiciaId, String sucursalId, String productoId) {
+        return mongoTemplate.remove(porProducto(franquiciaId, sucursalId, productoId), ProductoDocument.class)
+                .getDeletedCount() > 0;
+    }
+
+    // Un insert con todas las franquicias (sucursales vacías) y otro con todos sus productos
+    @Override
+    public void insertarFranquicias(List<Franquicia> franquicias) {
+        List<Franquicia> sinProductos = franquicias.stream()
+                .map(f -> new Franquicia(f.getId(), f.getNombre(), f.getSucursales().stream()
+                        .map(s -> s.conProductos(new ArrayList<>()))
+                        .collect(Collectors.toCollection(ArrayList::new))))
+                .toList();
+        franquiciaRepository.insert(sinProductos);
+
+        List<ProductoDocument> productos = new ArrayList<>();
+        for (int i = 0; i < franquicias.size(); i++) {
+            Franquicia franquicia = franquicias.get(i);
+            franquicia.setId(sinProductos.get(i).getId());
+            franquicia.getSucursales().forEach(s -> s.getProductos()
+                    .forEach(p -> productos.add(documento(franquicia.getId(), s.getId(), p))));
+        }
+        if (!productos.isEmpty()) mongoTemplate.insertAll(productos);
+    }
+
+    @Override
+    public boolean agregarSucursales(String franquiciaId, List<Sucursal> sucursales) {
+        List<Sucursal> sinProductos = sucursales.stream()
+                .map(s -> s.conProductos(new ArrayList<>()))
+                .toList();
+        if (!franquiciaRepository.agregarSucursales(franquiciaId, sinProductos)) return false;
+
+        List<ProductoDocument> productos = sucursales.stream()
+                .flatMap(s -> s.getProductos().stream().map(p -> documento(franquiciaId, s.getId(), p)))
+                .toList();
+        if (!productos.isEmpty()) mongoTemplate.insertAll(productos);
+        return true;
+    }
+
+    @Override
+    public boolean agregarProductos(String franquiciaId, String sucursalId, List<Producto> productos) {
+        if (!franquiciaRepository.existeSucursal(franquiciaId, sucursalId)) return false;
+        mongoTemplate.insertAll(productos.stream().map(p -> documento(franquiciaId, sucursalId, p)).toList());
+        return true;
+    }
+
+    @Override
+    public ResultadoLoteStock actualizarStockEnLote(String franquiciaId, List<ActualizacionStock> actualizaciones) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ProductoDocument.class);
+        for (ActualizacionStock actualizacion : actualizaciones) {
+            bulk.updateOne(porProducto(franquiciaId, actualizacion.sucursalId(), actualizacion.productoId()),
+                    new Update().set("stock", actualizacion.stock()));
+        }
+
+        try {
+            return new ResultadoLoteStock(bulk.execute().getMatchedCount(), Map.of());
+        } catch (BulkOperationException e) {
+            return new ResultadoLoteStock(e.getResult().getMatchedCount(), e.getErrors().stream()
+                    .collect(Collectors.toMap(BulkWriteError::getIndex, BulkWriteError::getMessage)));
+        }
+    }
+
+    @Override
+    public ResultadoLoteStock incrementarStockEnLote(String franquiciaId, List<IncrementoStock> incrementos) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ProductoDocument.class);
+        for (IncrementoStock incremento : incrementos) {
+            Query filtro = porProducto(franquiciaId, incremento.sucursalId(), incremento.productoId());
+            if (incremento.delta() < 0) filtro.addCriteria(Criteria.where("stock").gte(-incremento.delta()));
+            bulk.updateOne(filtro, new Update().inc("stock", incremento.delta()));
+        }
+
+        try {
+            return new ResultadoLoteStock(bulk.execute().getMatchedCount(), Map.of());
+        } catch (BulkOperationException e) {
+            return new ResultadoLoteStock(e.getResult().getMatchedCount(), e.getErrors().stream()
+                    .collect(Collectors.toMap(BulkWriteError::getIndex, BulkWriteError::getMessage)));
+        }
+    }
+
+    @Override
+    public Optional<Map<String, Set<String>>> idsProductos(String franquiciaId, Collection<String> sucursalIds) {
+        return franquiciaRepository.findById(franquiciaId).map(franquicia -> {
+            Map<String, Set<String>> ids = new HashMap<>();
+            franquicia.getSucursales().stream()
+                    .map(Sucursal::getId)
+                    .filter(sucursalIds::contains)
+                    .forEach(id -> ids.put(id, new HashSet<>()));
+            if (ids.isEmpty()) return ids;
+
+            Query query = new Query(Criteria.where("franquiciaId").is(franquiciaId).and("sucursalId").in(ids.keySet()));
+            query.fields().include("sucursalId");
+            mongoTemplate.find(query, ProductoDocument.class)
+                    .forEach(p -> ids.get(p.getSucursalId()).add(p.getId()));
+            return ids;
+        });
+    }
+
+    @Override
+    public Map<String, Map<String, Integer>> stockProductos(String franquiciaId, Map<String, Set<String>> productos) {
+        Set<String> productoIds = new HashSet<>();
+        productos.values().forEach(productoIds::addAll);
+        Query query = new Query(Criteria.where("franquiciaId").is(franquiciaId).and("_id").in(productoIds));
+        query.fields().include("sucursalId", "stock");
+
+        Map<String, Map<String, Integer>> stock = new HashMap<>();
+        for (ProductoDocument producto : mongoTemplate.find(query, ProductoDocument.class)) {
+            if (productos.getOrDefault(producto.getSucursalId(), Set.of()).contains(producto.getId())) {
+                stock.computeIfAbsent(producto.getSucursalId(), id -> new HashMap<>()).put(producto.getId(), producto.getStock());
+            }
+        }
+        return stock;
+    }
+
+    @Override
+    public List<ProductoDTO> productosConMasStock(String franquiciaId) {
+        Optional<Franquicia> franquicia = franquiciaRepository.findById(franquiciaId);
+        if (franquicia.isEmpty()) return List.of();
+
+        // Recorre el índice (franquiciaId, sucursalId, stock desc, orden) y se queda con el primero de cada sucursal
+        Aggregation agregacion = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("franquiciaId").is(franquiciaId)),
+                Aggregation.sort(Sort.by(Sort.Order.asc("sucursalId"), Sort.Order.desc("stock"), Sort.Order.asc("orden"))),
+                Aggregation.group("sucursalId")
+                        .first("_id").as("productoId")
+                        .first("nombre").as("nombre")
+                        .first("stock").as("stock"));
+
+        Map<String, Document> ganadores = new HashMap<>();
+        mongoTemplate.aggregate(agregacion, ProductoDocument.class, Document.class)
+                .forEach(doc -> ganadores.put(doc.getString("_id"), doc));
+
+        List<ProductoDTO> productos = new ArrayList<>();
+        for (Sucursal sucursal : franquicia.get().getSucursales()) {
+            Document ganador = ganadores.get(sucursal.getId());
+            if (ganador == null) continue;
+            productos.add(ProductoDTO.builder()
+                    .id(ganador.getString("productoId"))
+                    .nombre(ganador.getString("nombre") + " (Sucursal: " + sucursal.getNombre() + ")")
+                    .stock(ganador.getInteger("stock", 0))
+                    .sucursalId(sucursal.getId())
+                    .build());
+        }
+        return productos;
+    }
+
+    @Override
+    public Optional<Sucursal> sucursal(String franquiciaId, String sucursalId) {
+        return lecturas.leer(franquiciaId, List.of("sucursal", sucursalId), () ->
+                franquiciaRepository.findSucursalByFranquiciaIdAndSucursalId(franquiciaId, sucursalId)
+                        .flatMap(f -> f.getSucursales().stream().findFirst())
+                        .map(sucursal -> {
+                            sucursal.setProductos(productosDeSucursal(franquiciaId, sucursalId));
+                            return sucursal;
+                        }));
+    }
+
+    @Override
+    public Optional<List<Producto>> productos(String franquiciaId, String sucursalId) {
+        return lecturas.leer(franquiciaId, List.of("productos", sucursalId), () -> {
+            if (!franquiciaRepository.existeSucursal(franquiciaId, sucursalId)) return Optional.empty();
+            return Optional.of(productosDeSucursal(franquiciaId, sucursalId));
+        });
+    }
+
+    @Override
+    public Optional<Producto> producto(String franquiciaId, String sucursalId, String productoId) {
+        return lecturas.leer(franquiciaId, List.of("producto", sucursalId, productoId), () ->
+                Optional.ofNullable(mongoTemplate.findOne(porProducto(franquiciaId, sucursalId, productoId), ProductoDocument.class))
+                        .map(ProductoDocument::toProducto));
+    }
+
+    @Override
+    public Optional<List<Producto>> paginaProductos(String franquiciaId, String sucursalId, String despues, int limite) {
+        if (!franquiciaRepository.existeSucursal(franquiciaId, sucursalId)) return Optional.empty();
+
+        // Rango del índice (franquiciaId, sucursalId, _id)
+        Criteria criterio = Criteria.where("franquiciaId").is(franquiciaId).and("sucursalId").is(sucursalId);
+        if (despues != null) criterio = criterio.and("_id").gt(despues);
+        Query query = new Query(criterio).with(Sort.by("_id")).limit(limite);
+        return Optional.of(mongoTemplate.find(query, ProductoDocument.class).stream()
+                .map(ProductoDocument::toProducto)
+                .toList());
+    }
+
+    // Un cursor sobre las franquicias (solo nombres de sucursales) y, por cada una, otro sobre sus productos
+    @Override
+    public Stream<LineaCatalogoDTO> catalogo() {
+        Query franquicias = new Query();
+        franquicias.fields().include("nombre", "sucursales._id", "sucursales.nombre");
+        return mongoTemplate.stream(franquicias, Franquicia.class).flatMap(this::lineasCatalogo);
+    }
+
+    @Override
+    public Optional<Franquicia> franquiciaCompleta(String franquiciaId) {
+        return lecturas.leer(franquiciaId, List.of("completa"), () -> franquiciaRepository.findById(franquiciaId).map(this::completar));
+    }
+
+    @Override
+    public Optional<Franquicia> releerFranquiciaCompleta(String franquiciaId) {
+        return franquiciaRepository.findById(franquiciaId).map(this::completar);
+    }
+
+    // Los productos no están en el documento de la franquicia: se piden aparte, solo sucursal y stock
+    @Override
+    public Optional<Franquicia> stockYUmbrales(String franquiciaId) {
+        return franquiciaRepository.stockYUmbrales(franquiciaId).map(franquicia -> {
+            Query query = new Query(Criteria.where("franquiciaId").is(franquicia.getId()));
+            query.fields().include("sucursalId", "stock");
+            Map<String, List<Producto>> porSucursal = mongoTemplate.find(query, ProductoDocument.class).stream()
+                    .collect(Collectors.groupingBy(ProductoDocument::getSucursalId,
+                            Collectors.mapping(ProductoDocument::toProducto, Collectors.toList())));
+            franquicia.getSucursales().forEach(s -> s.setProductos(new ArrayList<>(porSucursal.getOrDefault(s.getId(), List.of()))));
+            return franquicia;
+        });
+    }
+
+    @Override
+    public Stream<Franquicia> franquiciasCompletas() {
+        return franquiciaRepository.streamAllBy().map(this::completar);
+    }
+
+    // Con el índice stock_franquicia_sucursal_id cada página es un tramo del índice, en un sentido o en el
+    // otro; los nombres de franquicia y sucursal se completan con una sola lectura de las franquicias
+    @Override
+    public List<LineaCatalogoDTO> productosPorMayorStock(PosicionStock despues, int limite) {
+        return porStock(null, despues, false, limite);
+    }
+
+    @Override
+    public List<LineaCatalogoDTO> productosConStockBajo(int umbral, PosicionStock despues, int limite) {
+        return porStock(umbral, despues, true, limite);
+    }
+
+    // Las sucursales salen del documento de la franquicia y los productos de un $group sobre la colección
+    @Override
+    public List<TotalesFranquiciaDTO> totalesFranquicias(String despues, int limite) {
+        List<TotalesFranquiciaDTO> totales = franquiciaRepository.totalesFranquicias(despues, limite);
+        TypedAggregation<ProductoDocument> agregacion = Aggregation.newAggregation(ProductoDocument.class,
+                        Aggregation.match(Criteria.where("franquiciaId").in(totales.stream().map(TotalesFranquiciaDTO::getFranquiciaId).toList())),
+                        Aggregation.group("franquiciaId").count().as("productos").sum("stock").as("stock"))
+                .withOptions(ConsultasFranquicia.analitica(limite));
+        Map<String, Document> porFranquicia = new HashMap<>();
+        try (Stream<Document> filas = mongoTemplate.aggregateStream(agregacion, Document.class)) {
+            filas.forEach(fila -> porFranquicia.put(fila.getString("_id"), fila));
+        }
+        totales.forEach(t -> Optional.ofNullable(porFranquicia.get(t.getFranquiciaId())).ifPresent(fila -> {
+            t.setProductos(fila.get("productos", Number.class).longValue());
+            t.setStock(fila.get("stock", Number.class).longValue());
+        }));
+        return totales;
+    }
+
+    @Override
+    public List<ProductoEncontradoDTO> buscarProductos(String franquiciaId, String texto, boolean soloPrefijo,
+                                                       PosicionBusqueda despues, int limite) {
+        // Un producto por documento: $text ya deja solo los productos con el texto como palabras completas
+        Document filtro = ConsultasFranquicia.textoCompleto(texto);
+        if (franquiciaId != null) filtro.append("franquiciaId", franquiciaId);
+        List<AggregationOperation> etapas = new ArrayList<>(List.of(
+                ConsultasFranquicia.etapa("$match", filtro),
+                ConsultasFranquicia.etapa("$project", new Document("_id", 0)
+                        .append("franquiciaId", 1)
+                        .append("sucursalId", 1)
+                        .append("productoId", "$_id")
+                        .append("nombre", 1))));
+        etapas.addAll(ConsultasFranquicia.coincidencias(texto, soloPrefijo, despues, limite));
+        TypedAggregation<ProductoDocument> agregacion = Aggregation.newAggregation(ProductoDocument.class, etapas)
+                .withOptions(ConsultasFranquicia.analitica(limite));
+        try (Stream<ProductoEncontradoDTO> filas = mongoTemplate.aggregateStream(agregacion, ProductoEncontradoDTO.class)) {
+            return filas.toList();
+        }
+    }
+
+    private List<LineaCatalogoDTO> porStock(Integer umbral, PosicionStock despues, boolean ascendente, int limite) {
+        List<Document> filtros = new ArrayList<>();
+        if (umbral != null) filtros.add(new Document("stock", new Document("$lt", umbral)));
+        if (despues != null) filtros.add(despues.posteriores(ascendente, "_id"));
+        TypedAggregation<ProductoDocument> agregacion = Aggregation.newAggregation(ProductoDocument.class,
+                        ConsultasFranquicia.etapa("$match", filtros.isEmpty() ? new Document() : new Document("$and", filtros)),
+                        ConsultasFranquicia.etapa("$sort", PosicionStock.orden(ascendente, "_id")),
+                        ConsultasFranquicia.etapa("$limit", limite))
+                .withOptions(ConsultasFranquicia.analitica(limite));
+        List<ProductoDocument> productos;
+        try (Stream<ProductoDocument> filas = mongoTemplate.aggregateStream(agregacion, ProductoDocument.class)) {
+            productos = filas.toList();
+        }
+
+        Map<String, Franquicia> franquicias = new HashMap<>();
+        franquiciaRepository.findAllById(productos.stream().map(ProductoDocument::getFranquiciaId).distinct().toList())
+                .forEach(f -> franquicias.put(f.getId(), f));
+        return productos.stream().map(p -> {
+            Optional<Franquicia> franquicia = Optional.ofNullable(franquicias.get(p.getFranquiciaId()));
+            String sucursal = franquicia.flatMap(f -> f.getSucursales().stream()
+                            .filter(s -> s.getId().equals(p.getSucursalId()))
+                            .findFirst())
+                    .map(Sucursal::getNombre)
+                    .orElse(null);
+            return new LineaCatalogoDTO(p.getFranquiciaId(), franquicia.map(Franquicia::getNombre).orElse(null),
+                    p.getSucursalId(), sucursal, p.getId(), p.getNombre(), p.getStock());
+        }).toList();
+    }
+
+    // Copia la franquicia y le agrega los productos de la colección
+    private Franquicia completar(Franquicia franquicia) {
+        Query query = new Query(Criteria.where("franquiciaId").is(franquicia.getId()))
+                .with(Sort.by("orden"));
+        Map<String, List<Producto>> porSucursal = mongoTemplate.find(query, ProductoDocument.class).stream()
+                .collect(Collectors.groupingBy(ProductoDocument::getSucursalId,
+                        Collectors.mapping(ProductoDocument::toProducto, Collectors.toList())));
+
+        List<Sucursal> sucursales = franquicia.getSucursales().stream()
+                .map(s -> s.conProductos(new ArrayList<>(porSucursal.getOrDefault(s.getId(), List.of()))))
+                .collect(Collectors.toCollection(ArrayList::new));
+        return new Franquicia(franquicia.getId(), franquicia.getNombre(), sucursales);
+    }
+
+    private Stream<LineaCatalogoDTO> lineasCatalogo(Franquicia franquicia) {
+        Map<String, String> sucursales = new HashMap<>();
+        franquicia.getSucursales().forEach(s -> sucursales.put(s.getId(), s.getNombre()));
+        Query query = new Query(Criteria.where("franquiciaId").is(franquicia.getId()))
+                .with(Sort.by("sucursalId", "_id"));
+        return mongoTemplate.stream(query, ProductoDocument.class).map(p -> new LineaCatalogoDTO(
+                franquicia.getId(), franquicia.getNombre(), p.getSucursalId(), sucursales.get(p.getSucursalId()),
+                p.getId(), p.getNombre(), p.getStock()));
+    }
+
+    private List<Producto> productosDeSucursal(String franquiciaId, String sucursalId) {
+        Query query = new Query(Criteria.where("franquiciaId").is(franquiciaId).and("sucursalId").is(sucursalId))
+                .with(Sort.by("orden"));
+        return mongoTemplate.find(query, ProductoDocument.class).stream()
+                .map(ProductoDocument::toProducto)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private Optional<Producto> modificar(String franquiciaId, String sucursalId, String productoId, Update update) {
+        return Optional.ofNullable(mongoTemplate.findAndModify(porProducto(franquiciaId, sucursalId, productoId),
+                        update, DEVOLVER_NUEVO, ProductoDocument.class))
+                .map(ProductoDocument::toProducto);
+    }
+
+    private static Query porProducto(String franquiciaId, String sucursalId, String productoId) {
+        return new Query(Criteria.where("_id").is(productoId)
+                .and("franquiciaId").is(franquiciaId)
+                .and("sucursalId").is(sucursalId));
+    }
+
+    private static ProductoDocument documento(String franquiciaId, String sucursalId, Producto producto) {
+        return ProductoDocument.builder()
+                .id(producto.getId())
+                .franquiciaId(franquiciaId)
+                .sucursalId(sucursalId)
+                .nombre(producto.getNombre())
+                .stock(producto.getStock())
+                .orden(SECUENCIA.incrementAndGet())
+                .build();
+    }
+}
@@ -0,0 +1,484 @@
+package com.esteban.franquicias_api.repository;
+
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.Producto;
+import com.esteban.franquicias_api.model.Sucursal;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+// Consultas y updates sobre el documento de la franquicia, compartidos por el repositorio bloqueante
+// y el reactivo para que ambos modos escriban exactamente lo mismo en Mongo.
+// Los elementos embebidos se guardan con su id en el campo "_id" (mapeo de Spring Data),
+// por eso los filtros y arrayFilters escritos a mano usan "_id". Los ids de franquicia llegan ya
+// convertidos (ver idFranquicia en cada implementación).
+final class ConsultasFranquicia {
+
+    static final FindAndModifyOptions DEVOLVER_NUEVO = FindAndModifyOptions.options().returnNew(true);
+
+    // Proyecciones de los @Query de los repositorios. Dentro de $elemMatch y de las expresiones de la
+    // proyección Spring Data no traduce "id", por eso van escritas con "_id" tal cual queda en Mongo.
+    static final String POR_ID = "{ '_id': ?0 }";
+    static final String CON_SUCURSAL = "{ '_id': ?0, 'sucursales._id': ?1 }";
+    static final String CON_PRODUCTO = "{ '_id': ?0, 'sucursales': { '$elemMatch': { '_id': ?1, 'productos._id': ?2 } } }";
+    static final String SOLO_SUCURSALES = "{ 'sucursales': 1, '_id': 0 }";
+    static final String SOLO_SUCURSAL = "{ '_id': 0, 'sucursales.$': 1 }";
+    // "sucursales.$.productos" no es una proyección válida
+    static final String PRODUCTOS_DE_SUCURSAL = "{ '_id': 0, 'sucursales': { '$elemMatch': { '_id': ?1 } } }";
+    // Mongo no admite dos "$" posicionales: se filtra la sucursal y dentro de ella el producto
+    static final String SOLO_PRODUCTO = "{ '_id': 0, 'sucursales': { '$map': {"
+            + " 'input': { '$filter': { 'input': '$sucursales', 'as': 's', 'cond': { '$eq': ['$$s._id', { '$literal': ?1 }] } } },"
+            + " 'as': 's',"
+            + " 'in': { '_id': '$$s._id', 'nombre': '$$s.nombre', 'productos': { '$filter': {"
+            + " 'input': '$$s.productos', 'as': 'p', 'cond': { '$eq': ['$$p._id', { '$literal': ?2 }] } } } } } } }";
+
+    private ConsultasFranquicia() {
+    }
+
+    static Query franquiciaSinProductos(Object franquiciaId) {
+        Query query = new Query(porId(franquiciaId));
+        query.fields().exclude("sucursales.productos");
+        return query;
+    }
+
+    static Query franquicia(Object franquiciaId) {
+        return new Query(porId(franquiciaId));
+    }
+
+    static Update renombrarFranquicia(String nuevoNombre) {
+        return new Update().set("nombre", nuevoNombre);
+    }
+
+    static Update agregarSucursal(Sucursal sucursal) {
+        return new Update().push("sucursales", sucursal);
+    }
+
+    static Update agregarSucursales(List<Sucursal> sucursales) {
+        return new Update().push("sucursales").each(sucursales.toArray());
+    }
+
+    static Query existeSucursal(Object franquiciaId, String sucursalId) {
+        return new Query(porId(franquiciaId).and("sucursales._id").is(sucursalId));
+    }
+
+    // Devuelve solo la sucursal modificada
+    static Query sucursal(Object franquiciaId, String sucursalId) {
+        Query query = existeSucursal(franquiciaId, sucursalId);
+        query.fields().elemMatch("sucursales", Criteria.where("_id").is(sucursalId));
+        return query;
+    }
+
+    static Update renombrarSucursal(String sucursalId, String nuevoNombre) {
+        return new Update()
+                .set("sucursales.$[s].nombre", nuevoNombre)
+                .filterArray(Criteria.where("s._id").is(sucursalId));
+    }
+
+    static Update umbralStockSucursal(String sucursalId, int umbral) {
+        return new Update()
+                .set("sucursales.$[s].umbralStock", umbral)
+                .filterArray(Criteria.where("s._id").is(sucursalId));
+    }
+
+    static Update agregarProducto(String sucursalId, Producto producto) {
+        return new Update()
+                .push("sucursales.$[s].productos", producto)
+                .filterArray(Criteria.where("s._id").is(sucursalId));
+    }
+
+    static Update agregarProductos(String sucursalId, List<Producto> productos) {
+        return new Update()
+                .push("sucursales.$[s].productos").each(productos.toArray())
+                .filterArray(Criteria.where("s._id").is(sucursalId));
+    }
+
+    // Filtro del producto con una proyección que devuelve { producto: ... } ya modificado
+    static Query producto(Object franquiciaId, String sucursalId, String productoId) {
+        return new BasicQuery(filtroProducto(franquiciaId, sucursalId, productoId), proyeccionProducto(sucursalId, productoId));
+    }
+
+    static Query filtroDeProducto(Object franquiciaId, String sucursalId, String productoId) {
+        return new BasicQuery(filtroProducto(franquiciaId, sucursalId, productoId));
+    }
+
+    static Update renombrarProducto(String sucursalId, String productoId, String nuevoNombre) {
+        return enProducto(sucursalId, productoId, new Update().set("sucursales.$[s].productos.$[p].nombre", nuevoNombre));
+    }
+
+    static Update stockProducto(String sucursalId, String productoId, int nuevoStock) {
+        return enProducto(sucursalId, productoId, new Update().set("sucursales.$[s].productos.$[p].stock", nuevoStock));
+    }
+
+    // Un descuento solo encuentra el producto si le alcanza el stock: el filtro y el $inc son atómicos
+    static Query filtroDeIncremento(Object franquiciaId, String sucursalId, String productoId, int delta) {
+        Document producto = new Document("_id", productoId);
+        if (delta < 0) producto.append("stock", new Document("$gte", -delta));
+        return new BasicQuery(new Document("_id", franquiciaId)
+                .append("sucursales", new Document("$elemMatch",
+                        new Document("_id", sucursalId).append("productos", new Document("$elemMatch", producto)))));
+    }
+
+    static Update incrementarStock(String sucursalId, String productoId, int delta) {
+        return enProducto(sucursalId, productoId, new Update().inc("sucursales.$[s].productos.$[p].stock", delta));
+    }
+
+    static Update eliminarProducto(String sucursalId, String productoId) {
+        return new Update()
+                .pull("sucursales.$[s].productos", new Document("_id", productoId))
+                .filterArray(Criteria.where("s._id").is(sucursalId));
+    }
+
+    static Optional<Producto> leerProducto(Document resultado, MongoConverter converter) {
+        return Optional.ofNullable(resultado)
+                .map(doc -> doc.get("producto", Document.class))
+                .map(doc -> converter.read(Producto.class, doc));
+    }
+
+    static Query idsProductos(Object franquiciaId, Collection<String> sucursalIds) {
+        Document sucursales = new Document("$filter", new Document("input", "$sucursales")
+                .append("cond", new Document("$in", List.of("$$this._id", new Document("$literal", sucursalIds)))));
+        Document proyeccion = new Document("_id", 0).append("sucursales", new Document("$map",
+                new Document("input", sucursales)
+                        .append("in", new Document("_id", "$$this._id").append("productos", "$$this.productos._id"))));
+        return new BasicQuery(new Document("_id", franquiciaId), proyeccion);
+    }
+
+    static Map<String, Set<String>> leerIdsProductos(Document resultado) {
+        Map<String, Set<String>> ids = new HashMap<>();
+        for (Document sucursal : resultado.getList("sucursales", Document.class, List.of())) {
+            ids.put(sucursal.getString("_id"), new HashSet<>(sucursal.getList("productos", String.class, List.of())));
+        }
+        return ids;
+    }
+
+    // { sucursales: [{ _id, productos: [{ _id, stock }] }] } con solo las sucursales pedidas y, dentro de ellas,
+    // los productos pedidos de cualquiera de esas sucursales (los ids de producto no se repiten)
+    static Query stockProductos(Object franquiciaId, Map<String, Set<String>> productos) {
+        Set<String> productoIds = new HashSet<>();
+        productos.values().forEach(productoIds::addAll);
+        Document sucursales = new Document("$filter", new Document("input", "$sucursales")
+                .append("cond", new Document("$in", List.of("$$this._id", new Document("$literal", productos.keySet())))));
+        Document pedidos = new Document("$filter", new Document("input", new Document("$ifNull", List.of("$$s.productos", List.of())))
+                .append("cond", new Document("$in", List.of("$$this._id", new Document("$literal", productoIds)))));
+        Document proyeccion = new Document("_id", 0).append("sucursales", new Document("$map",
+                new Document("input", sucursales).append("as", "s")
+                        .append("in", new Document("_id", "$$s._id").append("productos", new Document("$map",
+                                new Document("input", pedidos)
+                                        .append("in", new Document("_id", "$$this._id").append("stock", stock("$$this.stock"))))))));
+        return new BasicQuery(new Document("_id", franquiciaId), proyeccion);
+    }
+
+    static Map<String, Map<String, Integer>> leerStockProductos(Document resultado, Map<String, Set<String>> productos) {
+        Map<String, Map<String, Integer>> stock = new HashMap<>();
+        for (Document sucursal : resultado.getList("sucursales", Document.class, List.of())) {
+            Set<String> pedidos = productos.getOrDefault(sucursal.getString("_id"), Set.of());
+            for (Document producto : sucursal.getList("productos", Document.class, List.of())) {
+                if (pedidos.contains(producto.getString("_id"))) {
+                    stock.computeIfAbsent(sucursal.getString("_id"), id -> new HashMap<>())
+                            .put(producto.getString("_id"), producto.getInteger("stock"));
+                }
+            }
+        }
+        return stock;
+    }
+
+    // Producto con más stock de cada sucursal; salida con la forma de ProductoDTO
+    static TypedAggregation<Franquicia> productosConMasStock(Object franquiciaId) {
+        // $reduce conserva el primero ante empates, igual que Stream#max en ProductosConMasStock
+        Document ganador = new Document("$reduce", new Document("input", "$sucursales.productos")
+                .append("initialValue", new Document("$arrayElemAt", List.of("$sucursales.productos", 0)))
+                .append("in", new Document("$cond", List.of(
+                        new Document("$gte", List.of(stock("$$value.stock"), stock("$$this.stock"))),
+                        "$$value",
+                        "$$this"))));
+
+        return Aggregation.newAggregation(Franquicia.class,
+                Aggregation.match(porId(franquiciaId)),
+                Aggregation.unwind("sucursales"),
+                etapa("$match", new Document("sucursales.productos.0", new Document("$exists", true))),
+                etapa("$project", new Document("_id", 0)
+                        .append("sucursal", "$sucursales._id")
+                        .append("nombreSucursal", "$sucursales.nombre")
+                        .append("ganador", ganador)),
+                etapa("$project", new Document("_id", "$ganador._id")
+                        .append("nombre", new Document("$concat", List.of(
+                                texto("$ganador.nombre"), " (Sucursal: ", texto("$nombreSucursal"), ")")))
+                        .append("stock", stock("$ganador.stock"))
+                        .append("sucursalId", "$sucursal")));
+    }
+
+    // Con el índice sucursales_umbral_stock es un solo salto del índice, haya o no umbrales
+    static Query conUmbralStock() {
+        return new Query(Criteria.where("sucursales.umbralStock").gt(0));
+    }
+
+    static Query stockYUmbrales(Object franquiciaId) {
+        Query query = new Query(porId(franquiciaId));
+        query.fields().include("sucursales._id", "sucursales.umbralStock", "sucursales.productos._id", "sucursales.productos.stock");
+        return query;
+    }
+
+    // Paginación por keyset sobre _id: cada página es un rango del índice primario, sin skip.
+    // Se piden limite elementos con id mayor que "despues" (null para la primera página).
+
+    static Query paginaFranquicias(Object despues, int limite) {
+        Query query = new Query(despues == null ? new Criteria() : Criteria.where("_id").gt(despues))
+                .with(Sort.by("_id"))
+                .limit(limite);
+        query.fields().include("nombre");
+        return query;
+    }
+
+    // { sucursales: [{ _id, nombre }] } ordenadas por _id; los arreglos embebidos no tienen índice
+    // propio, así que Mongo ordena dentro del documento y solo viaja la página
+    static Query paginaSucursales(Object franquiciaId, String despues, int limite) {
+        Document sucursales = new Document("$map", new Document("input", "$sucursales")
+                .append("in", new Document("_id", "$$this._id").append("nombre", "$$this.nombre")));
+        return new BasicQuery(new Document("_id", franquiciaId),
+                new Document("_id", 0).append("sucursales", pagina(sucursales, despues, limite)));
+    }
+
+    // { sucursales: [{ _id, nombre, productos: [página] }] }, con solo la sucursal pedida
+    static Query paginaProductos(Object franquiciaId, String sucursalId, String despues, int limite) {
+        Document sucursal = new Document("$filter", new Document("input", "$sucursales")
+                .append("cond", new Document("$eq", List.of("$$this._id", new Document("$literal", sucursalId)))));
+        Document sucursales = new Document("$map", new Document("input", sucursal).append("as", "s")
+                .append("in", new Document("_id", "$$s._id").append("nombre", "$$s.nombre")
+                        .append("productos", pagina(new Document("$ifNull", List.of("$$s.productos", List.of())), despues, limite))));
+        return new BasicQuery(new Document("_id", franquiciaId).append("sucursales._id", sucursalId),
+                new Document("_id", 0).append("sucursales", sucursales));
+    }
+
+    // Una fila por producto con la forma de LineaCatalogoDTO, en el orden natural de la colección
+    static TypedAggregation<Franquicia> catalogo() {
+        return Aggregation.newAggregation(Franquicia.class,
+                Aggregation.unwind("sucursales"),
+                Aggregation.unwind("sucursales.productos"),
+                lineaCatalogo());
+    }
+
+    // Analítica global: una fila por producto como en catalogo(), filtrada, ordenada por PosicionStock y
+    // cortada en "limite". $sort + $limit se resuelven como un top-k, pero sin un filtro sobre el índice hay que
+    // desarmar todas las franquicias; allowDiskUse evita el límite de memoria de 100 MB por etapa.
+
+    // Con "minimo" (el stock del último de candidatosMayorStock) el índice multikey sobre el stock deja pasar
+    // solo las franquicias con algún producto de al menos ese stock, en lugar de desarmar el catálogo entero
+    static TypedAggregation<Franquicia> productosPorMayorStock(PosicionStock despues, Integer minimo, int limite) {
+        return productosPorStock(null, minimo, despues, false, limite);
+    }
+
+    static TypedAggregation<Franquicia> productosConStockBajo(int umbral, PosicionStock despues, int limite) {
+        return productosPorStock(umbral, null, despues, true, limite);
+    }
+
+    // Los primeros "limite" productos de las "limite" franquicias con el mayor stock: si son "limite", el stock
+    // del último es un piso para la página de verdad, porque ya hay esa cantidad de productos con ese stock o
+    // más. Sin cursor las franquicias salen del índice multikey, que ordena cada una por su mayor stock; con
+    // cursor se ordenan por el mayor stock que queda después de él, sin desarmar los arreglos
+    static TypedAggregation<Franquicia> candidatosMayorStock(PosicionStock despues, int limite) {
+        List<AggregationOperation> etapas = new ArrayList<>();
+        if (despues == null) {
+            etapas.add(etapa("$sort", new Document("sucursales.productos.stock", -1)));
+        } else {
+            Document hasta = new Document("$lte", List.of("$$this", despues.stock()));
+            Document porSucursal = new Document("$max", new Document("$filter", new Document("input",
+                    new Document("$ifNull", List.of("$$this.productos.stock", List.of()))).append("cond", hasta)));
+            etapas.add(etapa("$match", new Document("sucursales.productos.stock", new Document("$lte", despues.stock()))));
+            etapas.add(etapa("$addFields", new Document("mayorStock", new Document("$max", new Document("$map",
+                    new Document("input", new Document("$ifNull", List.of("$sucursales", List.of()))).append("in", porSucursal))))));
+            etapas.add(etapa("$sort", new Document("mayorStock", -1)));
+        }
+        etapas.add(etapa("$limit", limite));
+        etapas.add(Aggregation.unwind("sucursales"));
+        etapas.add(Aggregation.unwind("sucursales.productos"));
+        etapas.add(lineaCatalogo());
+        if (despues != null) {
+            etapas.add(etapa("$match", despues.posteriores(false, "productoId")));
+        }
+        etapas.add(etapa("$sort", PosicionStock.orden(false, "productoId")));
+        etapas.add(etapa("$limit", limite));
+        return Aggregation.newAggregation(Franquicia.class, etapas).withOptions(analitica(limite));
+    }
+
+    // Totales por franquicia sin desarmar los arreglos; paginadas por _id como paginaFranquicias
+    static TypedAggregation<Franquicia> totalesFranquicias(Object despues, int limite) {
+        Document sucursales = new Document("$ifNull", List.of("$sucursales", List.of()));
+        Document productos = new Document("$ifNull", List.of("$$this.productos", List.of()));
+        return Aggregation.newAggregation(Franquicia.class,
+                etapa("$match", despues == null ? new Document() : new Document("_id", new Document("$gt", despues))),
+                etapa("$sort", new Document("_id", 1)),
+                etapa("$limit", limite),
+                etapa("$project", new Document("_id", 0)
+                        .append("franquiciaId", new Document("$toString", "$_id"))
+                        .append("nombre", "$nombre")
+                        .append("sucursales", new Document("$size", sucursales))
+                        .append("productos", new Document("$sum", new Document("$map", new Document("input", sucursales)
+                                .append("in", new Document("$size", productos)))))
+                        .append("stock", new Document("$toLong", new Document("$sum", new Document("$map",
+                                new Document("input", sucursales).append("in", new Document("$sum", "$$this.productos.stock"))))))))
+                .withOptions(analitica(limite));
+    }
+
+    // El cursor trae la página entera en el primer lote
+    static AggregationOptions analitica(int limite) {
+        return AggregationOptions.builder().allowDiskUse(true).cursorBatchSize(limite).build();
+    }
+
+    private static TypedAggregation<Franquicia> productosPorStock(Integer umbral, Integer minimo, PosicionStock despues,
+                                                                 boolean ascendente, int limite) {
+        List<AggregationOperation> etapas = new ArrayList<>();
+        List<Document> filtros = new ArrayList<>();
+        if (umbral != null) {
+            // Con el índice multikey sobre el stock se saltean las franquicias sin ningún producto bajo el umbral
+            etapas.add(etapa("$match", new Document("sucursales.productos.stock", new Document("$lt", umbral))));
+            filtros.add(new Document("stock", new Document("$lt", umbral)));
+        }
+        if (minimo != null) {
+            etapas.add(etapa("$match", new Document("sucursales.productos.stock", new Document("$gte", minimo))));
+            filtros.add(new Document("stock", new Document("$gte", minimo)));
+        }
+        if (despues != null) {
+            filtros.add(despues.posteriores(ascendente, "productoId"));
+        }
+        etapas.add(Aggregation.unwind("sucursales"));
+        etapas.add(Aggregation.unwind("sucursales.productos"));
+        etapas.add(lineaCatalogo());
+        if (!filtros.isEmpty()) {
+            etapas.add(etapa("$match", new Document("$and", filtros)));
+        }
+        etapas.add(etapa("$sort", PosicionStock.orden(ascendente, "productoId")));
+        etapas.add(etapa("$limit", limite));
+        return Aggregation.newAggregation(Franquicia.class, etapas).withOptions(analitica(limite));
+    }
+
+    // Búsqueda por nombre sin el índice en memoria. $text descarta las franquicias que no tienen el texto
+    // como palabras completas (índice de texto sobre los nombres); después cada producto se compara con el
+    // texto sin distinguir mayúsculas, como PosicionBusqueda pero sin ignorar tildes
+    static TypedAggregation<Franquicia> buscarProductos(Object franquiciaId, String texto, boolean soloPrefijo,
+                                                        PosicionBusqueda despues, int limite) {
+        Document filtro = textoCompleto(texto);
+        if (franquiciaId != null) filtro.append("_id", franquiciaId);
+        List<AggregationOperation> etapas = new ArrayList<>(List.of(
+                etapa("$match", filtro),
+                Aggregation.unwind("sucursales"),
+                Aggregation.unwind("sucursales.productos"),
+                etapa("$project", new Document("_id", 0)
+                        .append("franquiciaId", new Document("$toString", "$_id"))
+                        .append("sucursalId", "$sucursales._id")
+                        .append("productoId", "$sucursales.productos._id")
+                        .append("nombre", "$sucursales.productos.nombre"))));
+        etapas.addAll(coincidencias(texto, soloPrefijo, despues, limite));
+        return Aggregation.newAggregation(Franquicia.class, etapas).withOptions(analitica(limite));
+    }
+
+    // El texto como una frase para $text: todas sus palabras, seguidas
+    static Document textoCompleto(String texto) {
+        return new Document("$text", new Document("$search", "\"" + texto.replace("\"", "") + "\""));
+    }
+
+    // Sobre filas { franquiciaId, sucursalId, productoId, nombre }: solo las que coinciden, con el orden de
+    // PosicionBusqueda y cortadas en "limite"; salida con la forma de ProductoEncontradoDTO
+    static List<AggregationOperation> coincidencias(String texto, boolean soloPrefijo, PosicionBusqueda despues, int limite) {
+        String literal = Pattern.quote(texto);
+        Document rango = new Document("$switch", new Document("branches", List.of(
+                rama("^" + literal + "$", 0),
+                rama("^" + literal, PosicionBusqueda.PREFIJO),
+                rama(literal, PosicionBusqueda.CONTIENE)))
+                .append("default", -1));
+        Document coinciden = new Document("rango", new Document("$gte", 0)
+                .append("$lte", soloPrefijo ? PosicionBusqueda.PREFIJO : PosicionBusqueda.CONTIENE));
+        return List.of(
+                etapa("$addFields", new Document("rango", rango)
+                        .append("largo", new Document("$strLenCP", new Document("$ifNull", List.of("$nombre", ""))))),
+                etapa("$match", despues == null ? coinciden : new Document("$and", List.of(coinciden, despues.posteriores()))),
+                etapa("$sort", PosicionBusqueda.orden()),
+                etapa("$limit", limite),
+                etapa("$project", new Document("_id", 0)
+                        .append("franquiciaId", 1)
+                        .append("sucursalId", 1)
+                        .append("productoId", 1)
+                        .append("nombre", 1)
+                        .append("coincidencia", new Document("$arrayElemAt", List.of(PosicionBusqueda.COINCIDENCIAS, "$rango")))));
+    }
+
+    private static Document rama(String regex, int rango) {
+        return new Document("case", new Document("$regexMatch", new Document("input", "$nombre")
+                .append("regex", regex).append("options", "i")))
+                .append("then", rango);
+    }
+
+    // Después de $unwind de sucursales y productos, con la forma de LineaCatalogoDTO
+    private static AggregationOperation lineaCatalogo() {
+        return etapa("$project", new Document("_id", 0)
+                .append("franquiciaId", new Document("$toString", "$_id"))
+                .append("franquicia", "$nombre")
+                .append("sucursalId", "$sucursales._id")
+                .append("sucursal", "$sucursales.nombre")
+                .append("productoId", "$sucursales.productos._id")
+                .append("producto", "$sucursales.productos.nombre")
+                .append("stock", stock("$sucursales.productos.stock")));
+    }
+
+    // Los elementos del arreglo con _id mayor que "despues", ordenados por _id, hasta limite
+    private static Document pagina(Object arreglo, String despues, int limite) {
+        Object desde = despues == null ? arreglo : new Document("$filter", new Document("input", arreglo)
+                .append("cond", new Document("$gt", List.of("$$this._id", new Document("$literal", despues)))));
+        Document ordenados = new Document("$sortArray", new Document("input", desde).append("sortBy", new Document("_id", 1)));
+        // $firstN y no $slice: en una proyección de find "$slice" se lee como el operador de proyección
+        return new Document("$firstN", new Document("input", ordenados).append("n", limite));
+    }
+
+    private static Update enProducto(String sucursalId, String productoId, Update update) {
+        return update.filterArray(Criteria.where("s._id").is(sucursalId))
+                .filterArray(Criteria.where("p._id").is(productoId));
+    }
+
+    private static Document filtroProducto(Object franquiciaId, String sucursalId, String productoId) {
+        return new Document("_id", franquiciaId)
+                .append("sucursales", new Document("$elemMatch",
+                        new Document("_id", sucursalId).append("productos._id", productoId)));
+    }
+
+    // { producto: sucursales[_id = sucursalId].productos[_id = productoId] }
+    private static Document proyeccionProducto(String sucursalId, String productoId) {
+        Document producto = new Document("$let", new Document("vars", new Document("s", elemento("$sucursales", sucursalId)))
+                .append("in", elemento("$$s.productos", productoId)));
+        return new Document("_id", 0).append("producto", producto);
+    }
+
+    private static Document elemento(String arreglo, String id) {
+        Document filtro = new Document("$filter", new Document("input", arreglo)
+                .append("cond", new Document("$eq", List.of("$$this._id", new Document("$literal", id)))));
+        return new Document("$arrayElemAt", List.of(filtro, 0));
+    }
+
+    static AggregationOperation etapa(String operador, Object definicion) {
+        return context -> new Document(operador, definicion);
+    }
+
+    // Un stock ausente se lee como 0 en Producto#stock
+    private static Document stock(String campo) {
+        return new Document("$ifNull", List.of(campo, 0));
+    }
+
+    // Igual que la concatenación de String en Java, un nombre ausente se muestra como "null"
+    private static Document texto(String campo) {
+        return new Document("$ifNull", List.of(campo, "null"));
+    }
+
+    private static Criteria porId(Object franquiciaId) {
+        return Criteria.where("_id").is(franquiciaId);
+    }
+}
@@ -0,0 +1,174 @@
+package com.esteban.franquicias_api.repository;
+
+import com.esteban.franquicias_api.dto.LineaCatalogoDTO;
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.dto.ProductoEncontradoDTO;
+import com.esteban.franquicias_api.dto.TotalesFranquiciaDTO;
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.Producto;
+import com.esteban.franquicias_api.model.Sucursal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+// Productos embebidos en sucursales.productos del documento de la franquicia
+@Component
+@ConditionalOnProperty(prefix = "franquicias.productos", name = "almacenamiento", havingValue = "embebido", matchIfMissing = true)
+@RequiredArgsConstructor
+public class EmbeddedProductoStore implements ProductoStore {
+
+    private final FranquiciaRepository franquiciaRepository;
+    private final LecturasCompartidas lecturas;
+
+    @Override
+    public boolean agregarSucursal(String franquiciaId, Sucursal sucursal) {
+        return franquiciaRepository.agregarSucursal(franquiciaId, sucursal);
+    }
+
+    @Override
+    public Optional<Sucursal> actualizarNombreSucursal(String franquiciaId, String sucursalId, String nuevoNombre) {
+        return franquiciaRepository.actualizarNombreSucursal(franquiciaId, sucursalId, nuevoNombre);
+    }
+
+    @Override
+    public boolean agregar(String franquiciaId, String sucursalId, Producto producto) {
+        return franquiciaRepository.agregarProducto(franquiciaId, sucursalId, producto);
+    }
+
+    @Override
+    public Optional<Producto> actualizarNombre(String franquiciaId, String sucursalId, String productoId, String nuevoNombre) {
+        return franquiciaRepository.actualizarNombreProducto(franquiciaId, sucursalId, productoId, nuevoNombre);
+    }
+
+    @Override
+    public Optional<Producto> actualizarStock(String franquiciaId, String sucursalId, String productoId, int nuevoStock) {
+        return franquiciaRepository.actualizarStock(franquiciaId, sucursalId, productoId, nuevoStock);
+    }
+
+    @Override
+    public boolean eliminar(String franquiciaId, String sucursalId, String productoId) {
+        return franquiciaRepository.eliminarProducto(franquiciaId, sucursalId, productoId);
+    }
+
+    @Override
+    public void insertarFranquicias(List<Franquicia> franquicias) {
+        franquiciaRepository.insert(franquicias);
+    }
+
+    @Override
+    public boolean agregarSucursales(String franquiciaId, List<Sucursal> sucursales) {
+        return franquiciaRepository.agregarSucursales(franquiciaId, sucursales);
+    }
+
+    @Override
+    public boolean agregarProductos(String franquiciaId, String sucursalId, List<Producto> productos) {
+        return franquiciaRepository.agregarProductos(franquiciaId, sucursalId, productos);
+    }
+
+    @Override
+    public ResultadoLoteStock actualizarStockEnLote(String franquiciaId, List<ActualizacionStock> actualizaciones) {
+        return franquiciaRepository.actualizarStockEnLote(franquiciaId, actualizaciones);
+    }
+
+    @Override
+    public ResultadoLoteStock incrementarStockEnLote(String franquiciaId, List<IncrementoStock> incrementos) {
+        return franquiciaRepository.incrementarStockEnLote(franquiciaId, incrementos);
+    }
+
+    @Override
+    public Optional<Map<String, Set<String>>> idsProductos(String franquiciaId, Collection<String> sucursalIds) {
+        return franquiciaRepository.idsProductos(franquiciaId, sucursalIds);
+    }
+
+    @Override
+    public Map<String, Map<String, Integer>> stockProductos(String franquiciaId, Map<String, Set<String>> productos) {
+        return franquiciaRepository.stockProductos(franquiciaId, productos);
+    }
+
+    @Override
+    public List<ProductoDTO> productosConMasStock(String franquiciaId) {
+        return franquiciaRepository.productosConMasStock(franquiciaId);
+    }
+
+    @Override
+    public Optional<Sucursal> sucursal(String franquiciaId, String sucursalId) {
+        return lecturas.leer(franquiciaId, List.of("sucursal", sucursalId),
+                        () -> franquiciaRepository.findSucursalByFranquiciaIdAndSucursalId(franquiciaId, sucursalId))
+                .flatMap(EmbeddedProductoStore::primeraSucursal);
+    }
+
+    @Override
+    public Optional<List<Producto>> productos(String franquiciaId, String sucursalId) {
+        return lecturas.leer(franquiciaId, List.of("productos", sucursalId),
+                        () -> franquiciaRepository.findProductosBySucursalId(franquiciaId, sucursalId))
+                .flatMap(EmbeddedProductoStore::primeraSucursal)
+                .map(Sucursal::getProductos);
+    }
+
+    @Override
+    public Optional<Producto> producto(String franquiciaId, String sucursalId, String productoId) {
+        return lecturas.leer(franquiciaId, List.of("producto", sucursalId, productoId),
+                        () -> franquiciaRepository.findProductoBySucursalIdAndProductoId(franquiciaId, sucursalId, productoId))
+                .flatMap(EmbeddedProductoStore::primeraSucursal)
+                .flatMap(s -> s.getProductos().stream().findFirst());
+    }
+
+    @Override
+    public Optional<List<Producto>> paginaProductos(String franquiciaId, String sucursalId, String despues, int limite) {
+        return franquiciaRepository.paginaProductos(franquiciaId, sucursalId, despues, limite);
+    }
+
+    @Override
+    public Stream<LineaCatalogoDTO> catalogo() {
+        return franquiciaRepository.catalogo();
+    }
+
+    @Override
+    public Optional<Franquicia> franquiciaCompleta(String franquiciaId) {
+        return lecturas.leer(franquiciaId, List.of("completa"), () -> franquiciaRepository.findById(franquiciaId));
+    }
+
+    @Override
+    public Optional<Franquicia> releerFranquiciaCompleta(String franquiciaId) {
+        return franquiciaRepository.findById(franquiciaId);
+    }
+
+    @Override
+    public Optional<Franquicia> stockYUmbrales(String franquiciaId) {
+        return franquiciaRepository.stockYUmbrales(franquiciaId);
+    }
+
+    @Override
+    public Stream<Franquicia> franquiciasCompletas() {
+        return franquiciaRepository.streamAllBy();
+    }
+
+    @Override
+    public List<LineaCatalogoDTO> productosPorMayorStock(PosicionStock despues, int limite) {
+        return franquiciaRepository.productosPorMayorStock(despues, limite);
+    }
+
+    @Override
+    public List<LineaCatalogoDTO> productosConStockBajo(int umbral, PosicionStock despues, int limite) {
+        return franquiciaRepository.productosConStockBajo(umbral, despues, limite);
+    }
+
+    @Override
+    public List<TotalesFranquiciaDTO> totalesFranquicias(String despues, int limite) {
+        return franquiciaRepository.totalesFranquicias(despues, limite);
+    }
+
+    // Las proyecciones devuelven la franquicia con una sola sucursal (o ninguna)
+    private static Optional<Sucursal> primeraSucursal(Franquicia franquicia) {
+        return Optional.ofNullable(franquicia.getSucursales()).flatMap(s -> s.stream().findFirst());
+    }
+
+    @Override
+    public List<ProductoEncontradoDTO> buscarProductos(String franquiciaId, String texto, boolean soloPrefijo,
+                                                       PosicionBusqueda despues, int limite) {
+        return franquiciaRepository.buscarProductos(franquiciaId, texto, soloPrefijo, despues, limite);
+    }
+}
@@ -6,26 +6,31 @@ import org.springframework.data.mongodb.repository.Query;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface FranquiciaRepository extends MongoRepository<Franquicia, String> {
+public interface FranquiciaRepository extends MongoRepository<Franquicia, String>, FranquiciaRepositoryCustom {
 
     // Buscar una franquicia por nombre
     Franquicia findByNombre(String nombre);
 
+    // Recorrer toda la colección con un cursor, sin cargarla completa en memoria
+    Stream<Franquicia> streamAllBy();
+
+    // Proyecciones compartidas con ReactiveFranquiciaRepository (ver ConsultasFranquicia)
+
     // Buscar todas las sucursales de una franquicia específica
-    @Query(value = "{ '_id': ?0 }", fields = "{ 'sucursales': 1, '_id': 0 }")
+    @Query(value = ConsultasFranquicia.POR_ID, fields = ConsultasFranquicia.SOLO_SUCURSALES)
     Optional<Franquicia> findSucursalesByFranquiciaId(String franquiciaId);
 
     // Buscar una sucursal específica dentro de una franquicia
-    @Query(value = "{ '_id': ?0, 'sucursales.id': ?1 }", fields = "{ 'sucursales.$': 1 }")
+    @Query(value = ConsultasFranquicia.CON_SUCURSAL, fields = ConsultasFranquicia.SOLO_SUCURSAL)
     Optional<Franquicia> findSucursalByFranquiciaIdAndSucursalId(String franquiciaId, String sucursalId);
 
     // Buscar todos los productos de una sucursal específica
-    @Query(value = "{ '_id': ?0, 'sucursales.id': ?1 }", fields = "{ 'sucursales.$.productos': 1 }")
+    @Query(value = ConsultasFranquicia.CON_SUCURSAL, fields = ConsultasFranquicia.PRODUCTOS_DE_SUCURSAL)
     Optional<Franquicia> findProductosBySucursalId(String franquiciaId, String sucursalId);
 
     // Buscar un producto específico en una sucursal específica
-    @Query(value = "{ '_id': ?0, 'sucursales.id': ?1, 'sucursales.productos.id': ?2 }",
-            fields = "{ 'sucursales.$.productos.$': 1 }")
+    @Query(value = ConsultasFranquicia.CON_PRODUCTO, fields = ConsultasFranquicia.SOLO_PRODUCTO)
     Optional<Franquicia> findProductoBySucursalIdAndProductoId(String franquiciaId, String sucursalId, String productoId);
 }
@@ -0,0 +1,97 @@
+package com.esteban.franquicias_api.repository;
+
+import com.esteban.franquicias_api.dto.LineaCatalogoDTO;
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.dto.ProductoEncontradoDTO;
+import com.esteban.franquicias_api.dto.TotalesFranquiciaDTO;
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.Producto;
+import com.esteban.franquicias_api.model.Sucursal;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+// Escrituras dirigidas sobre el documento de la franquicia: cada operación es un único
+// update en Mongo que solo toca el elemento modificado y devuelve solo ese elemento.
+public interface FranquiciaRepositoryCustom {
+
+    // Devuelve la franquicia con sus sucursales, sin productos
+    Optional<Franquicia> actualizarNombre(String franquiciaId, String nuevoNombre);
+
+    boolean agregarSucursal(String franquiciaId, Sucursal sucursal);
+
+    Optional<Sucursal> actualizarNombreSucursal(String franquiciaId, String sucursalId, String nuevoNombre);
+
+    // false si la franquicia o la sucursal no existen
+    boolean actualizarUmbralStock(String franquiciaId, String sucursalId, int umbral);
+
+    boolean agregarProducto(String franquiciaId, String sucursalId, Producto producto);
+
+    Optional<Producto> actualizarNombreProducto(String franquiciaId, String sucursalId, String productoId, String nuevoNombre);
+
+    Optional<Producto> actualizarStock(String franquiciaId, String sucursalId, String productoId, int nuevoStock);
+
+    boolean eliminarProducto(String franquiciaId, String sucursalId, String productoId);
+
+    boolean existeSucursal(String franquiciaId, String sucursalId);
+
+    // Importación: varios elementos al final del arreglo con un único $push $each
+    boolean agregarSucursales(String franquiciaId, List<Sucursal> sucursales);
+
+    boolean agregarProductos(String franquiciaId, String sucursalId, List<Producto> productos);
+
+    // Un único bulkWrite no ordenado con un update posicional por entrada
+    ResultadoLoteStock actualizarStockEnLote(String franquiciaId, List<ActualizacionStock> actualizaciones);
+
+    // Igual que actualizarStockEnLote pero con $inc; los descuentos sin stock suficiente no coinciden
+    ResultadoLoteStock incrementarStockEnLote(String franquiciaId, List<IncrementoStock> incrementos);
+
+    // Producto con más stock de cada sucursal, calculado en Mongo; lista vacía si la franquicia no existe
+    List<ProductoDTO> productosConMasStock(String franquiciaId);
+
+    // sucursalId -> ids de sus productos, solo para las sucursales pedidas; vacío si la franquicia no existe
+    Optional<Map<String, Set<String>>> idsProductos(String franquiciaId, Collection<String> sucursalIds);
+
+    // Stock de los productos pedidos (sucursalId -> ids): sucursalId -> productoId -> stock, solo los que existen
+    Map<String, Map<String, Integer>> stockProductos(String franquiciaId, Map<String, Set<String>> productos);
+
+    // Solo lo que usan las alertas de stock bajo: _id y umbralStock de cada sucursal, _id y stock de cada producto
+    Optional<Franquicia> stockYUmbrales(String franquiciaId);
+
+    // Si alguna sucursal de alguna franquicia tiene un umbral de stock mayor que cero
+    boolean hayUmbralStock();
+
+    // Paginación por keyset: hasta "limite" elementos con id mayor que "despues" (null para empezar), ordenados por id
+
+    // Solo id y nombre
+    List<Franquicia> paginaFranquicias(String despues, int limite);
+
+    // Sucursales sin productos; vacío si la franquicia no existe
+    Optional<List<Sucursal>> paginaSucursales(String franquiciaId, String despues, int limite);
+
+    // Vacío si la franquicia o la sucursal no existen
+    Optional<List<Producto>> paginaProductos(String franquiciaId, String sucursalId, String despues, int limite);
+
+    // Una línea por producto de todas las franquicias, leída con un cursor; hay que cerrar el Stream
+    Stream<LineaCatalogoDTO> catalogo();
+
+    // Analítica sobre todas las franquicias, paginada por keyset: "despues" es null para la primera página
+
+    // De mayor a menor stock (ver PosicionStock para los desempates)
+    List<LineaCatalogoDTO> productosPorMayorStock(PosicionStock despues, int limite);
+
+    // Productos con stock menor que "umbral", de menor a mayor stock
+    List<LineaCatalogoDTO> productosConStockBajo(int umbral, PosicionStock despues, int limite);
+
+    // Ordenadas por id
+    List<TotalesFranquiciaDTO> totalesFranquicias(String despues, int limite);
+
+    // Productos cuyo nombre contiene "texto" (o empieza con él si "soloPrefijo"), de todas las franquicias o
+    // de una si "franquiciaId" no es null, en el orden de PosicionBusqueda
+    List<ProductoEncontradoDTO> buscarProductos(String franquiciaId, String texto, boolean soloPrefijo,
+                                                PosicionBusqueda despues, int limite);
+}
@@ -0,0 +1,240 @@
+package com.esteban.franquicias_api.repository;
+
+import com.esteban.franquicias_api.dto.LineaCatalogoDTO;
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.dto.ProductoEncontradoDTO;
+import com.esteban.franquicias_api.dto.TotalesFranquiciaDTO;
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.Producto;
+import com.esteban.franquicias_api.model.Sucursal;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.esteban.franquicias_api.repository.ConsultasFranquicia.*;
+
+@RequiredArgsConstructor
+public class FranquiciaRepositoryCustomImpl implements FranquiciaRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<Franquicia> actualizarNombre(String franquiciaId, String nuevoNombre) {
+        return Optional.ofNullable(mongoTemplate.findAndModify(franquiciaSinProductos(idFranquicia(franquiciaId)),
+                renombrarFranquicia(nuevoNombre), DEVOLVER_NUEVO, Franquicia.class));
+    }
+
+    @Override
+    public boolean agregarSucursal(String franquiciaId, Sucursal sucursal) {
+        return mongoTemplate.updateFirst(franquicia(idFranquicia(franquiciaId)),
+                ConsultasFranquicia.agregarSucursal(sucursal), Franquicia.class).getMatchedCount() > 0;
+    }
+
+    @Override
+    public Optional<Sucursal> actualizarNombreSucursal(String franquiciaId, String sucursalId, String nuevoNombre) {
+        return Optional.ofNullable(mongoTemplate.findAndModify(sucursal(idFranquicia(franquiciaId), sucursalId),
+                        renombrarSucursal(sucursalId, nuevoNombre), DEVOLVER_NUEVO, Franquicia.class))
+                .map(f -> f.getSucursales().get(0));
+    }
+
+    @Override
+    public boolean actualizarUmbralStock(String franquiciaId, String sucursalId, int umbral) {
+        return mongoTemplate.updateFirst(ConsultasFranquicia.existeSucursal(idFranquicia(franquiciaId), sucursalId),
+                ConsultasFranquicia.umbralStockSucursal(sucursalId, umbral), Franquicia.class).getMatchedCount() > 0;
+    }
+
+    @Override
+    public boolean agregarProducto(String franquiciaId, String sucursalId, Producto producto) {
+        return mongoTemplate.updateFirst(ConsultasFranquicia.existeSucursal(idFranquicia(franquiciaId), sucursalId),
+                ConsultasFranquicia.agregarProducto(sucursalId, producto), Franquicia.class).getMatchedCount() > 0;
+    }
+
+    @Override
+    public Optional<Producto> actualizarNombreProducto(String franquiciaId, String sucursalId, String productoId, String nuevoNombre) {
+        return modificarProducto(franquiciaId, sucursalId, productoId, renombrarProducto(sucursalId, productoId, nuevoNombre));
+    }
+
+    @Override
+    public Optional<Producto> actualizarStock(String franquiciaId, String sucursalId, String productoId, int nuevoStock) {
+        return modificarProducto(franquiciaId, sucursalId, productoId, stockProducto(sucursalId, productoId, nuevoStock));
+    }
+
+    @Override
+    public boolean eliminarProducto(String franquiciaId, String sucursalId, String productoId) {
+        return mongoTemplate.updateFirst(filtroDeProducto(idFranquicia(franquiciaId), sucursalId, productoId),
+                ConsultasFranquicia.eliminarProducto(sucursalId, productoId), coleccion()).getModifiedCount() > 0;
+    }
+
+    @Override
+    public boolean existeSucursal(String franquiciaId, String sucursalId) {
+        return mongoTemplate.exists(ConsultasFranquicia.existeSucursal(idFranquicia(franquiciaId), sucursalId), Franquicia.class);
+    }
+
+    @Override
+    public boolean agregarSucursales(String franquiciaId, List<Sucursal> sucursales) {
+        return mongoTemplate.updateFirst(franquicia(idFranquicia(franquiciaId)),
+                ConsultasFranquicia.agregarSucursales(sucursales), Franquicia.class).getMatchedCount() > 0;
+    }
+
+    @Override
+    public boolean agregarProductos(String franquiciaId, String sucursalId, List<Producto> productos) {
+        return mongoTemplate.updateFirst(ConsultasFranquicia.existeSucursal(idFranquicia(franquiciaId), sucursalId),
+                ConsultasFranquicia.agregarProductos(sucursalId, productos), Franquicia.class).getMatchedCount() > 0;
+    }
+
+    @Override
+    public ResultadoLoteStock actualizarStockEnLote(String franquiciaId, List<ActualizacionStock> actualizaciones) {
+        Object id = idFranquicia(franquiciaId);
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, coleccion());
+        for (ActualizacionStock actualizacion : actualizaciones) {
+            bulk.updateOne(filtroDeProducto(id, actualizacion.sucursalId(), actualizacion.productoId()),
+                    stockProducto(actualizacion.sucursalId(), actualizacion.productoId(), actualizacion.stock()));
+        }
+
+        try {
+            return new ResultadoLoteStock(bulk.execute().getMatchedCount(), Map.of());
+        } catch (BulkOperationException e) {
+            // En modo no ordenado Mongo sigue con el resto y reporta cada fallo con su posición
+            return new ResultadoLoteStock(e.getResult().getMatchedCount(), e.getErrors().stream()
+                    .collect(Collectors.toMap(BulkWriteError::getIndex, BulkWriteError::getMessage)));
+        }
+    }
+
+    @Override
+    public ResultadoLoteStock incrementarStockEnLote(String franquiciaId, List<IncrementoStock> incrementos) {
+        Object id = idFranquicia(franquiciaId);
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, coleccion());
+        for (IncrementoStock incremento : incrementos) {
+            bulk.updateOne(filtroDeIncremento(id, incremento.sucursalId(), incremento.productoId(), incremento.delta()),
+                    incrementarStock(incremento.sucursalId(), incremento.productoId(), incremento.delta()));
+        }
+
+        try {
+            return new ResultadoLoteStock(bulk.execute().getMatchedCount(), Map.of());
+        } catch (BulkOperationException e) {
+            return new ResultadoLoteStock(e.getResult().getMatchedCount(), e.getErrors().stream()
+                    .collect(Collectors.toMap(BulkWriteError::getIndex, BulkWriteError::getMessage)));
+        }
+    }
+
+    @Override
+    public Optional<Map<String, Set<String>>> idsProductos(String franquiciaId, Collection<String> sucursalIds) {
+        return Optional.ofNullable(mongoTemplate.findOne(
+                        ConsultasFranquicia.idsProductos(idFranquicia(franquiciaId), sucursalIds), Document.class, coleccion()))
+                .map(ConsultasFranquicia::leerIdsProductos);
+    }
+
+    @Override
+    public Map<String, Map<String, Integer>> stockProductos(String franquiciaId, Map<String, Set<String>> productos) {
+        return Optional.ofNullable(mongoTemplate.findOne(
+                        ConsultasFranquicia.stockProductos(idFranquicia(franquiciaId), productos), Document.class, coleccion()))
+                .map(resultado -> ConsultasFranquicia.leerStockProductos(resultado, productos))
+                .orElse(Map.of());
+    }
+
+    @Override
+    public List<ProductoDTO> productosConMasStock(String franquiciaId) {
+        return mongoTemplate.aggregate(ConsultasFranquicia.productosConMasStock(idFranquicia(franquiciaId)), ProductoDTO.class)
+                .getMappedResults();
+    }
+
+    @Override
+    public Optional<Franquicia> stockYUmbrales(String franquiciaId) {
+        return Optional.ofNullable(mongoTemplate.findOne(ConsultasFranquicia.stockYUmbrales(idFranquicia(franquiciaId)), Franquicia.class));
+    }
+
+    @Override
+    public boolean hayUmbralStock() {
+        return mongoTemplate.exists(ConsultasFranquicia.conUmbralStock(), Franquicia.class);
+    }
+
+    @Override
+    public List<Franquicia> paginaFranquicias(String despues, int limite) {
+        return mongoTemplate.find(ConsultasFranquicia.paginaFranquicias(
+                despues == null ? null : idFranquicia(despues), limite), Franquicia.class);
+    }
+
+    @Override
+    public Optional<List<Sucursal>> paginaSucursales(String franquiciaId, String despues, int limite) {
+        return Optional.ofNullable(mongoTemplate.findOne(
+                        ConsultasFranquicia.paginaSucursales(idFranquicia(franquiciaId), despues, limite), Franquicia.class))
+                .map(Franquicia::getSucursales);
+    }
+
+    @Override
+    public Optional<List<Producto>> paginaProductos(String franquiciaId, String sucursalId, String despues, int limite) {
+        return Optional.ofNullable(mongoTemplate.findOne(
+                        ConsultasFranquicia.paginaProductos(idFranquicia(franquiciaId), sucursalId, despues, limite), Franquicia.class))
+                .flatMap(f -> f.getSucursales().stream().findFirst())
+                .map(Sucursal::getProductos);
+    }
+
+    @Override
+    public Stream<LineaCatalogoDTO> catalogo() {
+        return mongoTemplate.aggregateStream(ConsultasFranquicia.catalogo(), LineaCatalogoDTO.class);
+    }
+
+    // Dos pasadas acotadas en lugar de un $unwind y un $sort de todo el catálogo: las franquicias candidatas dan
+    // un piso de stock y la página sale solo de las franquicias con algún producto sobre ese piso. Si las
+    // candidatas no llegan a "limite" productos no hay piso y se recorre todo, como antes. Un piso de 0 no
+    // descarta nada y dejaría afuera los productos sin stock guardado, que se listan con 0
+    @Override
+    public List<LineaCatalogoDTO> productosPorMayorStock(PosicionStock despues, int limite) {
+        List<LineaCatalogoDTO> candidatos = leer(ConsultasFranquicia.candidatosMayorStock(despues, limite), LineaCatalogoDTO.class);
+        int piso = candidatos.size() < limite ? 0 : candidatos.get(limite - 1).getStock();
+        Integer minimo = piso > 0 ? piso : null;
+        return leer(ConsultasFranquicia.productosPorMayorStock(despues, minimo, limite), LineaCatalogoDTO.class);
+    }
+
+    @Override
+    public List<LineaCatalogoDTO> productosConStockBajo(int umbral, PosicionStock despues, int limite) {
+        return leer(ConsultasFranquicia.productosConStockBajo(umbral, despues, limite), LineaCatalogoDTO.class);
+    }
+
+    @Override
+    public List<TotalesFranquiciaDTO> totalesFranquicias(String despues, int limite) {
+        return leer(ConsultasFranquicia.totalesFranquicias(despues == null ? null : idFranquicia(despues), limite),
+                TotalesFranquiciaDTO.class);
+    }
+
+    @Override
+    public List<ProductoEncontradoDTO> buscarProductos(String franquiciaId, String texto, boolean soloPrefijo,
+                                                       PosicionBusqueda despues, int limite) {
+        return leer(ConsultasFranquicia.buscarProductos(franquiciaId == null ? null : idFranquicia(franquiciaId),
+                texto, soloPrefijo, despues, limite), ProductoEncontradoDTO.class);
+    }
+
+    // Lee la página del cursor a medida que llega en lugar de armar antes el resultado completo
+    private <T> List<T> leer(TypedAggregation<Franquicia> agregacion, Class<T> tipo) {
+        try (Stream<T> filas = mongoTemplate.aggregateStream(agregacion, tipo)) {
+            return filas.toList();
+        }
+    }
+
+    // Aplica el update sobre un único producto y devuelve solo ese producto ya modificado
+    private Optional<Producto> modificarProducto(String franquiciaId, String sucursalId, String productoId,
+                                                 Update update) {
+        Document resultado = mongoTemplate.findAndModify(producto(idFranquicia(franquiciaId), sucursalId, productoId),
+                update, DEVOLVER_NUEVO, Document.class, coleccion());
+        return leerProducto(resultado, mongoTemplate.getConverter());
+    }
+
+    // Los ids generados por Mongo se guardan como ObjectId; las consultas sin tipo no los convierten solas
+    private Object idFranquicia(String franquiciaId) {
+        return mongoTemplate.getConverter().convertId(franquiciaId, ObjectId.class);
+    }
+
+    private String coleccion() {
+        return mongoTemplate.getCollectionName(Franquicia.class);
+    }
+}
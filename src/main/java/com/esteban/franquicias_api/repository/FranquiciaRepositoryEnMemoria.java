@@ -0,0 +1,653 @@
+package com.esteban.franquicias_api.repository;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.dto.LineaCatalogoDTO;
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.dto.ProductoEncontradoDTO;
+import com.esteban.franquicias_api.dto.TotalesFranquiciaDTO;
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.Producto;
+import com.esteban.franquicias_api.model.Sucursal;
+import org.bson.types.ObjectId;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// FranquiciaRepository sin Mongo para pruebas de carga y perfilado (perfil memoria). Cada documento
+// se guarda como una copia que nadie más ve y cada escritura lo reemplaza entero con compute, así que
+// una lectura nunca observa un documento a medio modificar. Como en Mongo, lo devuelto es siempre una
+// copia y las proyecciones devuelven la misma forma que las consultas de ConsultasFranquicia.
+@Repository
+@ConditionalOnProperty(name = "franquicias.repositorio", havingValue = "memoria")
+public class FranquiciaRepositoryEnMemoria implements FranquiciaRepository {
+
+    // Ordenado por _id, igual que un recorrido de la colección por su índice primario
+    private final ConcurrentNavigableMap<String, Franquicia> franquicias = new ConcurrentSkipListMap<>();
+    private final Duration latencia;
+
+    public FranquiciaRepositoryEnMemoria(FranquiciasProperties properties) {
+        this.latencia = properties.getMemoria().getLatencia();
+    }
+
+    // Lecturas
+
+    @Override
+    public Optional<Franquicia> findById(String id) {
+        esperar();
+        return Optional.ofNullable(franquicias.get(id)).map(FranquiciaRepositoryEnMemoria::copiar);
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        esperar();
+        return franquicias.containsKey(id);
+    }
+
+    @Override
+    public Franquicia findByNombre(String nombre) {
+        esperar();
+        return franquicias.values().stream()
+                .filter(f -> Objects.equals(f.getNombre(), nombre))
+                .findFirst()
+                .map(FranquiciaRepositoryEnMemoria::copiar)
+                .orElse(null);
+    }
+
+    @Override
+    public Stream<Franquicia> streamAllBy() {
+        esperar();
+        return franquicias.values().stream().map(FranquiciaRepositoryEnMemoria::copiar);
+    }
+
+    @Override
+    public List<Franquicia> findAll() {
+        esperar();
+        return franquicias.values().stream().map(FranquiciaRepositoryEnMemoria::copiar).toList();
+    }
+
+    @Override
+    public List<Franquicia> findAll(Sort sort) {
+        esperar();
+        return ordenar(franquicias.values().stream(), sort).map(FranquiciaRepositoryEnMemoria::copiar).toList();
+    }
+
+    @Override
+    public Page<Franquicia> findAll(Pageable pageable) {
+        esperar();
+        List<Franquicia> todas = ordenar(franquicias.values().stream(), pageable.getSort()).toList();
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(todas.stream().map(FranquiciaRepositoryEnMemoria::copiar).toList(), pageable, todas.size());
+        }
+        List<Franquicia> pagina = todas.stream()
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .map(FranquiciaRepositoryEnMemoria::copiar)
+                .toList();
+        return new PageImpl<>(pagina, pageable, todas.size());
+    }
+
+    @Override
+    public List<Franquicia> findAllById(Iterable<String> ids) {
+        esperar();
+        return StreamSupport.stream(ids.spliterator(), false)
+                .map(franquicias::get)
+                .filter(Objects::nonNull)
+                .map(FranquiciaRepositoryEnMemoria::copiar)
+                .toList();
+    }
+
+    @Override
+    public long count() {
+        esperar();
+        return franquicias.size();
+    }
+
+    // Proyecciones: misma forma que los @Query de FranquiciaRepository (sin _id ni nombre)
+
+    @Override
+    public Optional<Franquicia> findSucursalesByFranquiciaId(String franquiciaId) {
+        esperar();
+        return Optional.ofNullable(franquicias.get(franquiciaId))
+                .map(f -> soloSucursales(f.getSucursales().stream().map(FranquiciaRepositoryEnMemoria::copiar).toList()));
+    }
+
+    @Override
+    public Optional<Franquicia> findSucursalByFranquiciaIdAndSucursalId(String franquiciaId, String sucursalId) {
+        esperar();
+        return sucursalGuardada(franquiciaId, sucursalId).map(s -> soloSucursales(List.of(copiar(s))));
+    }
+
+    @Override
+    public Optional<Franquicia> findProductosBySucursalId(String franquiciaId, String sucursalId) {
+        esperar();
+        return sucursalGuardada(franquiciaId, sucursalId).map(s -> soloSucursales(List.of(copiar(s))));
+    }
+
+    @Override
+    public Optional<Franquicia> findProductoBySucursalIdAndProductoId(String franquiciaId, String sucursalId, String productoId) {
+        esperar();
+        return sucursalGuardada(franquiciaId, sucursalId).flatMap(s -> s.producto(productoId)
+                .map(p -> soloSucursales(List.of(new Sucursal(s.getId(), s.getNombre(), new ArrayList<>(List.of(copiar(p))))))));
+    }
+
+    // Escrituras dirigidas (FranquiciaRepositoryCustom)
+
+    @Override
+    public Optional<Franquicia> actualizarNombre(String franquiciaId, String nuevoNombre) {
+        esperar();
+        return modificar(franquiciaId, f -> {
+            f.setNombre(nuevoNombre);
+            Franquicia sinProductos = copiar(f);
+            sinProductos.getSucursales().forEach(s -> s.setProductos(new ArrayList<>()));
+            return sinProductos;
+        });
+    }
+
+    @Override
+    public boolean agregarSucursal(String franquiciaId, Sucursal sucursal) {
+        esperar();
+        Sucursal nueva = copiar(sucursal);
+        return modificar(franquiciaId, f -> {
+            f.agregarSucursal(nueva);
+            return true;
+        }).isPresent();
+    }
+
+    @Override
+    public Optional<Sucursal> actualizarNombreSucursal(String franquiciaId, String sucursalId, String nuevoNombre) {
+        esperar();
+        return modificar(franquiciaId, f -> f.sucursal(sucursalId)
+                .map(s -> {
+                    s.setNombre(nuevoNombre);
+                    return copiar(s);
+                })
+                .orElse(null));
+    }
+
+    @Override
+    public boolean actualizarUmbralStock(String franquiciaId, String sucursalId, int umbral) {
+        esperar();
+        return modificar(franquiciaId, f -> f.sucursal(sucursalId)
+                .map(s -> {
+                    s.setUmbralStock(umbral);
+                    return true;
+                })
+                .orElse(null)).isPresent();
+    }
+
+    @Override
+    public boolean agregarProducto(String franquiciaId, String sucursalId, Producto producto) {
+        esperar();
+        Producto nuevo = copiar(producto);
+        return modificar(franquiciaId, f -> f.sucursal(sucursalId)
+                .map(s -> {
+                    s.agregarProducto(nuevo);
+                    return true;
+                })
+                .orElse(null)).isPresent();
+    }
+
+    @Override
+    public Optional<Producto> actualizarNombreProducto(String franquiciaId, String sucursalId, String productoId, String nuevoNombre) {
+        esperar();
+        return modificarProducto(franquiciaId, sucursalId, productoId, p -> p.setNombre(nuevoNombre));
+    }
+
+    @Override
+    public Optional<Producto> actualizarStock(String franquiciaId, String sucursalId, String productoId, int nuevoStock) {
+        esperar();
+        return modificarProducto(franquiciaId, sucursalId, productoId, p -> p.setStock(nuevoStock));
+    }
+
+    @Override
+    public boolean eliminarProducto(String franquiciaId, String sucursalId, String productoId) {
+        esperar();
+        return modificar(franquiciaId, f -> f.sucursal(sucursalId)
+                .filter(s -> s.quitarProducto(productoId))
+                .orElse(null)).isPresent();
+    }
+
+    @Override
+    public boolean existeSucursal(String franquiciaId, String sucursalId) {
+        esperar();
+        return sucursalGuardada(franquiciaId, sucursalId).isPresent();
+    }
+
+    @Override
+    public boolean agregarSucursales(String franquiciaId, List<Sucursal> sucursales) {
+        esperar();
+        List<Sucursal> nuevas = sucursales.stream().map(FranquiciaRepositoryEnMemoria::copiar).toList();
+        return modificar(franquiciaId, f -> {
+            f.agregarSucursales(nuevas);
+            return true;
+        }).isPresent();
+    }
+
+    @Override
+    public boolean agregarProductos(String franquiciaId, String sucursalId, List<Producto> productos) {
+        esperar();
+        List<Producto> nuevos = productos.stream().map(FranquiciaRepositoryEnMemoria::copiar).toList();
+        return modificar(franquiciaId, f -> f.sucursal(sucursalId)
+                .map(s -> {
+                    s.agregarProductos(nuevos);
+                    return true;
+                })
+                .orElse(null)).isPresent();
+    }
+
+    // Las entradas que no encuentran su producto solo dejan de contar como coincidencias, igual que en el bulkWrite
+    @Override
+    public ResultadoLoteStock actualizarStockEnLote(String franquiciaId, List<ActualizacionStock> actualizaciones) {
+        esperar();
+        long[] coincidencias = new long[1];
+        modificar(franquiciaId, f -> {
+            coincidencias[0] = 0;
+            for (ActualizacionStock actualizacion : actualizaciones) {
+                f.sucursal(actualizacion.sucursalId())
+                        .flatMap(s -> s.producto(actualizacion.productoId()))
+                        .ifPresent(p -> {
+                            p.setStock(actualizacion.stock());
+                            coincidencias[0]++;
+                        });
+            }
+            return f;
+        });
+        return new ResultadoLoteStock(coincidencias[0], Map.of());
+    }
+
+    @Override
+    public ResultadoLoteStock incrementarStockEnLote(String franquiciaId, List<IncrementoStock> incrementos) {
+        esperar();
+        long[] coincidencias = new long[1];
+        modificar(franquiciaId, f -> {
+            coincidencias[0] = 0;
+            for (IncrementoStock incremento : incrementos) {
+                f.sucursal(incremento.sucursalId())
+                        .flatMap(s -> s.producto(incremento.productoId()))
+                        .filter(p -> p.getStock() + incremento.delta() >= 0)
+                        .ifPresent(p -> {
+                            p.setStock(p.getStock() + incremento.delta());
+                            coincidencias[0]++;
+                        });
+            }
+            return f;
+        });
+        return new ResultadoLoteStock(coincidencias[0], Map.of());
+    }
+
+    @Override
+    public List<ProductoDTO> productosConMasStock(String franquiciaId) {
+        esperar();
+        return Optional.ofNullable(franquicias.get(franquiciaId)).map(ProductosConMasStock::calcular).orElse(List.of());
+    }
+
+    @Override
+    public Optional<Map<String, Set<String>>> idsProductos(String franquiciaId, Collection<String> sucursalIds) {
+        esperar();
+        return Optional.ofNullable(franquicias.get(franquiciaId)).map(f -> f.getSucursales().stream()
+                .filter(s -> sucursalIds.contains(s.getId()))
+                .collect(Collectors.toMap(Sucursal::getId,
+                        s -> s.getProductos().stream().map(Producto::getId).collect(Collectors.toSet()),
+                        (a, b) -> a)));
+    }
+
+    @Override
+    public Map<String, Map<String, Integer>> stockProductos(String franquiciaId, Map<String, Set<String>> productos) {
+        esperar();
+        Franquicia franquicia = franquicias.get(franquiciaId);
+        Map<String, Map<String, Integer>> stock = new HashMap<>();
+        if (franquicia == null) return stock;
+        productos.forEach((sucursalId, productoIds) -> franquicia.sucursal(sucursalId).ifPresent(sucursal ->
+                productoIds.forEach(productoId -> sucursal.producto(productoId).ifPresent(producto ->
+                        stock.computeIfAbsent(sucursalId, id -> new HashMap<>()).put(productoId, producto.getStock())))));
+        return stock;
+    }
+
+    @Override
+    public Optional<Franquicia> stockYUmbrales(String franquiciaId) {
+        esperar();
+        return Optional.ofNullable(franquicias.get(franquiciaId)).map(f -> new Franquicia(f.getId(), null, f.getSucursales().stream()
+                .map(s -> new Sucursal(s.getId(), null, s.getProductos().stream()
+                        .map(p -> new Producto(p.getId(), null, p.getStock()))
+                        .collect(Collectors.toCollection(ArrayList::new)), s.getUmbralStock()))
+                .collect(Collectors.toCollection(ArrayList::new))));
+    }
+
+    @Override
+    public boolean hayUmbralStock() {
+        esperar();
+        return franquicias.values().stream()
+                .flatMap(f -> f.getSucursales().stream())
+                .anyMatch(s -> s.getUmbralStock() != null && s.getUmbralStock() > 0);
+    }
+
+    // Paginación: el mapa ya está ordenado por _id; las sucursales y los productos se ordenan al leer
+
+    @Override
+    public List<Franquicia> paginaFranquicias(String despues, int limite) {
+        esperar();
+        return (despues == null ? franquicias : franquicias.tailMap(despues, false)).values().stream()
+                .limit(limite)
+                .map(f -> new Franquicia(f.getId(), f.getNombre(), new ArrayList<>()))
+                .toList();
+    }
+
+    @Override
+    public Optional<List<Sucursal>> paginaSucursales(String franquiciaId, String despues, int limite) {
+        esperar();
+        return Optional.ofNullable(franquicias.get(franquiciaId)).map(f -> pagina(f.getSucursales(), Sucursal::getId, despues, limite)
+                .map(s -> new Sucursal(s.getId(), s.getNombre(), new ArrayList<>()))
+                .toList());
+    }
+
+    @Override
+    public Optional<List<Producto>> paginaProductos(String franquiciaId, String sucursalId, String despues, int limite) {
+        esperar();
+        return sucursalGuardada(franquiciaId, sucursalId).map(s -> pagina(s.getProductos(), Producto::getId, despues, limite)
+                .map(FranquiciaRepositoryEnMemoria::copiar)
+                .toList());
+    }
+
+    // Los documentos guardados nunca se modifican (cada escritura los reemplaza), así que se recorren sin copiarlos
+    @Override
+    public Stream<LineaCatalogoDTO> catalogo() {
+        esperar();
+        return franquicias.values().stream().flatMap(FranquiciaRepositoryEnMemoria::lineasCatalogo);
+    }
+
+    // Analítica: en lugar de la agregación se recorren las franquicias en paralelo y cada hilo guarda solo
+    // los "limite" primeros (ver PrimerosN)
+
+    @Override
+    public List<LineaCatalogoDTO> productosPorMayorStock(PosicionStock despues, int limite) {
+        esperar();
+        return primeros(linea -> true, PosicionStock.MAYOR_STOCK, despues, limite);
+    }
+
+    @Override
+    public List<LineaCatalogoDTO> productosConStockBajo(int umbral, PosicionStock despues, int limite) {
+        esperar();
+        return primeros(linea -> linea.getStock() < umbral, PosicionStock.MENOR_STOCK, despues, limite);
+    }
+
+    @Override
+    public List<TotalesFranquiciaDTO> totalesFranquicias(String despues, int limite) {
+        esperar();
+        return (despues == null ? franquicias : franquicias.tailMap(despues, false)).values().stream()
+                .limit(limite)
+                .toList()
+                .parallelStream()
+                .map(f -> new TotalesFranquiciaDTO(f.getId(), f.getNombre(), f.getSucursales().size(),
+                        f.getSucursales().stream().mapToLong(s -> s.getProductos().size()).sum(),
+                        f.getSucursales().stream().flatMap(s -> s.getProductos().stream()).mapToLong(Producto::getStock).sum()))
+                .toList();
+    }
+
+    // Sin el índice en memoria la búsqueda recorre todos los productos en paralelo, con las reglas de PosicionBusqueda
+    @Override
+    public List<ProductoEncontradoDTO> buscarProductos(String franquiciaId, String texto, boolean soloPrefijo,
+                                                       PosicionBusqueda despues, int limite) {
+        esperar();
+        String consulta = PosicionBusqueda.normalizar(texto);
+        int hasta = soloPrefijo ? PosicionBusqueda.PREFIJO : PosicionBusqueda.CONTIENE;
+        Collection<Franquicia> alcance = franquiciaId == null
+                ? franquicias.values()
+                : Optional.ofNullable(franquicias.get(franquiciaId)).map(List::of).orElse(List.of());
+        return alcance.parallelStream()
+                .flatMap(f -> f.getSucursales().stream().flatMap(s -> s.getProductos().stream()
+                        .filter(p -> p.getNombre() != null)
+                        .map(p -> {
+                            int rango = PosicionBusqueda.coincidencia(PosicionBusqueda.normalizar(p.getNombre()), consulta);
+                            return rango < 0 || rango > hasta ? null : new ProductoEncontradoDTO(f.getId(), s.getId(),
+                                    p.getId(), p.getNombre(), PosicionBusqueda.COINCIDENCIAS.get(rango));
+                        })
+                        .filter(Objects::nonNull)))
+                .filter(producto -> despues == null || PosicionBusqueda.ORDEN.compare(PosicionBusqueda.de(producto), despues) > 0)
+                .collect(PrimerosN.de(limite, PosicionBusqueda.RESULTADOS));
+    }
+
+    // Escrituras de documentos completos (CrudRepository)
+
+    @Override
+    public <S extends Franquicia> S save(S entity) {
+        esperar();
+        guardar(entity);
+        return entity;
+    }
+
+    @Override
+    public <S extends Franquicia> List<S> saveAll(Iterable<S> entities) {
+        esperar();
+        List<S> guardadas = new ArrayList<>();
+        entities.forEach(entity -> {
+            guardar(entity);
+            guardadas.add(entity);
+        });
+        return guardadas;
+    }
+
+    @Override
+    public <S extends Franquicia> S insert(S entity) {
+        esperar();
+        insertar(entity);
+        return entity;
+    }
+
+    @Override
+    public <S extends Franquicia> List<S> insert(Iterable<S> entities) {
+        esperar();
+        List<S> insertadas = new ArrayList<>();
+        entities.forEach(entity -> {
+            insertar(entity);
+            insertadas.add(entity);
+        });
+        return insertadas;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        esperar();
+        franquicias.remove(id);
+    }
+
+    @Override
+    public void delete(Franquicia entity) {
+        esperar();
+        franquicias.remove(entity.getId());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        esperar();
+        ids.forEach(franquicias::remove);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Franquicia> entities) {
+        esperar();
+        entities.forEach(f -> franquicias.remove(f.getId()));
+    }
+
+    @Override
+    public void deleteAll() {
+        esperar();
+        franquicias.clear();
+    }
+
+    // Query by Example no tiene equivalente razonable sin Mongo
+
+    @Override
+    public <S extends Franquicia> Optional<S> findOne(Example<S> example) {
+        throw sinQueryByExample();
+    }
+
+    @Override
+    public <S extends Franquicia> List<S> findAll(Example<S> example) {
+        throw sinQueryByExample();
+    }
+
+    @Override
+    public <S extends Franquicia> List<S> findAll(Example<S> example, Sort sort) {
+        throw sinQueryByExample();
+    }
+
+    @Override
+    public <S extends Franquicia> Page<S> findAll(Example<S> example, Pageable pageable) {
+        throw sinQueryByExample();
+    }
+
+    @Override
+    public <S extends Franquicia> long count(Example<S> example) {
+        throw sinQueryByExample();
+    }
+
+    @Override
+    public <S extends Franquicia> boolean exists(Example<S> example) {
+        throw sinQueryByExample();
+    }
+
+    @Override
+    public <S extends Franquicia, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        throw sinQueryByExample();
+    }
+
+    // Aplica el cambio sobre una copia del documento y la publica en un solo paso. El cambio devuelve
+    // el resultado de la operación, o null si no encontró su objetivo y no hay que escribir nada.
+    private <T> Optional<T> modificar(String franquiciaId, Function<Franquicia, T> cambio) {
+        List<T> resultado = new ArrayList<>(1);
+        franquicias.computeIfPresent(franquiciaId, (id, actual) -> {
+            // compute puede reintentar la función si hay contención
+            resultado.clear();
+            Franquicia nueva = copiar(actual);
+            T valor = cambio.apply(nueva);
+            if (valor == null) return actual;
+            resultado.add(valor);
+            return nueva;
+        });
+        return resultado.stream().findFirst();
+    }
+
+    private Optional<Producto> modificarProducto(String franquiciaId, String sucursalId, String productoId,
+                                                 Consumer<Producto> cambio) {
+        return modificar(franquiciaId, f -> f.sucursal(sucursalId)
+                .flatMap(s -> s.producto(productoId))
+                .map(p -> {
+                    cambio.accept(p);
+                    return copiar(p);
+                })
+                .orElse(null));
+    }
+
+    private void guardar(Franquicia franquicia) {
+        if (franquicia.getId() == null) {
+            franquicia.setId(new ObjectId().toHexString());
+        }
+        franquicias.put(franquicia.getId(), copiar(franquicia));
+    }
+
+    private void insertar(Franquicia franquicia) {
+        if (franquicia.getId() == null) {
+            franquicia.setId(new ObjectId().toHexString());
+        }
+        if (franquicias.putIfAbsent(franquicia.getId(), copiar(franquicia)) != null) {
+            throw new DuplicateKeyException("Ya existe la franquicia " + franquicia.getId());
+        }
+    }
+
+    private Optional<Sucursal> sucursalGuardada(String franquiciaId, String sucursalId) {
+        return Optional.ofNullable(franquicias.get(franquiciaId)).flatMap(f -> f.sucursal(sucursalId));
+    }
+
+    private void esperar() {
+        if (latencia.isZero()) return;
+        try {
+            Thread.sleep(latencia);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Stream<Franquicia> ordenar(Stream<Franquicia> franquicias, Sort sort) {
+        Comparator<Franquicia> orden = null;
+        for (Sort.Order o : sort) {
+            Comparator<Franquicia> campo = Comparator.comparing(f -> propiedad(f, o.getProperty()),
+                    Comparator.nullsFirst(Comparator.<Comparable<Object>>naturalOrder()));
+            if (o.isDescending()) campo = campo.reversed();
+            orden = orden == null ? campo : orden.thenComparing(campo);
+        }
+        return orden == null ? franquicias : franquicias.sorted(orden);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> propiedad(Franquicia franquicia, String nombre) {
+        return (Comparable<Object>) new BeanWrapperImpl(franquicia).getPropertyValue(nombre);
+    }
+
+    private static <T> Stream<T> pagina(List<T> elementos, Function<T, String> id, String despues, int limite) {
+        return elementos.stream()
+                .filter(e -> despues == null || id.apply(e).compareTo(despues) > 0)
+                .sorted(Comparator.comparing(id))
+                .limit(limite);
+    }
+
+    private static Franquicia soloSucursales(List<Sucursal> sucursales) {
+        Franquicia franquicia = new Franquicia();
+        franquicia.setSucursales(new ArrayList<>(sucursales));
+        return franquicia;
+    }
+
+    private static UnsupportedOperationException sinQueryByExample() {
+        return new UnsupportedOperationException("Query by Example no está disponible en el repositorio en memoria");
+    }
+
+    private List<LineaCatalogoDTO> primeros(Predicate<LineaCatalogoDTO> filtro, Comparator<LineaCatalogoDTO> orden,
+                                            PosicionStock despues, int limite) {
+        LineaCatalogoDTO desde = despues == null ? null : despues.linea();
+        return franquicias.values().parallelStream()
+                .flatMap(FranquiciaRepositoryEnMemoria::lineasCatalogo)
+                .filter(filtro)
+                .filter(linea -> desde == null || orden.compare(linea, desde) > 0)
+                .collect(PrimerosN.de(limite, orden));
+    }
+
+    private static Stream<LineaCatalogoDTO> lineasCatalogo(Franquicia f) {
+        return f.getSucursales().stream().flatMap(s -> s.getProductos().stream()
+                .map(p -> new LineaCatalogoDTO(f.getId(), f.getNombre(), s.getId(), s.getNombre(), p.getId(), p.getNombre(), p.getStock())));
+    }
+
+    private static Franquicia copiar(Franquicia franquicia) {
+        List<Sucursal> sucursales = Optional.ofNullable(franquicia.getSucursales()).orElse(List.of()).stream()
+                .map(FranquiciaRepositoryEnMemoria::copiar)
+                .collect(Collectors.toCollection(ArrayList::new));
+        return new Franquicia(franquicia.getId(), franquicia.getNombre(), sucursales);
+    }
+
+    private static Sucursal copiar(Sucursal sucursal) {
+        List<Producto> productos = Optional.ofNullable(sucursal.getProductos()).orElse(List.of()).stream()
+                .map(FranquiciaRepositoryEnMemoria::copiar)
+                .collect(Collectors.toCollection(ArrayList::new));
+        return sucursal.conProductos(productos);
+    }
+
+    private static Producto copiar(Producto producto) {
+        return new Producto(producto.getId(), producto.getNombre(), producto.getStock());
+    }
+}
@@ -0,0 +1,19 @@
+package com.esteban.franquicias_api.repository;
+
+import com.esteban.franquicias_api.dto.ResumenMovimientosDTO;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+// Movimientos de stock, solo se agregan. Cada lote también suma en el resumen por hora de cada producto,
+// así que los reportes no vuelven a leer los movimientos
+public interface HistorialStock {
+
+    void registrar(List<MovimientoStock> movimientos);
+
+    // Resúmenes por HOURS o DAYS (UTC) desde "desde" hasta antes de "hasta", del más antiguo al más reciente y solo
+    // los períodos con movimientos. Sin sucursalId es toda la franquicia; productoId necesita sucursalId
+    List<ResumenMovimientosDTO> resumen(String franquiciaId, String sucursalId, String productoId,
+                                        ChronoUnit periodo, Instant desde, Instant hasta);
+}
@@ -0,0 +1,52 @@
+package com.esteban.franquicias_api.repository;
+
+import com.esteban.franquicias_api.dto.ResumenMovimientosDTO;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// En modo memoria solo se guardan los resúmenes por hora: los movimientos sueltos no los lee ningún reporte
+@Component
+@ConditionalOnProperty(name = "franquicias.repositorio", havingValue = "memoria")
+public class HistorialStockEnMemoria implements HistorialStock {
+
+    // franquicia -> resumen por producto y hora
+    private final ConcurrentMap<String, ConcurrentMap<ProductoHora, AcumuladoMovimientos>> horas = new ConcurrentHashMap<>();
+
+    @Override
+    public void registrar(List<MovimientoStock> movimientos) {
+        for (MovimientoStock movimiento : movimientos) {
+            horas.computeIfAbsent(movimiento.franquiciaId(), id -> new ConcurrentHashMap<>())
+                    .merge(new ProductoHora(movimiento.sucursalId(), movimiento.productoId(),
+                                    movimiento.instante().truncatedTo(ChronoUnit.HOURS)),
+                            AcumuladoMovimientos.de(movimiento), AcumuladoMovimientos::sumar);
+        }
+    }
+
+    @Override
+    public List<ResumenMovimientosDTO> resumen(String franquiciaId, String sucursalId, String productoId,
+                                               ChronoUnit periodo, Instant desde, Instant hasta) {
+        Map<Instant, AcumuladoMovimientos> periodos = new TreeMap<>();
+        Optional.ofNullable(horas.get(franquiciaId)).ifPresent(productos -> productos.forEach((clave, acumulado) -> {
+            if ((sucursalId == null || sucursalId.equals(clave.sucursalId()))
+                    && (productoId == null || productoId.equals(clave.productoId()))
+                    && !clave.hora().isBefore(desde) && clave.hora().isBefore(hasta)) {
+                periodos.merge(clave.hora().truncatedTo(periodo), acumulado, AcumuladoMovimientos::sumar);
+            }
+        }));
+        return periodos.entrySet().stream()
+                .map(e -> e.getValue().resumen(e.getKey(), productoId != null))
+                .toList();
+    }
+
+    private record ProductoHora(String sucursalId, String productoId, Instant hora) {
+    }
+}
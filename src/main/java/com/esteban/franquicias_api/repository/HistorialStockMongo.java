@@ -0,0 +1,118 @@
+package com.esteban.franquicias_api.repository;
+
+import com.esteban.franquicias_api.dto.ResumenMovimientosDTO;
+import com.esteban.franquicias_api.model.MovimientosHora;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.aggregation.ProjectionOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Los movimientos van a la colección time-series "movimientos_stock" (la crea IndicesMongo), con el producto
+// como metaField: herramientas de análisis pueden leerla sin tocar "franquicias". Cada lote suma además en
+// "movimientos_stock_horas" (ver MovimientosHora), de donde salen los reportes.
+// Las dos escrituras no son atómicas: si falla la segunda, los resúmenes de ese lote quedan cortos.
+@Component
+@ConditionalOnProperty(name = "franquicias.repositorio", havingValue = "mongo", matchIfMissing = true)
+@RequiredArgsConstructor
+public class HistorialStockMongo implements HistorialStock {
+
+    public static final String COLECCION = "movimientos_stock";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void registrar(List<MovimientoStock> movimientos) {
+        mongoTemplate.insert(movimientos.stream().map(HistorialStockMongo::documento).toList(), COLECCION);
+
+        // Un $inc por producto y hora aunque el lote traiga muchos movimientos del mismo
+        Map<ProductoHora, AcumuladoMovimientos> porHora = new LinkedHashMap<>();
+        for (MovimientoStock movimiento : movimientos) {
+            porHora.merge(new ProductoHora(movimiento.franquiciaId(), movimiento.sucursalId(), movimiento.productoId(),
+                            movimiento.instante().truncatedTo(ChronoUnit.HOURS)),
+                    AcumuladoMovimientos.de(movimiento), AcumuladoMovimientos::sumar);
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MovimientosHora.class);
+        porHora.forEach((hora, acumulado) -> bulk.upsert(new Query(Criteria.where("franquiciaId").is(hora.franquiciaId())
+                .and("sucursalId").is(hora.sucursalId())
+                .and("productoId").is(hora.productoId())
+                .and("hora").is(hora.hora())), sumar(acumulado)));
+        bulk.execute();
+    }
+
+    @Override
+    public List<ResumenMovimientosDTO> resumen(String franquiciaId, String sucursalId, String productoId,
+                                               ChronoUnit periodo, Instant desde, Instant hasta) {
+        Criteria criterio = Criteria.where("franquiciaId").is(franquiciaId);
+        if (sucursalId != null) criterio.and("sucursalId").is(sucursalId);
+        if (productoId != null) criterio.and("productoId").is(productoId);
+        criterio.and("hora").gte(desde).lt(hasta);
+
+        ProjectionOperation conPeriodo = Aggregation.project("movimientos", "entradas", "salidas", "ajustes", "stockMinimo", "stockMaximo");
+        conPeriodo = periodo == ChronoUnit.DAYS
+                ? conPeriodo.and(DateOperators.dateOf("hora").truncate("day")).as("periodo")
+                : conPeriodo.and("hora").as("periodo");
+        Aggregation agregacion = Aggregation.newAggregation(
+                Aggregation.match(criterio),
+                conPeriodo,
+                Aggregation.group("periodo")
+                        .sum("movimientos").as("movimientos")
+                        .sum("entradas").as("entradas")
+                        .sum("salidas").as("salidas")
+                        .sum("ajustes").as("ajustes")
+                        .min("stockMinimo").as("stockMinimo")
+                        .max("stockMaximo").as("stockMaximo"),
+                Aggregation.sort(Sort.Direction.ASC, "_id"));
+
+        return mongoTemplate.aggregate(agregacion, MovimientosHora.class, Document.class).getMappedResults().stream()
+                .map(fila -> new AcumuladoMovimientos(numero(fila, "movimientos"), numero(fila, "entradas"),
+                        numero(fila, "salidas"), numero(fila, "ajustes"),
+                        fila.getInteger("stockMinimo"), fila.getInteger("stockMaximo"))
+                        .resumen(fila.getDate("_id").toInstant(), productoId != null))
+                .toList();
+    }
+
+    private static Update sumar(AcumuladoMovimientos acumulado) {
+        Update update = new Update()
+                .inc("movimientos", acumulado.movimientos())
+                .inc("entradas", acumulado.entradas())
+                .inc("salidas", acumulado.salidas())
+                .inc("ajustes", acumulado.ajustes());
+        if (acumulado.stockMinimo() != null) update.min("stockMinimo", acumulado.stockMinimo());
+        if (acumulado.stockMaximo() != null) update.max("stockMaximo", acumulado.stockMaximo());
+        return update;
+    }
+
+    private static Document documento(MovimientoStock movimiento) {
+        Document documento = new Document("instante", Date.from(movimiento.instante()))
+                .append("producto", new Document("franquiciaId", movimiento.franquiciaId())
+                        .append("sucursalId", movimiento.sucursalId())
+                        .append("productoId", movimiento.productoId()))
+                .append("tipo", movimiento.tipo());
+        if (movimiento.delta() != null) documento.append("delta", movimiento.delta());
+        if (movimiento.stock() != null) documento.append("stock", movimiento.stock());
+        return documento;
+    }
+
+    private static long numero(Document fila, String campo) {
+        return fila.get(campo, Number.class).longValue();
+    }
+
+    private record ProductoHora(String franquiciaId, String sucursalId, String productoId, Instant hora) {
+    }
+}
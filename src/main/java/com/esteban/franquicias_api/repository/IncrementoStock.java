@@ -0,0 +1,5 @@
+package com.esteban.franquicias_api.repository;
+
+// Suma (o resta, si es negativo) al stock actual; nunca deja el stock por debajo de cero
+public record IncrementoStock(String sucursalId, String productoId, int delta) {
+}
@@ -0,0 +1,120 @@
+package com.esteban.franquicias_api.repository;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.event.FranquiciaEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+// Single-flight de las lecturas por franquicia: las peticiones que piden lo mismo mientras la primera
+// todavía espera a Mongo reciben su resultado en lugar de repetir la consulta. Cada franquicia tiene una
+// generación que sube con cada evento de escritura y va en la clave, así quien llega después de una
+// escritura empieza su propia lectura aunque haya otra anterior en vuelo. Se entera de la escritura por
+// el evento: no junta lecturas de distintas instancias ni ve lo escrito por otra. No guarda resultados:
+// apenas termina la consulta, la siguiente lectura va de nuevo a Mongo.
+// La generación solo importa mientras hay lecturas de la franquicia en curso: sin ninguna no hay con qué
+// juntarse, así que la entrada se borra con la última y una escritura sin lecturas no la crea.
+// Los resultados se comparten, así que nadie debe modificarlos.
+@Component
+public class LecturasCompartidas {
+
+    private final boolean habilitadas;
+    private final ConcurrentMap<String, Generacion> generaciones = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Clave, CompletableFuture<Object>> enVuelo = new ConcurrentHashMap<>();
+
+    private final Counter consultas;
+    private final Counter compartidas;
+
+    public LecturasCompartidas(FranquiciasProperties properties, MeterRegistry registry) {
+        this.habilitadas = properties.getLecturas().isCompartidas();
+        this.consultas = lecturas(registry, "consulta");
+        this.compartidas = lecturas(registry, "compartida");
+    }
+
+    // "consulta" distingue las lecturas de una misma franquicia: el nombre de la lectura y sus argumentos
+    @SuppressWarnings("unchecked")
+    public <T> T leer(String franquiciaId, List<?> consulta, Supplier<T> lectura) {
+        if (!habilitadas) {
+            consultas.increment();
+            return lectura.get();
+        }
+        Generacion generacion = generaciones.compute(franquiciaId,
+                (id, actual) -> actual == null ? new Generacion(0, 1) : new Generacion(actual.numero(), actual.lecturas() + 1));
+        try {
+            Clave clave = new Clave(franquiciaId, generacion.numero(), consulta);
+            CompletableFuture<Object> propia = new CompletableFuture<>();
+            CompletableFuture<Object> anterior = enVuelo.putIfAbsent(clave, propia);
+            if (anterior != null) {
+                compartidas.increment();
+                return (T) esperar(anterior);
+            }
+
+            consultas.increment();
+            try {
+                T resultado = lectura.get();
+                propia.complete(resultado);
+                return resultado;
+            } catch (RuntimeException | Error e) {
+                propia.completeExceptionally(e);
+                throw e;
+            } finally {
+                enVuelo.remove(clave, propia);
+            }
+        } finally {
+            generaciones.computeIfPresent(franquiciaId,
+                    (id, actual) -> actual.lecturas() == 1 ? null : new Generacion(actual.numero(), actual.lecturas() - 1));
+        }
+    }
+
+    // Franquicias con alguna lectura en curso
+    int franquiciasEnCurso() {
+        return generaciones.size();
+    }
+
+    // Antes que el resto de listeners: si uno vuelve a leer la franquicia
+    // al procesar el evento ya no se junta con una lectura de antes de la escritura
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void nuevaGeneracion(FranquiciaEvent evento) {
+        escrita(evento.franquiciaId());
+    }
+
+    // Para una escritura que vuelve a leer antes de publicar su evento
+    public void escrita(String franquiciaId) {
+        generaciones.computeIfPresent(franquiciaId, (id, actual) -> new Generacion(actual.numero() + 1, actual.lecturas()));
+    }
+
+    private static Object esperar(CompletableFuture<Object> lectura) {
+        try {
+            return lectura.join();
+        } catch (CompletionException e) {
+            // El mismo error que vio la primera, para que cada petición responda igual
+            if (e.getCause() instanceof RuntimeException causa) throw causa;
+            if (e.getCause() instanceof Error causa) throw causa;
+            throw e;
+        }
+    }
+
+    private static Counter lecturas(MeterRegistry registry, String origen) {
+        return Counter.builder("franquicias.lecturas")
+                .description("Lecturas por franquicia: las que consultaron el repositorio y las que usaron otra en vuelo")
+                .tag("origen", origen)
+                .register(registry);
+    }
+
+    private record Generacion(long numero, int lecturas) {
+    }
+
+    private record Clave(String franquiciaId, long generacion, List<?> consulta) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.esteban.franquicias_api.repository;
+
+import java.time.Instant;
+
+// Un cambio de stock de un producto. delta es lo que sumó o restó, si se conoce (un PUT .../stock solo trae el
+// valor final); stock es el valor final, si se conoce (un incremento diferido solo trae la diferencia)
+public record MovimientoStock(String franquiciaId, String sucursalId, String productoId, Instant instante,
+                              String tipo, Integer delta, Integer stock) {
+
+    public static final String ALTA = "alta";
+    public static final String AJUSTE = "ajuste";
+    public static final String INCREMENTO = "incremento";
+    public static final String BAJA = "baja";
+}
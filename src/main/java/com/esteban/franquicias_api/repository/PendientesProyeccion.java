@@ -0,0 +1,34 @@
+package com.esteban.franquicias_api.repository;
+
+import com.esteban.franquicias_api.model.MarcaProyeccion;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Sucursales con cambios todavía sin pasar a la vista (ver MarcaProyeccion). "sucursales" va de franquiciaId
+// a los ids de sus sucursales, así una importación marca varias franquicias en una sola escritura
+public interface PendientesProyeccion {
+
+    // Antes de escribir: si el proceso muere antes de cerrar, la marca igual se proyecta al vencer el plazo
+    void abrir(Map<String, ? extends Collection<String>> sucursales);
+
+    // Después de escribir, haya salido bien o no
+    void cerrar(Map<String, ? extends Collection<String>> sucursales);
+
+    // Sin escritura de por medio, para volver a proyectar lo que ya está escrito
+    void marcar(Map<String, ? extends Collection<String>> sucursales);
+
+    // Hasta "limite" marcas sin escrituras abiertas o pendientes desde antes de "vencidas", de la más vieja a la más nueva
+    List<MarcaProyeccion> pendientes(Instant vencidas, int limite);
+
+    // Borra la marca si sigue en la versión leída; false si la tocaron y hay que volver a proyectarla
+    boolean quitar(MarcaProyeccion marca);
+
+    long cantidad();
+
+    // Desde cuándo espera la marca más vieja; vacío si no hay ninguna
+    Optional<Instant> masAntigua();
+}
@@ -0,0 +1,79 @@
+package com.esteban.franquicias_api.repository;
+
+import com.esteban.franquicias_api.model.MarcaProyeccion;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Cada marca se reemplaza dentro de compute, así que abrir, cerrar y quitar no se pisan. Una marca guardada no
+// se modifica nunca: la versión que leyó el proyector no cambia mientras proyecta
+@Component
+@ConditionalOnProperty(name = "franquicias.repositorio", havingValue = "memoria")
+public class PendientesProyeccionEnMemoria implements PendientesProyeccion {
+
+    private final Map<String, MarcaProyeccion> marcas = new ConcurrentHashMap<>();
+
+    @Override
+    public void abrir(Map<String, ? extends Collection<String>> sucursales) {
+        actualizar(sucursales, 1);
+    }
+
+    @Override
+    public void cerrar(Map<String, ? extends Collection<String>> sucursales) {
+        actualizar(sucursales, -1);
+    }
+
+    @Override
+    public void marcar(Map<String, ? extends Collection<String>> sucursales) {
+        actualizar(sucursales, 0);
+    }
+
+    @Override
+    public List<MarcaProyeccion> pendientes(Instant vencidas, int limite) {
+        return marcas.values().stream()
+                .filter(marca -> marca.getAbiertas() <= 0 || marca.getDesde().isBefore(vencidas))
+                .sorted(Comparator.comparing(MarcaProyeccion::getDesde))
+                .limit(limite)
+                .toList();
+    }
+
+    @Override
+    public boolean quitar(MarcaProyeccion marca) {
+        AtomicBoolean quitada = new AtomicBoolean();
+        marcas.computeIfPresent(marca.getId(), (id, actual) -> {
+            if (actual.getVersion() != marca.getVersion()) return actual;
+            quitada.set(true);
+            return null;
+        });
+        return quitada.get();
+    }
+
+    @Override
+    public long cantidad() {
+        return marcas.size();
+    }
+
+    @Override
+    public Optional<Instant> masAntigua() {
+        return marcas.values().stream()
+                .map(MarcaProyeccion::getDesde)
+                .min(Comparator.naturalOrder());
+    }
+
+    private void actualizar(Map<String, ? extends Collection<String>> sucursales, int abiertas) {
+        Instant ahora = Instant.now();
+        sucursales.forEach((franquiciaId, sucursalIds) -> sucursalIds.forEach(sucursalId ->
+                marcas.compute(MarcaProyeccion.id(franquiciaId, sucursalId), (id, actual) -> actual == null
+                        ? new MarcaProyeccion(id, franquiciaId, sucursalId, 1, abiertas, ahora, ahora)
+                        : new MarcaProyeccion(id, franquiciaId, sucursalId, actual.getVersion() + 1,
+                                actual.getAbiertas() + abiertas, actual.getDesde(), ahora))));
+    }
+}
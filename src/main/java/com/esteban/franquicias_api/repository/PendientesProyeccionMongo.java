@@ -0,0 +1,85 @@
+package com.esteban.franquicias_api.repository;
+
+import com.esteban.franquicias_api.model.MarcaProyeccion;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Un upsert por sucursal en un solo bulk: la marca queda escrita antes de que empiece la escritura de la franquicia
+@Component
+@ConditionalOnProperty(name = "franquicias.repositorio", havingValue = "mongo", matchIfMissing = true)
+@RequiredArgsConstructor
+public class PendientesProyeccionMongo implements PendientesProyeccion {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void abrir(Map<String, ? extends Collection<String>> sucursales) {
+        actualizar(sucursales, 1);
+    }
+
+    @Override
+    public void cerrar(Map<String, ? extends Collection<String>> sucursales) {
+        actualizar(sucursales, -1);
+    }
+
+    @Override
+    public void marcar(Map<String, ? extends Collection<String>> sucursales) {
+        actualizar(sucursales, 0);
+    }
+
+    @Override
+    public List<MarcaProyeccion> pendientes(Instant vencidas, int limite) {
+        Query query = new Query(new Criteria().orOperator(
+                Criteria.where("abiertas").lte(0),
+                Criteria.where("desde").lt(vencidas)))
+                .with(Sort.by("desde"))
+                .limit(limite);
+        return mongoTemplate.find(query, MarcaProyeccion.class);
+    }
+
+    @Override
+    public boolean quitar(MarcaProyeccion marca) {
+        return mongoTemplate.remove(new Query(Criteria.where("_id").is(marca.getId()).and("version").is(marca.getVersion())),
+                MarcaProyeccion.class).getDeletedCount() > 0;
+    }
+
+    @Override
+    public long cantidad() {
+        return mongoTemplate.count(new Query(), MarcaProyeccion.class);
+    }
+
+    @Override
+    public Optional<Instant> masAntigua() {
+        return Optional.ofNullable(mongoTemplate.findOne(new Query().with(Sort.by("desde")), MarcaProyeccion.class))
+                .map(MarcaProyeccion::getDesde);
+    }
+
+    private void actualizar(Map<String, ? extends Collection<String>> sucursales, int abiertas) {
+        if (sucursales.values().stream().allMatch(Collection::isEmpty)) return;
+        Instant ahora = Instant.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MarcaProyeccion.class);
+        sucursales.forEach((franquiciaId, sucursalIds) -> sucursalIds.forEach(sucursalId -> bulk.upsert(
+                new Query(Criteria.where("_id").is(MarcaProyeccion.id(franquiciaId, sucursalId))),
+                new Update()
+                        .inc("version", 1)
+                        .inc("abiertas", abiertas)
+                        .set("tocada", ahora)
+                        .setOnInsert("franquiciaId", franquiciaId)
+                        .setOnInsert("sucursalId", sucursalId)
+                        .setOnInsert("desde", ahora))));
+        bulk.execute();
+    }
+}
@@ -0,0 +1,86 @@
+package com.esteban.franquicias_api.repository;
+
+import com.esteban.franquicias_api.dto.ProductoEncontradoDTO;
+import org.bson.Document;
+
+import java.text.Normalizer;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+// Lugar de un producto en los resultados de la búsqueda por nombre: primero las coincidencias exactas,
+// después los nombres que empiezan con el texto y al final los que lo contienen; dentro de cada grupo los
+// nombres más cortos y después los ids. Es el cursor de la paginación, como PosicionStock.
+public record PosicionBusqueda(int rango, int largo, String franquiciaId, String sucursalId, String productoId) {
+
+    // El índice de cada una es su rango
+    public static final List<String> COINCIDENCIAS = List.of("exacta", "prefijo", "contiene");
+    public static final int PREFIJO = 1;
+    public static final int CONTIENE = 2;
+
+    public static final Comparator<PosicionBusqueda> ORDEN = Comparator.comparingInt(PosicionBusqueda::rango)
+            .thenComparingInt(PosicionBusqueda::largo)
+            .thenComparing(PosicionBusqueda::franquiciaId)
+            .thenComparing(PosicionBusqueda::sucursalId)
+            .thenComparing(PosicionBusqueda::productoId);
+    public static final Comparator<ProductoEncontradoDTO> RESULTADOS = Comparator.comparing(PosicionBusqueda::de, ORDEN);
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+
+    public static PosicionBusqueda de(ProductoEncontradoDTO producto) {
+        return new PosicionBusqueda(COINCIDENCIAS.indexOf(producto.getCoincidencia()), largo(producto.getNombre()),
+                producto.getFranquiciaId(), producto.getSucursalId(), producto.getProductoId());
+    }
+
+    // "rango:largo:franquiciaId:sucursalId:productoId"; los ids no llevan ":"
+    public static Optional<PosicionBusqueda> leer(String texto) {
+        String[] partes = texto.split(":", 5);
+        if (partes.length < 5) return Optional.empty();
+        try {
+            return Optional.of(new PosicionBusqueda(Integer.parseInt(partes[0]), Integer.parseInt(partes[1]),
+                    partes[2], partes[3], partes[4]));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    public String texto() {
+        return rango + ":" + largo + ":" + franquiciaId + ":" + sucursalId + ":" + productoId;
+    }
+
+    // Minúsculas y sin tildes, así "Café" y "cafe" se encuentran igual
+    public static String normalizar(String texto) {
+        return MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    // Rango de un nombre ya normalizado para una consulta normalizada; -1 si no la contiene
+    public static int coincidencia(String nombre, String consulta) {
+        if (nombre.equals(consulta)) return 0;
+        if (nombre.startsWith(consulta)) return PREFIJO;
+        return nombre.contains(consulta) ? CONTIENE : -1;
+    }
+
+    // En code points, igual que $strLenCP
+    public static int largo(String nombre) {
+        return nombre == null ? 0 : nombre.codePointCount(0, nombre.length());
+    }
+
+    // Filtro de Mongo para lo que va después de esta posición, sobre los campos que calcula la búsqueda
+    Document posteriores() {
+        return new Document("$or", List.of(
+                new Document("rango", new Document("$gt", rango)),
+                new Document("rango", rango).append("largo", new Document("$gt", largo)),
+                new Document("rango", rango).append("largo", largo).append("franquiciaId", new Document("$gt", franquiciaId)),
+                new Document("rango", rango).append("largo", largo).append("franquiciaId", franquiciaId)
+                        .append("sucursalId", new Document("$gt", sucursalId)),
+                new Document("rango", rango).append("largo", largo).append("franquiciaId", franquiciaId)
+                        .append("sucursalId", sucursalId).append("productoId", new Document("$gt", productoId))));
+    }
+
+    static Document orden() {
+        return new Document("rango", 1).append("largo", 1).append("franquiciaId", 1).append("sucursalId", 1)
+                .append("productoId", 1);
+    }
+}
@@ -0,0 +1,65 @@
+package com.esteban.franquicias_api.repository;
+
+import com.esteban.franquicias_api.dto.LineaCatalogoDTO;
+import org.bson.Document;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+// Lugar de un producto en los listados por stock de la analítica: el stock y los ids para desempatar.
+// Es el cursor de la paginación: la página siguiente empieza justo después del último producto devuelto.
+public record PosicionStock(int stock, String franquiciaId, String sucursalId, String productoId) {
+
+    // Stock bajo: de menor a mayor stock y después por ids. Mayor stock es exactamente el orden inverso,
+    // así en la colección "productos" un mismo índice { stock, franquiciaId, sucursalId, _id } sirve a los dos
+    public static final Comparator<LineaCatalogoDTO> MENOR_STOCK = Comparator.comparingInt(LineaCatalogoDTO::getStock)
+            .thenComparing(LineaCatalogoDTO::getFranquiciaId)
+            .thenComparing(LineaCatalogoDTO::getSucursalId)
+            .thenComparing(LineaCatalogoDTO::getProductoId);
+    public static final Comparator<LineaCatalogoDTO> MAYOR_STOCK = MENOR_STOCK.reversed();
+
+    public static PosicionStock de(LineaCatalogoDTO linea) {
+        return new PosicionStock(linea.getStock(), linea.getFranquiciaId(), linea.getSucursalId(), linea.getProductoId());
+    }
+
+    // "stock:franquiciaId:sucursalId:productoId"; los ids son ObjectId o UUID y no llevan ":"
+    public static Optional<PosicionStock> leer(String texto) {
+        String[] partes = texto.split(":", 4);
+        if (partes.length < 4) return Optional.empty();
+        try {
+            return Optional.of(new PosicionStock(Integer.parseInt(partes[0]), partes[1], partes[2], partes[3]));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    public String texto() {
+        return stock + ":" + franquiciaId + ":" + sucursalId + ":" + productoId;
+    }
+
+    // Solo con los campos que comparan MENOR_STOCK y MAYOR_STOCK
+    LineaCatalogoDTO linea() {
+        return LineaCatalogoDTO.builder().stock(stock).franquiciaId(franquiciaId).sucursalId(sucursalId).productoId(productoId).build();
+    }
+
+    // Filtro de Mongo para lo que va después de esta posición; "campoProducto" es el nombre del id del producto
+    Document posteriores(boolean ascendente, String campoProducto) {
+        String operador = ascendente ? "$gt" : "$lt";
+        // El rango sobre el stock va aparte para que se use como límite del recorrido del índice
+        Document desdeStock = new Document("stock", new Document(ascendente ? "$gte" : "$lte", stock));
+        return new Document("$and", List.of(desdeStock, new Document("$or", List.of(
+                new Document("stock", new Document(operador, stock)),
+                new Document("stock", stock).append("franquiciaId", new Document(operador, franquiciaId)),
+                new Document("stock", stock).append("franquiciaId", franquiciaId)
+                        .append("sucursalId", new Document(operador, sucursalId)),
+                new Document("stock", stock).append("franquiciaId", franquiciaId).append("sucursalId", sucursalId)
+                        .append(campoProducto, new Document(operador, productoId))))));
+    }
+
+    static Document orden(boolean ascendente, String campoProducto) {
+        int sentido = ascendente ? 1 : -1;
+        return new Document("stock", sentido).append("franquiciaId", sentido).append("sucursalId", sentido)
+                .append(campoProducto, sentido);
+    }
+}
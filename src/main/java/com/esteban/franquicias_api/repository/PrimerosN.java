@@ -0,0 +1,42 @@
+package com.esteban.franquicias_api.repository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Collector;
+
+// Los "n" primeros de un Stream según un orden, sin ordenar todo: cada hilo de un Stream paralelo guarda
+// un heap de a lo sumo n elementos y al final se combinan. Memoria O(n) por hilo y tiempo O(total log n).
+public final class PrimerosN {
+
+    private PrimerosN() {
+    }
+
+    public static <T> Collector<T, ?, List<T>> de(int n, Comparator<? super T> orden) {
+        // La cabeza del heap es el peor de los guardados: es el que sale cuando llega uno mejor
+        Comparator<T> inverso = (a, b) -> orden.compare(b, a);
+        return Collector.<T, PriorityQueue<T>, List<T>>of(
+                () -> new PriorityQueue<>(inverso),
+                (heap, elemento) -> agregar(heap, elemento, n, orden),
+                (heap, otro) -> {
+                    otro.forEach(elemento -> agregar(heap, elemento, n, orden));
+                    return heap;
+                },
+                heap -> {
+                    List<T> primeros = new ArrayList<>(heap);
+                    primeros.sort(orden);
+                    return primeros;
+                },
+                Collector.Characteristics.UNORDERED);
+    }
+
+    private static <T> void agregar(PriorityQueue<T> heap, T elemento, int n, Comparator<? super T> orden) {
+        if (heap.size() < n) {
+            heap.add(elemento);
+        } else if (orden.compare(elemento, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(elemento);
+        }
+    }
+}
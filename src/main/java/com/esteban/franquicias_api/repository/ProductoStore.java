@@ -0,0 +1,103 @@
+package com.esteban.franquicias_api.repository;
+
+import com.esteban.franquicias_api.dto.LineaCatalogoDTO;
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.dto.ProductoEncontradoDTO;
+import com.esteban.franquicias_api.dto.TotalesFranquiciaDTO;
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.Producto;
+import com.esteban.franquicias_api.model.Sucursal;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+// Dónde viven los productos: embebidos en la franquicia (por defecto) o en la colección "productos".
+// Se elige con franquicias.productos.almacenamiento=embebido|coleccion. Las sucursales siempre
+// quedan embebidas en el documento de la franquicia.
+public interface ProductoStore {
+
+    // La sucursal llega con sus productos iniciales; false si la franquicia no existe
+    boolean agregarSucursal(String franquiciaId, Sucursal sucursal);
+
+    // Devuelve la sucursal con sus productos
+    Optional<Sucursal> actualizarNombreSucursal(String franquiciaId, String sucursalId, String nuevoNombre);
+
+    // false si la franquicia o la sucursal no existen
+    boolean agregar(String franquiciaId, String sucursalId, Producto producto);
+
+    Optional<Producto> actualizarNombre(String franquiciaId, String sucursalId, String productoId, String nuevoNombre);
+
+    Optional<Producto> actualizarStock(String franquiciaId, String sucursalId, String productoId, int nuevoStock);
+
+    boolean eliminar(String franquiciaId, String sucursalId, String productoId);
+
+    // Importación del catálogo. Las franquicias nuevas se insertan completas en una sola escritura y
+    // quedan con su id asignado; las otras dos continúan una franquicia ya insertada en un lote anterior
+    void insertarFranquicias(List<Franquicia> franquicias);
+
+    // false si la franquicia no existe
+    boolean agregarSucursales(String franquiciaId, List<Sucursal> sucursales);
+
+    // false si la franquicia o la sucursal no existen
+    boolean agregarProductos(String franquiciaId, String sucursalId, List<Producto> productos);
+
+    ResultadoLoteStock actualizarStockEnLote(String franquiciaId, List<ActualizacionStock> actualizaciones);
+
+    // Descuentos y reposiciones acumulados (ver StockDiferidoService); un descuento que dejaría el
+    // stock negativo no se aplica y, como un producto inexistente, solo deja de contar como coincidencia
+    ResultadoLoteStock incrementarStockEnLote(String franquiciaId, List<IncrementoStock> incrementos);
+
+    // sucursalId -> ids de sus productos, solo para las sucursales pedidas que existen; vacío si la franquicia no existe
+    Optional<Map<String, Set<String>>> idsProductos(String franquiciaId, Collection<String> sucursalIds);
+
+    // Stock actual de los productos pedidos (sucursalId -> ids): sucursalId -> productoId -> stock, solo los que existen
+    Map<String, Map<String, Integer>> stockProductos(String franquiciaId, Map<String, Set<String>> productos);
+
+    // Producto con más stock de cada sucursal, en el orden de las sucursales; vacío si la franquicia no existe
+    List<ProductoDTO> productosConMasStock(String franquiciaId);
+
+    // Lecturas proyectadas: solo viaja la sucursal o el producto pedido; vacío si no existe
+    Optional<Sucursal> sucursal(String franquiciaId, String sucursalId);
+
+    Optional<List<Producto>> productos(String franquiciaId, String sucursalId);
+
+    Optional<Producto> producto(String franquiciaId, String sucursalId, String productoId);
+
+    // Hasta "limite" productos de la sucursal con id mayor que "despues", ordenados por id; vacío si no existe
+    Optional<List<Producto>> paginaProductos(String franquiciaId, String sucursalId, String despues, int limite);
+
+    // Una línea por producto de todo el catálogo, recorrido con cursores; hay que cerrar el Stream
+    Stream<LineaCatalogoDTO> catalogo();
+
+    // Franquicia con todos sus productos dentro de las sucursales, sin importar dónde estén guardados
+    Optional<Franquicia> franquiciaCompleta(String franquiciaId);
+
+    // Igual, pero siempre con una lectura propia a Mongo: para recargar lo que se encontró distinto de lo guardado
+    Optional<Franquicia> releerFranquiciaCompleta(String franquiciaId);
+
+    // Sucursales con su umbral y productos con su stock, sin nombres; siempre con una lectura propia a Mongo
+    // (la usa el barrido de alertas, que no tiene que competir con las lecturas compartidas de las peticiones)
+    Optional<Franquicia> stockYUmbrales(String franquiciaId);
+
+    // Todas las franquicias completas, recorridas con un cursor; hay que cerrar el Stream
+    Stream<Franquicia> franquiciasCompletas();
+
+    // Analítica sobre todas las franquicias, paginada por keyset: "despues" es null para la primera página
+
+    List<LineaCatalogoDTO> productosPorMayorStock(PosicionStock despues, int limite);
+
+    // Productos con stock menor que "umbral", de menor a mayor stock
+    List<LineaCatalogoDTO> productosConStockBajo(int umbral, PosicionStock despues, int limite);
+
+    // Ordenadas por id
+    List<TotalesFranquiciaDTO> totalesFranquicias(String despues, int limite);
+
+    // Productos cuyo nombre contiene "texto" (o empieza con él si "soloPrefijo"), de todas las franquicias o
+    // de una si "franquiciaId" no es null, en el orden de PosicionBusqueda
+    List<ProductoEncontradoDTO> buscarProductos(String franquiciaId, String texto, boolean soloPrefijo,
+                                                PosicionBusqueda despues, int limite);
+}
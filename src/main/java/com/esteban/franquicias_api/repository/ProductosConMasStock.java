@@ -0,0 +1,36 @@
+package com.esteban.franquicias_api.repository;
+
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.Producto;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+// Cálculo en memoria del producto con más stock por sucursal. Es la referencia contra la
+// que se compara la agregación de FranquiciaRepositoryCustomImpl#productosConMasStock.
+public final class ProductosConMasStock {
+
+    private ProductosConMasStock() {
+    }
+
+    public static List<ProductoDTO> calcular(Franquicia franquicia) {
+        return franquicia.getSucursales().stream()
+                .filter(sucursal -> sucursal.getProductos() != null && !sucursal.getProductos().isEmpty())
+                .map(sucursal -> sucursal.getProductos().stream()
+                        .max(Comparator.comparingInt(Producto::getStock))
+                        .map(producto -> ProductoDTO.builder()
+                                .id(producto.getId())
+                                .nombre(producto.getNombre() + " (Sucursal: " + sucursal.getNombre() + ")")
+                                .stock(producto.getStock())
+                                .sucursalId(sucursal.getId())
+                                .build()
+                        )
+                        .orElse(null)
+                )
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,13 @@
+package com.esteban.franquicias_api.repository;
+
+import java.util.Optional;
+
+// Hasta dónde llegó cada recorrido en segundo plano (el último _id procesado), para retomarlo después
+// de un reinicio en lugar de empezar de nuevo
+public interface PuntosControl {
+
+    Optional<String> leer(String recorrido);
+
+    // null: la última vuelta terminó y la próxima empieza desde el principio
+    void guardar(String recorrido, String despues);
+}
@@ -0,0 +1,26 @@
+package com.esteban.franquicias_api.repository;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// En modo memoria los datos tampoco sobreviven a un reinicio
+@Component
+@ConditionalOnProperty(name = "franquicias.repositorio", havingValue = "memoria")
+public class PuntosControlEnMemoria implements PuntosControl {
+
+    private final Map<String, Optional<String>> puntos = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<String> leer(String recorrido) {
+        return puntos.getOrDefault(recorrido, Optional.empty());
+    }
+
+    @Override
+    public void guardar(String recorrido, String despues) {
+        puntos.put(recorrido, Optional.ofNullable(despues));
+    }
+}
@@ -0,0 +1,35 @@
+package com.esteban.franquicias_api.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+// Un documento por recorrido en la colección "puntos_control"
+@Component
+@ConditionalOnProperty(name = "franquicias.repositorio", havingValue = "mongo", matchIfMissing = true)
+@RequiredArgsConstructor
+public class PuntosControlMongo implements PuntosControl {
+
+    static final String COLECCION = "puntos_control";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<String> leer(String recorrido) {
+        return Optional.ofNullable(mongoTemplate.findById(recorrido, Document.class, COLECCION))
+                .map(punto -> punto.getString("despues"));
+    }
+
+    @Override
+    public void guardar(String recorrido, String despues) {
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(recorrido)),
+                new Update().set("despues", despues).currentDate("actualizado"), COLECCION);
+    }
+}
@@ -0,0 +1,19 @@
+package com.esteban.franquicias_api.repository;
+
+import com.esteban.franquicias_api.model.Franquicia;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+
+// Variante reactiva de FranquiciaRepository para el modo WebFlux; mismas consultas y proyecciones
+public interface ReactiveFranquiciaRepository extends ReactiveMongoRepository<Franquicia, String>, ReactiveFranquiciaRepositoryCustom {
+
+    @Query(value = ConsultasFranquicia.CON_SUCURSAL, fields = ConsultasFranquicia.SOLO_SUCURSAL)
+    Mono<Franquicia> findSucursalByFranquiciaIdAndSucursalId(String franquiciaId, String sucursalId);
+
+    @Query(value = ConsultasFranquicia.CON_SUCURSAL, fields = ConsultasFranquicia.PRODUCTOS_DE_SUCURSAL)
+    Mono<Franquicia> findProductosBySucursalId(String franquiciaId, String sucursalId);
+
+    @Query(value = ConsultasFranquicia.CON_PRODUCTO, fields = ConsultasFranquicia.SOLO_PRODUCTO)
+    Mono<Franquicia> findProductoBySucursalIdAndProductoId(String franquiciaId, String sucursalId, String productoId);
+}
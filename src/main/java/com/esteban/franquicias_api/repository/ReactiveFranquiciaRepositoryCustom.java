@@ -0,0 +1,41 @@
+package com.esteban.franquicias_api.repository;
+
+import com.esteban.franquicias_api.dto.LineaCatalogoDTO;
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.Producto;
+import com.esteban.franquicias_api.model.Sucursal;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+// Mismas escrituras dirigidas que FranquiciaRepositoryCustom; un Mono vacío equivale a Optional.empty()
+public interface ReactiveFranquiciaRepositoryCustom {
+
+    Mono<Franquicia> actualizarNombre(String franquiciaId, String nuevoNombre);
+
+    Mono<Boolean> agregarSucursal(String franquiciaId, Sucursal sucursal);
+
+    Mono<Sucursal> actualizarNombreSucursal(String franquiciaId, String sucursalId, String nuevoNombre);
+
+    Mono<Boolean> agregarProducto(String franquiciaId, String sucursalId, Producto producto);
+
+    Mono<Producto> actualizarNombreProducto(String franquiciaId, String sucursalId, String productoId, String nuevoNombre);
+
+    Mono<Producto> actualizarStock(String franquiciaId, String sucursalId, String productoId, int nuevoStock);
+
+    Mono<Boolean> eliminarProducto(String franquiciaId, String sucursalId, String productoId);
+
+    Mono<Boolean> existeSucursal(String franquiciaId, String sucursalId);
+
+    Flux<ProductoDTO> productosConMasStock(String franquiciaId);
+
+    Flux<Franquicia> paginaFranquicias(String despues, int limite);
+
+    Mono<List<Sucursal>> paginaSucursales(String franquiciaId, String despues, int limite);
+
+    Mono<List<Producto>> paginaProductos(String franquiciaId, String sucursalId, String despues, int limite);
+
+    Flux<LineaCatalogoDTO> catalogo();
+}
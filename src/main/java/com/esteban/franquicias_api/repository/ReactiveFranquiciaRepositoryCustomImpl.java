@@ -0,0 +1,116 @@
+package com.esteban.franquicias_api.repository;
+
+import com.esteban.franquicias_api.dto.LineaCatalogoDTO;
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.Producto;
+import com.esteban.franquicias_api.model.Sucursal;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static com.esteban.franquicias_api.repository.ConsultasFranquicia.*;
+
+@RequiredArgsConstructor
+public class ReactiveFranquiciaRepositoryCustomImpl implements ReactiveFranquiciaRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Mono<Franquicia> actualizarNombre(String franquiciaId, String nuevoNombre) {
+        return mongoTemplate.findAndModify(franquiciaSinProductos(idFranquicia(franquiciaId)),
+                renombrarFranquicia(nuevoNombre), DEVOLVER_NUEVO, Franquicia.class);
+    }
+
+    @Override
+    public Mono<Boolean> agregarSucursal(String franquiciaId, Sucursal sucursal) {
+        return mongoTemplate.updateFirst(franquicia(idFranquicia(franquiciaId)),
+                        ConsultasFranquicia.agregarSucursal(sucursal), Franquicia.class)
+                .map(resultado -> resultado.getMatchedCount() > 0);
+    }
+
+    @Override
+    public Mono<Sucursal> actualizarNombreSucursal(String franquiciaId, String sucursalId, String nuevoNombre) {
+        return mongoTemplate.findAndModify(sucursal(idFranquicia(franquiciaId), sucursalId),
+                        renombrarSucursal(sucursalId, nuevoNombre), DEVOLVER_NUEVO, Franquicia.class)
+                .map(f -> f.getSucursales().get(0));
+    }
+
+    @Override
+    public Mono<Boolean> agregarProducto(String franquiciaId, String sucursalId, Producto producto) {
+        return mongoTemplate.updateFirst(ConsultasFranquicia.existeSucursal(idFranquicia(franquiciaId), sucursalId),
+                        ConsultasFranquicia.agregarProducto(sucursalId, producto), Franquicia.class)
+                .map(resultado -> resultado.getMatchedCount() > 0);
+    }
+
+    @Override
+    public Mono<Producto> actualizarNombreProducto(String franquiciaId, String sucursalId, String productoId, String nuevoNombre) {
+        return modificarProducto(franquiciaId, sucursalId, productoId, renombrarProducto(sucursalId, productoId, nuevoNombre));
+    }
+
+    @Override
+    public Mono<Producto> actualizarStock(String franquiciaId, String sucursalId, String productoId, int nuevoStock) {
+        return modificarProducto(franquiciaId, sucursalId, productoId, stockProducto(sucursalId, productoId, nuevoStock));
+    }
+
+    @Override
+    public Mono<Boolean> eliminarProducto(String franquiciaId, String sucursalId, String productoId) {
+        return mongoTemplate.updateFirst(filtroDeProducto(idFranquicia(franquiciaId), sucursalId, productoId),
+                        ConsultasFranquicia.eliminarProducto(sucursalId, productoId), coleccion())
+                .map(resultado -> resultado.getModifiedCount() > 0);
+    }
+
+    @Override
+    public Mono<Boolean> existeSucursal(String franquiciaId, String sucursalId) {
+        return mongoTemplate.exists(ConsultasFranquicia.existeSucursal(idFranquicia(franquiciaId), sucursalId), Franquicia.class);
+    }
+
+    @Override
+    public Flux<ProductoDTO> productosConMasStock(String franquiciaId) {
+        return mongoTemplate.aggregate(ConsultasFranquicia.productosConMasStock(idFranquicia(franquiciaId)), ProductoDTO.class);
+    }
+
+    @Override
+    public Flux<Franquicia> paginaFranquicias(String despues, int limite) {
+        return mongoTemplate.find(ConsultasFranquicia.paginaFranquicias(
+                despues == null ? null : idFranquicia(despues), limite), Franquicia.class);
+    }
+
+    @Override
+    public Mono<List<Sucursal>> paginaSucursales(String franquiciaId, String despues, int limite) {
+        return mongoTemplate.findOne(ConsultasFranquicia.paginaSucursales(idFranquicia(franquiciaId), despues, limite), Franquicia.class)
+                .map(Franquicia::getSucursales);
+    }
+
+    @Override
+    public Mono<List<Producto>> paginaProductos(String franquiciaId, String sucursalId, String despues, int limite) {
+        return mongoTemplate.findOne(ConsultasFranquicia.paginaProductos(idFranquicia(franquiciaId), sucursalId, despues, limite), Franquicia.class)
+                .flatMap(f -> Mono.justOrEmpty(f.getSucursales().stream().findFirst()))
+                .map(Sucursal::getProductos);
+    }
+
+    @Override
+    public Flux<LineaCatalogoDTO> catalogo() {
+        return mongoTemplate.aggregate(ConsultasFranquicia.catalogo(), LineaCatalogoDTO.class);
+    }
+
+    private Mono<Producto> modificarProducto(String franquiciaId, String sucursalId, String productoId, Update update) {
+        return mongoTemplate.findAndModify(producto(idFranquicia(franquiciaId), sucursalId, productoId),
+                        update, DEVOLVER_NUEVO, Document.class, coleccion())
+                .flatMap(resultado -> Mono.justOrEmpty(leerProducto(resultado, mongoTemplate.getConverter())));
+    }
+
+    private Object idFranquicia(String franquiciaId) {
+        return mongoTemplate.getConverter().convertId(franquiciaId, ObjectId.class);
+    }
+
+    private String coleccion() {
+        return mongoTemplate.getCollectionName(Franquicia.class);
+    }
+}
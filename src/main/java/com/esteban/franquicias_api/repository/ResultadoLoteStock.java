@@ -0,0 +1,7 @@
+package com.esteban.franquicias_api.repository;
+
+import java.util.Map;
+
+// errores: posición dentro del lote -> mensaje devuelto por Mongo
+public record ResultadoLoteStock(long coincidencias, Map<Integer, String> errores) {
+}
@@ -0,0 +1,20 @@
+package com.esteban.franquicias_api.repository;
+
+import com.esteban.franquicias_api.model.VistaSucursal;
+
+import java.util.List;
+import java.util.Optional;
+
+// Documentos de la vista por sucursal (ver VistaSucursal); no tocan la colección de franquicias
+public interface VistaSucursales {
+
+    // Reemplaza la sucursal completa
+    void guardar(VistaSucursal vista);
+
+    void quitar(String franquiciaId, String sucursalId);
+
+    Optional<VistaSucursal> obtener(String franquiciaId, String sucursalId);
+
+    // Hasta "limite" sucursales de la franquicia con id mayor que "despues", ordenadas por id
+    List<VistaSucursal> pagina(String franquiciaId, String despues, int limite);
+}
@@ -0,0 +1,43 @@
+package com.esteban.franquicias_api.repository;
+
+import com.esteban.franquicias_api.model.VistaSucursal;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Sucursales ordenadas por id dentro de cada franquicia, para paginar sin ordenar en cada lectura
+@Component
+@ConditionalOnProperty(name = "franquicias.repositorio", havingValue = "memoria")
+public class VistaSucursalesEnMemoria implements VistaSucursales {
+
+    private final Map<String, NavigableMap<String, VistaSucursal>> vistas = new ConcurrentHashMap<>();
+
+    @Override
+    public void guardar(VistaSucursal vista) {
+        vistas.computeIfAbsent(vista.getFranquiciaId(), id -> new ConcurrentSkipListMap<>()).put(vista.getId(), vista);
+    }
+
+    @Override
+    public void quitar(String franquiciaId, String sucursalId) {
+        Optional.ofNullable(vistas.get(franquiciaId)).ifPresent(sucursales -> sucursales.remove(sucursalId));
+    }
+
+    @Override
+    public Optional<VistaSucursal> obtener(String franquiciaId, String sucursalId) {
+        return Optional.ofNullable(vistas.get(franquiciaId)).map(sucursales -> sucursales.get(sucursalId));
+    }
+
+    @Override
+    public List<VistaSucursal> pagina(String franquiciaId, String despues, int limite) {
+        NavigableMap<String, VistaSucursal> sucursales = vistas.getOrDefault(franquiciaId, new ConcurrentSkipListMap<>());
+        return (despues == null ? sucursales : sucursales.tailMap(despues, false)).values().stream()
+                .limit(limite)
+                .toList();
+    }
+}
@@ -0,0 +1,47 @@
+package com.esteban.franquicias_api.repository;
+
+import com.esteban.franquicias_api.model.VistaSucursal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+@Component
+@ConditionalOnProperty(name = "franquicias.repositorio", havingValue = "mongo", matchIfMissing = true)
+@RequiredArgsConstructor
+public class VistaSucursalesMongo implements VistaSucursales {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void guardar(VistaSucursal vista) {
+        mongoTemplate.save(vista);
+    }
+
+    @Override
+    public void quitar(String franquiciaId, String sucursalId) {
+        mongoTemplate.remove(deSucursal(franquiciaId, sucursalId), VistaSucursal.class);
+    }
+
+    @Override
+    public Optional<VistaSucursal> obtener(String franquiciaId, String sucursalId) {
+        return Optional.ofNullable(mongoTemplate.findOne(deSucursal(franquiciaId, sucursalId), VistaSucursal.class));
+    }
+
+    @Override
+    public List<VistaSucursal> pagina(String franquiciaId, String despues, int limite) {
+        Criteria criterio = Criteria.where("franquiciaId").is(franquiciaId);
+        if (despues != null) criterio.and("_id").gt(despues);
+        return mongoTemplate.find(new Query(criterio).with(Sort.by("_id")).limit(limite), VistaSucursal.class);
+    }
+
+    private static Query deSucursal(String franquiciaId, String sucursalId) {
+        return new Query(Criteria.where("_id").is(sucursalId).and("franquiciaId").is(franquiciaId));
+    }
+}
@@ -0,0 +1,14 @@
+package com.esteban.franquicias_api.service;
+
+import com.esteban.franquicias_api.dto.LineaCatalogoDTO;
+import com.esteban.franquicias_api.dto.PaginaDTO;
+import com.esteban.franquicias_api.dto.TotalesFranquiciaDTO;
+
+// Reportes sobre todas las franquicias. Los productos se paginan con el cursor "stock:franquicia:sucursal:producto"
+// que devuelve cada página; los totales, por id de franquicia
+public interface AnaliticaService {
+    PaginaDTO<LineaCatalogoDTO> productosConMasStock(String despues, Integer limite);
+    // Sin umbral se usa franquicias.analitica.umbral-stock-bajo
+    PaginaDTO<LineaCatalogoDTO> productosConStockBajo(Integer umbral, String despues, Integer limite);
+    PaginaDTO<TotalesFranquiciaDTO> totalesPorFranquicia(String despues, Integer limite);
+}
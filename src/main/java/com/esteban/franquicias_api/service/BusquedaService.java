@@ -0,0 +1,11 @@
+package com.esteban.franquicias_api.service;
+
+import com.esteban.franquicias_api.dto.PaginaDTO;
+import com.esteban.franquicias_api.dto.ProductoEncontradoDTO;
+
+// Búsqueda de productos por nombre, sin distinguir mayúsculas. Los resultados se paginan con el cursor
+// "rango:largo:franquicia:sucursal:producto" que devuelve cada página
+public interface BusquedaService {
+    // modo "contiene" (por defecto) o "prefijo"; sin franquiciaId busca en todas las franquicias
+    PaginaDTO<ProductoEncontradoDTO> buscarProductos(String texto, String franquiciaId, String modo, String despues, Integer limite);
+}
@@ -1,6 +1,7 @@
 package com.esteban.franquicias_api.service;
 
 import com.esteban.franquicias_api.dto.FranquiciaDTO;
+import com.esteban.franquicias_api.dto.PaginaDTO;
 import com.esteban.franquicias_api.dto.ProductoDTO;
 
 import java.util.List;
@@ -9,4 +10,5 @@ public interface FranquiciaService {
     FranquiciaDTO crearFranquicia(FranquiciaDTO franquiciaDTO);
     FranquiciaDTO actualizarNombreFranquicia(String id, String nuevoNombre);
     List<ProductoDTO> obtenerProductosConMasStock(String franquiciaId);
+    PaginaDTO<FranquiciaDTO> listarFranquicias(String despues, Integer limite);
 }
@@ -0,0 +1,12 @@
+package com.esteban.franquicias_api.service;
+
+import com.esteban.franquicias_api.dto.LineaCatalogoDTO;
+import com.esteban.franquicias_api.dto.ResultadoImportacionDTO;
+
+import java.util.Iterator;
+
+public interface ImportacionService {
+    // Las filas de una franquicia tienen que ir juntas, y dentro de ella las de cada sucursal. Una fila
+    // que no se pudo leer llega como BusinessException desde next() y se reporta como fallida
+    ResultadoImportacionDTO importarCatalogo(Iterator<LineaCatalogoDTO> lineas);
+}
@@ -0,0 +1,17 @@
+package com.esteban.franquicias_api.service;
+
+import com.esteban.franquicias_api.dto.ResumenMovimientosDTO;
+import com.esteban.franquicias_api.event.FranquiciaEvent;
+
+import java.util.List;
+
+public interface MovimientosStockService {
+    // Encola el movimiento de stock del evento, si lo tiene, sin esperar a Mongo; con la cola llena se descarta
+    void registrar(FranquiciaEvent evento);
+    // Escribe lo encolado hasta ahora; devuelve cuántos movimientos se guardaron
+    int vaciar();
+    // Resúmenes por "hora" (por defecto, últimas 24 horas) o por "dia" (últimos 30 días), en UTC. desde y hasta
+    // son instantes ISO-8601; lo encolado aparece después del próximo vaciado
+    List<ResumenMovimientosDTO> resumen(String franquiciaId, String sucursalId, String productoId,
+                                        String granularidad, String desde, String hasta);
+}
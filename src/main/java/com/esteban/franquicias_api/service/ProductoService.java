@@ -1,11 +1,24 @@
 package com.esteban.franquicias_api.service;
 
+import com.esteban.franquicias_api.dto.ActualizacionStockDTO;
+import com.esteban.franquicias_api.dto.LineaCatalogoDTO;
+import com.esteban.franquicias_api.dto.PaginaDTO;
 import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.dto.ResultadoLoteStockDTO;
+
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface ProductoService {
     ProductoDTO agregarProducto(String franquiciaId, String sucursalId, ProductoDTO productoDTO);
     ProductoDTO actualizarNombreProducto(String franquiciaId, String sucursalId, String productoId, String nuevoNombre);
     ProductoDTO actualizarStock(String franquiciaId, String sucursalId, String productoId, int nuevoStock);
+    ProductoDTO obtenerProducto(String franquiciaId, String sucursalId, String productoId);
+    List<ProductoDTO> obtenerProductos(String franquiciaId, String sucursalId);
+    PaginaDTO<ProductoDTO> listarProductos(String franquiciaId, String sucursalId, String despues, Integer limite);
+    // Hay que cerrar el Stream: mantiene abiertos los cursores de Mongo
+    Stream<LineaCatalogoDTO> catalogo();
     boolean eliminarProducto(String franquiciaId, String sucursalId, String productoId);
+    ResultadoLoteStockDTO actualizarStockEnLote(String franquiciaId, Iterator<ActualizacionStockDTO> actualizaciones);
 }
@@ -0,0 +1,15 @@
+package com.esteban.franquicias_api.service;
+
+import com.esteban.franquicias_api.dto.FranquiciaDTO;
+import com.esteban.franquicias_api.dto.PaginaDTO;
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface ReactiveFranquiciaService {
+    Mono<FranquiciaDTO> crearFranquicia(FranquiciaDTO franquiciaDTO);
+    Mono<FranquiciaDTO> actualizarNombreFranquicia(String id, String nuevoNombre);
+    Mono<List<ProductoDTO>> obtenerProductosConMasStock(String franquiciaId);
+    Mono<PaginaDTO<FranquiciaDTO>> listarFranquicias(String despues, Integer limite);
+}
@@ -0,0 +1,18 @@
+package com.esteban.franquicias_api.service;
+
+import com.esteban.franquicias_api.dto.LineaCatalogoDTO;
+import com.esteban.franquicias_api.dto.PaginaDTO;
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveProductoService {
+    Mono<ProductoDTO> agregarProducto(String franquiciaId, String sucursalId, ProductoDTO productoDTO);
+    Mono<ProductoDTO> actualizarNombreProducto(String franquiciaId, String sucursalId, String productoId, String nuevoNombre);
+    Mono<ProductoDTO> actualizarStock(String franquiciaId, String sucursalId, String productoId, int nuevoStock);
+    Mono<ProductoDTO> obtenerProducto(String franquiciaId, String sucursalId, String productoId);
+    Flux<ProductoDTO> obtenerProductos(String franquiciaId, String sucursalId);
+    Mono<PaginaDTO<ProductoDTO>> listarProductos(String franquiciaId, String sucursalId, String despues, Integer limite);
+    Flux<LineaCatalogoDTO> catalogo();
+    Mono<Boolean> eliminarProducto(String franquiciaId, String sucursalId, String productoId);
+}
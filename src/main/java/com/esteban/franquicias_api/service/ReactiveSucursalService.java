@@ -0,0 +1,12 @@
+package com.esteban.franquicias_api.service;
+
+import com.esteban.franquicias_api.dto.PaginaDTO;
+import com.esteban.franquicias_api.dto.SucursalDTO;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveSucursalService {
+    Mono<SucursalDTO> agregarSucursal(String franquiciaId, SucursalDTO sucursal);
+    Mono<SucursalDTO> actualizarNombreSucursal(String franquiciaId, String sucursalId, String nuevoNombre);
+    Mono<SucursalDTO> obtenerSucursal(String franquiciaId, String sucursalId);
+    Mono<PaginaDTO<SucursalDTO>> listarSucursales(String franquiciaId, String despues, Integer limite);
+}
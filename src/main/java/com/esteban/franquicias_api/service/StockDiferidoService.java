@@ -0,0 +1,14 @@
+package com.esteban.franquicias_api.service;
+
+public interface StockDiferidoService {
+    // Suma delta al stock del producto sin ir a Mongo: se junta en memoria con los demás cambios del mismo
+    // producto y se escribe con $inc en el próximo vaciado. Devuelve lo pendiente de ese producto. Un
+    // descuento que dejaría el stock negativo, o un producto que no existe, se descarta al escribir
+    int acumular(String franquiciaId, String sucursalId, String productoId, Integer delta);
+    // Escribe todo lo pendiente; devuelve cuántos productos se actualizaron
+    int vaciar();
+    // Productos con un delta sin escribir
+    int pendientes();
+    // Suelta lo pendiente sin escribirlo, cuando al apagar ya no queda tiempo; devuelve cuántos productos
+    int descartarPendientes();
+}
@@ -1,5 +1,6 @@
 package com.esteban.franquicias_api.service;
 
+import com.esteban.franquicias_api.dto.PaginaDTO;
 import com.esteban.franquicias_api.dto.SucursalDTO;
 import com.esteban.franquicias_api.model.Sucursal;
 
@@ -8,4 +9,8 @@ import java.util.List;
 public interface SucursalService {
     SucursalDTO agregarSucursal(String franquiciaId, SucursalDTO sucursal);
     SucursalDTO actualizarNombreSucursal(String franquiciaId, String sucursalId, String nuevoNombre);
+    // Umbral de la alerta de stock bajo de la sucursal (0 la desactiva); devuelve el umbral guardado
+    int actualizarUmbralStock(String franquiciaId, String sucursalId, Integer umbral);
+    SucursalDTO obtenerSucursal(String franquiciaId, String sucursalId);
+    PaginaDTO<SucursalDTO> listarSucursales(String franquiciaId, String despues, Integer limite);
 }
@@ -0,0 +1,18 @@
+package com.esteban.franquicias_api.service;
+
+import com.esteban.franquicias_api.dto.PaginaDTO;
+import com.esteban.franquicias_api.dto.VistaSucursalDTO;
+
+public interface VistaSucursalesService {
+    // Lecturas desde la vista, sin tocar la franquicia: pueden ir detrás de la última escritura
+    // (franquicias.proyeccion.retraso)
+    VistaSucursalDTO obtenerSucursal(String franquiciaId, String sucursalId);
+    // Una franquicia inexistente devuelve una página vacía
+    PaginaDTO<VistaSucursalDTO> listarSucursales(String franquiciaId, String despues, Integer limite);
+    // Pasa a la vista las sucursales marcadas; devuelve cuántas quedaron al día
+    int proyectar();
+    // Adelanta la próxima proyección sin esperar el intervalo
+    void solicitarProyeccion();
+    // Marca todas las sucursales de todas las franquicias para volver a proyectarlas; devuelve cuántas
+    int reconstruir();
+}
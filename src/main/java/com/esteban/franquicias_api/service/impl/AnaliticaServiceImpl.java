@@ -0,0 +1,54 @@
+package com.esteban.franquicias_api.service.impl;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.dto.LineaCatalogoDTO;
+import com.esteban.franquicias_api.dto.PaginaDTO;
+import com.esteban.franquicias_api.dto.TotalesFranquiciaDTO;
+import com.esteban.franquicias_api.exception.BusinessException;
+import com.esteban.franquicias_api.repository.PosicionStock;
+import com.esteban.franquicias_api.repository.ProductoStore;
+import com.esteban.franquicias_api.service.AnaliticaService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class AnaliticaServiceImpl implements AnaliticaService {
+
+    private final ProductoStore productoStore;
+    private final FranquiciasProperties properties;
+
+    @Override
+    public PaginaDTO<LineaCatalogoDTO> productosConMasStock(String despues, Integer limite) {
+        int tamano = Paginacion.limite(limite, properties);
+        return pagina(productoStore.productosPorMayorStock(posicion(despues), tamano + 1), tamano);
+    }
+
+    @Override
+    public PaginaDTO<LineaCatalogoDTO> productosConStockBajo(Integer umbral, String despues, Integer limite) {
+        int tamano = Paginacion.limite(limite, properties);
+        int hasta = umbral == null ? properties.getAnalitica().getUmbralStockBajo() : umbral;
+        if (hasta < 1) {
+            throw new BusinessException("El umbral debe ser mayor que 0");
+        }
+        return pagina(productoStore.productosConStockBajo(hasta, posicion(despues), tamano + 1), tamano);
+    }
+
+    @Override
+    public PaginaDTO<TotalesFranquiciaDTO> totalesPorFranquicia(String despues, Integer limite) {
+        int tamano = Paginacion.limite(limite, properties);
+        return PaginaDTO.de(productoStore.totalesFranquicias(despues, tamano + 1), tamano, TotalesFranquiciaDTO::getFranquiciaId);
+    }
+
+    private static PaginaDTO<LineaCatalogoDTO> pagina(List<LineaCatalogoDTO> leidos, int tamano) {
+        return PaginaDTO.de(leidos, tamano, linea -> PosicionStock.de(linea).texto());
+    }
+
+    private static PosicionStock posicion(String despues) {
+        if (despues == null) return null;
+        return PosicionStock.leer(despues)
+                .orElseThrow(() -> new BusinessException("Cursor de paginación inválido: " + despues));
+    }
+}
@@ -0,0 +1,73 @@
+package com.esteban.franquicias_api.service.impl;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.dto.PaginaDTO;
+import com.esteban.franquicias_api.dto.ProductoEncontradoDTO;
+import com.esteban.franquicias_api.exception.BusinessException;
+import com.esteban.franquicias_api.index.IndiceNombresProductos;
+import com.esteban.franquicias_api.repository.PosicionBusqueda;
+import com.esteban.franquicias_api.repository.ProductoStore;
+import com.esteban.franquicias_api.service.BusquedaService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public class BusquedaServiceImpl implements BusquedaService {
+
+    private final ProductoStore productoStore;
+    private final IndiceNombresProductos indice;
+    private final FranquiciasProperties properties;
+
+    private final Timer conIndice;
+    private final Timer sinIndice;
+
+    public BusquedaServiceImpl(ProductoStore productoStore, IndiceNombresProductos indice,
+                               FranquiciasProperties properties, MeterRegistry registry) {
+        this.productoStore = productoStore;
+        this.indice = indice;
+        this.properties = properties;
+        this.conIndice = latencia(registry, "indice");
+        this.sinIndice = latencia(registry, "respaldo");
+    }
+
+    @Override
+    public PaginaDTO<ProductoEncontradoDTO> buscarProductos(String texto, String franquiciaId, String modo, String despues, Integer limite) {
+        if (texto == null || texto.isBlank()) {
+            throw new BusinessException("El texto a buscar es obligatorio");
+        }
+        String buscado = texto.strip();
+        int largoMaximo = properties.getBusqueda().getLargoMaximo();
+        if (buscado.length() > largoMaximo) {
+            throw new BusinessException("El texto a buscar no puede tener más de " + largoMaximo + " caracteres");
+        }
+        boolean soloPrefijo = switch (modo == null ? "contiene" : modo) {
+            case "contiene" -> false;
+            case "prefijo" -> true;
+            default -> throw new BusinessException("Modo de búsqueda inválido: " + modo + " (contiene o prefijo)");
+        };
+        int tamano = Paginacion.limite(limite, properties);
+        PosicionBusqueda desde = posicion(despues);
+
+        // Mientras el índice carga al iniciar se busca en Mongo
+        List<ProductoEncontradoDTO> leidos = indice.listo()
+                ? conIndice.record(() -> indice.buscar(franquiciaId, buscado, soloPrefijo, desde, tamano + 1))
+                : sinIndice.record(() -> productoStore.buscarProductos(franquiciaId, buscado, soloPrefijo, desde, tamano + 1));
+        return PaginaDTO.de(leidos, tamano, producto -> PosicionBusqueda.de(producto).texto());
+    }
+
+    private static PosicionBusqueda posicion(String despues) {
+        if (despues == null) return null;
+        return PosicionBusqueda.leer(despues)
+                .orElseThrow(() -> new BusinessException("Cursor de paginación inválido: " + despues));
+    }
+
+    private static Timer latencia(MeterRegistry registry, String origen) {
+        return Timer.builder("franquicias.busqueda.consultas")
+                .description("Latencia de la búsqueda de productos por nombre")
+                .tag("origen", origen)
+                .register(registry);
+    }
+}
@@ -1,12 +1,19 @@
 package com.esteban.franquicias_api.service.impl;
 
 import com.esteban.franquicias_api.dto.FranquiciaDTO;
+import com.esteban.franquicias_api.dto.PaginaDTO;
 import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.config.FranquiciasProperties;
 import com.esteban.franquicias_api.dto.SucursalDTO;
+import com.esteban.franquicias_api.event.FranquiciaRenombradaEvent;
+import com.esteban.franquicias_api.index.TopStockIndex;
 import com.esteban.franquicias_api.model.*;
 import com.esteban.franquicias_api.repository.FranquiciaRepository;
+import com.esteban.franquicias_api.repository.ProductoStore;
 import com.esteban.franquicias_api.service.FranquiciaService;
 import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -17,82 +24,106 @@ import java.util.stream.Collectors;
 public class FranquiciaServiceImpl implements FranquiciaService {
 
     private final FranquiciaRepository franquiciaRepository;
+    private final ProductoStore productoStore;
+    private final TopStockIndex topStockIndex;
+    private final FranquiciasProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MarcasProyeccion marcas;
 
     @Override
     public FranquiciaDTO crearFranquicia(FranquiciaDTO dto) {
+        Franquicia nueva = nuevaFranquicia(dto);
+        return marcas.escribir(sucursalesDe(nueva), () -> toDTO(franquiciaRepository.insert(nueva)));
+    }
+
+    @Override
+    public FranquiciaDTO actualizarNombreFranquicia(String id, String nuevoNombre) {
+        validarNuevoNombre(nuevoNombre);
+
+        Franquicia actualizada = franquiciaRepository.actualizarNombre(id, nuevoNombre)
+                .orElseThrow(() -> new RuntimeException("Franquicia no encontrada"));
+        eventPublisher.publishEvent(new FranquiciaRenombradaEvent(id, actualizada.getNombre()));
+
+        return toDTO(actualizada);
+    }
+
+    @Override
+    public List<ProductoDTO> obtenerProductosConMasStock(String franquiciaId) {
+        if (properties.getTopStock().isIndiceHabilitado()) {
+            return topStockIndex.productosConMasStock(franquiciaId)
+                    .orElseThrow(() -> new RuntimeException("Franquicia no encontrada"));
+        }
+
+        List<ProductoDTO> productos = productoStore.productosConMasStock(franquiciaId);
+
+        // Una agregación vacía no distingue una franquicia sin productos de una inexistente
+        if (productos.isEmpty() && !franquiciaRepository.existsById(franquiciaId)) {
+            throw new RuntimeException("Franquicia no encontrada");
+        }
+        return productos;
+    }
+
+    @Override
+    public PaginaDTO<FranquiciaDTO> listarFranquicias(String despues, Integer limite) {
+        int tamano = Paginacion.limite(limite, properties);
+        List<FranquiciaDTO> leidas = franquiciaRepository.paginaFranquicias(despues, tamano + 1).stream()
+                .map(FranquiciaServiceImpl::resumen)
+                .toList();
+        return PaginaDTO.de(leidas, tamano, FranquiciaDTO::getId);
+    }
+
+    // Compartidos con ReactiveFranquiciaServiceImpl
+
+    static Franquicia nuevaFranquicia(FranquiciaDTO dto) {
         if (dto == null || dto.getNombre() == null || dto.getNombre().isBlank()) {
             throw new IllegalArgumentException("El nombre de la franquicia es obligatorio");
         }
 
+        // Con el id ya asignado las marcas de la vista se abren antes de insertar
         Franquicia franquicia = new Franquicia();
+        franquicia.setId(new ObjectId().toHexString());
         franquicia.setNombre(dto.getNombre());
         franquicia.setSucursales(
                 Optional.ofNullable(dto.getSucursales())
                         .orElse(Collections.emptyList())
                         .stream()
-                        .map(s -> new Sucursal(UUID.randomUUID().toString(), s.getNombre(), new ArrayList<>()))
-                        .collect(Collectors.toList())
-        );
-
-        Franquicia guardada = franquiciaRepository.save(franquicia);
-
-        FranquiciaDTO respuesta = new FranquiciaDTO();
-        respuesta.setId(guardada.getId());
-        respuesta.setNombre(guardada.getNombre());
-        respuesta.setSucursales(
-                guardada.getSucursales().stream()
-                        .map(s -> new SucursalDTO(s.getId(), s.getNombre(), guardada.getId()))
+                        .map(s -> {
+                            if (s.getUmbralStock() != null) SucursalServiceImpl.validarUmbralStock(s.getUmbralStock());
+                            return new Sucursal(UUID.randomUUID().toString(), s.getNombre(), new ArrayList<>(), s.getUmbralStock());
+                        })
                         .collect(Collectors.toList())
         );
+        return franquicia;
+    }
 
-        return respuesta;
+    static Map<String, List<String>> sucursalesDe(Franquicia franquicia) {
+        return Map.of(franquicia.getId(), franquicia.getSucursales().stream().map(Sucursal::getId).toList());
     }
 
-    @Override
-    public FranquiciaDTO actualizarNombreFranquicia(String id, String nuevoNombre) {
+    static void validarNuevoNombre(String nuevoNombre) {
         if (nuevoNombre == null || nuevoNombre.isBlank()) {
             throw new IllegalArgumentException("El nuevo nombre no puede estar vacío");
         }
+    }
 
-        Franquicia actualizada = franquiciaRepository.findById(id)
-                .map(f -> {
-                    f.setNombre(nuevoNombre);
-                    return franquiciaRepository.save(f);
-                })
-                .orElseThrow(() -> new RuntimeException("Franquicia no encontrada"));
+    // Los listados proyectan solo id y nombre: las sucursales quedan en null
+    static FranquiciaDTO resumen(Franquicia franquicia) {
+        FranquiciaDTO dto = new FranquiciaDTO();
+        dto.setId(franquicia.getId());
+        dto.setNombre(franquicia.getNombre());
+        return dto;
+    }
 
+    static FranquiciaDTO toDTO(Franquicia franquicia) {
         FranquiciaDTO dto = new FranquiciaDTO();
-        dto.setId(actualizada.getId());
-        dto.setNombre(actualizada.getNombre());
+        dto.setId(franquicia.getId());
+        dto.setNombre(franquicia.getNombre());
         dto.setSucursales(
-                actualizada.getSucursales().stream()
-                        .map(s -> new SucursalDTO(s.getId(), s.getNombre(), actualizada.getId()))
+                franquicia.getSucursales().stream()
+                        .map(s -> SucursalDTO.builder().id(s.getId()).nombre(s.getNombre())
+                                .franquiciaId(franquicia.getId()).umbralStock(s.getUmbralStock()).build())
                         .collect(Collectors.toList())
         );
-
         return dto;
     }
-
-    @Override
-    public List<ProductoDTO> obtenerProductosConMasStock(String franquiciaId) {
-        Franquicia franquicia = franquiciaRepository.findById(franquiciaId)
-                .orElseThrow(() -> new RuntimeException("Franquicia no encontrada"));
-
-        return franquicia.getSucursales().stream()
-                .filter(sucursal -> sucursal.getProductos() != null && !sucursal.getProductos().isEmpty())
-                .map(sucursal -> sucursal.getProductos().stream()
-                        .max(Comparator.comparingInt(Producto::getStock))
-                        .map(producto -> ProductoDTO.builder()
-                                .id(producto.getId())
-                                .nombre(producto.getNombre() + " (Sucursal: " + sucursal.getNombre() + ")")
-                                .stock(producto.getStock())
-                                .sucursalId(sucursal.getId())
-                                .build()
-                        )
-                        .orElse(null)
-                )
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-    }
-
 }
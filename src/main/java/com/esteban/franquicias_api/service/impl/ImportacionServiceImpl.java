@@ -0,0 +1,219 @@
+package com.esteban.franquicias_api.service.impl;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.dto.FalloImportacionDTO;
+import com.esteban.franquicias_api.dto.LineaCatalogoDTO;
+import com.esteban.franquicias_api.dto.ResultadoImportacionDTO;
+import com.esteban.franquicias_api.event.ProductoAgregadoEvent;
+import com.esteban.franquicias_api.event.SucursalAgregadaEvent;
+import com.esteban.franquicias_api.exception.BusinessException;
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.Producto;
+import com.esteban.franquicias_api.model.Sucursal;
+import com.esteban.franquicias_api.repository.ProductoStore;
+import com.esteban.franquicias_api.service.ImportacionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImportacionServiceImpl implements ImportacionService {
+
+    private final ProductoStore productoStore;
+    private final FranquiciasProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MarcasProyeccion marcas;
+
+    @Override
+    public ResultadoImportacionDTO importarCatalogo(Iterator<LineaCatalogoDTO> lineas) {
+        Importacion importacion = new Importacion(properties.getImportacion());
+
+        // Se consume la entrada de a una fila y se escribe cada tamanoLote productos
+        while (!importacion.detenida && lineas.hasNext()) {
+            int posicion = importacion.resultado.getTotal();
+            importacion.resultado.setTotal(posicion + 1);
+            try {
+                importacion.agregar(posicion, lineas.next());
+            } catch (BusinessException e) {
+                importacion.fallo(posicion, null, e.getMessage());
+            }
+        }
+        importacion.escribir();
+
+        ResultadoImportacionDTO resultado = importacion.resultado;
+        log.info("Catálogo importado: {} filas, {} productos en {} franquicias y {} sucursales",
+                resultado.getTotal(), resultado.getExitosos(), resultado.getFranquicias(), resultado.getSucursales());
+        return resultado;
+    }
+
+    // La franquicia y la sucursal que se están leyendo, y lo que falta escribir. Una franquicia se
+    // inserta completa con el primer lote que la incluye; si sigue en el lote siguiente, lo que resta
+    // se agrega sobre el documento ya insertado.
+    private final class Importacion {
+
+        private final int tamanoLote;
+        private final int maxFallos;
+        private final ResultadoImportacionDTO resultado = new ResultadoImportacionDTO();
+
+        // Una franquicia, o una sucursal dentro de su franquicia, no puede volver a aparecer después de cerrada
+        private final Set<String> franquiciasCerradas = new HashSet<>();
+        private final Set<String> sucursalesCerradas = new HashSet<>();
+
+        private Franquicia franquicia;
+        private Sucursal sucursal;
+        private boolean franquiciaEscrita;
+        private boolean sucursalEscrita;
+
+        // Pendientes: franquicias nuevas completas y lo que continúa a la franquicia y la sucursal que
+        // estaban abiertas en la escritura anterior
+        private final List<Franquicia> nuevas = new ArrayList<>();
+        private final List<Sucursal> sucursalesNuevas = new ArrayList<>();
+        private final List<Producto> productosNuevos = new ArrayList<>();
+        private String franquiciaContinuada;
+        private String sucursalContinuada;
+        private int pendientes;
+        private int primeraPendiente;
+        private int ultimaPendiente;
+
+        private boolean detenida;
+
+        Importacion(FranquiciasProperties.Importacion config) {
+            this.tamanoLote = config.getTamanoLote();
+            this.maxFallos = config.getMaxFallos();
+        }
+
+        void agregar(int posicion, LineaCatalogoDTO linea) {
+            if (linea == null || vacio(linea.getFranquicia()) || vacio(linea.getSucursal()) || vacio(linea.getProducto())) {
+                fallo(posicion, linea, "franquicia, sucursal y producto son obligatorios");
+                return;
+            }
+            if (linea.getStock() < 0) {
+                fallo(posicion, linea, "El stock no puede ser negativo");
+                return;
+            }
+
+            boolean otraFranquicia = franquicia == null || !franquicia.getNombre().equals(linea.getFranquicia());
+            if (otraFranquicia && franquiciasCerradas.contains(linea.getFranquicia())) {
+                fallo(posicion, linea, "La franquicia ya apareció antes: sus filas tienen que ir juntas");
+                return;
+            }
+            boolean otraSucursal = otraFranquicia || !sucursal.getNombre().equals(linea.getSucursal());
+            if (!otraFranquicia && otraSucursal && sucursalesCerradas.contains(linea.getSucursal())) {
+                fallo(posicion, linea, "La sucursal ya apareció antes en la franquicia: sus filas tienen que ir juntas");
+                return;
+            }
+
+            if (otraFranquicia) abrirFranquicia(linea.getFranquicia());
+            if (otraSucursal) abrirSucursal(linea.getSucursal());
+
+            Producto producto = new Producto(UUID.randomUUID().toString(), linea.getProducto(), linea.getStock());
+            if (sucursalEscrita) {
+                productosNuevos.add(producto);
+            } else {
+                sucursal.agregarProducto(producto);
+            }
+            if (pendientes++ == 0) primeraPendiente = posicion;
+            ultimaPendiente = posicion;
+            if (pendientes >= tamanoLote) escribir();
+        }
+
+        void escribir() {
+            if (pendientes == 0 || detenida) return;
+            marcas.escribir(sucursalesPendientes(), this::escribirPendientes);
+            if (detenida) return;
+
+            resultado.setExitosos(resultado.getExitosos() + pendientes);
+            pendientes = 0;
+            nuevas.clear();
+            sucursalesNuevas.clear();
+            productosNuevos.clear();
+
+            // Lo abierto ya está en Mongo: se suelta lo escrito y lo que siga se agrega a continuación
+            franquicia = new Franquicia(franquicia.getId(), franquicia.getNombre(), new ArrayList<>());
+            sucursal = new Sucursal(sucursal.getId(), sucursal.getNombre(), new ArrayList<>());
+            franquiciaEscrita = true;
+            sucursalEscrita = true;
+            franquiciaContinuada = franquicia.getId();
+            sucursalContinuada = sucursal.getId();
+        }
+
+        private void escribirPendientes() {
+            try {
+                if (!productosNuevos.isEmpty()
+                        && !productoStore.agregarProductos(franquiciaContinuada, sucursalContinuada, productosNuevos)) {
+                    throw new IllegalStateException("La sucursal " + sucursalContinuada + " ya no existe");
+                }
+                if (!sucursalesNuevas.isEmpty() && !productoStore.agregarSucursales(franquiciaContinuada, sucursalesNuevas)) {
+                    throw new IllegalStateException("La franquicia " + franquiciaContinuada + " ya no existe");
+                }
+                if (!nuevas.isEmpty()) productoStore.insertarFranquicias(nuevas);
+            } catch (RuntimeException e) {
+                // Lo ya escrito queda; no se sigue leyendo porque las filas siguientes pueden continuar este lote
+                log.warn("No se pudo escribir el lote de las filas {} a {} del catálogo", primeraPendiente, ultimaPendiente, e);
+                fallo(primeraPendiente, null, "No se pudo escribir el lote de las filas " + primeraPendiente + " a "
+                        + ultimaPendiente + " y la importación se detuvo: " + e.getMessage());
+                detenida = true;
+                return;
+            }
+
+            // De las franquicias nuevas se publican sus sucursales, que ya traen los productos
+            productosNuevos.forEach(p -> eventPublisher.publishEvent(
+                    new ProductoAgregadoEvent(franquiciaContinuada, sucursalContinuada, p)));
+            sucursalesNuevas.forEach(s -> eventPublisher.publishEvent(new SucursalAgregadaEvent(franquiciaContinuada, s)));
+            nuevas.forEach(f -> f.getSucursales().forEach(s -> eventPublisher.publishEvent(new SucursalAgregadaEvent(f.getId(), s))));
+        }
+
+        // Sucursales que toca el lote, para la vista por sucursal
+        private Map<String, List<String>> sucursalesPendientes() {
+            Map<String, List<String>> sucursales = new HashMap<>();
+            if (!productosNuevos.isEmpty()) {
+                sucursales.computeIfAbsent(franquiciaContinuada, id -> new ArrayList<>()).add(sucursalContinuada);
+            }
+            sucursalesNuevas.forEach(s -> sucursales.computeIfAbsent(franquiciaContinuada, id -> new ArrayList<>()).add(s.getId()));
+            nuevas.forEach(f -> sucursales.put(f.getId(), f.getSucursales().stream().map(Sucursal::getId).toList()));
+            return sucursales;
+        }
+
+        void fallo(int posicion, LineaCatalogoDTO linea, String error) {
+            if (resultado.getFallidos().size() >= maxFallos) return;
+            resultado.getFallidos().add(linea == null
+                    ? new FalloImportacionDTO(posicion, null, null, null, error)
+                    : new FalloImportacionDTO(posicion, linea.getFranquicia(), linea.getSucursal(), linea.getProducto(), error));
+        }
+
+        private void abrirFranquicia(String nombre) {
+            if (franquicia != null) franquiciasCerradas.add(franquicia.getNombre());
+            sucursalesCerradas.clear();
+            sucursal = null;
+
+            // Con el id ya asignado las marcas de la vista se abren antes de insertar
+            franquicia = new Franquicia(new ObjectId().toHexString(), nombre, new ArrayList<>());
+            franquiciaEscrita = false;
+            nuevas.add(franquicia);
+            resultado.setFranquicias(resultado.getFranquicias() + 1);
+        }
+
+        private void abrirSucursal(String nombre) {
+            if (sucursal != null) sucursalesCerradas.add(sucursal.getNombre());
+
+            sucursal = new Sucursal(UUID.randomUUID().toString(), nombre, new ArrayList<>());
+            sucursalEscrita = false;
+            if (franquiciaEscrita) {
+                sucursalesNuevas.add(sucursal);
+            } else {
+                franquicia.agregarSucursal(sucursal);
+            }
+            resultado.setSucursales(resultado.getSucursales() + 1);
+        }
+
+        private static boolean vacio(String valor) {
+            return valor == null || valor.isBlank();
+        }
+    }
+}
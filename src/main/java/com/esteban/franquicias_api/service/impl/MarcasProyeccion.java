@@ -0,0 +1,79 @@
+package com.esteban.franquicias_api.service.impl;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.repository.PendientesProyeccion;
+import com.esteban.franquicias_api.service.VistaSucursalesService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Lado de escritura de la vista por sucursal: la marca se abre antes de escribir y se cierra cuando la escritura
+// ya publicó sus eventos, así la proyección no reusa una lectura compartida de antes del cambio (ver
+// LecturasCompartidas). Si el proceso muere entre las dos, la marca abierta vence y la sucursal se proyecta igual.
+// Las escrituras que no cambian nada de la vista (nombre de la franquicia, umbral) no pasan por acá.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MarcasProyeccion {
+
+    private final PendientesProyeccion pendientes;
+    private final VistaSucursalesService vistaSucursalesService;
+    private final FranquiciasProperties properties;
+
+    public <T> T escribir(String franquiciaId, String sucursalId, Supplier<T> escritura) {
+        return escribir(Map.of(franquiciaId, List.of(sucursalId)), escritura);
+    }
+
+    public <T> T escribir(Map<String, ? extends Collection<String>> sucursales, Supplier<T> escritura) {
+        if (!habilitada(sucursales)) return escritura.get();
+        pendientes.abrir(sucursales);
+        try {
+            return escritura.get();
+        } finally {
+            cerrar(sucursales);
+        }
+    }
+
+    public void escribir(Map<String, ? extends Collection<String>> sucursales, Runnable escritura) {
+        escribir(sucursales, () -> {
+            escritura.run();
+            return null;
+        });
+    }
+
+    // Reactivo: abrir y cerrar son bloqueantes y salen del event loop
+    public <T> Mono<T> escribir(String franquiciaId, Collection<String> sucursalIds, Mono<T> escritura) {
+        Map<String, Collection<String>> sucursales = Map.of(franquiciaId, sucursalIds);
+        if (!habilitada(sucursales)) return escritura;
+        return Mono.usingWhen(
+                Mono.fromCallable(() -> {
+                    pendientes.abrir(sucursales);
+                    return sucursales;
+                }).subscribeOn(Schedulers.boundedElastic()),
+                abiertas -> escritura,
+                abiertas -> Mono.fromRunnable(() -> cerrar(abiertas)).subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    private void cerrar(Map<String, ? extends Collection<String>> sucursales) {
+        try {
+            pendientes.cerrar(sucursales);
+        } catch (RuntimeException e) {
+            // La escritura ya está hecha: la marca sigue abierta y se proyecta cuando vence el plazo
+            log.warn("No se pudieron cerrar las marcas de la vista de {}", sucursales, e);
+            return;
+        }
+        vistaSucursalesService.solicitarProyeccion();
+    }
+
+    private boolean habilitada(Map<String, ? extends Collection<String>> sucursales) {
+        return properties.getProyeccion().isHabilitada()
+                && sucursales.values().stream().anyMatch(sucursalIds -> !sucursalIds.isEmpty());
+    }
+}
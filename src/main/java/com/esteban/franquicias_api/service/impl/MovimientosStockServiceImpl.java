@@ -0,0 +1,193 @@
+package com.esteban.franquicias_api.service.impl;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.dto.ResumenMovimientosDTO;
+import com.esteban.franquicias_api.event.*;
+import com.esteban.franquicias_api.exception.BusinessException;
+import com.esteban.franquicias_api.model.Producto;
+import com.esteban.franquicias_api.repository.HistorialStock;
+import com.esteban.franquicias_api.repository.MovimientoStock;
+import com.esteban.franquicias_api.service.MovimientosStockService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Los movimientos salen de los eventos de stock, así que cubren los PUT, los lotes, los deltas diferidos y la
+// importación sin tocar esas escrituras. registrar solo hace offer en una cola acotada (el modo reactivo publica
+// desde el event loop) y los lotes se escriben desde el scheduler, como el stock diferido.
+// No pasa por MetricasServicios: registrar corre con cada evento y el proxy ocultaría el @EventListener.
+// Un lote que falla no se reintenta: parte pudo haberse escrito y repetirlo duplicaría movimientos.
+@Slf4j
+@Service
+public class MovimientosStockServiceImpl implements MovimientosStockService {
+
+    static final String HORA = "hora";
+    static final String DIA = "dia";
+
+    private final HistorialStock historial;
+    private final TaskScheduler scheduler;
+    private final boolean habilitado;
+    private final int tamanoLote;
+    private final int maxPeriodos;
+
+    private final BlockingQueue<MovimientoStock> cola;
+    private final AtomicBoolean vaciadoSolicitado = new AtomicBoolean();
+    private final ReentrantLock vaciando = new ReentrantLock();
+
+    private final Counter escritos;
+    private final MeterRegistry registry;
+
+    public MovimientosStockServiceImpl(HistorialStock historial, TaskScheduler scheduler,
+                                       FranquiciasProperties properties, MeterRegistry registry) {
+        FranquiciasProperties.Movimientos config = properties.getMovimientos();
+        this.historial = historial;
+        this.scheduler = scheduler;
+        this.habilitado = config.isHabilitado();
+        this.tamanoLote = config.getTamanoLote();
+        this.maxPeriodos = properties.getPaginacion().getLimiteMaximo();
+        this.cola = new ArrayBlockingQueue<>(config.getCapacidad());
+
+        this.registry = registry;
+        this.escritos = Counter.builder("franquicias.movimientos.escritos")
+                .description("Movimientos de stock guardados en el historial")
+                .register(registry);
+        Gauge.builder("franquicias.movimientos.pendientes", cola, BlockingQueue::size)
+                .description("Movimientos de stock en cola, todavía sin escribir")
+                .register(registry);
+    }
+
+    @Override
+    @EventListener
+    public void registrar(FranquiciaEvent evento) {
+        if (!habilitado) return;
+        String franquiciaId = evento.franquiciaId();
+        Instant ahora = Instant.now();
+
+        switch (evento) {
+            case StockActualizadoEvent e -> encolar(new MovimientoStock(franquiciaId, e.sucursalId(), e.productoId(),
+                    ahora, MovimientoStock.AJUSTE, null, e.stock()));
+            case StockIncrementadoEvent e -> encolar(new MovimientoStock(franquiciaId, e.sucursalId(), e.productoId(),
+                    ahora, MovimientoStock.INCREMENTO, e.delta(), null));
+            case ProductoAgregadoEvent e -> encolar(alta(franquiciaId, e.sucursalId(), e.producto(), ahora));
+            case ProductoEliminadoEvent e -> encolar(new MovimientoStock(franquiciaId, e.sucursalId(), e.productoId(),
+                    ahora, MovimientoStock.BAJA, null, 0));
+            // Sucursal importada con sus productos
+            case SucursalAgregadaEvent e -> Optional.ofNullable(e.sucursal().getProductos()).orElse(List.of())
+                    .forEach(producto -> encolar(alta(franquiciaId, e.sucursal().getId(), producto, ahora)));
+            case FranquiciaRenombradaEvent e -> {
+            }
+            case SucursalRenombradaEvent e -> {
+            }
+            case ProductoRenombradoEvent e -> {
+            }
+            case UmbralStockActualizadoEvent e -> {
+            }
+        }
+    }
+
+    @Override
+    public int vaciar() {
+        vaciando.lock();
+        try {
+            vaciadoSolicitado.set(false);
+            // Solo lo que ya estaba: con escrituras constantes el vaciado igual termina
+            int restantes = cola.size();
+            int guardados = 0;
+            List<MovimientoStock> lote = new ArrayList<>(Math.min(restantes, tamanoLote));
+            while (restantes > 0 && cola.drainTo(lote, Math.min(restantes, tamanoLote)) > 0) {
+                restantes -= lote.size();
+                guardados += escribir(lote);
+                lote.clear();
+            }
+            return guardados;
+        } finally {
+            vaciando.unlock();
+        }
+    }
+
+    @Override
+    public List<ResumenMovimientosDTO> resumen(String franquiciaId, String sucursalId, String productoId,
+                                               String granularidad, String desde, String hasta) {
+        ChronoUnit periodo = switch (granularidad == null ? HORA : granularidad) {
+            case HORA -> ChronoUnit.HOURS;
+            case DIA -> ChronoUnit.DAYS;
+            default -> throw new BusinessException("La granularidad debe ser " + HORA + " o " + DIA);
+        };
+        Instant fin = hasta != null ? instante(hasta) : Instant.now();
+        Instant inicio = (desde != null ? instante(desde)
+                : fin.minus(periodo == ChronoUnit.HOURS ? Duration.ofHours(24) : Duration.ofDays(30))).truncatedTo(periodo);
+        if (!inicio.isBefore(fin)) {
+            throw new BusinessException("desde debe ser anterior a hasta");
+        }
+        long periodos = periodo.between(inicio, fin) + 1;
+        if (periodos > maxPeriodos) {
+            throw new BusinessException("El rango abarca " + periodos + " períodos; el máximo es " + maxPeriodos);
+        }
+        return historial.resumen(franquiciaId, sucursalId, productoId, periodo, inicio, fin);
+    }
+
+    private void encolar(MovimientoStock movimiento) {
+        if (!cola.offer(movimiento)) {
+            descartar("cola-llena", 1);
+            return;
+        }
+        if (cola.size() >= tamanoLote && vaciadoSolicitado.compareAndSet(false, true)) {
+            try {
+                scheduler.schedule(this::vaciar, Instant.now());
+            } catch (TaskRejectedException e) {
+                // Apagando: el último vaciado lo hace VaciadoMovimientosStock
+                vaciadoSolicitado.set(false);
+            }
+        }
+    }
+
+    private int escribir(List<MovimientoStock> lote) {
+        try {
+            historial.registrar(lote);
+        } catch (RuntimeException e) {
+            log.warn("No se pudo guardar un lote de {} movimientos de stock", lote.size(), e);
+            descartar("error", lote.size());
+            return 0;
+        }
+        escritos.increment(lote.size());
+        return lote.size();
+    }
+
+    private void descartar(String motivo, long cantidad) {
+        Counter.builder("franquicias.movimientos.descartados")
+                .description("Movimientos de stock que no llegaron al historial")
+                .tag("motivo", motivo)
+                .register(registry)
+                .increment(cantidad);
+    }
+
+    private static MovimientoStock alta(String franquiciaId, String sucursalId, Producto producto, Instant instante) {
+        return new MovimientoStock(franquiciaId, sucursalId, producto.getId(), instante,
+                MovimientoStock.ALTA, producto.getStock(), producto.getStock());
+    }
+
+    private static Instant instante(String valor) {
+        try {
+            return Instant.parse(valor);
+        } catch (DateTimeParseException e) {
+            throw new BusinessException("desde y hasta van en ISO-8601, por ejemplo 2025-01-31T00:00:00Z", e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.esteban.franquicias_api.service.impl;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.exception.BusinessException;
+
+// Tamaño de página de los listados, compartido por los servicios bloqueantes y reactivos
+final class Paginacion {
+
+    private Paginacion() {
+    }
+
+    static int limite(Integer pedido, FranquiciasProperties properties) {
+        FranquiciasProperties.Paginacion config = properties.getPaginacion();
+        if (pedido == null) return config.getLimitePorDefecto();
+        if (pedido < 1 || pedido > config.getLimiteMaximo()) {
+            throw new BusinessException("El límite debe estar entre 1 y " + config.getLimiteMaximo());
+        }
+        return pedido;
+    }
+}
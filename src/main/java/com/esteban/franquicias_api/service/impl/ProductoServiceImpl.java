@@ -1,119 +1,246 @@
 package com.esteban.franquicias_api.service.impl;
 
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.dto.ActualizacionStockDTO;
+import com.esteban.franquicias_api.dto.FalloStockDTO;
+import com.esteban.franquicias_api.dto.LineaCatalogoDTO;
+import com.esteban.franquicias_api.dto.PaginaDTO;
 import com.esteban.franquicias_api.dto.ProductoDTO;
-import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.dto.ResultadoLoteStockDTO;
+import com.esteban.franquicias_api.event.ProductoAgregadoEvent;
+import com.esteban.franquicias_api.event.ProductoEliminadoEvent;
+import com.esteban.franquicias_api.event.ProductoRenombradoEvent;
+import com.esteban.franquicias_api.event.StockActualizadoEvent;
 import com.esteban.franquicias_api.model.Producto;
-import com.esteban.franquicias_api.model.Sucursal;
+import com.esteban.franquicias_api.repository.ActualizacionStock;
 import com.esteban.franquicias_api.repository.FranquiciaRepository;
+import com.esteban.franquicias_api.repository.ProductoStore;
+import com.esteban.franquicias_api.repository.ResultadoLoteStock;
 import com.esteban.franquicias_api.service.ProductoService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
-import java.util.UUID;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class ProductoServiceImpl implements ProductoService {
 
     private final FranquiciaRepository franquiciaRepository;
+    private final ProductoStore productoStore;
+    private final FranquiciasProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MarcasProyeccion marcas;
 
     @Override
     public ProductoDTO agregarProducto(String franquiciaId, String sucursalId, ProductoDTO productoDTO) {
-        return franquiciaRepository.findById(franquiciaId)
-                .map(franquicia -> {
-                    Sucursal sucursal = franquicia.getSucursales().stream()
-                            .filter(s -> s.getId().equals(sucursalId))
-                            .findFirst()
-                            .orElseThrow(() -> new RuntimeException("Sucursal no encontrada"));
-
-                    Producto producto = Producto.builder()
-                            .id(UUID.randomUUID().toString())
-                            .nombre(productoDTO.getNombre())
-                            .stock(productoDTO.getStock())
-                            .build();
-
-                    sucursal.getProductos().add(producto);
-                    franquiciaRepository.save(franquicia);
-
-                    return ProductoDTO.builder()
-                            .id(producto.getId())
-                            .nombre(producto.getNombre())
-                            .stock(producto.getStock())
-                            .sucursalId(sucursalId)
-                            .build();
-                })
-                .orElseThrow(() -> new RuntimeException("Franquicia no encontrada"));
+        Producto producto = nuevoProducto(productoDTO);
+
+        return marcas.escribir(franquiciaId, sucursalId, () -> {
+            if (!productoStore.agregar(franquiciaId, sucursalId, producto)) {
+                verificarSucursal(franquiciaId, sucursalId);
+                throw new RuntimeException("Sucursal no encontrada");
+            }
+
+            eventPublisher.publishEvent(new ProductoAgregadoEvent(franquiciaId, sucursalId, producto));
+            return toDTO(producto, sucursalId);
+        });
     }
 
     @Override
     public ProductoDTO actualizarNombreProducto(String franquiciaId, String sucursalId, String productoId, String nuevoNombre) {
-        return franquiciaRepository.findById(franquiciaId)
-                .map(franquicia -> {
-                    Sucursal sucursal = franquicia.getSucursales().stream()
-                            .filter(s -> s.getId().equals(sucursalId))
-                            .findFirst()
-                            .orElseThrow(() -> new RuntimeException("Sucursal no encontrada"));
-
-                    Producto producto = sucursal.getProductos().stream()
-                            .filter(p -> p.getId().equals(productoId))
-                            .findFirst()
-                            .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
-
-                    producto.setNombre(nuevoNombre);
-                    franquiciaRepository.save(franquicia);
-
-                    return ProductoDTO.builder()
-                            .id(producto.getId())
-                            .nombre(producto.getNombre())
-                            .stock(producto.getStock())
-                            .sucursalId(sucursalId)
-                            .build();
-                })
-                .orElseThrow(() -> new RuntimeException("Franquicia no encontrada"));
+        return marcas.escribir(franquiciaId, sucursalId, () -> {
+            Producto producto = productoStore.actualizarNombre(franquiciaId, sucursalId, productoId, nuevoNombre)
+                    .orElseThrow(() -> productoNoEncontrado(franquiciaId, sucursalId));
+
+            eventPublisher.publishEvent(new ProductoRenombradoEvent(franquiciaId, sucursalId, productoId, producto.getNombre()));
+            return toDTO(producto, sucursalId);
+        });
     }
 
     @Override
     public ProductoDTO actualizarStock(String franquiciaId, String sucursalId, String productoId, int nuevoStock) {
-        return franquiciaRepository.findById(franquiciaId)
-                .map(franquicia -> {
-                    Sucursal sucursal = franquicia.getSucursales().stream()
-                            .filter(s -> s.getId().equals(sucursalId))
-                            .findFirst()
-                            .orElseThrow(() -> new RuntimeException("Sucursal no encontrada"));
-
-                    Producto producto = sucursal.getProductos().stream()
-                            .filter(p -> p.getId().equals(productoId))
-                            .findFirst()
-                            .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
-
-                    producto.setStock(nuevoStock);
-                    franquiciaRepository.save(franquicia);
-
-                    return ProductoDTO.builder()
-                            .id(producto.getId())
-                            .nombre(producto.getNombre())
-                            .stock(producto.getStock())
-                            .sucursalId(sucursalId)
-                            .build();
-                })
-                .orElseThrow(() -> new RuntimeException("Franquicia no encontrada"));
+        return marcas.escribir(franquiciaId, sucursalId, () -> {
+            Producto producto = productoStore.actualizarStock(franquiciaId, sucursalId, productoId, nuevoStock)
+                    .orElseThrow(() -> productoNoEncontrado(franquiciaId, sucursalId));
+
+            eventPublisher.publishEvent(new StockActualizadoEvent(franquiciaId, sucursalId, productoId, producto.getStock()));
+            return toDTO(producto, sucursalId);
+        });
+    }
+
+    @Override
+    public ProductoDTO obtenerProducto(String franquiciaId, String sucursalId, String productoId) {
+        return productoStore.producto(franquiciaId, sucursalId, productoId)
+                .map(producto -> toDTO(producto, sucursalId))
+                .orElseThrow(() -> productoNoEncontrado(franquiciaId, sucursalId));
+    }
+
+    @Override
+    public List<ProductoDTO> obtenerProductos(String franquiciaId, String sucursalId) {
+        List<Producto> productos = productoStore.productos(franquiciaId, sucursalId).orElseGet(() -> {
+            verificarSucursal(franquiciaId, sucursalId);
+            throw new RuntimeException("Sucursal no encontrada");
+        });
+        return productos.stream()
+                .map(producto -> toDTO(producto, sucursalId))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public PaginaDTO<ProductoDTO> listarProductos(String franquiciaId, String sucursalId, String despues, Integer limite) {
+        int tamano = Paginacion.limite(limite, properties);
+        List<Producto> leidos = productoStore.paginaProductos(franquiciaId, sucursalId, despues, tamano + 1).orElseGet(() -> {
+            verificarSucursal(franquiciaId, sucursalId);
+            throw new RuntimeException("Sucursal no encontrada");
+        });
+        return PaginaDTO.de(leidos.stream().map(producto -> toDTO(producto, sucursalId)).toList(), tamano, ProductoDTO::getId);
+    }
+
+    @Override
+    public Stream<LineaCatalogoDTO> catalogo() {
+        return productoStore.catalogo();
     }
 
     @Override
     public boolean eliminarProducto(String franquiciaId, String sucursalId, String productoId) {
-        return franquiciaRepository.findById(franquiciaId)
-                .map(franquicia -> {
-                    Sucursal sucursal = franquicia.getSucursales().stream()
-                            .filter(s -> s.getId().equals(sucursalId))
-                            .findFirst()
-                            .orElseThrow(() -> new RuntimeException("Sucursal no encontrada"));
-
-                    boolean eliminado = sucursal.getProductos().removeIf(p -> p.getId().equals(productoId));
-
-                    if (eliminado) franquiciaRepository.save(franquicia);
-                    return eliminado;
-                })
-                .orElseThrow(() -> new RuntimeException("Franquicia no encontrada"));
+        return marcas.escribir(franquiciaId, sucursalId, () -> {
+            boolean eliminado = productoStore.eliminar(franquiciaId, sucursalId, productoId);
+
+            if (eliminado) {
+                eventPublisher.publishEvent(new ProductoEliminadoEvent(franquiciaId, sucursalId, productoId));
+            } else {
+                verificarSucursal(franquiciaId, sucursalId);
+            }
+            return eliminado;
+        });
+    }
+
+    @Override
+    public ResultadoLoteStockDTO actualizarStockEnLote(String franquiciaId, Iterator<ActualizacionStockDTO> actualizaciones) {
+        int tamanoLote = properties.getStock().getTamanoLote();
+        ResultadoLoteStockDTO resultado = new ResultadoLoteStockDTO();
+        List<ActualizacionStock> lote = new ArrayList<>(tamanoLote);
+        List<Integer> posiciones = new ArrayList<>(tamanoLote);
+        int posicion = 0;
+
+        // Se consume la entrada de a un lote para no tener nunca el cuerpo completo en memoria
+        while (actualizaciones.hasNext()) {
+            ActualizacionStockDTO dto = actualizaciones.next();
+            if (dto == null || dto.getSucursalId() == null || dto.getProductoId() == null || dto.getNuevoStock() == null) {
+                resultado.getFallidos().add(new FalloStockDTO(posicion,
+                        dto != null ? dto.getSucursalId() : null, dto != null ? dto.getProductoId() : null,
+                        "sucursalId, productoId y nuevoStock son obligatorios"));
+            } else {
+                lote.add(new ActualizacionStock(dto.getSucursalId(), dto.getProductoId(), dto.getNuevoStock()));
+                posiciones.add(posicion);
+            }
+            posicion++;
+
+            if (lote.size() == tamanoLote) {
+                aplicarLote(franquiciaId, lote, posiciones, resultado);
+                lote.clear();
+                posiciones.clear();
+            }
+        }
+        if (!lote.isEmpty()) aplicarLote(franquiciaId, lote, posiciones, resultado);
+
+        resultado.getFallidos().sort(Comparator.comparingInt(FalloStockDTO::getPosicion));
+        resultado.setTotal(posicion);
+        resultado.setExitosos(posicion - resultado.getFallidos().size());
+        return resultado;
+    }
+
+    private void aplicarLote(String franquiciaId, List<ActualizacionStock> lote, List<Integer> posiciones,
+                             ResultadoLoteStockDTO resultado) {
+        Set<String> sucursalIds = lote.stream().map(ActualizacionStock::sucursalId).collect(Collectors.toSet());
+        marcas.escribir(Map.of(franquiciaId, sucursalIds), () -> escribirLote(franquiciaId, lote, posiciones, resultado));
+    }
+
+    private void escribirLote(String franquiciaId, List<ActualizacionStock> lote, List<Integer> posiciones,
+                              ResultadoLoteStockDTO resultado) {
+        ResultadoLoteStock escritura = productoStore.actualizarStockEnLote(franquiciaId, lote);
+        Set<Integer> fallidas = new HashSet<>(escritura.errores().keySet());
+        escritura.errores().forEach((i, error) -> resultado.getFallidos().add(fallo(posiciones.get(i), lote.get(i), error)));
+
+        if (escritura.coincidencias() + escritura.errores().size() < lote.size()) {
+            fallidas.addAll(identificarNoEncontradas(franquiciaId, lote, posiciones, escritura, resultado));
+        }
+
+        for (int i = 0; i < lote.size(); i++) {
+            if (fallidas.contains(i)) continue;
+            ActualizacionStock actualizacion = lote.get(i);
+            eventPublisher.publishEvent(new StockActualizadoEvent(franquiciaId,
+                    actualizacion.sucursalId(), actualizacion.productoId(), actualizacion.stock()));
+        }
+    }
+
+    private Set<Integer> identificarNoEncontradas(String franquiciaId, List<ActualizacionStock> lote, List<Integer> posiciones,
+                                                  ResultadoLoteStock escritura, ResultadoLoteStockDTO resultado) {
+        Set<Integer> noEncontradas = new HashSet<>();
+
+        // Alguna entrada no encontró su producto: se identifican con una sola lectura de ids
+        Set<String> sucursalIds = lote.stream().map(ActualizacionStock::sucursalId).collect(Collectors.toSet());
+        Optional<Map<String, Set<String>>> ids = productoStore.idsProductos(franquiciaId, sucursalIds);
+
+        for (int i = 0; i < lote.size(); i++) {
+            if (escritura.errores().containsKey(i)) continue;
+
+            ActualizacionStock actualizacion = lote.get(i);
+            String error = null;
+            if (ids.isEmpty()) {
+                error = "Franquicia no encontrada";
+            } else if (!ids.get().containsKey(actualizacion.sucursalId())) {
+                error = "Sucursal no encontrada";
+            } else if (!ids.get().get(actualizacion.sucursalId()).contains(actualizacion.productoId())) {
+                error = "Producto no encontrado";
+            }
+            if (error != null) {
+                resultado.getFallidos().add(fallo(posiciones.get(i), actualizacion, error));
+                noEncontradas.add(i);
+            }
+        }
+        return noEncontradas;
+    }
+
+    private static FalloStockDTO fallo(int posicion, ActualizacionStock actualizacion, String error) {
+        return new FalloStockDTO(posicion, actualizacion.sucursalId(), actualizacion.productoId(), error);
+    }
+
+    // Solo se consulta cuando el update no encontró su objetivo, para conservar los mensajes de error
+    private void verificarSucursal(String franquiciaId, String sucursalId) {
+        if (!franquiciaRepository.existsById(franquiciaId)) {
+            throw new RuntimeException("Franquicia no encontrada");
+        }
+        if (!franquiciaRepository.existeSucursal(franquiciaId, sucursalId)) {
+            throw new RuntimeException("Sucursal no encontrada");
+        }
+    }
+
+    private RuntimeException productoNoEncontrado(String franquiciaId, String sucursalId) {
+        verificarSucursal(franquiciaId, sucursalId);
+        return new RuntimeException("Producto no encontrado");
+    }
+
+    // Compartidos con ReactiveProductoServiceImpl
+
+    static Producto nuevoProducto(ProductoDTO productoDTO) {
+        return Producto.builder()
+                .id(UUID.randomUUID().toString())
+                .nombre(productoDTO.getNombre())
+                .stock(productoDTO.getStock())
+                .build();
+    }
+
+    static ProductoDTO toDTO(Producto producto, String sucursalId) {
+        return ProductoDTO.builder()
+                .id(producto.getId())
+                .nombre(producto.getNombre())
+                .stock(producto.getStock())
+                .sucursalId(sucursalId)
+                .build();
     }
 }
@@ -0,0 +1,48 @@
+package com.esteban.franquicias_api.service.impl;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.service.VistaSucursalesService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ScheduledFuture;
+
+// Proyecta las sucursales marcadas cada franquicias.proyeccion.intervalo. Al apagar no hace falta una última
+// vuelta: las marcas quedan en Mongo y el próximo arranque las retoma
+@Component
+@RequiredArgsConstructor
+public class ProyeccionVistaSucursales implements SmartLifecycle {
+
+    private final VistaSucursalesService vistaSucursalesService;
+    private final TaskScheduler scheduler;
+    private final FranquiciasProperties properties;
+
+    private volatile ScheduledFuture<?> periodico;
+    private volatile boolean corriendo;
+
+    @Override
+    public void start() {
+        if (properties.getProyeccion().isHabilitada()) {
+            // También al arrancar, por lo que quedó pendiente de antes
+            periodico = scheduler.scheduleWithFixedDelay(vistaSucursalesService::solicitarProyeccion,
+                    properties.getProyeccion().getIntervalo());
+        }
+        corriendo = true;
+    }
+
+    @Override
+    public void stop() {
+        if (periodico != null) {
+            periodico.cancel(false);
+            periodico = null;
+        }
+        corriendo = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return corriendo;
+    }
+}
@@ -0,0 +1,74 @@
+package com.esteban.franquicias_api.service.impl;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.dto.FranquiciaDTO;
+import com.esteban.franquicias_api.dto.PaginaDTO;
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.event.FranquiciaRenombradaEvent;
+import com.esteban.franquicias_api.index.TopStockIndex;
+import com.esteban.franquicias_api.repository.ReactiveFranquiciaRepository;
+import com.esteban.franquicias_api.service.ReactiveFranquiciaService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveFranquiciaServiceImpl implements ReactiveFranquiciaService {
+
+    private final ReactiveFranquiciaRepository franquiciaRepository;
+    private final TopStockIndex topStockIndex;
+    private final FranquiciasProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MarcasProyeccion marcas;
+
+    @Override
+    public Mono<FranquiciaDTO> crearFranquicia(FranquiciaDTO dto) {
+        return Mono.fromCallable(() -> FranquiciaServiceImpl.nuevaFranquicia(dto))
+                .flatMap(nueva -> marcas.escribir(nueva.getId(), FranquiciaServiceImpl.sucursalesDe(nueva).get(nueva.getId()),
+                        franquiciaRepository.insert(nueva)))
+                .map(FranquiciaServiceImpl::toDTO);
+    }
+
+    @Override
+    public Mono<FranquiciaDTO> actualizarNombreFranquicia(String id, String nuevoNombre) {
+        return Mono.fromRunnable(() -> FranquiciaServiceImpl.validarNuevoNombre(nuevoNombre))
+                .then(franquiciaRepository.actualizarNombre(id, nuevoNombre))
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Franquicia no encontrada")))
+                .doOnNext(actualizada -> eventPublisher.publishEvent(new FranquiciaRenombradaEvent(id, actualizada.getNombre())))
+                .map(FranquiciaServiceImpl::toDTO);
+    }
+
+    @Override
+    public Mono<PaginaDTO<FranquiciaDTO>> listarFranquicias(String despues, Integer limite) {
+        return Mono.fromCallable(() -> Paginacion.limite(limite, properties))
+                .flatMap(tamano -> franquiciaRepository.paginaFranquicias(despues, tamano + 1)
+                        .map(FranquiciaServiceImpl::resumen)
+                        .collectList()
+                        .map(leidas -> PaginaDTO.de(leidas, tamano, FranquiciaDTO::getId)));
+    }
+
+    @Override
+    public Mono<List<ProductoDTO>> obtenerProductosConMasStock(String franquiciaId) {
+        if (properties.getTopStock().isIndiceHabilitado()) {
+            // Un acierto del índice es inmediato, pero la primera consulta carga la franquicia con el
+            // repositorio bloqueante: se hace fuera del event loop
+            return Mono.fromCallable(() -> topStockIndex.productosConMasStock(franquiciaId))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMap(Mono::justOrEmpty)
+                    .switchIfEmpty(Mono.error(() -> new RuntimeException("Franquicia no encontrada")));
+        }
+
+        // Una agregación vacía no distingue una franquicia sin productos de una inexistente
+        return franquiciaRepository.productosConMasStock(franquiciaId)
+                .collectList()
+                .filterWhen(productos -> productos.isEmpty() ? franquiciaRepository.existsById(franquiciaId) : Mono.just(true))
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Franquicia no encontrada")));
+    }
+}
@@ -0,0 +1,132 @@
+package com.esteban.franquicias_api.service.impl;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.dto.LineaCatalogoDTO;
+import com.esteban.franquicias_api.dto.PaginaDTO;
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.event.ProductoAgregadoEvent;
+import com.esteban.franquicias_api.event.ProductoEliminadoEvent;
+import com.esteban.franquicias_api.event.ProductoRenombradoEvent;
+import com.esteban.franquicias_api.event.StockActualizadoEvent;
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.Producto;
+import com.esteban.franquicias_api.model.Sucursal;
+import com.esteban.franquicias_api.repository.ReactiveFranquiciaRepository;
+import com.esteban.franquicias_api.service.ReactiveProductoService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveProductoServiceImpl implements ReactiveProductoService {
+
+    private final ReactiveFranquiciaRepository franquiciaRepository;
+    private final FranquiciasProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MarcasProyeccion marcas;
+
+    @Override
+    public Mono<ProductoDTO> agregarProducto(String franquiciaId, String sucursalId, ProductoDTO productoDTO) {
+        Producto producto = ProductoServiceImpl.nuevoProducto(productoDTO);
+
+        return marcas.escribir(franquiciaId, List.of(sucursalId),
+                franquiciaRepository.agregarProducto(franquiciaId, sucursalId, producto)
+                .filter(Boolean::booleanValue)
+                .switchIfEmpty(verificarSucursal(franquiciaId, sucursalId)
+                        .then(Mono.error(() -> new RuntimeException("Sucursal no encontrada"))))
+                .doOnNext(agregado -> eventPublisher.publishEvent(new ProductoAgregadoEvent(franquiciaId, sucursalId, producto)))
+                .thenReturn(ProductoServiceImpl.toDTO(producto, sucursalId)));
+    }
+
+    @Override
+    public Mono<ProductoDTO> actualizarNombreProducto(String franquiciaId, String sucursalId, String productoId, String nuevoNombre) {
+        return marcas.escribir(franquiciaId, List.of(sucursalId),
+                franquiciaRepository.actualizarNombreProducto(franquiciaId, sucursalId, productoId, nuevoNombre)
+                .switchIfEmpty(productoNoEncontrado(franquiciaId, sucursalId))
+                .doOnNext(producto -> eventPublisher.publishEvent(
+                        new ProductoRenombradoEvent(franquiciaId, sucursalId, productoId, producto.getNombre())))
+                .map(producto -> ProductoServiceImpl.toDTO(producto, sucursalId)));
+    }
+
+    @Override
+    public Mono<ProductoDTO> actualizarStock(String franquiciaId, String sucursalId, String productoId, int nuevoStock) {
+        return marcas.escribir(franquiciaId, List.of(sucursalId),
+                franquiciaRepository.actualizarStock(franquiciaId, sucursalId, productoId, nuevoStock)
+                .switchIfEmpty(productoNoEncontrado(franquiciaId, sucursalId))
+                .doOnNext(producto -> eventPublisher.publishEvent(
+                        new StockActualizadoEvent(franquiciaId, sucursalId, productoId, producto.getStock())))
+                .map(producto -> ProductoServiceImpl.toDTO(producto, sucursalId)));
+    }
+
+    @Override
+    public Mono<ProductoDTO> obtenerProducto(String franquiciaId, String sucursalId, String productoId) {
+        return franquiciaRepository.findProductoBySucursalIdAndProductoId(franquiciaId, sucursalId, productoId)
+                .flatMapIterable(ReactiveProductoServiceImpl::productosDeLaSucursal)
+                .next()
+                .switchIfEmpty(productoNoEncontrado(franquiciaId, sucursalId))
+                .map(producto -> ProductoServiceImpl.toDTO(producto, sucursalId));
+    }
+
+    @Override
+    public Flux<ProductoDTO> obtenerProductos(String franquiciaId, String sucursalId) {
+        return franquiciaRepository.findProductosBySucursalId(franquiciaId, sucursalId)
+                .filter(franquicia -> franquicia.getSucursales() != null && !franquicia.getSucursales().isEmpty())
+                .switchIfEmpty(verificarSucursal(franquiciaId, sucursalId)
+                        .then(Mono.error(() -> new RuntimeException("Sucursal no encontrada"))))
+                .flatMapIterable(ReactiveProductoServiceImpl::productosDeLaSucursal)
+                .map(producto -> ProductoServiceImpl.toDTO(producto, sucursalId));
+    }
+
+    @Override
+    public Mono<PaginaDTO<ProductoDTO>> listarProductos(String franquiciaId, String sucursalId, String despues, Integer limite) {
+        return Mono.fromCallable(() -> Paginacion.limite(limite, properties))
+                .flatMap(tamano -> franquiciaRepository.paginaProductos(franquiciaId, sucursalId, despues, tamano + 1)
+                        .switchIfEmpty(verificarSucursal(franquiciaId, sucursalId)
+                                .then(Mono.error(() -> new RuntimeException("Sucursal no encontrada"))))
+                        .map(productos -> PaginaDTO.de(productos.stream()
+                                .map(producto -> ProductoServiceImpl.toDTO(producto, sucursalId))
+                                .toList(), tamano, ProductoDTO::getId)));
+    }
+
+    @Override
+    public Flux<LineaCatalogoDTO> catalogo() {
+        return franquiciaRepository.catalogo();
+    }
+
+    @Override
+    public Mono<Boolean> eliminarProducto(String franquiciaId, String sucursalId, String productoId) {
+        return marcas.escribir(franquiciaId, List.of(sucursalId),
+                franquiciaRepository.eliminarProducto(franquiciaId, sucursalId, productoId)
+                .flatMap(eliminado -> eliminado
+                        ? Mono.fromRunnable(() -> eventPublisher.publishEvent(
+                                new ProductoEliminadoEvent(franquiciaId, sucursalId, productoId))).thenReturn(true)
+                        : verificarSucursal(franquiciaId, sucursalId).thenReturn(false)));
+    }
+
+    // Solo se consulta cuando el update no encontró su objetivo, para conservar los mensajes de error
+    private Mono<Void> verificarSucursal(String franquiciaId, String sucursalId) {
+        return franquiciaRepository.existsById(franquiciaId)
+                .flatMap(existe -> existe
+                        ? franquiciaRepository.existeSucursal(franquiciaId, sucursalId)
+                        : Mono.error(new RuntimeException("Franquicia no encontrada")))
+                .flatMap(existe -> existe ? Mono.<Void>empty() : Mono.error(new RuntimeException("Sucursal no encontrada")));
+    }
+
+    private Mono<Producto> productoNoEncontrado(String franquiciaId, String sucursalId) {
+        return verificarSucursal(franquiciaId, sucursalId)
+                .then(Mono.error(() -> new RuntimeException("Producto no encontrado")));
+    }
+
+    // Las proyecciones devuelven la franquicia con una sola sucursal (o ninguna)
+    private static List<Producto> productosDeLaSucursal(Franquicia franquicia) {
+        List<Sucursal> sucursales = franquicia.getSucursales();
+        return sucursales == null || sucursales.isEmpty() ? List.of() : sucursales.get(0).getProductos();
+    }
+}
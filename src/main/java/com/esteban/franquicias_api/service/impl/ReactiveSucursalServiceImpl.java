@@ -0,0 +1,80 @@
+package com.esteban.franquicias_api.service.impl;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.dto.PaginaDTO;
+import com.esteban.franquicias_api.dto.SucursalDTO;
+import com.esteban.franquicias_api.event.SucursalAgregadaEvent;
+import com.esteban.franquicias_api.event.SucursalRenombradaEvent;
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.Sucursal;
+import com.esteban.franquicias_api.repository.ReactiveFranquiciaRepository;
+import com.esteban.franquicias_api.service.ReactiveSucursalService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveSucursalServiceImpl implements ReactiveSucursalService {
+
+    private final ReactiveFranquiciaRepository franquiciaRepository;
+    private final FranquiciasProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MarcasProyeccion marcas;
+
+    @Override
+    public Mono<SucursalDTO> agregarSucursal(String franquiciaId, SucursalDTO sucursalDTO) {
+        Sucursal nueva = SucursalServiceImpl.nuevaSucursal(sucursalDTO);
+
+        return marcas.escribir(franquiciaId, List.of(nueva.getId()), franquiciaRepository.agregarSucursal(franquiciaId, nueva)
+                .filter(Boolean::booleanValue)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Franquicia no encontrada")))
+                .doOnNext(agregada -> eventPublisher.publishEvent(new SucursalAgregadaEvent(franquiciaId, nueva)))
+                .thenReturn(SucursalServiceImpl.toDTO(nueva, franquiciaId)));
+    }
+
+    @Override
+    public Mono<SucursalDTO> actualizarNombreSucursal(String franquiciaId, String sucursalId, String nuevoNombre) {
+        return marcas.escribir(franquiciaId, List.of(sucursalId),
+                franquiciaRepository.actualizarNombreSucursal(franquiciaId, sucursalId, nuevoNombre)
+                .switchIfEmpty(noEncontrada(franquiciaId))
+                .doOnNext(sucursal -> eventPublisher.publishEvent(
+                        new SucursalRenombradaEvent(franquiciaId, sucursalId, sucursal.getNombre())))
+                .map(sucursal -> SucursalServiceImpl.toDTO(sucursal, franquiciaId)));
+    }
+
+    @Override
+    public Mono<SucursalDTO> obtenerSucursal(String franquiciaId, String sucursalId) {
+        return franquiciaRepository.findSucursalByFranquiciaIdAndSucursalId(franquiciaId, sucursalId)
+                .flatMap(franquicia -> Mono.justOrEmpty(primeraSucursal(franquicia)))
+                .switchIfEmpty(noEncontrada(franquiciaId))
+                .map(sucursal -> SucursalServiceImpl.toDTO(sucursal, franquiciaId));
+    }
+
+    @Override
+    public Mono<PaginaDTO<SucursalDTO>> listarSucursales(String franquiciaId, String despues, Integer limite) {
+        return Mono.fromCallable(() -> Paginacion.limite(limite, properties))
+                .flatMap(tamano -> franquiciaRepository.paginaSucursales(franquiciaId, despues, tamano + 1)
+                        .switchIfEmpty(Mono.error(() -> new RuntimeException("Franquicia no encontrada")))
+                        .map(sucursales -> PaginaDTO.de(sucursales.stream()
+                                .map(s -> SucursalServiceImpl.resumen(s, franquiciaId))
+                                .toList(), tamano, SucursalDTO::getId)));
+    }
+
+    private Mono<Sucursal> noEncontrada(String franquiciaId) {
+        return franquiciaRepository.existsById(franquiciaId)
+                .flatMap(existe -> Mono.error(existe
+                        ? new RuntimeException("Sucursal no encontrada")
+                        : new RuntimeException("Franquicia no encontrada")));
+    }
+
+    private static Sucursal primeraSucursal(Franquicia franquicia) {
+        return franquicia.getSucursales() == null || franquicia.getSucursales().isEmpty()
+                ? null : franquicia.getSucursales().get(0);
+    }
+}
@@ -0,0 +1,374 @@
+package com.esteban.franquicias_api.service.impl;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.event.StockActualizadoEvent;
+import com.esteban.franquicias_api.event.StockIncrementadoEvent;
+import com.esteban.franquicias_api.exception.BusinessException;
+import com.esteban.franquicias_api.exception.ResourceNotFoundException;
+import com.esteban.franquicias_api.exception.SobrecargaException;
+import com.esteban.franquicias_api.exception.StockInsuficienteException;
+import com.esteban.franquicias_api.repository.IncrementoStock;
+import com.esteban.franquicias_api.repository.LecturasCompartidas;
+import com.esteban.franquicias_api.repository.ProductoStore;
+import com.esteban.franquicias_api.repository.ResultadoLoteStock;
+import com.esteban.franquicias_api.service.StockDiferidoService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+// Los deltas se suman por producto en franjas con su propio lock, así que las ventas de productos
+// distintos casi nunca compiten. Cada vaciado se lleva el mapa de cada franja y escribe un bulkWrite
+// de $inc por franquicia. Si el bulkWrite falla entero, su lote vuelve a quedar pendiente. Un producto
+// nuevo no entra con limitePendientes ya pendientes; lo devuelto por un lote fallido sí, así que el mapa
+// nunca pasa de dos veces el límite.
+// Un descuento se acepta solo si el stock guardado más lo pendiente alcanza (si no, 409). El stock se lee una
+// vez, cuando el producto entra a la cola; no ve los descuentos de otras instancias ni los de un vaciado en
+// curso, así que al escribir el $inc sigue exigiendo stock suficiente y lo que no alcanza se descarta.
+// Lo aceptado y todavía sin escribir vive solo en la memoria de la instancia: si el proceso muere sin
+// apagarse se pierde.
+@Slf4j
+@Service
+public class StockDiferidoServiceImpl implements StockDiferidoService {
+
+    private static final int FRANJAS = 64;
+
+    private final ProductoStore productoStore;
+    private final LecturasCompartidas lecturas;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MarcasProyeccion marcas;
+    private final TaskScheduler scheduler;
+    private final int maxPendientes;
+    private final int limitePendientes;
+    private final long reintentarEnSegundos;
+    private final int tamanoLote;
+
+    private final Franja[] franjas = new Franja[FRANJAS];
+    // Productos con un delta sin escribir, sumando todas las franjas
+    private final AtomicInteger pendientes = new AtomicInteger();
+    private final AtomicBoolean vaciadoSolicitado = new AtomicBoolean();
+    private final ReentrantLock vaciando = new ReentrantLock();
+
+    private final Counter escritos;
+    private final MeterRegistry registry;
+
+    public StockDiferidoServiceImpl(ProductoStore productoStore, LecturasCompartidas lecturas, ApplicationEventPublisher eventPublisher,
+                                    MarcasProyeccion marcas, TaskScheduler scheduler, FranquiciasProperties properties,
+                                    MeterRegistry registry) {
+        this.productoStore = productoStore;
+        this.lecturas = lecturas;
+        this.eventPublisher = eventPublisher;
+        this.marcas = marcas;
+        this.scheduler = scheduler;
+        this.maxPendientes = properties.getStock().getDiferido().getMaxPendientes();
+        this.limitePendientes = properties.getStock().getDiferido().getLimitePendientes();
+        this.reintentarEnSegundos = Math.max(1, properties.getStock().getDiferido().getIntervalo().toSeconds());
+        this.tamanoLote = properties.getStock().getTamanoLote();
+        for (int i = 0; i < FRANJAS; i++) {
+            franjas[i] = new Franja();
+        }
+
+        this.registry = registry;
+        this.escritos = Counter.builder("franquicias.stock.diferido.escritos")
+                .description("Productos actualizados con $inc desde el stock diferido")
+                .register(registry);
+        Gauge.builder("franquicias.stock.diferido.pendientes", pendientes, AtomicInteger::get)
+                .description("Productos con un delta de stock todavía sin escribir en Mongo")
+                .register(registry);
+        TimeGauge.builder("franquicias.stock.diferido.retraso", this, TimeUnit.NANOSECONDS, StockDiferidoServiceImpl::retraso)
+                .description("Antigüedad del delta de stock más viejo sin escribir")
+                .register(registry);
+    }
+
+    @Override
+    public int acumular(String franquiciaId, String sucursalId, String productoId, Integer delta) {
+        if (delta == null || delta == 0) {
+            throw new BusinessException("El delta es obligatorio y distinto de cero");
+        }
+
+        Clave clave = new Clave(franquiciaId, sucursalId, productoId);
+        Franja franja = franjas[Math.floorMod(clave.hashCode(), FRANJAS)];
+        Integer guardado = null;
+        int pendiente;
+        int nuevos;
+        while (true) {
+            // La lectura a Mongo va fuera del lock; los descuentos siguientes del producto ya no leen
+            if (delta < 0 && guardado == null && !franja.conStock(clave)) {
+                guardado = stockGuardado(clave);
+            }
+            franja.lock.lock();
+            try {
+                Pendiente actual = franja.deltas.get(clave);
+                Integer stock = actual != null && actual.stock() != null ? actual.stock() : guardado;
+                // Se vació entre la consulta y el lock: hay que leer el stock
+                if (delta < 0 && stock == null) continue;
+
+                int antes = franja.deltas.size();
+                if (pendientes.get() >= limitePendientes && actual == null) {
+                    descartar("limite", 1);
+                    throw new SobrecargaException("Hay " + limitePendientes + " productos con stock sin escribir", reintentarEnSegundos);
+                }
+                int sinEscribir = actual == null ? 0 : actual.delta();
+                if (delta < 0 && stock + sinEscribir + delta < 0) {
+                    descartar("sin-stock", 1);
+                    throw new StockInsuficienteException("El producto " + productoId + " tiene " + Math.max(0, stock + sinEscribir)
+                            + " unidades disponibles");
+                }
+                if (antes == 0) franja.desde = System.nanoTime();
+                pendiente = sumar(sinEscribir, delta);
+                if (pendiente == 0) {
+                    franja.deltas.remove(clave);
+                } else {
+                    franja.deltas.put(clave, new Pendiente(pendiente, stock));
+                }
+                nuevos = franja.deltas.size() - antes;
+                break;
+            } finally {
+                franja.lock.unlock();
+            }
+        }
+
+        if (nuevos != 0 && pendientes.addAndGet(nuevos) >= maxPendientes && vaciadoSolicitado.compareAndSet(false, true)) {
+            try {
+                scheduler.schedule(this::vaciar, Instant.now());
+            } catch (TaskRejectedException e) {
+                // Apagando: el último vaciado lo hace VaciadoStockDiferido
+                vaciadoSolicitado.set(false);
+            }
+        }
+        return pendiente;
+    }
+
+    @Override
+    public int vaciar() {
+        vaciando.lock();
+        try {
+            vaciadoSolicitado.set(false);
+            long desde = Long.MAX_VALUE;
+            Map<String, List<IncrementoStock>> porFranquicia = new HashMap<>();
+            for (Franja franja : franjas) {
+                franja.lock.lock();
+                Map<Clave, Pendiente> tomados;
+                try {
+                    if (franja.deltas.isEmpty()) continue;
+                    tomados = franja.deltas;
+                    franja.deltas = new HashMap<>();
+                    desde = Math.min(desde, franja.desde);
+                } finally {
+                    franja.lock.unlock();
+                }
+                pendientes.addAndGet(-tomados.size());
+                tomados.forEach((clave, pendiente) -> porFranquicia.computeIfAbsent(clave.franquiciaId(), id -> new ArrayList<>())
+                        .add(new IncrementoStock(clave.sucursalId(), clave.productoId(), pendiente.delta())));
+            }
+
+            long tomadosDesde = desde;
+            int actualizados = 0;
+            for (Map.Entry<String, List<IncrementoStock>> franquicia : porFranquicia.entrySet()) {
+                List<IncrementoStock> incrementos = franquicia.getValue();
+                for (int inicio = 0; inicio < incrementos.size(); inicio += tamanoLote) {
+                    List<IncrementoStock> lote = incrementos.subList(inicio, Math.min(inicio + tamanoLote, incrementos.size()));
+                    Set<String> sucursalIds = lote.stream().map(IncrementoStock::sucursalId).collect(Collectors.toSet());
+                    actualizados += marcas.escribir(Map.of(franquicia.getKey(), sucursalIds),
+                            () -> escribir(franquicia.getKey(), lote, tomadosDesde));
+                }
+            }
+            return actualizados;
+        } finally {
+            vaciando.unlock();
+        }
+    }
+
+    @Override
+    public int pendientes() {
+        return pendientes.get();
+    }
+
+    @Override
+    public int descartarPendientes() {
+        int descartados = 0;
+        for (Franja franja : franjas) {
+            Map<Clave, Pendiente> tomados;
+            franja.lock.lock();
+            try {
+                tomados = franja.deltas;
+                franja.deltas = new HashMap<>();
+            } finally {
+                franja.lock.unlock();
+            }
+            pendientes.addAndGet(-tomados.size());
+            descartados += tomados.size();
+            // Queda en el log para poder aplicarlo a mano
+            tomados.forEach((clave, pendiente) -> log.error("Delta de stock {} de {} sin escribir al apagar", pendiente.delta(), clave));
+        }
+        descartar("apagado", descartados);
+        return descartados;
+    }
+
+    private int escribir(String franquiciaId, List<IncrementoStock> lote, long desde) {
+        ResultadoLoteStock escritura;
+        try {
+            escritura = productoStore.incrementarStockEnLote(franquiciaId, lote);
+        } catch (RuntimeException e) {
+            // El driver ya reintentó lo que se podía reintentar sin duplicar: esto no se aplicó y vuelve a la cola
+            log.warn("No se pudo escribir el stock diferido de la franquicia {}, queda pendiente", franquiciaId, e);
+            lote.forEach(incremento -> devolver(new Clave(franquiciaId, incremento.sucursalId(), incremento.productoId()),
+                    incremento.delta(), desde));
+            return 0;
+        }
+
+        // Los eventos salen después de leer el stock que quedó: las lecturas en vuelo ya no sirven desde acá
+        lecturas.escrita(franquiciaId);
+        Set<Integer> descartados = new HashSet<>(escritura.errores().keySet());
+        escritura.errores().forEach((i, error) -> log.warn("Delta de stock {} de la franquicia {} rechazado: {}",
+                lote.get(i), franquiciaId, error));
+        descartar("error", descartados.size());
+
+        // Una sola lectura del stock que quedó en todo el lote: los eventos lo llevan en valor absoluto, así
+        // un índice que ya leyó el producto después del $inc no suma el delta dos veces
+        Map<String, Set<String>> pedidos = new HashMap<>();
+        lote.forEach(incremento -> pedidos.computeIfAbsent(incremento.sucursalId(), id -> new HashSet<>()).add(incremento.productoId()));
+        Map<String, Map<String, Integer>> stock = productoStore.stockProductos(franquiciaId, pedidos);
+        int noEncontrados = 0;
+        for (int i = 0; i < lote.size(); i++) {
+            if (!descartados.contains(i) && stockDe(stock, lote.get(i)) == null) {
+                descartados.add(i);
+                noEncontrados++;
+            }
+        }
+        descartar("no-encontrado", noEncontrados);
+
+        // Lo que no coincidió y existe es un descuento sin stock suficiente
+        long sinStock = Math.max(0, lote.size() - escritura.coincidencias() - escritura.errores().size() - noEncontrados);
+        descartar("sin-stock", sinStock);
+        if (sinStock > 0) {
+            log.info("{} descuentos de stock de la franquicia {} no se aplicaron por falta de stock", sinStock, franquiciaId);
+        }
+
+        for (int i = 0; i < lote.size(); i++) {
+            if (descartados.contains(i)) continue;
+            IncrementoStock incremento = lote.get(i);
+            int actual = stockDe(stock, incremento);
+            if (sinStock > 0 && incremento.delta() < 0) {
+                // No se sabe cuál de los descuentos quedó afuera: se publica solo el stock que quedó en Mongo
+                eventPublisher.publishEvent(new StockActualizadoEvent(franquiciaId,
+                        incremento.sucursalId(), incremento.productoId(), actual));
+            } else {
+                eventPublisher.publishEvent(new StockIncrementadoEvent(franquiciaId,
+                        incremento.sucursalId(), incremento.productoId(), incremento.delta(), actual));
+            }
+        }
+
+        int actualizados = (int) (lote.size() - descartados.size() - sinStock);
+        escritos.increment(actualizados);
+        return actualizados;
+    }
+
+    private int stockGuardado(Clave clave) {
+        Integer stock = productoStore.stockProductos(clave.franquiciaId(), Map.of(clave.sucursalId(), Set.of(clave.productoId())))
+                .getOrDefault(clave.sucursalId(), Map.of())
+                .get(clave.productoId());
+        if (stock == null) {
+            throw new ResourceNotFoundException("Producto", clave.productoId());
+        }
+        return stock;
+    }
+
+    private static Integer stockDe(Map<String, Map<String, Integer>> stock, IncrementoStock incremento) {
+        return stock.getOrDefault(incremento.sucursalId(), Map.of()).get(incremento.productoId());
+    }
+
+    // Vuelve a la cola conservando la antigüedad del delta para la métrica de retraso. El stock leído por
+    // un delta que llegó después no incluye lo devuelto, que tampoco se escribió: la suma sigue valiendo
+    private void devolver(Clave clave, int delta, long desde) {
+        Franja franja = franjas[Math.floorMod(clave.hashCode(), FRANJAS)];
+        int nuevos;
+        franja.lock.lock();
+        try {
+            int antes = franja.deltas.size();
+            franja.desde = antes == 0 ? desde : Math.min(franja.desde, desde);
+            Pendiente actual = franja.deltas.get(clave);
+            int suma = actual == null ? delta : actual.delta() + delta;
+            if (suma == 0) {
+                franja.deltas.remove(clave);
+            } else {
+                franja.deltas.put(clave, new Pendiente(suma, actual == null ? null : actual.stock()));
+            }
+            nuevos = franja.deltas.size() - antes;
+        } finally {
+            franja.lock.unlock();
+        }
+        pendientes.addAndGet(nuevos);
+    }
+
+    private void descartar(String motivo, long cantidad) {
+        if (cantidad == 0) return;
+        Counter.builder("franquicias.stock.diferido.descartados")
+                .description("Deltas de stock que no se aplicaron")
+                .tag("motivo", motivo)
+                .register(registry)
+                .increment(cantidad);
+    }
+
+    private double retraso() {
+        long ahora = System.nanoTime();
+        long maximo = 0;
+        for (Franja franja : franjas) {
+            franja.lock.lock();
+            try {
+                if (!franja.deltas.isEmpty()) maximo = Math.max(maximo, ahora - franja.desde);
+            } finally {
+                franja.lock.unlock();
+            }
+        }
+        return maximo;
+    }
+
+    // Un delta que suma cero deja de estar pendiente
+    private static int sumar(int actual, int delta) {
+        try {
+            return Math.addExact(actual, delta);
+        } catch (ArithmeticException e) {
+            throw new BusinessException("El stock pendiente del producto se sale de rango");
+        }
+    }
+
+    private record Clave(String franquiciaId, String sucursalId, String productoId) {
+    }
+
+    // stock: el guardado en Mongo cuando el producto entró a la cola, null si entró con un incremento o
+    // devuelto por un lote fallido y todavía no lo pidió ningún descuento
+    private record Pendiente(int delta, Integer stock) {
+    }
+
+    private static final class Franja {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private Map<Clave, Pendiente> deltas = new HashMap<>();
+        // nanoTime del primer delta que entró con la franja vacía
+        private long desde;
+
+        boolean conStock(Clave clave) {
+            lock.lock();
+            try {
+                Pendiente pendiente = deltas.get(clave);
+                return pendiente != null && pendiente.stock() != null;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
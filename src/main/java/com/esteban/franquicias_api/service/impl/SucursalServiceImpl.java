@@ -1,13 +1,20 @@
 package com.esteban.franquicias_api.service.impl;
 
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.dto.PaginaDTO;
 import com.esteban.franquicias_api.dto.ProductoDTO;
 import com.esteban.franquicias_api.dto.SucursalDTO;
-import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.event.SucursalAgregadaEvent;
+import com.esteban.franquicias_api.event.SucursalRenombradaEvent;
+import com.esteban.franquicias_api.event.UmbralStockActualizadoEvent;
+import com.esteban.franquicias_api.exception.BusinessException;
 import com.esteban.franquicias_api.model.Producto;
 import com.esteban.franquicias_api.model.Sucursal;
 import com.esteban.franquicias_api.repository.FranquiciaRepository;
+import com.esteban.franquicias_api.repository.ProductoStore;
 import com.esteban.franquicias_api.service.SucursalService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -18,72 +25,113 @@ import java.util.stream.Collectors;
 public class SucursalServiceImpl implements SucursalService {
 
     private final FranquiciaRepository franquiciaRepository;
+    private final ProductoStore productoStore;
+    private final FranquiciasProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MarcasProyeccion marcas;
 
     @Override
     public SucursalDTO agregarSucursal(String franquiciaId, SucursalDTO sucursalDTO) {
-        return franquiciaRepository.findById(franquiciaId)
-                .map(franquicia -> {
-                    Sucursal nueva = Sucursal.builder()
-                            .id(UUID.randomUUID().toString())
-                            .nombre(sucursalDTO.getNombre())
-                            .productos(Optional.ofNullable(sucursalDTO.getProductos())
-                                    .map(lista -> lista.stream()
-                                            .map(p -> new Producto(UUID.randomUUID().toString(), p.getNombre(), p.getStock()))
-                                            .collect(Collectors.toList()))
-                                    .orElse(new ArrayList<>()))
-                            .build();
-
-                    franquicia.getSucursales().add(nueva);
-                    Franquicia actualizada = franquiciaRepository.save(franquicia);
-
-                    // Retornar DTO de la sucursal recién agregada
-                    return SucursalDTO.builder()
-                            .id(nueva.getId())
-                            .nombre(nueva.getNombre())
-                            .franquiciaId(actualizada.getId())
-                            .productos(
-                                    nueva.getProductos().stream()
-                                            .map(p -> new ProductoDTO(p.getId(), p.getNombre(), p.getStock(), nueva.getId()))
-                                            .collect(Collectors.toList())
-                            )
-                            .build();
-                })
-                .orElseThrow(() -> new RuntimeException("Franquicia no encontrada"));
+        Sucursal nueva = nuevaSucursal(sucursalDTO);
+
+        return marcas.escribir(franquiciaId, nueva.getId(), () -> {
+            if (!productoStore.agregarSucursal(franquiciaId, nueva)) {
+                throw new RuntimeException("Franquicia no encontrada");
+            }
+            eventPublisher.publishEvent(new SucursalAgregadaEvent(franquiciaId, nueva));
+
+            // Retornar DTO de la sucursal recién agregada
+            return toDTO(nueva, franquiciaId);
+        });
     }
 
     @Override
     public SucursalDTO actualizarNombreSucursal(String franquiciaId, String sucursalId, String nuevoNombre) {
-        return franquiciaRepository.findById(franquiciaId)
-                .map(franquicia -> {
-                    franquicia.getSucursales().stream()
-                            .filter(s -> s.getId().equals(sucursalId))
-                            .findFirst()
-                            .ifPresentOrElse(
-                                    s -> s.setNombre(nuevoNombre),
-                                    () -> { throw new RuntimeException("Sucursal no encontrada"); }
-                            );
-                    Franquicia actualizada = franquiciaRepository.save(franquicia);
-
-                    // Convertir la sucursal actualizada en DTO
-                    Sucursal sucursal = actualizada.getSucursales().stream()
-                            .filter(s -> s.getId().equals(sucursalId))
-                            .findFirst()
-                            .orElseThrow(() -> new RuntimeException("Error actualizando sucursal"));
-
-                    return SucursalDTO.builder()
-                            .id(sucursal.getId())
-                            .nombre(sucursal.getNombre())
-                            .franquiciaId(actualizada.getId())
-                            .productos(
-                                    sucursal.getProductos().stream()
-                                            .map(p -> new ProductoDTO(p.getId(), p.getNombre(), p.getStock(), sucursal.getId()))
-                                            .collect(Collectors.toList())
-                            )
-                            .build();
-                })
-                .orElseThrow(() -> new RuntimeException("Franquicia no encontrada"));
+        return marcas.escribir(franquiciaId, sucursalId, () -> {
+            Sucursal sucursal = productoStore.actualizarNombreSucursal(franquiciaId, sucursalId, nuevoNombre)
+                    .orElseThrow(() -> franquiciaRepository.existsById(franquiciaId)
+                            ? new RuntimeException("Sucursal no encontrada")
+                            : new RuntimeException("Franquicia no encontrada"));
+
+            eventPublisher.publishEvent(new SucursalRenombradaEvent(franquiciaId, sucursalId, sucursal.getNombre()));
+            return toDTO(sucursal, franquiciaId);
+        });
     }
 
+    @Override
+    public int actualizarUmbralStock(String franquiciaId, String sucursalId, Integer umbral) {
+        if (umbral == null) {
+            throw new BusinessException("El umbral es obligatorio");
+        }
+        validarUmbralStock(umbral);
+
+        if (!franquiciaRepository.actualizarUmbralStock(franquiciaId, sucursalId, umbral)) {
+            throw franquiciaRepository.existsById(franquiciaId)
+                    ? new RuntimeException("Sucursal no encontrada")
+                    : new RuntimeException("Franquicia no encontrada");
+        }
+        eventPublisher.publishEvent(new UmbralStockActualizadoEvent(franquiciaId, sucursalId, umbral));
+        return umbral;
+    }
 
+    @Override
+    public SucursalDTO obtenerSucursal(String franquiciaId, String sucursalId) {
+        Sucursal sucursal = productoStore.sucursal(franquiciaId, sucursalId)
+                .orElseThrow(() -> franquiciaRepository.existsById(franquiciaId)
+                        ? new RuntimeException("Sucursal no encontrada")
+                        : new RuntimeException("Franquicia no encontrada"));
+        return toDTO(sucursal, franquiciaId);
+    }
 
+    @Override
+    public PaginaDTO<SucursalDTO> listarSucursales(String franquiciaId, String despues, Integer limite) {
+        int tamano = Paginacion.limite(limite, properties);
+        List<SucursalDTO> leidas = franquiciaRepository.paginaSucursales(franquiciaId, despues, tamano + 1)
+                .orElseThrow(() -> new RuntimeException("Franquicia no encontrada"))
+                .stream()
+                .map(s -> resumen(s, franquiciaId))
+                .toList();
+        return PaginaDTO.de(leidas, tamano, SucursalDTO::getId);
+    }
+
+    // Compartidos con ReactiveSucursalServiceImpl
+
+    static Sucursal nuevaSucursal(SucursalDTO sucursalDTO) {
+        if (sucursalDTO.getUmbralStock() != null) validarUmbralStock(sucursalDTO.getUmbralStock());
+        return Sucursal.builder()
+                .id(UUID.randomUUID().toString())
+                .nombre(sucursalDTO.getNombre())
+                .productos(Optional.ofNullable(sucursalDTO.getProductos())
+                        .map(lista -> lista.stream()
+                                .map(p -> new Producto(UUID.randomUUID().toString(), p.getNombre(), p.getStock()))
+                                .collect(Collectors.toList()))
+                        .orElse(new ArrayList<>()))
+                .umbralStock(sucursalDTO.getUmbralStock())
+                .build();
+    }
+
+    static void validarUmbralStock(int umbral) {
+        if (umbral < 0) {
+            throw new BusinessException("El umbral no puede ser negativo");
+        }
+    }
+
+    // Los listados no traen los productos: quedan en null
+    static SucursalDTO resumen(Sucursal sucursal, String franquiciaId) {
+        return new SucursalDTO(sucursal.getId(), sucursal.getNombre(), franquiciaId);
+    }
+
+    static SucursalDTO toDTO(Sucursal sucursal, String franquiciaId) {
+        return SucursalDTO.builder()
+                .id(sucursal.getId())
+                .nombre(sucursal.getNombre())
+                .franquiciaId(franquiciaId)
+                .umbralStock(sucursal.getUmbralStock())
+                .productos(
+                        sucursal.getProductos().stream()
+                                .map(p -> new ProductoDTO(p.getId(), p.getNombre(), p.getStock(), sucursal.getId()))
+                                .collect(Collectors.toList())
+                )
+                .build();
+    }
 }
@@ -0,0 +1,58 @@
+package com.esteban.franquicias_api.service.impl;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.service.MovimientosStockService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ScheduledFuture;
+
+// Escribe los movimientos de stock encolados cada franquicias.movimientos.intervalo y una última vez al apagar.
+// La fase -1 lo detiene después de VaciadoStockDiferido, que al vaciarse todavía publica movimientos.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VaciadoMovimientosStock implements SmartLifecycle {
+
+    private final MovimientosStockService movimientosStockService;
+    private final TaskScheduler scheduler;
+    private final FranquiciasProperties properties;
+
+    private volatile ScheduledFuture<?> periodico;
+
+    @Override
+    public void start() {
+        periodico = scheduler.scheduleWithFixedDelay(this::vaciar, properties.getMovimientos().getIntervalo());
+    }
+
+    @Override
+    public void stop() {
+        periodico.cancel(false);
+        periodico = null;
+        int escritos = vaciar();
+        log.info("Movimientos de stock escritos al apagar: {}", escritos);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return periodico != null;
+    }
+
+    @Override
+    public int getPhase() {
+        return -1;
+    }
+
+    // Una excepción cancelaría las ejecuciones siguientes
+    private int vaciar() {
+        try {
+            return movimientosStockService.vaciar();
+        } catch (RuntimeException e) {
+            log.warn("Falló la escritura de los movimientos de stock", e);
+            return 0;
+        }
+    }
+}
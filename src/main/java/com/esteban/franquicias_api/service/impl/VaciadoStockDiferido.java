@@ -0,0 +1,79 @@
+package com.esteban.franquicias_api.service.impl;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.service.StockDiferidoService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ScheduledFuture;
+
+// Vacía el stock diferido cada franquicias.stock.diferido.intervalo y una última vez al apagar. La fase 0
+// hace que se detenga después del servidor web, así que ninguna petición acumula tras el último vaciado.
+// Si Mongo no responde, el último vaciado se reintenta hasta franquicias.stock.diferido.plazo-apagado; lo que
+// queda después se descarta, se cuenta y se deja en el log.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VaciadoStockDiferido implements SmartLifecycle {
+
+    private final StockDiferidoService stockDiferidoService;
+    private final TaskScheduler scheduler;
+    private final FranquiciasProperties properties;
+
+    private volatile ScheduledFuture<?> periodico;
+
+    @Override
+    public void start() {
+        periodico = scheduler.scheduleWithFixedDelay(this::vaciar, properties.getStock().getDiferido().getIntervalo());
+    }
+
+    @Override
+    public void stop() {
+        periodico.cancel(false);
+        periodico = null;
+        Instant limite = Instant.now().plus(properties.getStock().getDiferido().getPlazoApagado());
+        int escritos = vaciar();
+        long espera = 100;
+        while (stockDiferidoService.pendientes() > 0 && Instant.now().isBefore(limite)) {
+            try {
+                Thread.sleep(Math.min(espera, Math.max(1, Duration.between(Instant.now(), limite).toMillis())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            espera = Math.min(espera * 2, 1000);
+            escritos += vaciar();
+        }
+        log.info("Stock diferido vaciado al apagar: {} productos", escritos);
+
+        if (stockDiferidoService.pendientes() > 0) {
+            int descartados = stockDiferidoService.descartarPendientes();
+            log.error("{} productos con stock diferido sin escribir al apagar, se descartan", descartados);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return periodico != null;
+    }
+
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    // Una excepción cancelaría las ejecuciones siguientes; lo no escrito ya quedó pendiente
+    private int vaciar() {
+        try {
+            return stockDiferidoService.vaciar();
+        } catch (RuntimeException e) {
+            log.warn("Falló el vaciado del stock diferido", e);
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.esteban.franquicias_api.service.impl;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.dto.PaginaDTO;
+import com.esteban.franquicias_api.dto.VistaSucursalDTO;
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.MarcaProyeccion;
+import com.esteban.franquicias_api.model.Producto;
+import com.esteban.franquicias_api.model.Sucursal;
+import com.esteban.franquicias_api.model.VistaSucursal;
+import com.esteban.franquicias_api.repository.PendientesProyeccion;
+import com.esteban.franquicias_api.repository.ProductoStore;
+import com.esteban.franquicias_api.repository.VistaSucursales;
+import com.esteban.franquicias_api.service.VistaSucursalesService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+// Lado de lectura por sucursal. Las escrituras no tocan la vista: dejan una marca (ver MarcasProyeccion) y
+// proyectar relee cada sucursal marcada desde el modelo de escritura, así que no importa en qué orden lleguen
+// los cambios ni si se perdió alguno en el medio. Una marca solo se borra si nadie la tocó durante la proyección.
+// No pasa por MetricasServicios: proyectar corre cada segundo y tiene sus propias métricas.
+@Slf4j
+@Service
+public class VistaSucursalesServiceImpl implements VistaSucursalesService {
+
+    private final VistaSucursales vistas;
+    private final PendientesProyeccion pendientes;
+    private final ProductoStore productoStore;
+    private final TaskScheduler scheduler;
+    private final FranquiciasProperties properties;
+    private final int tamanoLote;
+    private final Duration plazo;
+
+    private final AtomicBoolean proyeccionSolicitada = new AtomicBoolean();
+    private final ReentrantLock proyectando = new ReentrantLock();
+    // Leídas al final de cada proyección: las métricas no consultan Mongo en cada scrape
+    private volatile Instant masAntigua;
+    private volatile long cantidadPendientes;
+
+    private final Counter proyectadas;
+    private final Timer demora;
+
+    public VistaSucursalesServiceImpl(VistaSucursales vistas, PendientesProyeccion pendientes, ProductoStore productoStore,
+                                      TaskScheduler scheduler, FranquiciasProperties properties, MeterRegistry registry) {
+        this.vistas = vistas;
+        this.pendientes = pendientes;
+        this.productoStore = productoStore;
+        this.scheduler = scheduler;
+        this.properties = properties;
+        this.tamanoLote = properties.getProyeccion().getTamanoLote();
+        this.plazo = properties.getProyeccion().getPlazo();
+
+        this.proyectadas = Counter.builder("franquicias.proyeccion.proyectadas")
+                .description("Sucursales pasadas a la vista")
+                .register(registry);
+        this.demora = Timer.builder("franquicias.proyeccion.demora")
+                .description("Desde el primer cambio de una sucursal hasta que quedó en la vista")
+                .register(registry);
+        Gauge.builder("franquicias.proyeccion.pendientes", this, servicio -> servicio.cantidadPendientes)
+                .description("Sucursales con cambios todavía sin pasar a la vista")
+                .register(registry);
+        TimeGauge.builder("franquicias.proyeccion.retraso", this, TimeUnit.NANOSECONDS, VistaSucursalesServiceImpl::retraso)
+                .description("Antigüedad del cambio más viejo que todavía no está en la vista")
+                .register(registry);
+    }
+
+    @Override
+    public VistaSucursalDTO obtenerSucursal(String franquiciaId, String sucursalId) {
+        return vistas.obtener(franquiciaId, sucursalId)
+                .map(VistaSucursalesServiceImpl::toDTO)
+                .orElseThrow(() -> new RuntimeException("Sucursal no encontrada"));
+    }
+
+    @Override
+    public PaginaDTO<VistaSucursalDTO> listarSucursales(String franquiciaId, String despues, Integer limite) {
+        int tamano = Paginacion.limite(limite, properties);
+        List<VistaSucursalDTO> leidas = vistas.pagina(franquiciaId, despues, tamano + 1).stream()
+                .map(VistaSucursalesServiceImpl::toDTO)
+                .toList();
+        return PaginaDTO.de(leidas, tamano, VistaSucursalDTO::getId);
+    }
+
+    @Override
+    public int proyectar() {
+        proyectando.lock();
+        try {
+            proyeccionSolicitada.set(false);
+            List<MarcaProyeccion> marcas = pendientes.pendientes(Instant.now().minus(plazo), tamanoLote);
+            int quitadas = 0;
+            for (MarcaProyeccion marca : marcas) {
+                if (proyectar(marca)) quitadas++;
+            }
+            masAntigua = pendientes.masAntigua().orElse(null);
+            cantidadPendientes = pendientes.cantidad();
+
+            // Quedan más: se sigue enseguida, salvo que el lote entero haya fallado o vuelto a cambiar
+            if (marcas.size() == tamanoLote && quitadas > 0) solicitarProyeccion();
+            return quitadas;
+        } finally {
+            proyectando.unlock();
+        }
+    }
+
+    @Override
+    public void solicitarProyeccion() {
+        if (!proyeccionSolicitada.compareAndSet(false, true)) return;
+        try {
+            scheduler.schedule(this::proyectarSinError, Instant.now());
+        } catch (TaskRejectedException e) {
+            // Apagando: lo pendiente queda marcado para el próximo arranque
+            proyeccionSolicitada.set(false);
+        }
+    }
+
+    @Override
+    public int reconstruir() {
+        int marcadas = 0;
+        // Marca sin proyectar: la vista sigue respondiendo mientras tanto y proyectar la pone al día en lotes
+        try (Stream<Franquicia> franquicias = productoStore.franquiciasCompletas()) {
+            for (Franquicia franquicia : (Iterable<Franquicia>) franquicias::iterator) {
+                List<String> sucursalIds = franquicia.getSucursales().stream().map(Sucursal::getId).toList();
+                pendientes.marcar(Map.of(franquicia.getId(), sucursalIds));
+                marcadas += sucursalIds.size();
+            }
+        }
+        log.info("Vista por sucursal: {} sucursales marcadas para reconstruir", marcadas);
+        solicitarProyeccion();
+        return marcadas;
+    }
+
+    private boolean proyectar(MarcaProyeccion marca) {
+        try {
+            Optional<Sucursal> sucursal = productoStore.sucursal(marca.getFranquiciaId(), marca.getSucursalId());
+            if (sucursal.isPresent()) {
+                vistas.guardar(vista(marca.getFranquiciaId(), sucursal.get()));
+            } else {
+                // Sucursal que ya no existe o escritura que falló antes de crearla
+                vistas.quitar(marca.getFranquiciaId(), marca.getSucursalId());
+            }
+            if (!pendientes.quitar(marca)) return false;
+        } catch (RuntimeException e) {
+            log.warn("No se pudo proyectar la sucursal {} de la franquicia {}, queda pendiente",
+                    marca.getSucursalId(), marca.getFranquiciaId(), e);
+            return false;
+        }
+        proyectadas.increment();
+        demora.record(Duration.between(marca.getDesde(), Instant.now()));
+        return true;
+    }
+
+    // Una excepción en una tarea programada no se ve en ningún lado
+    private void proyectarSinError() {
+        try {
+            proyectar();
+        } catch (RuntimeException e) {
+            log.warn("Falló la proyección de la vista por sucursal", e);
+        }
+    }
+
+    private double retraso() {
+        Instant desde = masAntigua;
+        return desde == null ? 0 : Math.max(0, Duration.between(desde, Instant.now()).toNanos());
+    }
+
+    static VistaSucursal vista(String franquiciaId, Sucursal sucursal) {
+        List<Producto> productos = Optional.ofNullable(sucursal.getProductos()).orElse(List.of());
+        Producto conMasStock = null;
+        long stockTotal = 0;
+        for (Producto producto : productos) {
+            stockTotal += producto.getStock();
+            if (conMasStock == null || producto.getStock() > conMasStock.getStock()) conMasStock = producto;
+        }
+        return VistaSucursal.builder()
+                .id(sucursal.getId())
+                .franquiciaId(franquiciaId)
+                .nombre(sucursal.getNombre())
+                .productos(productos)
+                .totalProductos(productos.size())
+                .stockTotal(stockTotal)
+                .productoConMasStock(conMasStock)
+                .actualizada(Instant.now())
+                .build();
+    }
+
+    static VistaSucursalDTO toDTO(VistaSucursal vista) {
+        return VistaSucursalDTO.builder()
+                .id(vista.getId())
+                .nombre(vista.getNombre())
+                .franquiciaId(vista.getFranquiciaId())
+                .productos(vista.getProductos().stream()
+                        .map(producto -> ProductoServiceImpl.toDTO(producto, vista.getId()))
+                        .toList())
+                .totalProductos(vista.getTotalProductos())
+                .stockTotal(vista.getStockTotal())
+                .productoConMasStock(vista.getProductoConMasStock() == null ? null
+                        : ProductoServiceImpl.toDTO(vista.getProductoConMasStock(), vista.getId()))
+                .actualizada(vista.getActualizada())
+                .build();
+    }
+}
@@ -3,7 +3,8 @@ package com.esteban.franquicias_api;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// Sin índices al iniciar: el contexto tiene que levantar sin conexión a Mongo
+@SpringBootTest(properties = "franquicias.indices.crear-al-iniciar=false")
 class FranquiciasApiApplicationTests {
 
 	@Test
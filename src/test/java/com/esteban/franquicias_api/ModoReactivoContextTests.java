@@ -0,0 +1,27 @@
+package com.esteban.franquicias_api;
+
+import com.esteban.franquicias_api.controller.FranquiciaController;
+import com.esteban.franquicias_api.controller.ReactiveFranquiciaController;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// El perfil reactive levanta WebFlux con los controladores reactivos y sin los bloqueantes
+@SpringBootTest(properties = "franquicias.indices.crear-al-iniciar=false")
+@ActiveProfiles("reactive")
+class ModoReactivoContextTests {
+
+	@Autowired
+	private ApplicationContext context;
+
+	@Test
+	void contextLoads() {
+		assertThat(context.getBeanNamesForType(ReactiveFranquiciaController.class)).hasSize(1);
+		assertThat(context.getBeanNamesForType(FranquiciaController.class)).isEmpty();
+	}
+
+}
@@ -0,0 +1,140 @@
+package com.esteban.franquicias_api.benchmark;
+
+import com.esteban.franquicias_api.FranquiciasApiApplication;
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.config.GeneradorFranquicias;
+import com.esteban.franquicias_api.model.Franquicia;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.testcontainers.containers.MongoDBContainer;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.IntFunction;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Reportes de /api/analitica sobre el catálogo sintético de GeneradorFranquicias (por defecto 1000 franquicias
+// x 10 sucursales x 1000 productos = 10M productos), una petición a la vez. Falla si el p99 de algún reporte
+// supera su presupuesto. En modo memoria el heap tiene que alcanzar para el catálogo (unos 3 GB):
+// mvn test -Pbenchmark -Dtest=AnaliticaBenchmark -DargLine=-Xmx6g
+// Con -Dbenchmark.repositorio=mongo mide las agregaciones con productos embebidos, contra
+// -Dbenchmark.mongo-uri o un contenedor mongo:7.0. El catálogo se carga solo si la colección no tiene ya
+// esa cantidad de franquicias, así que una base externa se carga una vez y sirve para varias corridas.
+@Tag("benchmark")
+class AnaliticaBenchmark {
+
+    private static final int FRANQUICIAS = Integer.getInteger("benchmark.franquicias", 1_000);
+    private static final int SUCURSALES = Integer.getInteger("benchmark.sucursales", 10);
+    private static final int PRODUCTOS = Integer.getInteger("benchmark.productos", 1_000);
+    private static final int PETICIONES = Integer.getInteger("benchmark.peticiones", 50);
+    private static final boolean MONGO = "mongo".equals(System.getProperty("benchmark.repositorio", "memoria"));
+    private static final String MONGO_URI = System.getProperty("benchmark.mongo-uri");
+    // Presupuestos de p99 en ms para los listados por stock y para los totales (una página de franquicias)
+    private static final int PRESUPUESTO_STOCK_MS = Integer.getInteger("benchmark.presupuesto-stock-ms", 5_000);
+    private static final int PRESUPUESTO_TOTALES_MS = Integer.getInteger("benchmark.presupuesto-totales-ms", 500);
+
+    private static final Pattern LINK = Pattern.compile("[?&]despues=([^&>]+)");
+
+    private final CargaHttp carga = new CargaHttp();
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final List<CargaHttp.Resultado> resultados = new ArrayList<>();
+
+    @Test
+    void reportesSobreTodoElCatalogo() throws Exception {
+        if (!MONGO) {
+            medir("memoria", new SpringApplicationBuilder(FranquiciasApiApplication.class).profiles("memoria"),
+                    "--franquicias.memoria.generador.franquicias=" + FRANQUICIAS,
+                    "--franquicias.memoria.generador.sucursales=" + SUCURSALES,
+                    "--franquicias.memoria.generador.productos=" + PRODUCTOS);
+        } else if (MONGO_URI != null) {
+            medir("Mongo", new SpringApplicationBuilder(FranquiciasApiApplication.class), "--spring.data.mongodb.uri=" + MONGO_URI);
+        } else {
+            try (MongoDBContainer mongo = new MongoDBContainer("mongo:7.0")) {
+                mongo.start();
+                medir("Mongo", new SpringApplicationBuilder(FranquiciasApiApplication.class),
+                        "--spring.data.mongodb.uri=" + mongo.getReplicaSetUrl("franquicias"));
+            }
+        }
+        assertThat(resultados).allSatisfy(r -> assertThat(r.errores()).isZero());
+    }
+
+    private void medir(String modo, SpringApplicationBuilder builder, String... args) throws Exception {
+        List<String> argumentos = new ArrayList<>(List.of(
+                "--server.port=0",
+                // Nada de trabajo de fondo que lea las franquicias mientras se mide
+                "--franquicias.proyeccion.habilitada=false",
+                "--franquicias.movimientos.habilitado=false",
+                "--franquicias.alertas.barrido.habilitado=false",
+                "--franquicias.top-stock.verificacion.habilitada=false"));
+        argumentos.addAll(List.of(args));
+        try (ConfigurableApplicationContext app = builder.run(argumentos.toArray(String[]::new))) {
+            if (MONGO) cargar(app.getBean(MongoTemplate.class));
+            String analitica = "http://localhost:" + app.getEnvironment().getProperty("local.server.port") + "/api/analitica";
+            String mayorStock = analitica + "/productos/mayor-stock?limite=100";
+            String stockBajo = analitica + "/productos/stock-bajo?umbral=10&limite=100";
+            // Cursores de la segunda página: miden la misma consulta con el filtro del keyset
+            String despuesMayor = siguiente(mayorStock);
+            String despuesBajo = siguiente(stockBajo);
+
+            escenario("mayor-stock, primera página", PRESUPUESTO_STOCK_MS, n -> get(mayorStock));
+            escenario("mayor-stock, segunda página", PRESUPUESTO_STOCK_MS, n -> get(mayorStock + "&despues=" + despuesMayor));
+            escenario("stock-bajo, primera página", PRESUPUESTO_STOCK_MS, n -> get(stockBajo));
+            escenario("stock-bajo, segunda página", PRESUPUESTO_STOCK_MS, n -> get(stockBajo + "&despues=" + despuesBajo));
+            escenario("totales (limite 100)", PRESUPUESTO_TOTALES_MS,
+                    n -> get(analitica + "/franquicias/totales?limite=100&despues=" + GeneradorFranquicias.id(n % FRANQUICIAS)));
+
+            CargaHttp.imprimir(String.format("Analítica en %s, %d productos, %d CPU", modo,
+                    (long) FRANQUICIAS * SUCURSALES * PRODUCTOS, Runtime.getRuntime().availableProcessors()),
+                    resultados.toArray(CargaHttp.Resultado[]::new));
+        }
+    }
+
+    // El mismo catálogo que genera el modo memoria, de a 10 franquicias por insert
+    private static void cargar(MongoTemplate mongo) {
+        if (mongo.count(new Query(), Franquicia.class) == FRANQUICIAS) return;
+        mongo.remove(new Query(), Franquicia.class);
+        FranquiciasProperties.Generador config = new FranquiciasProperties.Generador();
+        config.setFranquicias(FRANQUICIAS);
+        config.setSucursales(SUCURSALES);
+        config.setProductos(PRODUCTOS);
+        SplittableRandom random = new SplittableRandom(config.getSemilla());
+        List<Franquicia> lote = new ArrayList<>();
+        for (int i = 1; i <= FRANQUICIAS; i++) {
+            lote.add(GeneradorFranquicias.franquicia(i, config, random));
+            if (lote.size() == 10 || i == FRANQUICIAS) {
+                mongo.insert(lote, Franquicia.class);
+                lote.clear();
+            }
+        }
+    }
+
+    private void escenario(String nombre, int presupuestoMs, IntFunction<HttpRequest> peticion) throws Exception {
+        // Calentamiento antes de medir
+        carga.cargar(Math.max(1, PETICIONES / 10), 1, peticion);
+        CargaHttp.Resultado resultado = carga.cargar(PETICIONES, 1, peticion).con(nombre);
+        resultados.add(resultado);
+        assertThat(resultado.percentil(0.99)).as("p99 de %s", nombre).isLessThanOrEqualTo(presupuestoMs);
+    }
+
+    private String siguiente(String uri) throws Exception {
+        HttpResponse<Void> respuesta = http.send(get(uri), HttpResponse.BodyHandlers.discarding());
+        String link = respuesta.headers().firstValue("Link").orElseThrow();
+        // Ya viene codificado para la URL
+        return LINK.matcher(link).results().findFirst().orElseThrow().group(1);
+    }
+
+    private static HttpRequest get(String uri) {
+        return HttpRequest.newBuilder(URI.create(uri)).build();
+    }
+}
@@ -0,0 +1,101 @@
+package com.esteban.franquicias_api.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Generador de carga compartido por los benchmarks HTTP: un hilo virtual por petición y un
+// semáforo que fija cuántas hay en vuelo
+final class CargaHttp {
+
+    private static final Pattern ID = Pattern.compile("\"id\":\"([^\"]+)\"");
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    Resultado cargar(int peticiones, int concurrencia, IntFunction<HttpRequest> peticion) throws InterruptedException {
+        long[] duraciones = new long[peticiones];
+        AtomicInteger errores = new AtomicInteger();
+        Semaphore enVuelo = new Semaphore(concurrencia);
+
+        long inicio = System.nanoTime();
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < peticiones; i++) {
+                int n = i;
+                enVuelo.acquire();
+                hilos.submit(() -> {
+                    try {
+                        long t0 = System.nanoTime();
+                        HttpResponse<Void> respuesta = http.send(peticion.apply(n), HttpResponse.BodyHandlers.discarding());
+                        duraciones[n] = System.nanoTime() - t0;
+                        if (respuesta.statusCode() != 200) errores.incrementAndGet();
+                    } catch (Exception e) {
+                        errores.incrementAndGet();
+                    } finally {
+                        enVuelo.release();
+                    }
+                });
+            }
+        }
+        return new Resultado(null, peticiones / ((System.nanoTime() - inicio) / 1e9), duraciones, errores.get());
+    }
+
+    String enviar(String uri, String cuerpo, String metodo) throws Exception {
+        return http.send(json(uri, cuerpo, metodo), HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    String obtener(String uri) throws Exception {
+        return http.send(HttpRequest.newBuilder(URI.create(uri)).build(), HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    static HttpRequest json(String uri, String cuerpo, String metodo) {
+        return HttpRequest.newBuilder(URI.create(uri))
+                .header("Content-Type", "application/json")
+                .method(metodo, HttpRequest.BodyPublishers.ofString(cuerpo))
+                .build();
+    }
+
+    static List<String> ids(String json) {
+        return ID.matcher(json).results().map(m -> m.group(1)).toList();
+    }
+
+    static String id(String json) {
+        Matcher m = ID.matcher(json);
+        if (!m.find()) throw new IllegalStateException("Respuesta sin id: " + json);
+        return m.group(1);
+    }
+
+    static void imprimir(String titulo, Resultado... resultados) {
+        System.out.printf("%n%s%n", titulo);
+        System.out.println("| Modo | req/s | p50 ms | p99 ms | errores |");
+        System.out.println("| ---- | ----- | ------ | ------ | ------- |");
+        Arrays.stream(resultados).forEach(System.out::println);
+    }
+
+    record Resultado(String modo, double porSegundo, long[] duraciones, int errores) {
+
+        Resultado con(String modo) {
+            return new Resultado(modo, porSegundo, duraciones, errores);
+        }
+
+        double percentil(double p) {
+            long[] ordenadas = duraciones.clone();
+            Arrays.sort(ordenadas);
+            return ordenadas[(int) Math.min(ordenadas.length - 1, Math.ceil(p * ordenadas.length) - 1)] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("| %s | %.0f | %.1f | %.1f | %d |", modo, porSegundo, percentil(0.50), percentil(0.99), errores);
+        }
+    }
+}
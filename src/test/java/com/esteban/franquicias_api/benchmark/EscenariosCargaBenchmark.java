@@ -0,0 +1,119 @@
+package com.esteban.franquicias_api.benchmark;
+
+import com.esteban.franquicias_api.FranquiciasApiApplication;
+import com.esteban.franquicias_api.config.GeneradorFranquicias;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.regex.Pattern;
+
+// Un escenario de carga por endpoint contra el modo memoria (sin Mongo ni Docker), con latencia
+// inyectada en el repositorio y franquicias sintéticas. Se corre con:
+// mvn test -Pbenchmark -Dtest=EscenariosCargaBenchmark
+@Tag("benchmark")
+class EscenariosCargaBenchmark {
+
+    private static final int LATENCIA_MS = Integer.getInteger("benchmark.latencia-ms", 2);
+    private static final int CONCURRENCIA = Integer.getInteger("benchmark.concurrencia", 64);
+    private static final int PETICIONES = Integer.getInteger("benchmark.peticiones", 5_000);
+    private static final int FRANQUICIAS = 20;
+
+    private static final Pattern TOP = Pattern.compile("\"id\":\"([^\"]+)\",\"nombre\":\"[^\"]*\",\"stock\":\\d+,\"sucursalId\":\"([^\"]+)\"");
+
+    private final CargaHttp carga = new CargaHttp();
+    private final List<CargaHttp.Resultado> resultados = new ArrayList<>();
+
+    // franquicia, sucursal y producto de cada producto con más stock de las franquicias generadas
+    private record Destino(String franquicia, String sucursal, String producto) {
+    }
+
+    @Test
+    void todosLosEndpoints() throws Exception {
+        try (ConfigurableApplicationContext app = new SpringApplicationBuilder(FranquiciasApiApplication.class)
+                .profiles("memoria")
+                .run(
+                        "--server.port=0",
+                        "--franquicias.memoria.latencia=" + LATENCIA_MS + "ms",
+                        "--franquicias.admision.habilitada=false",
+                        "--franquicias.proyeccion.habilitada=false",
+                        "--franquicias.memoria.generador.franquicias=" + FRANQUICIAS,
+                        "--franquicias.memoria.generador.sucursales=50",
+                        "--franquicias.memoria.generador.productos=200")) {
+            String franquicias = "http://localhost:" + app.getEnvironment().getProperty("local.server.port") + "/api/franquicias";
+            String api = franquicias + "/";
+            List<Destino> destinos = destinos(api);
+            String nueva = CargaHttp.id(carga.enviar(franquicias, "{\"nombre\":\"Carga\"}", "POST"));
+            String sucursalNueva = CargaHttp.id(carga.enviar(api + nueva + "/sucursales", "{\"nombre\":\"Carga\"}", "POST"));
+            List<Destino> primera = destinos.stream().filter(d -> d.franquicia().equals(GeneradorFranquicias.id(1))).toList();
+
+            escenario("GET top-stock", n -> get(api + GeneradorFranquicias.id(n % FRANQUICIAS + 1) + "/productos/top-stock"));
+            escenario("GET sucursal", n -> get(sucursal(api, destinos.get(n % destinos.size()))));
+            escenario("GET productos", n -> get(sucursal(api, destinos.get(n % destinos.size())) + "/productos"));
+            escenario("GET producto", n -> get(producto(api, destinos.get(n % destinos.size()))));
+            escenario("GET franquicias (limite 10)", n -> get(franquicias + "?limite=10&despues=" + GeneradorFranquicias.id(n % FRANQUICIAS)));
+            escenario("GET sucursales (limite 10)", n -> get(api + GeneradorFranquicias.id(n % FRANQUICIAS + 1) + "/sucursales?limite=10"));
+            escenario("GET productos (limite 50)", n -> get(sucursal(api, destinos.get(n % destinos.size())) + "/productos?limite=50"));
+            escenario("PUT stock", n -> CargaHttp.json(producto(api, destinos.get(n % destinos.size())) + "/stock",
+                    "{\"nuevoStock\":" + (10_000 + n) + "}", "PUT"));
+            escenario("PUT stock:batch (10)", n -> {
+                StringBuilder lote = new StringBuilder("[");
+                for (int i = 0; i < 10; i++) {
+                    Destino destino = primera.get((n * 10 + i) % primera.size());
+                    lote.append(i == 0 ? "" : ",").append("{\"sucursalId\":\"").append(destino.sucursal())
+                            .append("\",\"productoId\":\"").append(destino.producto()).append("\",\"nuevoStock\":").append(n).append('}');
+                }
+                return CargaHttp.json(api + GeneradorFranquicias.id(1) + "/stock:batch", lote.append(']').toString(), "PUT");
+            });
+            escenario("PUT nombre producto", n -> CargaHttp.json(producto(api, destinos.get(n % destinos.size())),
+                    "{\"nuevoNombre\":\"Producto " + n + "\"}", "PUT"));
+            escenario("PUT nombre sucursal", n -> CargaHttp.json(sucursal(api, destinos.get(n % destinos.size())),
+                    "{\"nombre\":\"Sucursal " + n + "\"}", "PUT"));
+            escenario("PUT nombre franquicia", n -> CargaHttp.json(api + GeneradorFranquicias.id(n % FRANQUICIAS + 1),
+                    "{\"nuevoNombre\":\"Franquicia " + n + "\"}", "PUT"));
+            escenario("POST franquicia", n -> CargaHttp.json(franquicias, "{\"nombre\":\"Nueva " + n + "\"}", "POST"));
+            escenario("POST sucursal", n -> CargaHttp.json(api + nueva + "/sucursales", "{\"nombre\":\"Sucursal " + n + "\"}", "POST"));
+            escenario("POST producto", n -> CargaHttp.json(api + nueva + "/sucursales/" + sucursalNueva + "/productos",
+                    "{\"nombre\":\"Producto " + n + "\",\"stock\":" + n + "}", "POST"));
+            // Cada producto se elimina una sola vez, así que hay tantas peticiones como destinos
+            resultados.add(carga.cargar(destinos.size(), CONCURRENCIA,
+                    n -> HttpRequest.newBuilder(URI.create(producto(api, destinos.get(n)))).DELETE().build()).con("DELETE producto"));
+        }
+
+        CargaHttp.imprimir(String.format("Modo memoria, latencia repositorio %d ms, concurrencia %d, %d peticiones por escenario",
+                LATENCIA_MS, CONCURRENCIA, PETICIONES), resultados.toArray(CargaHttp.Resultado[]::new));
+    }
+
+    private void escenario(String nombre, IntFunction<HttpRequest> peticion) throws InterruptedException {
+        carga.cargar(PETICIONES / 10, CONCURRENCIA, peticion);
+        resultados.add(carga.cargar(PETICIONES, CONCURRENCIA, peticion).con(nombre));
+    }
+
+    private List<Destino> destinos(String api) throws Exception {
+        List<Destino> destinos = new ArrayList<>();
+        for (int i = 1; i <= FRANQUICIAS; i++) {
+            String franquicia = GeneradorFranquicias.id(i);
+            TOP.matcher(carga.obtener(api + franquicia + "/productos/top-stock")).results()
+                    .forEach(m -> destinos.add(new Destino(franquicia, m.group(2), m.group(1))));
+        }
+        return destinos;
+    }
+
+    private static HttpRequest get(String uri) {
+        return HttpRequest.newBuilder(URI.create(uri)).GET().build();
+    }
+
+    private static String sucursal(String api, Destino destino) {
+        return api + destino.franquicia() + "/sucursales/" + destino.sucursal();
+    }
+
+    private static String producto(String api, Destino destino) {
+        return sucursal(api, destino) + "/productos/" + destino.producto();
+    }
+}
@@ -0,0 +1,61 @@
+package com.esteban.franquicias_api.benchmark;
+
+import com.esteban.franquicias_api.FranquiciasApiApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+
+// Misma carga HTTP con Tomcat sobre hilos de plataforma y sobre hilos virtuales. Corre en modo memoria con
+// franquicias.memoria.latencia simulando la ida y vuelta a Mongo, así que no hace falta Mongo ni Docker.
+// Se corre con: mvn test -Pbenchmark -Dtest=HilosVirtualesBenchmark
+@Tag("benchmark")
+class HilosVirtualesBenchmark {
+
+    private static final int LATENCIA_MS = Integer.getInteger("benchmark.latencia-ms", 500);
+    private static final int CONCURRENCIA = Integer.getInteger("benchmark.concurrencia", 800);
+    private static final int PETICIONES = Integer.getInteger("benchmark.peticiones", 8_000);
+
+    private final CargaHttp carga = new CargaHttp();
+
+    @Test
+    void plataformaContraVirtuales() throws Exception {
+        CargaHttp.imprimir(String.format("Latencia repositorio %d ms, concurrencia %d, %d peticiones", LATENCIA_MS, CONCURRENCIA, PETICIONES),
+                medir("hilos de plataforma", false),
+                medir("hilos virtuales", true));
+    }
+
+    CargaHttp.Resultado medir(String modo, boolean virtuales) throws Exception {
+        try (ConfigurableApplicationContext app = new SpringApplicationBuilder(FranquiciasApiApplication.class)
+                .profiles("memoria")
+                .run(
+                        "--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtuales,
+                        "--franquicias.memoria.latencia=" + LATENCIA_MS + "ms",
+                        "--franquicias.busqueda.indice-habilitado=false",
+                        "--franquicias.admision.habilitada=false",
+                        // Solo se mide el camino de la petición: nada de trabajo de fondo que compita por el repositorio
+                        "--franquicias.proyeccion.habilitada=false",
+                        "--franquicias.movimientos.habilitado=false",
+                        "--franquicias.alertas.barrido.habilitado=false")) {
+            String franquicias = "http://localhost:" + app.getEnvironment().getProperty("local.server.port") + "/api/franquicias";
+            String franquicia = franquicias + "/" + CargaHttp.id(carga.enviar(franquicias, "{\"nombre\":\"Carga\"}", "POST"));
+            String sucursal = franquicia + "/sucursales/" + CargaHttp.id(carga.enviar(franquicia + "/sucursales", "{\"nombre\":\"Carga\"}", "POST"));
+            String producto = sucursal + "/productos/" + CargaHttp.id(carga.enviar(sucursal + "/productos",
+                    "{\"nombre\":\"Carga\",\"stock\":10}", "POST"));
+
+            carga.cargar(1_000, CONCURRENCIA, n -> peticion(producto, n));
+            return carga.cargar(PETICIONES, CONCURRENCIA, n -> peticion(producto, n)).con(modo);
+        }
+    }
+
+    // Mitad lecturas del producto, mitad actualizaciones de stock
+    private static HttpRequest peticion(String producto, int n) {
+        return n % 2 == 0
+                ? HttpRequest.newBuilder(URI.create(producto)).GET().build()
+                : CargaHttp.json(producto + "/stock", "{\"nuevoStock\":" + n + "}", "PUT");
+    }
+}
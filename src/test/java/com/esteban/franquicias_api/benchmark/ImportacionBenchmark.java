@@ -0,0 +1,178 @@
+package com.esteban.franquicias_api.benchmark;
+
+import com.esteban.franquicias_api.FranquiciasApiApplication;
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.Producto;
+import com.esteban.franquicias_api.model.Sucursal;
+import com.esteban.franquicias_api.repository.EmbeddedProductoStore;
+import com.esteban.franquicias_api.repository.FranquiciaRepository;
+import com.esteban.franquicias_api.repository.LecturasCompartidas;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Importación de un catálogo NDJSON generado al vuelo (franquicias x sucursales x productos) en modo
+// memoria, contra un ProductoStore que descarta los lotes importados: mide solo la lectura, la validación y el
+// armado de los lotes. El heap máximo no debería crecer con el tamaño del archivo. Se corre con:
+// mvn test -Pbenchmark -Dtest=ImportacionBenchmark
+@Tag("benchmark")
+class ImportacionBenchmark {
+
+    private static final int FRANQUICIAS = Integer.getInteger("benchmark.franquicias", 100);
+    private static final int SUCURSALES = Integer.getInteger("benchmark.sucursales", 10);
+    private static final int PRODUCTOS = Integer.getInteger("benchmark.productos", 1_000);
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final MemoryMXBean memoria = ManagementFactory.getMemoryMXBean();
+
+    @Test
+    void catalogoDeUnMillonDeProductos() throws Exception {
+        try (ConfigurableApplicationContext app = new SpringApplicationBuilder(FranquiciasApiApplication.class)
+                .initializers(contexto -> ((GenericApplicationContext) contexto).registerBean(ProductoStoreDescartado.class,
+                        definicion -> definicion.setPrimary(true)))
+                .profiles("memoria")
+                .run(
+                        "--server.port=0",
+                        "--franquicias.busqueda.indice-habilitado=false",
+                        "--franquicias.proyeccion.habilitada=false")) {
+            ProductoStoreDescartado store = app.getBean(ProductoStoreDescartado.class);
+            String catalogo = "http://localhost:" + app.getEnvironment().getProperty("local.server.port") + "/api/catalogo";
+
+            importar(catalogo, FRANQUICIAS / 10, store);
+            System.out.printf("%nImportación NDJSON, %d sucursales por franquicia y %d productos por sucursal%n", SUCURSALES, PRODUCTOS);
+            System.out.println("| Productos | segundos | productos/s | heap máx. MB | heap tras GC MB |");
+            System.out.println("| --------- | -------- | ----------- | ------------ | --------------- |");
+            for (int franquicias : new int[]{FRANQUICIAS / 10, FRANQUICIAS}) {
+                importar(catalogo, franquicias, store);
+            }
+        }
+    }
+
+    private void importar(String catalogo, int franquicias, ProductoStoreDescartado store) throws Exception {
+        System.gc();
+        long productos = (long) franquicias * SUCURSALES * PRODUCTOS;
+        long escritosAntes = store.productos.get();
+        HeapMaximo heap = new HeapMaximo();
+        Thread.ofVirtual().start(heap);
+
+        long inicio = System.nanoTime();
+        HttpResponse<String> respuesta = http.send(HttpRequest.newBuilder(URI.create(catalogo))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofInputStream(() -> new CatalogoGenerado(franquicias)))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        heap.detener();
+
+        if (respuesta.statusCode() != 200 || store.productos.get() - escritosAntes != productos) {
+            throw new IllegalStateException("Importación incompleta: " + respuesta.body());
+        }
+        System.gc();
+        System.out.printf("| %d | %.1f | %.0f | %d | %d |%n", productos, segundos, productos / segundos,
+                heap.maximo / (1 << 20), memoria.getHeapMemoryUsage().getUsed() / (1 << 20));
+    }
+
+    // Muestrea el heap usado mientras dura la importación
+    private final class HeapMaximo implements Runnable {
+
+        private volatile boolean activo = true;
+        private volatile long maximo;
+
+        @Override
+        public void run() {
+            while (activo) {
+                maximo = Math.max(maximo, memoria.getHeapMemoryUsage().getUsed());
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        void detener() {
+            activo = false;
+        }
+    }
+
+    // Una línea por producto, generada recién cuando el cliente HTTP la lee
+    private static final class CatalogoGenerado extends InputStream {
+
+        private final int franquicias;
+        private long siguiente;
+        private byte[] linea = new byte[0];
+        private int leidos;
+
+        CatalogoGenerado(int franquicias) {
+            this.franquicias = franquicias;
+        }
+
+        @Override
+        public int read() {
+            byte[] uno = new byte[1];
+            return read(uno, 0, 1) < 0 ? -1 : uno[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] destino, int desde, int cantidad) {
+            if (leidos == linea.length && !generar()) return -1;
+            int copiados = Math.min(cantidad, linea.length - leidos);
+            System.arraycopy(linea, leidos, destino, desde, copiados);
+            leidos += copiados;
+            return copiados;
+        }
+
+        private boolean generar() {
+            if (siguiente == (long) franquicias * SUCURSALES * PRODUCTOS) return false;
+            long n = siguiente++;
+            long sucursal = n / PRODUCTOS;
+            linea = String.format("{\"franquicia\":\"Importada %d\",\"sucursal\":\"Sucursal %d\",\"producto\":\"Producto %d\",\"stock\":%d}%n",
+                    sucursal / SUCURSALES, sucursal % SUCURSALES, n % PRODUCTOS, n % 100).getBytes(StandardCharsets.UTF_8);
+            leidos = 0;
+            return true;
+        }
+    }
+
+    // Cuenta los productos y suelta los lotes de la importación; el resto va al repositorio en memoria
+    static class ProductoStoreDescartado extends EmbeddedProductoStore {
+
+        final AtomicLong productos = new AtomicLong();
+
+        ProductoStoreDescartado(FranquiciaRepository franquiciaRepository, LecturasCompartidas lecturas) {
+            super(franquiciaRepository, lecturas);
+        }
+
+        @Override
+        public void insertarFranquicias(List<Franquicia> franquicias) {
+            for (Franquicia franquicia : franquicias) {
+                franquicia.setId(new ObjectId().toHexString());
+                agregarSucursales(franquicia.getId(), franquicia.getSucursales());
+            }
+        }
+
+        @Override
+        public boolean agregarSucursales(String franquiciaId, List<Sucursal> sucursales) {
+            sucursales.forEach(s -> productos.addAndGet(s.getProductos().size()));
+            return true;
+        }
+
+        @Override
+        public boolean agregarProductos(String franquiciaId, String sucursalId, List<Producto> productos) {
+            this.productos.addAndGet(productos.size());
+            return true;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.esteban.franquicias_api.benchmark;
+
+import com.esteban.franquicias_api.FranquiciasApiApplication;
+import com.esteban.franquicias_api.config.GeneradorFranquicias;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Muchas lecturas simultáneas de la misma sucursal, como al abrir una cadena de tiendas, con y sin
+// LecturasCompartidas. Modo memoria con latencia en el repositorio, así cada lectura que
+// llega al repositorio cuesta lo mismo que una ida a Mongo. Se corre con:
+// mvn test -Pbenchmark -Dtest=LecturasCompartidasBenchmark
+@Tag("benchmark")
+class LecturasCompartidasBenchmark {
+
+    private static final int LATENCIA_MS = Integer.getInteger("benchmark.latencia-ms", 20);
+    private static final int CONCURRENCIA = Integer.getInteger("benchmark.concurrencia", 400);
+    private static final int PETICIONES = Integer.getInteger("benchmark.peticiones", 20_000);
+
+    private final CargaHttp carga = new CargaHttp();
+
+    @Test
+    void conYSinLecturasCompartidas() throws Exception {
+        Medicion separadas = medir(false);
+        Medicion compartidas = medir(true);
+        CargaHttp.imprimir(String.format("GET productos de una misma sucursal, latencia repositorio %d ms, concurrencia %d, %d peticiones",
+                        LATENCIA_MS, CONCURRENCIA, PETICIONES),
+                compartidas.resultado().con("compartidas"), separadas.resultado().con("separadas"));
+        System.out.println("| Modo | consultas al repositorio | lecturas compartidas |");
+        System.out.println("| ---- | ------------------------ | -------------------- |");
+        System.out.printf("| compartidas | %.0f | %.0f |%n", compartidas.consultas(), compartidas.compartidas());
+        System.out.printf("| separadas | %.0f | %.0f |%n", separadas.consultas(), separadas.compartidas());
+
+        assertThat(compartidas.resultado().errores()).isZero();
+        assertThat(compartidas.consultas()).isLessThan(separadas.consultas() / 2);
+    }
+
+    private Medicion medir(boolean compartidas) throws Exception {
+        try (ConfigurableApplicationContext app = new SpringApplicationBuilder(FranquiciasApiApplication.class)
+                .profiles("memoria")
+                .run(
+                        "--server.port=0",
+                        "--franquicias.lecturas.compartidas=" + compartidas,
+                        "--franquicias.admision.habilitada=false",
+                        "--franquicias.proyeccion.habilitada=false",
+                        "--franquicias.memoria.latencia=" + LATENCIA_MS + "ms",
+                        "--franquicias.memoria.generador.franquicias=1",
+                        "--franquicias.memoria.generador.sucursales=10",
+                        "--franquicias.memoria.generador.productos=100")) {
+            String franquicia = "http://localhost:" + app.getEnvironment().getProperty("local.server.port")
+                    + "/api/franquicias/" + GeneradorFranquicias.id(1);
+            String sucursal = CargaHttp.id(carga.obtener(franquicia + "/sucursales?limite=1"));
+            URI productos = URI.create(franquicia + "/sucursales/" + sucursal + "/productos");
+
+            carga.cargar(1_000, CONCURRENCIA, n -> HttpRequest.newBuilder(productos).GET().build());
+            MeterRegistry registry = app.getBean(MeterRegistry.class);
+            double consultasAntes = lecturas(registry, "consulta");
+            double compartidasAntes = lecturas(registry, "compartida");
+            CargaHttp.Resultado resultado = carga.cargar(PETICIONES, CONCURRENCIA, n -> HttpRequest.newBuilder(productos).GET().build());
+            return new Medicion(resultado, lecturas(registry, "consulta") - consultasAntes,
+                    lecturas(registry, "compartida") - compartidasAntes);
+        }
+    }
+
+    private static double lecturas(MeterRegistry registry, String origen) {
+        return registry.get("franquicias.lecturas").tag("origen", origen).counter().count();
+    }
+
+    private record Medicion(CargaHttp.Resultado resultado, double consultas, double compartidas) {
+    }
+}
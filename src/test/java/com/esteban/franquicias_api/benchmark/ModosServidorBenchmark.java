@@ -0,0 +1,98 @@
+package com.esteban.franquicias_api.benchmark;
+
+import com.esteban.franquicias_api.FranquiciasApiApplication;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.List;
+
+// Misma carga HTTP contra el modo bloqueante y el reactivo con latencia inyectada en Mongo
+// (failpoint failCommand con blockConnection). Se corre con: mvn test -Pbenchmark
+@Tag("benchmark")
+@Testcontainers(disabledWithoutDocker = true)
+class ModosServidorBenchmark {
+
+    private static final int LATENCIA_MS = Integer.getInteger("benchmark.latencia-ms", 50);
+    private static final int CONCURRENCIA = Integer.getInteger("benchmark.concurrencia", 400);
+    private static final int PETICIONES = Integer.getInteger("benchmark.peticiones", 20_000);
+
+    @Container
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0")
+            .withCommand("--replSet", "docker-rs", "--setParameter", "enableTestCommands=1");
+
+    private final CargaHttp carga = new CargaHttp();
+
+    @Test
+    void bloqueanteContraReactivo() throws Exception {
+        CargaHttp.imprimir(String.format("Latencia Mongo %d ms, concurrencia %d, %d peticiones", LATENCIA_MS, CONCURRENCIA, PETICIONES),
+                medir("bloqueante"),
+                medir("reactivo", "reactive"));
+    }
+
+    CargaHttp.Resultado medir(String modo, String... perfiles) throws Exception {
+        try (ConfigurableApplicationContext app = new SpringApplicationBuilder(FranquiciasApiApplication.class)
+                .profiles(perfiles)
+                .run(
+                        "--server.port=0",
+                        "--spring.data.mongodb.uri=" + mongo.getReplicaSetUrl("franquicias") + "?maxPoolSize=" + CONCURRENCIA * 2,
+                        "--franquicias.top-stock.indice-habilitado=false",
+                        "--franquicias.busqueda.indice-habilitado=false",
+                        "--franquicias.admision.habilitada=false",
+                        "--franquicias.proyeccion.habilitada=false",
+                        "--logging.level.org.springframework.data.mongodb.core.MongoTemplate=INFO")) {
+            String base = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+            String sucursal = base + prepararDatos(base);
+            List<String> productos = CargaHttp.ids(carga.obtener(sucursal + "/productos"));
+
+            latencia(true);
+            try {
+                carga.cargar(500, CONCURRENCIA, n -> peticion(sucursal, productos, n));
+                return carga.cargar(PETICIONES, CONCURRENCIA, n -> peticion(sucursal, productos, n)).con(modo);
+            } finally {
+                latencia(false);
+            }
+        }
+    }
+
+    // Mitad lecturas de un producto, mitad actualizaciones de stock
+    private static HttpRequest peticion(String sucursal, List<String> productos, int n) {
+        String producto = sucursal + "/productos/" + productos.get(n % productos.size());
+        return n % 2 == 0
+                ? HttpRequest.newBuilder(URI.create(producto)).GET().build()
+                : CargaHttp.json(producto + "/stock", "{\"nuevoStock\":" + n + "}", "PUT");
+    }
+
+    private String prepararDatos(String base) throws Exception {
+        String franquicia = CargaHttp.id(carga.enviar(base + "/api/franquicias", "{\"nombre\":\"Benchmark\"}", "POST"));
+        StringBuilder productos = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            productos.append(i == 0 ? "" : ",").append("{\"nombre\":\"Producto ").append(i).append("\",\"stock\":").append(i).append('}');
+        }
+        String sucursal = CargaHttp.id(carga.enviar(base + "/api/franquicias/" + franquicia + "/sucursales",
+                "{\"nombre\":\"Sucursal\",\"productos\":[" + productos + "]}", "POST"));
+        return "/api/franquicias/" + franquicia + "/sucursales/" + sucursal;
+    }
+
+    private static void latencia(boolean activa) {
+        try (MongoClient cliente = MongoClients.create(mongo.getReplicaSetUrl())) {
+            Document comando = new Document("configureFailPoint", "failCommand")
+                    .append("mode", activa ? "alwaysOn" : "off");
+            if (activa) {
+                comando.append("data", new Document("failCommands", List.of("find", "findAndModify", "update", "aggregate", "insert"))
+                        .append("blockConnection", true)
+                        .append("blockTimeMS", LATENCIA_MS));
+            }
+            cliente.getDatabase("admin").runCommand(comando);
+        }
+    }
+}
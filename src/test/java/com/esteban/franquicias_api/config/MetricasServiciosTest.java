@@ -0,0 +1,75 @@
+package com.esteban.franquicias_api.config;
+
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.service.FranquiciaService;
+import com.esteban.franquicias_api.service.ReactiveFranquiciaService;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class MetricasServiciosTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void mideCadaLlamadaConSuResultado() {
+        FranquiciaService servicio = mock(FranquiciaService.class);
+        when(servicio.obtenerProductosConMasStock("f1")).thenReturn(List.of(new ProductoDTO()));
+        when(servicio.obtenerProductosConMasStock("nada")).thenThrow(new RuntimeException("Franquicia no encontrada"));
+        FranquiciaService medido = (FranquiciaService) MetricasServicios.instrumentar(servicio, FranquiciaService.class, () -> registry);
+
+        medido.obtenerProductosConMasStock("f1");
+        medido.obtenerProductosConMasStock("f1");
+        assertThatThrownBy(() -> medido.obtenerProductosConMasStock("nada")).hasMessage("Franquicia no encontrada");
+
+        assertThat(timer("obtenerProductosConMasStock", "exito").count()).isEqualTo(2);
+        assertThat(timer("obtenerProductosConMasStock", "error").getId().getTag("excepcion")).isEqualTo("RuntimeException");
+        assertThat(timer("obtenerProductosConMasStock", "error").getId().getTag("servicio")).isEqualTo("FranquiciaService");
+    }
+
+    @Test
+    void enLosServiciosReactivosMideAlSuscribirse() {
+        ReactiveFranquiciaService servicio = mock(ReactiveFranquiciaService.class);
+        when(servicio.obtenerProductosConMasStock("f1")).thenReturn(Mono.just(List.of()));
+        ReactiveFranquiciaService medido = (ReactiveFranquiciaService) MetricasServicios.instrumentar(
+                servicio, ReactiveFranquiciaService.class, () -> registry);
+
+        Mono<List<ProductoDTO>> resultado = medido.obtenerProductosConMasStock("f1");
+        assertThat(registry.find(MetricasServicios.METRICA).timers()).isEmpty();
+
+        resultado.block();
+        assertThat(timer("obtenerProductosConMasStock", "exito").count()).isEqualTo(1);
+    }
+
+    @Test
+    void elTamanoDeUnDocumentoBinarioSaleDeSuEncabezado() {
+        BsonDocument documento = BsonDocument.parse("{ '_id': 1, 'nombre': 'Franquicia', 'sucursales': [] }");
+        RawBsonDocument binario = new RawBsonDocument(documento, new BsonDocumentCodec());
+
+        assertThat(MetricasMongo.bytes(binario)).isEqualTo(binario.getByteBuffer().remaining());
+        assertThat(MetricasMongo.bytes(documento)).isEqualTo(binario.getByteBuffer().remaining());
+        assertThat(MetricasMongo.bytes(Document.parse(documento.toJson()))).isEqualTo(binario.getByteBuffer().remaining());
+    }
+
+    @Test
+    void soloCuentanLosDocumentosCompletos() {
+        assertThat(MetricasMongo.esCompleto(Document.parse("{ _id: 1, nombre: 'F', sucursales: [ { _id: 's', productos: [] } ] }"))).isTrue();
+        assertThat(MetricasMongo.esCompleto(Document.parse("{ _id: 1, nombre: 'F', sucursales: [ { _id: 's', nombre: 'S' } ] }"))).isFalse();
+        assertThat(MetricasMongo.esCompleto(Document.parse("{ sucursales: [ { _id: 's', productos: [] } ] }"))).isFalse();
+    }
+
+    private Timer timer(String operacion, String resultado) {
+        return registry.get(MetricasServicios.METRICA).tag("operacion", operacion).tag("resultado", resultado).timer();
+    }
+}
@@ -0,0 +1,125 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.exception.BusinessException;
+import com.esteban.franquicias_api.exception.SobrecargaException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdmisionFranquiciasTest {
+
+    private final AtomicLong reloj = new AtomicLong(123);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final FranquiciasProperties properties = new FranquiciasProperties();
+    private final AdmisionFranquicias admision;
+
+    AdmisionFranquiciasTest() {
+        properties.getAdmision().setConcurrenciaMaxima(2);
+        properties.getAdmision().setPeticionesPorSegundo(0);
+        admision = new AdmisionFranquicias(properties, registry, reloj::get);
+    }
+
+    @Test
+    void cadaFranquiciaTieneSusPropiosLugares() {
+        Runnable primera = admision.admitir("f1");
+        admision.admitir("f1");
+        assertThatThrownBy(() -> admision.admitir("f1")).isInstanceOf(SobrecargaException.class)
+                .extracting("reintentarEnSegundos").isEqualTo(1L);
+        admision.admitir("f2");
+
+        primera.run();
+        admision.admitir("f1");
+        assertThat(admision.enCurso("f1")).isEqualTo(2);
+        assertThat(registry.get("franquicias.admision.en-curso").tag("franquicia", "f1").gauge().value()).isEqualTo(2);
+        assertThat(rechazadas("f1", AdmisionFranquicias.CONCURRENCIA)).isEqualTo(1);
+    }
+
+    @Test
+    void laTasaAdmiteLaRafagaYDespuesUnaPorIntervalo() {
+        admision.cambiar("f1", new AdmisionFranquicias.Limites(0, 2, 3));
+        for (int i = 0; i < 3; i++) {
+            admision.admitir("f1");
+        }
+        // Sin tokens: el próximo llega en medio segundo, Retry-After redondea para arriba
+        assertThatThrownBy(() -> admision.admitir("f1")).isInstanceOf(SobrecargaException.class)
+                .extracting("reintentarEnSegundos").isEqualTo(1L);
+        assertThat(admision.enCurso("f1")).isEqualTo(3);
+
+        reloj.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        admision.admitir("f1");
+        assertThatThrownBy(() -> admision.admitir("f1")).isInstanceOf(SobrecargaException.class);
+        assertThat(rechazadas("f1", AdmisionFranquicias.TASA)).isEqualTo(2);
+
+        // Las otras franquicias siguen con los límites por defecto
+        for (int i = 0; i < 2; i++) {
+            admision.admitir("f2");
+        }
+    }
+
+    @Test
+    void losLimitesPropiosSeCambianYSeQuitan() {
+        AdmisionFranquicias.Limites propios = admision.limites("f1").con(5, null, null);
+        admision.cambiar("f1", propios);
+        assertThat(admision.limites("f1")).isEqualTo(new AdmisionFranquicias.Limites(5, 0, 1000));
+        assertThat(admision.propios()).containsOnlyKeys("f1");
+
+        assertThat(admision.quitar("f1")).isTrue();
+        assertThat(admision.limites("f1").concurrenciaMaxima()).isEqualTo(2);
+        assertThatThrownBy(() -> admision.cambiar("f1", new AdmisionFranquicias.Limites(-1, 0, 1)))
+                .isInstanceOf(BusinessException.class);
+        assertThatThrownBy(() -> admision.cambiar("f1", new AdmisionFranquicias.Limites(1, 10, 0)))
+                .isInstanceOf(BusinessException.class);
+    }
+
+    @Test
+    void unaFranquiciaInactivaSeOlvidaConSusMetricas() {
+        admision.admitir("f1");
+        admision.admitir("f1");
+        Runnable liberar = admision.admitir("f2");
+        assertThatThrownBy(() -> admision.admitir("f1")).isInstanceOf(SobrecargaException.class);
+
+        reloj.addAndGet(properties.getAdmision().getInactividad().toNanos() + 1);
+        // Cualquier acceso a la caché desaloja lo vencido
+        admision.admitir("f3");
+
+        assertThat(registry.find("franquicias.admision.en-curso").tag("franquicia", "f1").gauge()).isNull();
+        assertThat(registry.find("franquicias.admision.rechazadas").tag("franquicia", "f1").counter()).isNull();
+        assertThat(admision.enCurso("f1")).isZero();
+        // Lo admitido antes del desalojo se libera sobre su propio cupo, no sobre el nuevo
+        admision.admitir("f2");
+        liberar.run();
+        assertThat(admision.enCurso("f2")).isEqualTo(1);
+    }
+
+    @Test
+    void lasFranquiciasConCupoEstanAcotadas() {
+        properties.getAdmision().setMaximoFranquicias(10);
+        AdmisionFranquicias acotada = new AdmisionFranquicias(properties, registry, reloj::get);
+        for (int i = 0; i < 1_000; i++) {
+            acotada.admitir("f" + i).run();
+        }
+
+        assertThat(registry.find("franquicias.admision.en-curso").gauges()).hasSizeLessThanOrEqualTo(10);
+    }
+
+    @Test
+    void deshabilitadaAdmiteTodo() {
+        properties.getAdmision().setHabilitada(false);
+        AdmisionFranquicias libre = new AdmisionFranquicias(properties, registry, reloj::get);
+        for (int i = 0; i < 10; i++) {
+            libre.admitir("f1");
+        }
+        assertThat(libre.enCurso("f1")).isZero();
+    }
+
+    private double rechazadas(String franquiciaId, String motivo) {
+        return registry.get("franquicias.admision.rechazadas").tags("franquicia", franquiciaId, "motivo", motivo)
+                .counter().count();
+    }
+}
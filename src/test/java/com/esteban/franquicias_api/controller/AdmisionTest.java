@@ -0,0 +1,54 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.dto.FranquiciaDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Límites propios de una franquicia cambiados por /actuator/admision: las demás no se enteran
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("memoria")
+class AdmisionTest {
+
+    @Autowired
+    private WebTestClient cliente;
+
+    @Test
+    void unaFranquiciaSobreSuLimiteRecibe429ConRetryAfter() {
+        String limitada = franquicia("Limitada");
+        String libre = franquicia("Libre");
+        cliente.post().uri("/actuator/admision/{id}", limitada)
+                .bodyValue(Map.of("peticionesPorSegundo", 0.001, "rafaga", 2))
+                .exchange().expectStatus().isOk()
+                .expectBody().jsonPath("$.limites.rafaga").isEqualTo(2).jsonPath("$.propios").isEqualTo(true);
+
+        for (int i = 0; i < 2; i++) {
+            cliente.get().uri("/api/franquicias/{id}/sucursales", limitada).exchange().expectStatus().isOk();
+        }
+        cliente.get().uri("/api/franquicias/{id}/sucursales", limitada).exchange()
+                .expectStatus().isEqualTo(429)
+                .expectHeader().value(HttpHeaders.RETRY_AFTER, valor -> assertThat(Long.parseLong(valor)).isPositive());
+        cliente.put().uri("/api/franquicias/{id}", limitada).bodyValue(Map.of("nuevoNombre", "Otra"))
+                .exchange().expectStatus().isEqualTo(429);
+        cliente.get().uri("/api/franquicias/{id}/sucursales", libre).exchange().expectStatus().isOk();
+
+        cliente.delete().uri("/actuator/admision/{id}", limitada).exchange().expectStatus().isOk();
+        cliente.get().uri("/api/franquicias/{id}/sucursales", limitada).exchange().expectStatus().isOk();
+        cliente.post().uri("/actuator/admision/{id}", limitada).bodyValue(Map.of("concurrenciaMaxima", -1))
+                .exchange().expectStatus().isBadRequest();
+    }
+
+    private String franquicia(String nombre) {
+        return cliente.post().uri("/api/franquicias")
+                .bodyValue(Map.of("nombre", nombre, "sucursales", List.of(Map.of("nombre", "Centro"))))
+                .exchange().expectStatus().isOk().expectBody(FranquiciaDTO.class).returnResult().getResponseBody().getId();
+    }
+}
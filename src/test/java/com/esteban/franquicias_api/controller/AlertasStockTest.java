@@ -0,0 +1,70 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.dto.AlertaStockDTO;
+import com.esteban.franquicias_api.dto.FranquiciaDTO;
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.dto.SucursalDTO;
+import com.esteban.franquicias_api.index.AlertasStockBajo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Sin barrido periódico: cada prueba decide cuándo se revisan las franquicias
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "franquicias.alertas.barrido.habilitado=false")
+@ActiveProfiles("memoria")
+class AlertasStockTest {
+
+    @Autowired
+    private WebTestClient cliente;
+
+    @Autowired
+    private AlertasStockBajo alertas;
+
+    @Test
+    void elUmbralDeLaSucursalAbreYCierraAlertas() {
+        FranquiciaDTO franquicia = cliente.post().uri("/api/franquicias")
+                .bodyValue(Map.of("nombre", "Alertas", "sucursales", List.of(Map.of("nombre", "Centro", "umbralStock", 10))))
+                .exchange().expectStatus().isOk().expectBody(FranquiciaDTO.class).returnResult().getResponseBody();
+        String sucursal = "/api/franquicias/" + franquicia.getId() + "/sucursales/" + franquicia.getSucursales().get(0).getId();
+        assertThat(franquicia.getSucursales()).extracting(SucursalDTO::getUmbralStock).containsExactly(10);
+        String cafe = producto(sucursal, "Café", 4);
+        String te = producto(sucursal, "Té", 15);
+
+        // Los umbrales de una franquicia creada por la API se conocen en el primer paso del barrido
+        alertas.barrer();
+        assertThat(abiertas(franquicia.getId())).extracting(AlertaStockDTO::getProductoId, AlertaStockDTO::getStock, AlertaStockDTO::getUmbral)
+                .containsExactly(tuple(cafe, 4, 10));
+
+        cliente.put().uri(sucursal + "/umbral-stock").bodyValue(Map.of("umbral", 20)).exchange()
+                .expectStatus().isOk().expectBody().jsonPath("$.umbralStock").isEqualTo(20);
+        alertas.barrer();
+        assertThat(abiertas(franquicia.getId())).extracting(AlertaStockDTO::getProductoId).containsExactlyInAnyOrder(cafe, te);
+
+        cliente.put().uri(sucursal + "/productos/" + cafe + "/stock").bodyValue(Map.of("nuevoStock", 25)).exchange()
+                .expectStatus().isOk();
+        assertThat(abiertas(franquicia.getId())).extracting(AlertaStockDTO::getProductoId).containsExactly(te);
+        assertThat(cliente.get().uri(sucursal).exchange().expectBody(SucursalDTO.class).returnResult().getResponseBody()
+                .getUmbralStock()).isEqualTo(20);
+
+        cliente.put().uri(sucursal + "/umbral-stock").bodyValue(Map.of("umbral", -1)).exchange().expectStatus().isBadRequest();
+    }
+
+    private List<AlertaStockDTO> abiertas(String franquiciaId) {
+        return cliente.get().uri("/api/alertas/stock-bajo?franquiciaId={id}", franquiciaId).exchange()
+                .expectStatus().isOk().expectBodyList(AlertaStockDTO.class).returnResult().getResponseBody();
+    }
+
+    private String producto(String sucursal, String nombre, int stock) {
+        return cliente.post().uri(sucursal + "/productos").bodyValue(Map.of("nombre", nombre, "stock", stock))
+                .exchange().expectStatus().isOk().expectBody(ProductoDTO.class).returnResult().getResponseBody().getId();
+    }
+}
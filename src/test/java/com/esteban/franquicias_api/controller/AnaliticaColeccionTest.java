@@ -0,0 +1,9 @@
+package com.esteban.franquicias_api.controller;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+// Productos en la colección "productos": los listados por stock usan el índice stock_franquicia_sucursal_id
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "franquicias.productos.almacenamiento=coleccion")
+class AnaliticaColeccionTest extends AnaliticaMongoTest {
+}
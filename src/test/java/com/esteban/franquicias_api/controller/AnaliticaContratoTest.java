@@ -0,0 +1,114 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.dto.FranquiciaDTO;
+import com.esteban.franquicias_api.dto.LineaCatalogoDTO;
+import com.esteban.franquicias_api.dto.SucursalDTO;
+import com.esteban.franquicias_api.dto.TotalesFranquiciaDTO;
+import com.esteban.franquicias_api.repository.PosicionStock;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Los reportes de /api/analitica con el repositorio en memoria (AnaliticaMemoriaTest) y con Mongo, productos
+// embebidos (AnaliticaMongoTest) o en su colección (AnaliticaColeccionTest). El contexto puede tener datos de
+// otras pruebas: se usan stocks que nadie más usa o se filtra por las franquicias creadas aquí
+abstract class AnaliticaContratoTest {
+
+    private static final ParameterizedTypeReference<List<LineaCatalogoDTO>> LISTA_LINEAS = new ParameterizedTypeReference<>() {
+    };
+    private static final ParameterizedTypeReference<List<TotalesFranquiciaDTO>> LISTA_TOTALES = new ParameterizedTypeReference<>() {
+    };
+    private static final Pattern SIGUIENTE = Pattern.compile("<([^>]+)>; rel=\"next\"");
+
+    @Autowired
+    private WebTestClient cliente;
+
+    @Test
+    void losProductosConMasStockDeTodasLasFranquiciasSePaginanConElCursor() {
+        FranquiciaDTO norte = franquicia("Norte", Map.of("nombre", "A", "stock", 2_000_003),
+                Map.of("nombre", "B", "stock", 2_000_001));
+        FranquiciaDTO sur = franquicia("Sur", Map.of("nombre", "C", "stock", 2_000_002),
+                Map.of("nombre", "D", "stock", 2_000_001));
+
+        List<List<LineaCatalogoDTO>> paginas = recorrer("/api/analitica/productos/mayor-stock?limite=3", LISTA_LINEAS, 2);
+        List<LineaCatalogoDTO> primeros = paginas.stream().flatMap(List::stream).limit(4).toList();
+        assertThat(primeros).extracting(LineaCatalogoDTO::getProducto).startsWith("A", "C");
+        assertThat(primeros).extracting(LineaCatalogoDTO::getStock).containsExactly(2_000_003, 2_000_002, 2_000_001, 2_000_001);
+        // Es el orden inverso al de stock bajo: con el mismo stock va primero el mayor id de franquicia
+        String mayor = norte.getId().compareTo(sur.getId()) > 0 ? "B" : "D";
+        assertThat(primeros.get(2).getProducto()).isEqualTo(mayor);
+        assertThat(primeros.get(0)).extracting(LineaCatalogoDTO::getFranquicia, LineaCatalogoDTO::getSucursal)
+                .containsExactly("Norte", "Centro");
+        assertThat(paginas.stream().flatMap(List::stream).toList()).isSortedAccordingTo(PosicionStock.MAYOR_STOCK);
+
+        cliente.get().uri("/api/analitica/productos/mayor-stock?despues=no-es-un-cursor").exchange().expectStatus().isBadRequest();
+        cliente.get().uri("/api/analitica/productos/mayor-stock?limite=0").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    void elStockBajoVaDeMenorAMayorYRespetaElUmbral() {
+        FranquiciaDTO bajo = franquicia("Bajo", Map.of("nombre", "Vacío", "stock", 0),
+                Map.of("nombre", "Poco", "stock", 2), Map.of("nombre", "Justo", "stock", 3), Map.of("nombre", "Mucho", "stock", 50));
+
+        List<LineaCatalogoDTO> lineas = recorrer("/api/analitica/productos/stock-bajo?umbral=3&limite=2", LISTA_LINEAS, Integer.MAX_VALUE)
+                .stream().flatMap(List::stream).toList();
+        assertThat(lineas).allMatch(l -> l.getStock() < 3).isSortedAccordingTo(PosicionStock.MENOR_STOCK);
+        assertThat(lineas).filteredOn(l -> bajo.getId().equals(l.getFranquiciaId()))
+                .extracting(LineaCatalogoDTO::getProducto).containsExactly("Vacío", "Poco");
+
+        cliente.get().uri("/api/analitica/productos/stock-bajo?umbral=0").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    void losTotalesSumanLasSucursalesYLosProductosDeCadaFranquicia() {
+        FranquiciaDTO totales = franquicia("Totales", Map.of("nombre", "A", "stock", 7), Map.of("nombre", "B", "stock", 5));
+        cliente.post().uri("/api/franquicias/" + totales.getId() + "/sucursales")
+                .bodyValue(Map.of("nombre", "Norte", "productos", List.of(Map.of("nombre", "C", "stock", 1))))
+                .exchange().expectStatus().isOk();
+        FranquiciaDTO vacia = franquicia("Vacía");
+
+        List<TotalesFranquiciaDTO> todas = recorrer("/api/analitica/franquicias/totales?limite=2", LISTA_TOTALES, Integer.MAX_VALUE)
+                .stream().flatMap(List::stream).toList();
+        assertThat(todas).extracting(TotalesFranquiciaDTO::getFranquiciaId).isSorted().doesNotHaveDuplicates();
+        assertThat(todas).filteredOn(t -> t.getFranquiciaId().equals(totales.getId()) || t.getFranquiciaId().equals(vacia.getId()))
+                .containsExactlyInAnyOrder(new TotalesFranquiciaDTO(totales.getId(), "Totales", 2, 3, 13),
+                        new TotalesFranquiciaDTO(vacia.getId(), "Vacía", 1, 0, 0));
+    }
+
+    @SafeVarargs
+    private FranquiciaDTO franquicia(String nombre, Map<String, Object>... productos) {
+        FranquiciaDTO franquicia = cliente.post().uri("/api/franquicias")
+                .bodyValue(Map.of("nombre", nombre, "sucursales", List.of(Map.of("nombre", "Centro"))))
+                .exchange().expectStatus().isOk().expectBody(FranquiciaDTO.class).returnResult().getResponseBody();
+        String sucursal = cliente.get().uri("/api/franquicias/" + franquicia.getId() + "/sucursales").exchange()
+                .expectBodyList(SucursalDTO.class).returnResult().getResponseBody().get(0).getId();
+        for (Map<String, Object> producto : productos) {
+            cliente.post().uri("/api/franquicias/" + franquicia.getId() + "/sucursales/" + sucursal + "/productos")
+                    .bodyValue(producto).exchange().expectStatus().isOk();
+        }
+        return franquicia;
+    }
+
+    // Sigue el encabezado Link hasta la última página o hasta leer "maximo" páginas
+    private <T> List<List<T>> recorrer(String uri, ParameterizedTypeReference<List<T>> tipo, int maximo) {
+        List<List<T>> paginas = new ArrayList<>();
+        while (uri != null && paginas.size() < maximo) {
+            EntityExchangeResult<List<T>> respuesta = cliente.get().uri(uri).exchange()
+                    .expectStatus().isOk().expectBody(tipo).returnResult();
+            paginas.add(respuesta.getResponseBody());
+            String link = respuesta.getResponseHeaders().getFirst(HttpHeaders.LINK);
+            uri = link == null ? null : SIGUIENTE.matcher(link).results().findFirst().orElseThrow().group(1);
+        }
+        return paginas;
+    }
+}
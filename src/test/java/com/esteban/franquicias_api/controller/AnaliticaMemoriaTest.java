@@ -0,0 +1,9 @@
+package com.esteban.franquicias_api.controller;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("memoria")
+class AnaliticaMemoriaTest extends AnaliticaContratoTest {
+}
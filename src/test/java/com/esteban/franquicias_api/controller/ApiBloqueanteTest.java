@@ -0,0 +1,7 @@
+package com.esteban.franquicias_api.controller;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ApiBloqueanteTest extends ApiMongoTest {
+}
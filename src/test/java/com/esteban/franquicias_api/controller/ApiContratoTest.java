@@ -0,0 +1,169 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.dto.FranquiciaDTO;
+import com.esteban.franquicias_api.dto.LineaCatalogoDTO;
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.dto.SucursalDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Contrato HTTP común: lo cumplen el modo bloqueante (ApiBloqueanteTest), el reactivo (ApiReactivaTest)
+// y el repositorio en memoria (ApiMemoriaTest)
+abstract class ApiContratoTest {
+
+    private static final ParameterizedTypeReference<List<ProductoDTO>> LISTA_PRODUCTOS = new ParameterizedTypeReference<>() {
+    };
+    private static final ParameterizedTypeReference<List<SucursalDTO>> LISTA_SUCURSALES = new ParameterizedTypeReference<>() {
+    };
+    private static final ParameterizedTypeReference<List<FranquiciaDTO>> LISTA_FRANQUICIAS = new ParameterizedTypeReference<>() {
+    };
+    private static final Pattern SIGUIENTE = Pattern.compile("<([^>]+)>; rel=\"next\"");
+
+    @Autowired
+    private WebTestClient cliente;
+
+    @Test
+    void flujoCompletoDeFranquiciaSucursalesYProductos() {
+        FranquiciaDTO franquicia = post("/api/franquicias",
+                Map.of("nombre", "Franquicia", "sucursales", List.of(Map.of("nombre", "Centro"))), FranquiciaDTO.class);
+        assertThat(franquicia.getId()).isNotBlank();
+        assertThat(franquicia.getSucursales()).extracting(SucursalDTO::getNombre).containsExactly("Centro");
+        String base = "/api/franquicias/" + franquicia.getId();
+
+        SucursalDTO norte = post(base + "/sucursales",
+                Map.of("nombre", "Norte", "productos", List.of(Map.of("nombre", "Café", "stock", 5))), SucursalDTO.class);
+        assertThat(norte.getProductos()).extracting(ProductoDTO::getStock).containsExactly(5);
+        String sucursal = base + "/sucursales/" + norte.getId();
+
+        ProductoDTO te = post(sucursal + "/productos", Map.of("nombre", "Té", "stock", 3), ProductoDTO.class);
+        assertThat(te.getSucursalId()).isEqualTo(norte.getId());
+        String producto = sucursal + "/productos/" + te.getId();
+
+        assertThat(put(producto, Map.of("nuevoNombre", "Té verde"), ProductoDTO.class).getNombre()).isEqualTo("Té verde");
+        assertThat(put(producto + "/stock", Map.of("nuevoStock", 40), ProductoDTO.class).getStock()).isEqualTo(40);
+        assertThat(get(producto, ProductoDTO.class))
+                .isEqualTo(new ProductoDTO(te.getId(), "Té verde", 40, norte.getId()));
+        assertThat(cliente.get().uri(sucursal + "/productos").exchange()
+                .expectStatus().isOk().expectBody(LISTA_PRODUCTOS).returnResult().getResponseBody())
+                .extracting(ProductoDTO::getNombre).containsExactly("Café", "Té verde");
+
+        assertThat(put(sucursal, Map.of("nombre", "Norte 2"), SucursalDTO.class).getNombre()).isEqualTo("Norte 2");
+        assertThat(get(sucursal, SucursalDTO.class).getProductos()).hasSize(2);
+        assertThat(put(base, Map.of("nuevoNombre", "Renombrada"), FranquiciaDTO.class).getNombre()).isEqualTo("Renombrada");
+
+        assertThat(cliente.get().uri(base + "/productos/top-stock").exchange()
+                .expectStatus().isOk().expectBody(LISTA_PRODUCTOS).returnResult().getResponseBody())
+                .containsExactly(new ProductoDTO(te.getId(), "Té verde (Sucursal: Norte 2)", 40, norte.getId()));
+
+        cliente.delete().uri(producto).exchange().expectStatus().isOk();
+        cliente.delete().uri(producto).exchange().expectStatus().isNotFound();
+        cliente.get().uri(producto).exchange().expectStatus().is5xxServerError();
+    }
+
+    @Test
+    void recursosInexistentesResponden500ComoElApiOriginal() {
+        String inexistente = "/api/franquicias/000000000000000000000000";
+        cliente.get().uri(inexistente + "/productos/top-stock").exchange().expectStatus().is5xxServerError();
+        cliente.put().uri(inexistente).bodyValue(Map.of("nuevoNombre", "x")).exchange().expectStatus().is5xxServerError();
+        cliente.post().uri(inexistente + "/sucursales/s/productos").bodyValue(Map.of("nombre", "x", "stock", 1))
+                .exchange().expectStatus().is5xxServerError();
+    }
+
+    @Test
+    void listadosPaginadosPorIdSiguiendoElEncabezadoLink() {
+        FranquiciaDTO franquicia = post("/api/franquicias", Map.of("nombre", "Paginada"), FranquiciaDTO.class);
+        String base = "/api/franquicias/" + franquicia.getId();
+        List<String> sucursales = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            sucursales.add(post(base + "/sucursales", Map.of("nombre", "S" + i), SucursalDTO.class).getId());
+        }
+        String sucursal = base + "/sucursales/" + sucursales.get(0);
+        List<String> productos = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            productos.add(post(sucursal + "/productos", Map.of("nombre", "P" + i, "stock", i), ProductoDTO.class).getId());
+        }
+
+        List<List<SucursalDTO>> paginas = recorrer(base + "/sucursales?limite=2", LISTA_SUCURSALES);
+        assertThat(paginas).extracting(List::size).containsExactly(2, 2, 1);
+        assertThat(paginas.stream().flatMap(List::stream)).extracting(SucursalDTO::getId)
+                .containsExactlyElementsOf(sucursales.stream().sorted().toList());
+        assertThat(paginas.get(0)).allSatisfy(s -> assertThat(s.getProductos()).isNull());
+
+        assertThat(recorrer(sucursal + "/productos?limite=2", LISTA_PRODUCTOS).stream().flatMap(List::stream))
+                .extracting(ProductoDTO::getId).containsExactlyElementsOf(productos.stream().sorted().toList());
+        // Sin parámetros sigue devolviendo todos en el orden de la sucursal
+        assertThat(cliente.get().uri(sucursal + "/productos").exchange()
+                .expectStatus().isOk().expectHeader().doesNotExist(HttpHeaders.LINK)
+                .expectBody(LISTA_PRODUCTOS).returnResult().getResponseBody())
+                .extracting(ProductoDTO::getId).containsExactlyElementsOf(productos);
+
+        List<FranquiciaDTO> siguientes = cliente.get().uri("/api/franquicias?despues={id}", franquicia.getId()).exchange()
+                .expectStatus().isOk().expectBody(LISTA_FRANQUICIAS).returnResult().getResponseBody();
+        assertThat(siguientes).extracting(FranquiciaDTO::getId).allMatch(id -> id.compareTo(franquicia.getId()) > 0);
+        assertThat(cliente.get().uri("/api/franquicias?limite=1").exchange()
+                .expectStatus().isOk().expectBody(LISTA_FRANQUICIAS).returnResult().getResponseBody())
+                .hasSize(1).allSatisfy(f -> assertThat(f.getSucursales()).isNull());
+
+        cliente.get().uri("/api/franquicias?limite=0").exchange().expectStatus().isBadRequest();
+        cliente.get().uri(base + "/sucursales?limite=100000").exchange().expectStatus().isBadRequest();
+        cliente.get().uri("/api/franquicias/000000000000000000000000/sucursales").exchange().expectStatus().is5xxServerError();
+    }
+
+    @Test
+    void exportaElCatalogoComoNdjson() {
+        FranquiciaDTO franquicia = post("/api/franquicias", Map.of("nombre", "Exportada"), FranquiciaDTO.class);
+        SucursalDTO sucursal = post("/api/franquicias/" + franquicia.getId() + "/sucursales", Map.of("nombre", "Centro",
+                "productos", List.of(Map.of("nombre", "Café", "stock", 5), Map.of("nombre", "Té", "stock", 3))), SucursalDTO.class);
+
+        List<LineaCatalogoDTO> lineas = cliente.get().uri("/api/catalogo").accept(MediaType.APPLICATION_NDJSON).exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(LineaCatalogoDTO.class).getResponseBody().collectList().block();
+
+        assertThat(lineas).filteredOn(l -> franquicia.getId().equals(l.getFranquiciaId()))
+                .containsExactlyInAnyOrder(sucursal.getProductos().stream()
+                        .map(p -> new LineaCatalogoDTO(franquicia.getId(), "Exportada", sucursal.getId(), "Centro",
+                                p.getId(), p.getNombre(), p.getStock()))
+                        .toArray(LineaCatalogoDTO[]::new));
+    }
+
+    // Sigue el encabezado Link hasta la última página
+    private <T> List<List<T>> recorrer(String uri, ParameterizedTypeReference<List<T>> tipo) {
+        List<List<T>> paginas = new ArrayList<>();
+        while (uri != null) {
+            EntityExchangeResult<List<T>> respuesta = cliente.get().uri(uri).exchange()
+                    .expectStatus().isOk().expectBody(tipo).returnResult();
+            paginas.add(respuesta.getResponseBody());
+            String link = respuesta.getResponseHeaders().getFirst(HttpHeaders.LINK);
+            uri = link == null ? null : SIGUIENTE.matcher(link).results().findFirst().orElseThrow().group(1);
+        }
+        return paginas;
+    }
+
+    private <T> T post(String uri, Object cuerpo, Class<T> tipo) {
+        return cliente.post().uri(uri).bodyValue(cuerpo).exchange()
+                .expectStatus().isOk().expectBody(tipo).returnResult().getResponseBody();
+    }
+
+    private <T> T put(String uri, Object cuerpo, Class<T> tipo) {
+        return cliente.put().uri(uri).bodyValue(cuerpo).exchange()
+                .expectStatus().isOk().expectBody(tipo).returnResult().getResponseBody();
+    }
+
+    private <T> T get(String uri, Class<T> tipo) {
+        return cliente.get().uri(uri).exchange()
+                .expectStatus().isOk().expectBody(tipo).returnResult().getResponseBody();
+    }
+}
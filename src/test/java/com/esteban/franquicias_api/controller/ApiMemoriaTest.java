@@ -0,0 +1,30 @@
+package com.esteban.franquicias_api.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("memoria")
+// Los tests desactivan la exportación de métricas; aquí se habilita para ver el endpoint de Prometheus
+@AutoConfigureObservability(tracing = false)
+class ApiMemoriaTest extends ApiContratoTest {
+
+    @Autowired
+    private WebTestClient cliente;
+
+    @Test
+    void publicaLosTimersDeLosServiciosEnPrometheus() {
+        cliente.get().uri("/api/franquicias/000000000000000000000000/productos/top-stock").exchange()
+                .expectStatus().is5xxServerError();
+
+        assertThat(cliente.get().uri("/actuator/prometheus?includedNames=franquicias_servicio_seconds").exchange()
+                .expectStatus().isOk().expectBody(String.class).returnResult().getResponseBody())
+                .contains("franquicias_servicio_seconds_count{excepcion=\"RuntimeException\",operacion=\"obtenerProductosConMasStock\"");
+    }
+}
@@ -0,0 +1,129 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.dto.FranquiciaDTO;
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.dto.ProductoEncontradoDTO;
+import com.esteban.franquicias_api.dto.SucursalDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// /api/busqueda/productos con el índice en memoria (BusquedaMemoriaTest) y con el índice de texto de Mongo
+// (BusquedaMongoTest). Mongo solo encuentra palabras completas: las consultas usan palabras que nadie más usa
+abstract class BusquedaContratoTest {
+
+    private static final Pattern SIGUIENTE = Pattern.compile("<([^>]+)>; rel=\"next\"");
+
+    @Autowired
+    private WebTestClient cliente;
+
+    @Test
+    void primeroLasExactasDespuesLosPrefijosYAlFinalLoQueLaContiene() {
+        String norte = franquicia("Norte");
+        String sur = franquicia("Sur");
+        producto(norte, "Gran Zumbador");
+        producto(norte, "Zumbador Rojo Grande");
+        producto(norte, "Zumbador");
+        producto(sur, "Zumbador Azul");
+        producto(sur, "ZUMBADOR");
+        producto(sur, "Silbato");
+
+        List<List<ProductoEncontradoDTO>> paginas = recorrer("/api/busqueda/productos?texto=zumbador&limite=2");
+
+        assertThat(paginas).hasSize(3);
+        String primera = norte.compareTo(sur) < 0 ? norte : sur;
+        assertThat(paginas.stream().flatMap(List::stream).toList())
+                .extracting(ProductoEncontradoDTO::getNombre, ProductoEncontradoDTO::getCoincidencia)
+                .containsExactly(tuple(primera.equals(norte) ? "Zumbador" : "ZUMBADOR", "exacta"),
+                        tuple(primera.equals(norte) ? "ZUMBADOR" : "Zumbador", "exacta"),
+                        tuple("Zumbador Azul", "prefijo"),
+                        tuple("Zumbador Rojo Grande", "prefijo"),
+                        tuple("Gran Zumbador", "contiene"));
+    }
+
+    @Test
+    void porPrefijoYDentroDeUnaFranquicia() {
+        String norte = franquicia("Norte");
+        String sur = franquicia("Sur");
+        producto(norte, "Trompo Verde");
+        producto(norte, "Mini Trompo");
+        producto(sur, "Trompo");
+
+        assertThat(buscar("/api/busqueda/productos?texto=trompo&modo=prefijo&franquiciaId=" + norte))
+                .extracting(ProductoEncontradoDTO::getFranquiciaId, ProductoEncontradoDTO::getNombre)
+                .containsExactly(tuple(norte, "Trompo Verde"));
+        assertThat(buscar("/api/busqueda/productos?texto=trompo&franquiciaId=" + norte))
+                .extracting(ProductoEncontradoDTO::getNombre).containsExactly("Trompo Verde", "Mini Trompo");
+    }
+
+    @Test
+    void losCambiosDeNombreYLasEliminacionesSeVenEnLaBusqueda() {
+        String franquicia = franquicia("Cambios");
+        String sucursal = sucursal(franquicia);
+        String producto = producto(franquicia, "Cometa");
+        producto(franquicia, "Cometa Doble");
+
+        cliente.put().uri(sucursal + "/productos/" + producto).bodyValue(Map.of("nuevoNombre", "Barrilete"))
+                .exchange().expectStatus().isOk();
+        assertThat(buscar("/api/busqueda/productos?texto=cometa")).extracting(ProductoEncontradoDTO::getNombre)
+                .containsExactly("Cometa Doble");
+        assertThat(buscar("/api/busqueda/productos?texto=barrilete")).extracting(ProductoEncontradoDTO::getProductoId)
+                .containsExactly(producto);
+
+        cliente.delete().uri(sucursal + "/productos/" + producto).exchange().expectStatus().is2xxSuccessful();
+        assertThat(buscar("/api/busqueda/productos?texto=barrilete")).isEmpty();
+    }
+
+    @Test
+    void rechazaConsultasInvalidas() {
+        cliente.get().uri("/api/busqueda/productos?texto={texto}", "  ").exchange().expectStatus().isBadRequest();
+        cliente.get().uri("/api/busqueda/productos?texto=a&modo=exacto").exchange().expectStatus().isBadRequest();
+        cliente.get().uri("/api/busqueda/productos?texto=a&despues=no-es-un-cursor").exchange().expectStatus().isBadRequest();
+        cliente.get().uri("/api/busqueda/productos?texto=" + "a".repeat(101)).exchange().expectStatus().isBadRequest();
+    }
+
+    private String franquicia(String nombre) {
+        return cliente.post().uri("/api/franquicias")
+                .bodyValue(Map.of("nombre", nombre, "sucursales", List.of(Map.of("nombre", "Centro"))))
+                .exchange().expectStatus().isOk().expectBody(FranquiciaDTO.class).returnResult().getResponseBody().getId();
+    }
+
+    private String sucursal(String franquiciaId) {
+        String sucursal = cliente.get().uri("/api/franquicias/" + franquiciaId + "/sucursales").exchange()
+                .expectBodyList(SucursalDTO.class).returnResult().getResponseBody().get(0).getId();
+        return "/api/franquicias/" + franquiciaId + "/sucursales/" + sucursal;
+    }
+
+    private String producto(String franquiciaId, String nombre) {
+        return cliente.post().uri(sucursal(franquiciaId) + "/productos").bodyValue(Map.of("nombre", nombre, "stock", 1))
+                .exchange().expectStatus().isOk().expectBody(ProductoDTO.class).returnResult().getResponseBody().getId();
+    }
+
+    private List<ProductoEncontradoDTO> buscar(String uri) {
+        return cliente.get().uri(uri).exchange().expectStatus().isOk()
+                .expectBodyList(ProductoEncontradoDTO.class).returnResult().getResponseBody();
+    }
+
+    // Sigue el encabezado Link hasta la última página
+    private List<List<ProductoEncontradoDTO>> recorrer(String uri) {
+        List<List<ProductoEncontradoDTO>> paginas = new ArrayList<>();
+        while (uri != null) {
+            EntityExchangeResult<List<ProductoEncontradoDTO>> respuesta = cliente.get().uri(uri).exchange()
+                    .expectStatus().isOk().expectBodyList(ProductoEncontradoDTO.class).returnResult();
+            paginas.add(respuesta.getResponseBody());
+            String link = respuesta.getResponseHeaders().getFirst(HttpHeaders.LINK);
+            uri = link == null ? null : SIGUIENTE.matcher(link).results().findFirst().orElseThrow().group(1);
+        }
+        return paginas;
+    }
+}
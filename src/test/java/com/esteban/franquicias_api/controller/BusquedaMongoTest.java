@@ -0,0 +1,18 @@
+package com.esteban.franquicias_api.controller;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+// Sin el índice en memoria: la búsqueda va al índice de texto de sucursales.productos.nombre
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "franquicias.busqueda.indice-habilitado=false")
+@Testcontainers(disabledWithoutDocker = true)
+class BusquedaMongoTest extends BusquedaContratoTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+}
@@ -0,0 +1,109 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.config.MetricasServicios;
+import com.esteban.franquicias_api.dto.FranquiciaDTO;
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.dto.SucursalDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "franquicias.etag.cache-control=max-age=5, must-revalidate")
+@ActiveProfiles("memoria")
+class EtagFranquiciaTest {
+
+    @Autowired
+    private WebTestClient cliente;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    void unIfNoneMatchVigenteResponde304SinCalcularElTopStock() {
+        String base = franquicia("Etag");
+        String topStock = base + "/productos/top-stock";
+
+        String etag = cliente.get().uri(topStock).exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL, "max-age=5, must-revalidate")
+                .returnResult(String.class).getResponseHeaders().getETag();
+        assertThat(etag).startsWith("\"").endsWith("\"");
+
+        long calculados = topStockCalculados();
+        assertThat(calculados).isPositive();
+        cliente.get().uri(topStock).header(HttpHeaders.IF_NONE_MATCH, etag).exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, etag)
+                .expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL, "max-age=5, must-revalidate")
+                .expectBody().isEmpty();
+        assertThat(topStockCalculados()).isEqualTo(calculados);
+
+        // Cualquier escritura de la franquicia cambia la versión, también para las demás lecturas
+        String producto = primerProducto(base);
+        cliente.put().uri(producto + "/stock").bodyValue(Map.of("nuevoStock", 9)).exchange().expectStatus().isOk();
+        String nuevo = cliente.get().uri(topStock).header(HttpHeaders.IF_NONE_MATCH, etag).exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class).getResponseHeaders().getETag();
+        assertThat(nuevo).isNotEqualTo(etag);
+        cliente.get().uri(producto).header(HttpHeaders.IF_NONE_MATCH, nuevo).exchange().expectStatus().isNotModified();
+        cliente.get().uri(base + "/sucursales").header(HttpHeaders.IF_NONE_MATCH, etag).exchange().expectStatus().isOk();
+    }
+
+    @Test
+    void unaEscrituraConIfMatchViejoFallaCon412YNoSeAplica() {
+        String base = franquicia("IfMatch");
+        String producto = primerProducto(base);
+        String etag = cliente.get().uri(producto).exchange()
+                .expectStatus().isOk().returnResult(String.class).getResponseHeaders().getETag();
+
+        cliente.put().uri(producto + "/stock").header(HttpHeaders.IF_MATCH, etag)
+                .bodyValue(Map.of("nuevoStock", 7)).exchange()
+                .expectStatus().isOk();
+        cliente.put().uri(producto + "/stock").header(HttpHeaders.IF_MATCH, etag)
+                .bodyValue(Map.of("nuevoStock", 1)).exchange()
+                .expectStatus().isEqualTo(412)
+                .expectBody().jsonPath("$.status").isEqualTo(412);
+        cliente.put().uri(producto).header(HttpHeaders.IF_MATCH, "W/" + etag)
+                .bodyValue(Map.of("nuevoNombre", "Débil")).exchange()
+                .expectStatus().isEqualTo(412);
+
+        assertThat(cliente.get().uri(producto).exchange().expectBody(ProductoDTO.class).returnResult().getResponseBody())
+                .extracting(ProductoDTO::getNombre, ProductoDTO::getStock).containsExactly("Café", 7);
+        cliente.delete().uri(producto).header(HttpHeaders.IF_MATCH, "*").exchange().expectStatus().isOk();
+    }
+
+    private String franquicia(String nombre) {
+        FranquiciaDTO franquicia = cliente.post().uri("/api/franquicias")
+                .bodyValue(Map.of("nombre", nombre, "sucursales", List.of(Map.of("nombre", "Centro"))))
+                .exchange().expectStatus().isOk().expectBody(FranquiciaDTO.class).returnResult().getResponseBody();
+        String base = "/api/franquicias/" + franquicia.getId();
+        String sucursal = franquicia.getSucursales().get(0).getId();
+        cliente.post().uri(base + "/sucursales/" + sucursal + "/productos")
+                .bodyValue(Map.of("nombre", "Café", "stock", 5)).exchange().expectStatus().isOk();
+        return base;
+    }
+
+    private String primerProducto(String base) {
+        SucursalDTO sucursal = cliente.get().uri(base + "/sucursales").exchange()
+                .expectBodyList(SucursalDTO.class).returnResult().getResponseBody().get(0);
+        ProductoDTO producto = cliente.get().uri(base + "/sucursales/" + sucursal.getId() + "/productos").exchange()
+                .expectBodyList(ProductoDTO.class).returnResult().getResponseBody().get(0);
+        return base + "/sucursales/" + sucursal.getId() + "/productos/" + producto.getId();
+    }
+
+    private long topStockCalculados() {
+        return registry.find(MetricasServicios.METRICA).tag("operacion", "obtenerProductosConMasStock")
+                .timers().stream().mapToLong(Timer::count).sum();
+    }
+}
@@ -0,0 +1,151 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.dto.EventoFranquiciaDTO;
+import com.esteban.franquicias_api.dto.FranquiciaDTO;
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.dto.SucursalDTO;
+import com.esteban.franquicias_api.event.BusEventosFranquicia;
+import com.esteban.franquicias_api.event.ProductoRenombradoEvent;
+import com.esteban.franquicias_api.event.StockActualizadoEvent;
+import com.esteban.franquicias_api.event.StockIncrementadoEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "franquicias.eventos.capacidad=4")
+@ActiveProfiles("memoria")
+class EventosFranquiciaTest {
+
+    @Autowired
+    private WebTestClient cliente;
+
+    @Autowired
+    private BusEventosFranquicia bus;
+
+    @Autowired
+    private ApplicationEventPublisher publisher;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    void elStreamEntregaSoloLosCambiosDeLaFranquicia() {
+        String base = franquicia("Stream");
+        String otra = franquicia("Otra");
+        String sucursal = base + "/sucursales/" + sucursal(base);
+        long entregados = registry.get("franquicias.eventos.entrega").timer().count();
+
+        var eventos = cliente.get().uri(base + "/events").accept(MediaType.TEXT_EVENT_STREAM).exchange()
+                .expectStatus().isOk()
+                .returnResult(EventoFranquiciaDTO.class).getResponseBody();
+
+        cliente.post().uri(otra + "/sucursales/" + sucursal(otra) + "/productos")
+                .bodyValue(Map.of("nombre", "Ajeno", "stock", 1)).exchange().expectStatus().isOk();
+        ProductoDTO cafe = cliente.post().uri(sucursal + "/productos").bodyValue(Map.of("nombre", "Café", "stock", 5))
+                .exchange().expectStatus().isOk().expectBody(ProductoDTO.class).returnResult().getResponseBody();
+        cliente.put().uri(sucursal + "/productos/" + cafe.getId() + "/stock").bodyValue(Map.of("nuevoStock", 9))
+                .exchange().expectStatus().isOk();
+        cliente.put().uri(sucursal).bodyValue(Map.of("nuevoNombre", "Norte")).exchange().expectStatus().isOk();
+
+        List<EventoFranquiciaDTO> recibidos = eventos.take(3).collectList().block(Duration.ofSeconds(10));
+        assertThat(recibidos).extracting(EventoFranquiciaDTO::getTipo)
+                .containsExactly("producto-agregado", "stock-actualizado", "sucursal-renombrada");
+        assertThat(recibidos.get(0)).extracting(EventoFranquiciaDTO::getNombre, EventoFranquiciaDTO::getStock)
+                .containsExactly("Café", 5);
+        assertThat(recibidos.get(1)).extracting(EventoFranquiciaDTO::getProductoId, EventoFranquiciaDTO::getStock)
+                .containsExactly(cafe.getId(), 9);
+        assertThat(registry.get("franquicias.eventos.entrega").timer().count()).isGreaterThanOrEqualTo(entregados + 3);
+    }
+
+    @Test
+    void unSuscriptorLentoRecibeElStockJuntadoYSiSeLlenaSeDesconecta() throws Exception {
+        CountDownLatch ocupado = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        List<EventoFranquiciaDTO> recibidos = new CopyOnWriteArrayList<>();
+        BusEventosFranquicia.Suscripcion primera = bus.suscribir("lenta", evento -> {
+            recibidos.add(evento);
+            ocupado.countDown();
+            liberar.await();
+        }, () -> {
+        });
+
+        // El primero queda enviándose; los que siguen esperan en la cola sin frenar a quien publica
+        publisher.publishEvent(new ProductoRenombradoEvent("lenta", "s1", "p0", "Primero"));
+        assertThat(ocupado.await(5, TimeUnit.SECONDS)).isTrue();
+        double conflados = registry.get("franquicias.eventos.conflados").counter().count();
+        publisher.publishEvent(new StockActualizadoEvent("lenta", "s1", "p1", 100));
+        for (int i = 0; i < 50; i++) {
+            publisher.publishEvent(new StockIncrementadoEvent("lenta", "s1", "p1", -1, 99 - i));
+        }
+        publisher.publishEvent(new StockIncrementadoEvent("lenta", "s1", "p2", 3, 3));
+        publisher.publishEvent(new StockIncrementadoEvent("lenta", "s1", "p2", 4, 7));
+        assertThat(registry.get("franquicias.eventos.conflados").counter().count()).isEqualTo(conflados + 51);
+
+        liberar.countDown();
+        awaitTamano(recibidos, 3);
+        assertThat(recibidos.get(1)).extracting(EventoFranquiciaDTO::getTipo, EventoFranquiciaDTO::getStock)
+                .containsExactly("stock-actualizado", 50);
+        assertThat(recibidos.get(2)).extracting(EventoFranquiciaDTO::getTipo, EventoFranquiciaDTO::getDelta)
+                .containsExactly("stock-incrementado", 7);
+
+        // Con la cola llena (4 eventos distintos) el quinto lo desconecta
+        primera.cancelar();
+        double suscriptores = suscriptores();
+        CountDownLatch descartado = new CountDownLatch(1);
+        CountDownLatch bloqueado = new CountDownLatch(1);
+        CountDownLatch nunca = new CountDownLatch(1);
+        bus.suscribir("lenta", evento -> {
+            bloqueado.countDown();
+            nunca.await();
+        }, descartado::countDown);
+        publisher.publishEvent(new ProductoRenombradoEvent("lenta", "s1", "p0", "Bloquea"));
+        assertThat(bloqueado.await(5, TimeUnit.SECONDS)).isTrue();
+        double descartados = registry.get("franquicias.eventos.suscriptores.descartados").counter().count();
+        for (int i = 1; i <= 5; i++) {
+            publisher.publishEvent(new ProductoRenombradoEvent("lenta", "s1", "p" + i, "Nombre " + i));
+        }
+        assertThat(descartado.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(registry.get("franquicias.eventos.suscriptores.descartados").counter().count()).isEqualTo(descartados + 1);
+        assertThat(suscriptores()).isEqualTo(suscriptores);
+        nunca.countDown();
+    }
+
+    private void awaitTamano(List<?> lista, int tamano) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (lista.size() < tamano && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+        assertThat(lista).hasSize(tamano);
+    }
+
+    private double suscriptores() {
+        return registry.get("franquicias.eventos.suscriptores").gauge().value();
+    }
+
+    private String franquicia(String nombre) {
+        FranquiciaDTO franquicia = cliente.post().uri("/api/franquicias")
+                .bodyValue(Map.of("nombre", nombre, "sucursales", List.of(Map.of("nombre", "Centro"))))
+                .exchange().expectStatus().isOk().expectBody(FranquiciaDTO.class).returnResult().getResponseBody();
+        return "/api/franquicias/" + franquicia.getId();
+    }
+
+    private String sucursal(String base) {
+        return cliente.get().uri(base + "/sucursales").exchange()
+                .expectBodyList(SucursalDTO.class).returnResult().getResponseBody().get(0).getId();
+    }
+}
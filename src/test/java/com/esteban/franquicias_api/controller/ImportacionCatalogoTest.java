@@ -0,0 +1,114 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.dto.FalloImportacionDTO;
+import com.esteban.franquicias_api.dto.LineaCatalogoDTO;
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.dto.ResultadoImportacionDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Lotes de 2 productos para que las franquicias y las sucursales queden repartidas entre varias escrituras
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "franquicias.importacion.tamano-lote=2")
+@ActiveProfiles("memoria")
+class ImportacionCatalogoTest {
+
+    @Autowired
+    private WebTestClient cliente;
+
+    @Test
+    void importaNdjsonPorLotesYReportaLasFilasInvalidas() {
+        ResultadoImportacionDTO resultado = importar(MediaType.APPLICATION_NDJSON, """
+                {"franquicia":"Ndjson A","sucursal":"Centro","producto":"Café","stock":5}
+                {"franquicia":"Ndjson A","sucursal":"Centro","producto":"Té","stock":3}
+                {"franquicia":"Ndjson A","sucursal":"Norte","producto":"Pan","stock":1}
+                {"franquicia":"Ndjson A","sucursal":"Centro","producto":"Agua","stock":1}
+                {"franquicia":"Ndjson B","sucursal":"Sur","producto":"Leche","stock":2}
+                {"franquicia":"Ndjson B","sucursal":"Sur","producto":"","stock":1}
+                {"franquicia":"Ndjson A","sucursal":"Norte","producto":"Sal","stock":1}
+                {"franquicia":"Ndjson B","sucursal":"Sur","producto":"Queso","stock":"mucho"}
+                {"franquicia":"Ndjson B","sucursal":"Sur","producto":"Queso","stock":-1}
+                {"franquicia":"Ndjson B","sucursal":"Sur","producto":"Miel","stock":7}
+                """);
+
+        assertThat(resultado.getTotal()).isEqualTo(10);
+        assertThat(resultado.getExitosos()).isEqualTo(5);
+        assertThat(resultado.getFranquicias()).isEqualTo(2);
+        assertThat(resultado.getSucursales()).isEqualTo(3);
+        assertThat(resultado.getFallidos()).extracting(FalloImportacionDTO::getPosicion).containsExactly(3, 5, 6, 7, 8);
+
+        assertThat(catalogo("Ndjson"))
+                .extracting(LineaCatalogoDTO::getFranquicia, LineaCatalogoDTO::getSucursal, LineaCatalogoDTO::getProducto, LineaCatalogoDTO::getStock)
+                .containsExactly(
+                        tuple("Ndjson A", "Centro", "Café", 5),
+                        tuple("Ndjson A", "Centro", "Té", 3),
+                        tuple("Ndjson A", "Norte", "Pan", 1),
+                        tuple("Ndjson B", "Sur", "Leche", 2),
+                        tuple("Ndjson B", "Sur", "Miel", 7));
+
+        // La sucursal Norte se agregó sobre la franquicia ya insertada
+        String franquiciaA = catalogo("Ndjson A").get(0).getFranquiciaId();
+        assertThat(cliente.get().uri("/api/franquicias/" + franquiciaA + "/productos/top-stock").exchange()
+                .expectStatus().isOk().expectBody(new ParameterizedTypeReference<List<ProductoDTO>>() {
+                }).returnResult().getResponseBody())
+                .extracting(ProductoDTO::getNombre).containsExactly("Café (Sucursal: Centro)", "Pan (Sucursal: Norte)");
+    }
+
+    @Test
+    void importaCsvConEncabezadoIgnorandoLasColumnasDesconocidas() {
+        ResultadoImportacionDTO resultado = importar(MediaType.parseMediaType(CatalogoController.TEXT_CSV), """
+                franquiciaId,franquicia,sucursal,producto,stock,notas
+                x,Csv,Centro,Café,5,
+                x,Csv,Centro,Té,no es un número,
+                x,Csv,Norte,Pan,1,integral
+                """);
+
+        assertThat(resultado.getTotal()).isEqualTo(3);
+        assertThat(resultado.getExitosos()).isEqualTo(2);
+        assertThat(resultado.getFallidos()).singleElement().satisfies(f -> {
+            assertThat(f.getPosicion()).isEqualTo(1);
+            assertThat(f.getError()).startsWith("Fila inválida");
+        });
+        assertThat(catalogo("Csv"))
+                .extracting(LineaCatalogoDTO::getSucursal, LineaCatalogoDTO::getProducto)
+                .containsExactly(tuple("Centro", "Café"), tuple("Norte", "Pan"));
+        assertThat(catalogo("Csv").get(0).getFranquiciaId()).isNotEqualTo("x");
+    }
+
+    @Test
+    void unErrorDeSintaxisDetieneLaLecturaPeroConservaLoImportado() {
+        ResultadoImportacionDTO resultado = importar(MediaType.APPLICATION_NDJSON, """
+                {"franquicia":"Sintaxis","sucursal":"Centro","producto":"Café","stock":5}
+                {"franquicia":"Sintaxis",,"sucursal":"Centro"}
+                {"franquicia":"Sintaxis","sucursal":"Centro","producto":"Té","stock":3}
+                """);
+
+        assertThat(resultado.getTotal()).isEqualTo(2);
+        assertThat(resultado.getExitosos()).isEqualTo(1);
+        assertThat(resultado.getFallidos()).singleElement()
+                .satisfies(f -> assertThat(f.getError()).startsWith("Fila ilegible"));
+        assertThat(catalogo("Sintaxis")).extracting(LineaCatalogoDTO::getProducto).containsExactly("Café");
+    }
+
+    private ResultadoImportacionDTO importar(MediaType tipo, String cuerpo) {
+        return cliente.post().uri("/api/catalogo").contentType(tipo).bodyValue(cuerpo).exchange()
+                .expectStatus().isOk().expectBody(ResultadoImportacionDTO.class).returnResult().getResponseBody();
+    }
+
+    private List<LineaCatalogoDTO> catalogo(String prefijo) {
+        return cliente.get().uri("/api/catalogo").accept(MediaType.APPLICATION_NDJSON).exchange()
+                .expectStatus().isOk().returnResult(LineaCatalogoDTO.class).getResponseBody()
+                .filter(l -> l.getFranquicia().startsWith(prefijo))
+                .collectList().block();
+    }
+}
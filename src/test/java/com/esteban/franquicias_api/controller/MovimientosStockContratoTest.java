@@ -0,0 +1,141 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.dto.FranquiciaDTO;
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.dto.ResumenMovimientosDTO;
+import com.esteban.franquicias_api.dto.SucursalDTO;
+import com.esteban.franquicias_api.service.MovimientosStockService;
+import com.esteban.franquicias_api.service.StockDiferidoService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// GET .../movimientos en modo memoria (MovimientosStockMemoriaTest) y con la colección time-series y los
+// resúmenes por hora de Mongo (MovimientosStockMongoTest). Los vaciados periódicos quedan a una hora para que
+// cada prueba decida cuándo se escribe. Una prueba puede cruzar el cambio de hora, así que se suman los períodos
+abstract class MovimientosStockContratoTest {
+
+    @Autowired
+    private WebTestClient cliente;
+
+    @Autowired
+    private StockDiferidoService stockDiferidoService;
+
+    @Autowired
+    private MovimientosStockService movimientosStockService;
+
+    @Test
+    void cadaCambioDeStockQuedaEnElResumenDelProducto() {
+        String base = franquicia("Historial");
+        String cafe = producto(base, "Café", 50);
+
+        cliente.put().uri(cafe + "/stock").bodyValue(Map.of("nuevoStock", 30)).exchange().expectStatus().isOk();
+        cliente.post().uri(cafe + "/stock/delta").bodyValue(Map.of("delta", -5)).exchange().expectStatus().isAccepted();
+        cliente.post().uri(cafe + "/stock/delta").bodyValue(Map.of("delta", -2)).exchange().expectStatus().isAccepted();
+        stockDiferidoService.vaciar();
+        assertThat(resumen(cafe + "/movimientos")).isEmpty();
+
+        movimientosStockService.vaciar();
+
+        ResumenMovimientosDTO producto = sumar(resumen(cafe + "/movimientos"));
+        // Alta con 50, ajuste a 30 y un solo incremento de -7: el stock diferido junta los deltas antes de escribir
+        assertThat(producto.getMovimientos()).isEqualTo(3);
+        assertThat(producto.getEntradas()).isEqualTo(50);
+        assertThat(producto.getSalidas()).isEqualTo(7);
+        assertThat(producto.getAjustes()).isEqualTo(1);
+        assertThat(producto.getStockMinimo()).isEqualTo(30);
+        assertThat(producto.getStockMaximo()).isEqualTo(50);
+    }
+
+    @Test
+    void laSucursalYLaFranquiciaSumanSusProductosPorHoraYPorDia() {
+        String base = franquicia("Resumenes");
+        String cafe = producto(base, "Café", 10);
+        String te = producto(base, "Té", 4);
+        cliente.delete().uri(te).exchange().expectStatus().is2xxSuccessful();
+        String otra = franquicia("Otra");
+        producto(otra, "Mate", 99);
+        movimientosStockService.vaciar();
+
+        String sucursal = cafe.substring(0, cafe.indexOf("/productos/"));
+        for (String uri : List.of(sucursal + "/movimientos", base + "/movimientos?granularidad=dia")) {
+            ResumenMovimientosDTO total = sumar(resumen(uri));
+            assertThat(total.getMovimientos()).isEqualTo(3);
+            assertThat(total.getEntradas()).isEqualTo(14);
+            assertThat(total.getAjustes()).isEqualTo(1);
+            assertThat(total.getStockMinimo()).isNull();
+        }
+        List<ResumenMovimientosDTO> dias = resumen(base + "/movimientos?granularidad=dia");
+        assertThat(dias).allSatisfy(dia -> assertThat(dia.getPeriodo()).isEqualTo(dia.getPeriodo().truncatedTo(ChronoUnit.DAYS)));
+    }
+
+    @Test
+    void elRangoFiltraPorHora() {
+        String base = franquicia("Rango");
+        String cafe = producto(base, "Café", 10);
+        movimientosStockService.vaciar();
+
+        Instant proxima = Instant.now().truncatedTo(ChronoUnit.HOURS).plus(1, ChronoUnit.HOURS);
+        assertThat(resumen(cafe + "/movimientos?desde=" + proxima + "&hasta=" + proxima.plus(2, ChronoUnit.HOURS))).isEmpty();
+        assertThat(resumen(cafe + "/movimientos?hasta=" + proxima)).isNotEmpty();
+    }
+
+    @Test
+    void rechazaConsultasInvalidas() {
+        String base = franquicia("Invalidas");
+        cliente.get().uri(base + "/movimientos?granularidad=semana").exchange().expectStatus().isBadRequest();
+        cliente.get().uri(base + "/movimientos?desde=ayer").exchange().expectStatus().isBadRequest();
+        cliente.get().uri(base + "/movimientos?desde=2025-02-01T00:00:00Z&hasta=2025-01-01T00:00:00Z")
+                .exchange().expectStatus().isBadRequest();
+        // Más períodos que franquicias.paginacion.limite-maximo (1000)
+        cliente.get().uri(base + "/movimientos?desde=2020-01-01T00:00:00Z&hasta=2025-01-01T00:00:00Z")
+                .exchange().expectStatus().isBadRequest();
+    }
+
+    private String franquicia(String nombre) {
+        FranquiciaDTO franquicia = cliente.post().uri("/api/franquicias")
+                .bodyValue(Map.of("nombre", nombre, "sucursales", List.of(Map.of("nombre", "Centro"))))
+                .exchange().expectStatus().isOk().expectBody(FranquiciaDTO.class).returnResult().getResponseBody();
+        return "/api/franquicias/" + franquicia.getId();
+    }
+
+    private String producto(String base, String nombre, int stock) {
+        String sucursal = cliente.get().uri(base + "/sucursales").exchange()
+                .expectBodyList(SucursalDTO.class).returnResult().getResponseBody().get(0).getId();
+        String productos = base + "/sucursales/" + sucursal + "/productos";
+        ProductoDTO producto = cliente.post().uri(productos).bodyValue(Map.of("nombre", nombre, "stock", stock))
+                .exchange().expectStatus().isOk().expectBody(ProductoDTO.class).returnResult().getResponseBody();
+        return productos + "/" + producto.getId();
+    }
+
+    private List<ResumenMovimientosDTO> resumen(String uri) {
+        return cliente.get().uri(uri).exchange().expectStatus().isOk()
+                .expectBodyList(ResumenMovimientosDTO.class).returnResult().getResponseBody();
+    }
+
+    private static ResumenMovimientosDTO sumar(List<ResumenMovimientosDTO> periodos) {
+        ResumenMovimientosDTO total = new ResumenMovimientosDTO();
+        for (ResumenMovimientosDTO periodo : periodos) {
+            total.setMovimientos(total.getMovimientos() + periodo.getMovimientos());
+            total.setEntradas(total.getEntradas() + periodo.getEntradas());
+            total.setSalidas(total.getSalidas() + periodo.getSalidas());
+            total.setAjustes(total.getAjustes() + periodo.getAjustes());
+            if (periodo.getStockMinimo() != null) {
+                total.setStockMinimo(total.getStockMinimo() == null ? periodo.getStockMinimo()
+                        : Math.min(total.getStockMinimo(), periodo.getStockMinimo()));
+            }
+            if (periodo.getStockMaximo() != null) {
+                total.setStockMaximo(total.getStockMaximo() == null ? periodo.getStockMaximo()
+                        : Math.max(total.getStockMaximo(), periodo.getStockMaximo()));
+            }
+        }
+        return total;
+    }
+}
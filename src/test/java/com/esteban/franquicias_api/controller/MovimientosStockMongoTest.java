@@ -0,0 +1,18 @@
+package com.esteban.franquicias_api.controller;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+// Los movimientos en la colección time-series y los resúmenes agrupados con $dateTrunc (Mongo 5.0 o posterior)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"franquicias.stock.diferido.intervalo=1h", "franquicias.movimientos.intervalo=1h"})
+@Testcontainers(disabledWithoutDocker = true)
+class MovimientosStockMongoTest extends MovimientosStockContratoTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+}
@@ -0,0 +1,152 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.FranquiciasApiApplication;
+import com.esteban.franquicias_api.dto.FranquiciaDTO;
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.dto.SucursalDTO;
+import com.esteban.franquicias_api.repository.FranquiciaRepository;
+import com.esteban.franquicias_api.service.FranquiciaService;
+import com.esteban.franquicias_api.service.ProductoService;
+import com.esteban.franquicias_api.service.StockDiferidoService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// El vaciado periódico queda a una hora para que cada prueba decida cuándo se escribe
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "franquicias.stock.diferido.intervalo=1h")
+@ActiveProfiles("memoria")
+class StockDiferidoTest {
+
+    @Autowired
+    private WebTestClient cliente;
+
+    @Autowired
+    private StockDiferidoService stockDiferidoService;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    void lasVentasConcurrentesSeJuntanEnUnSoloIncremento() throws Exception {
+        String base = franquicia("Ventas");
+        String cafe = producto(base, "Café", 500);
+        String te = producto(base, "Té", 450);
+
+        try (ExecutorService hilos = Executors.newFixedThreadPool(8)) {
+            IntStream.range(0, 200).forEach(n -> hilos.submit(() -> delta(cafe, -1)));
+        }
+        assertThat(topStock(base)).extracting(ProductoDTO::getId).containsExactly(cafe.substring(cafe.lastIndexOf('/') + 1));
+        assertThat(delta(cafe, -1)).containsEntry("pendiente", -201);
+        assertThat(stock(cafe)).isEqualTo(500);
+        assertThat(registry.get("franquicias.stock.diferido.pendientes").gauge().value()).isEqualTo(1);
+
+        assertThat(stockDiferidoService.vaciar()).isEqualTo(1);
+        assertThat(stock(cafe)).isEqualTo(299);
+        assertThat(registry.get("franquicias.stock.diferido.pendientes").gauge().value()).isZero();
+        // El índice de top-stock aplica el mismo incremento
+        assertThat(topStock(base)).extracting(ProductoDTO::getId).containsExactly(te.substring(te.lastIndexOf('/') + 1));
+    }
+
+    @Test
+    void unDescuentoSinStockSuficienteSeRechazaYElVaciadoVuelveAComprobarlo() {
+        String base = franquicia("Guarda");
+        String cafe = producto(base, "Café", 5);
+        String te = producto(base, "Té", 1);
+        double sinStock = descartados("sin-stock");
+        assertThat(topStock(base)).extracting(ProductoDTO::getStock).containsExactly(5);
+
+        delta(cafe, -3);
+        // Quedan 2 contando lo pendiente
+        cliente.post().uri(cafe + "/stock/delta").bodyValue(Map.of("delta", -3)).exchange().expectStatus().isEqualTo(HttpStatus.CONFLICT);
+        delta(te, 10);
+        cliente.post().uri(base + "/sucursales/" + sucursal(base) + "/productos/inexistente/stock/delta")
+                .bodyValue(Map.of("delta", -1)).exchange().expectStatus().isNotFound();
+        cliente.post().uri(cafe + "/stock/delta").bodyValue(Map.of("delta", 0)).exchange().expectStatus().isBadRequest();
+        // Otra escritura baja el stock antes del vaciado: el $inc tampoco lo deja negativo
+        cliente.put().uri(cafe + "/stock").bodyValue(Map.of("nuevoStock", 2)).exchange().expectStatus().isOk();
+
+        assertThat(stockDiferidoService.vaciar()).isEqualTo(1);
+        assertThat(stock(cafe)).isEqualTo(2);
+        assertThat(stock(te)).isEqualTo(11);
+        assertThat(descartados("sin-stock")).isEqualTo(sinStock + 2);
+        assertThat(topStock(base)).extracting(ProductoDTO::getStock).containsExactly(11);
+    }
+
+    @Test
+    void alApagarSeEscribeLoPendiente() {
+        ConfigurableApplicationContext app = new SpringApplicationBuilder(FranquiciasApiApplication.class)
+                .profiles("memoria")
+                .run("--server.port=0", "--franquicias.stock.diferido.intervalo=1h");
+        FranquiciaRepository repositorio = app.getBean(FranquiciaRepository.class);
+        FranquiciaDTO nueva = new FranquiciaDTO();
+        nueva.setNombre("Apagado");
+        nueva.setSucursales(List.of(SucursalDTO.builder().nombre("Centro").build()));
+        FranquiciaDTO franquicia = app.getBean(FranquiciaService.class).crearFranquicia(nueva);
+        String sucursal = franquicia.getSucursales().get(0).getId();
+        ProductoDTO pan = app.getBean(ProductoService.class)
+                .agregarProducto(franquicia.getId(), sucursal, ProductoDTO.builder().nombre("Pan").stock(10).build());
+        app.getBean(StockDiferidoService.class).acumular(franquicia.getId(), sucursal, pan.getId(), -4);
+
+        app.close();
+
+        assertThat(repositorio.findById(franquicia.getId()).orElseThrow()
+                .sucursal(sucursal).orElseThrow().producto(pan.getId()).orElseThrow().getStock()).isEqualTo(6);
+    }
+
+    private Map<String, Integer> delta(String producto, int delta) {
+        return cliente.post().uri(producto + "/stock/delta").bodyValue(Map.of("delta", delta)).exchange()
+                .expectStatus().isAccepted()
+                .expectBody(new ParameterizedTypeReference<Map<String, Integer>>() {
+                }).returnResult().getResponseBody();
+    }
+
+    private String franquicia(String nombre) {
+        FranquiciaDTO franquicia = cliente.post().uri("/api/franquicias")
+                .bodyValue(Map.of("nombre", nombre, "sucursales", List.of(Map.of("nombre", "Centro"))))
+                .exchange().expectStatus().isOk().expectBody(FranquiciaDTO.class).returnResult().getResponseBody();
+        return "/api/franquicias/" + franquicia.getId();
+    }
+
+    private String sucursal(String base) {
+        return cliente.get().uri(base + "/sucursales").exchange()
+                .expectBodyList(SucursalDTO.class).returnResult().getResponseBody().get(0).getId();
+    }
+
+    private String producto(String base, String nombre, int stock) {
+        String productos = base + "/sucursales/" + sucursal(base) + "/productos";
+        ProductoDTO producto = cliente.post().uri(productos).bodyValue(Map.of("nombre", nombre, "stock", stock))
+                .exchange().expectStatus().isOk().expectBody(ProductoDTO.class).returnResult().getResponseBody();
+        return productos + "/" + producto.getId();
+    }
+
+    private int stock(String producto) {
+        return cliente.get().uri(producto).exchange()
+                .expectBody(ProductoDTO.class).returnResult().getResponseBody().getStock();
+    }
+
+    private List<ProductoDTO> topStock(String base) {
+        return cliente.get().uri(base + "/productos/top-stock").exchange()
+                .expectBodyList(ProductoDTO.class).returnResult().getResponseBody();
+    }
+
+    private double descartados(String motivo) {
+        var contador = registry.find("franquicias.stock.diferido.descartados").tag("motivo", motivo).counter();
+        return contador == null ? 0 : contador.count();
+    }
+}
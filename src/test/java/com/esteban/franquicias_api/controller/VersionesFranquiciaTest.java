@@ -0,0 +1,44 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.event.StockActualizadoEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VersionesFranquiciaTest {
+
+    private final AtomicLong reloj = new AtomicLong(123);
+    private final FranquiciasProperties properties = new FranquiciasProperties();
+    private final VersionesFranquicia versiones;
+
+    VersionesFranquiciaTest() {
+        properties.getEtag().setInactividad(Duration.ofMinutes(1));
+        versiones = new VersionesFranquicia(properties, reloj::get);
+    }
+
+    @Test
+    void unaFranquiciaOlvidadaNuncaVuelveAUnEtagViejo() {
+        String inicial = versiones.etag("f1");
+        assertThat(versiones.etag("f1")).isEqualTo(inicial);
+        versiones.incrementar(new StockActualizadoEvent("f1", "s1", "p1", 3));
+        String escrita = versiones.etag("f1");
+        assertThat(escrita).isNotEqualTo(inicial);
+
+        // Sin uso se olvida; al volver no repite ninguno de los ETag que ya tuvo
+        reloj.addAndGet(Duration.ofMinutes(2).toNanos());
+        String nueva = versiones.etag("f1");
+        assertThat(nueva).isNotIn(inicial, escrita);
+        assertThat(versiones.etag("f1")).isEqualTo(nueva);
+    }
+
+    @Test
+    void otraInstanciaNoRepiteLosEtag() {
+        VersionesFranquicia otra = new VersionesFranquicia(properties, reloj::get);
+
+        assertThat(otra.etag("f1")).isNotEqualTo(versiones.etag("f1"));
+    }
+}
@@ -0,0 +1,130 @@
+package com.esteban.franquicias_api.controller;
+
+import com.esteban.franquicias_api.dto.FranquiciaDTO;
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.dto.VistaSucursalDTO;
+import com.esteban.franquicias_api.repository.VistaSucursales;
+import com.esteban.franquicias_api.service.StockDiferidoService;
+import com.esteban.franquicias_api.service.VistaSucursalesService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// GET .../vista/sucursales en modo memoria (VistaSucursalesMemoriaTest) y con las marcas y la vista en Mongo
+// (VistaSucursalesMongoTest). Las proyecciones periódicas quedan a una hora: cada prueba proyecta cuando
+// quiere ver la vista al día, y antes de eso la vista puede ir atrasada
+abstract class VistaSucursalesContratoTest {
+
+    @Autowired
+    private WebTestClient cliente;
+
+    @Autowired
+    private VistaSucursalesService vistaSucursalesService;
+
+    @Autowired
+    private StockDiferidoService stockDiferidoService;
+
+    @Autowired
+    private VistaSucursales vistas;
+
+    @Test
+    void laVistaSigueLasEscriturasDeLaSucursal() {
+        FranquiciaDTO franquicia = franquicia("Vista", "Centro");
+        String sucursalId = franquicia.getSucursales().get(0).getId();
+        String sucursal = "/api/franquicias/" + franquicia.getId() + "/sucursales/" + sucursalId;
+        String vista = "/api/franquicias/" + franquicia.getId() + "/vista/sucursales/" + sucursalId;
+
+        String cafe = producto(sucursal, "Café", 10);
+        String te = producto(sucursal, "Té", 30);
+        producto(sucursal, "Mate", 5);
+        cliente.put().uri(cafe + "/stock").bodyValue(Map.of("nuevoStock", 40)).exchange().expectStatus().isOk();
+        cliente.post().uri(te + "/stock/delta").bodyValue(Map.of("delta", 15)).exchange().expectStatus().isAccepted();
+        stockDiferidoService.vaciar();
+        cliente.put().uri(sucursal).bodyValue(Map.of("nombre", "Norte")).exchange().expectStatus().isOk();
+        vistaSucursalesService.proyectar();
+
+        VistaSucursalDTO leida = leer(vista);
+        assertThat(leida.getNombre()).isEqualTo("Norte");
+        assertThat(leida.getFranquiciaId()).isEqualTo(franquicia.getId());
+        assertThat(leida.getTotalProductos()).isEqualTo(3);
+        assertThat(leida.getStockTotal()).isEqualTo(40 + 45 + 5);
+        assertThat(leida.getProductoConMasStock().getNombre()).isEqualTo("Té");
+        assertThat(leida.getProductos()).extracting(ProductoDTO::getSucursalId).containsOnly(sucursalId);
+
+        cliente.delete().uri(te).exchange().expectStatus().is2xxSuccessful();
+        vistaSucursalesService.proyectar();
+
+        leida = leer(vista);
+        assertThat(leida.getTotalProductos()).isEqualTo(2);
+        assertThat(leida.getStockTotal()).isEqualTo(45);
+        assertThat(leida.getProductoConMasStock().getNombre()).isEqualTo("Café");
+    }
+
+    @Test
+    void listaLasSucursalesDeLaFranquiciaPaginadas() {
+        FranquiciaDTO franquicia = franquicia("Paginada", "A", "B", "C");
+        String otra = franquicia("Otra", "Sola").getId();
+        cliente.post().uri("/api/franquicias/" + franquicia.getId() + "/sucursales").bodyValue(Map.of("nombre", "D"))
+                .exchange().expectStatus().isOk();
+        vistaSucursalesService.proyectar();
+
+        String uri = "/api/franquicias/" + franquicia.getId() + "/vista/sucursales?limite=3";
+        EntityExchangeResult<List<VistaSucursalDTO>> primera = cliente.get().uri(uri).exchange().expectStatus().isOk()
+                .expectBodyList(VistaSucursalDTO.class).returnResult();
+        assertThat(primera.getResponseBody()).hasSize(3);
+        String siguiente = primera.getResponseHeaders().getFirst(HttpHeaders.LINK);
+        assertThat(siguiente).contains("despues=" + primera.getResponseBody().get(2).getId());
+
+        List<VistaSucursalDTO> segunda = cliente.get().uri(uri + "&despues=" + primera.getResponseBody().get(2).getId())
+                .exchange().expectStatus().isOk().expectBodyList(VistaSucursalDTO.class).returnResult().getResponseBody();
+        assertThat(segunda).hasSize(1);
+        assertThat(segunda.get(0).getId()).isGreaterThan(primera.getResponseBody().get(2).getId());
+        assertThat(cliente.get().uri("/api/franquicias/" + otra + "/vista/sucursales").exchange()
+                .expectBodyList(VistaSucursalDTO.class).returnResult().getResponseBody())
+                .extracting(VistaSucursalDTO::getNombre).containsExactly("Sola");
+    }
+
+    @Test
+    void reconstruirVuelveAProyectarLoQueFaltaEnLaVista() {
+        FranquiciaDTO franquicia = franquicia("Reconstruida", "Centro");
+        String sucursalId = franquicia.getSucursales().get(0).getId();
+        String vista = "/api/franquicias/" + franquicia.getId() + "/vista/sucursales/" + sucursalId;
+        vistaSucursalesService.proyectar();
+        leer(vista);
+
+        vistas.quitar(franquicia.getId(), sucursalId);
+        cliente.get().uri(vista).exchange().expectStatus().is5xxServerError();
+
+        cliente.post().uri("/actuator/proyeccion").exchange().expectStatus().isOk()
+                .expectBody().jsonPath("$.marcadas").value(marcadas -> assertThat((Integer) marcadas).isPositive());
+        vistaSucursalesService.proyectar();
+
+        assertThat(leer(vista).getNombre()).isEqualTo("Centro");
+        cliente.get().uri("/actuator/proyeccion").exchange().expectStatus().isOk()
+                .expectBody().jsonPath("$.pendientes").isNumber().jsonPath("$.retrasoSegundos").isNumber();
+    }
+
+    private FranquiciaDTO franquicia(String nombre, String... sucursales) {
+        return cliente.post().uri("/api/franquicias")
+                .bodyValue(Map.of("nombre", nombre, "sucursales", List.of(sucursales).stream().map(s -> Map.of("nombre", s)).toList()))
+                .exchange().expectStatus().isOk().expectBody(FranquiciaDTO.class).returnResult().getResponseBody();
+    }
+
+    private String producto(String sucursal, String nombre, int stock) {
+        ProductoDTO producto = cliente.post().uri(sucursal + "/productos").bodyValue(Map.of("nombre", nombre, "stock", stock))
+                .exchange().expectStatus().isOk().expectBody(ProductoDTO.class).returnResult().getResponseBody();
+        return sucursal + "/productos/" + producto.getId();
+    }
+
+    private VistaSucursalDTO leer(String uri) {
+        return cliente.get().uri(uri).exchange().expectStatus().isOk()
+                .expectBody(VistaSucursalDTO.class).returnResult().getResponseBody();
+    }
+}
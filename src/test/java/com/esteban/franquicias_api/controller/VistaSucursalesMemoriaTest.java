@@ -0,0 +1,11 @@
+package com.esteban.franquicias_api.controller;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"franquicias.stock.diferido.intervalo=1h", "franquicias.proyeccion.habilitada=true",
+                "franquicias.proyeccion.intervalo=1h"})
+@ActiveProfiles("memoria")
+class VistaSucursalesMemoriaTest extends VistaSucursalesContratoTest {
+}
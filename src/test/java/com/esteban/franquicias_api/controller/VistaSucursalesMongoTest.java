@@ -0,0 +1,19 @@
+package com.esteban.franquicias_api.controller;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+// Las marcas con upserts en bulk y la vista paginada por el índice (franquiciaId, _id)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"franquicias.stock.diferido.intervalo=1h", "franquicias.proyeccion.habilitada=true",
+                "franquicias.proyeccion.intervalo=1h"})
+@Testcontainers(disabledWithoutDocker = true)
+class VistaSucursalesMongoTest extends VistaSucursalesContratoTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+}
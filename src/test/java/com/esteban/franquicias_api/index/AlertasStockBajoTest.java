@@ -0,0 +1,179 @@
+package com.esteban.franquicias_api.index;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.dto.AlertaStockDTO;
+import com.esteban.franquicias_api.event.*;
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.Producto;
+import com.esteban.franquicias_api.model.Sucursal;
+import com.esteban.franquicias_api.repository.FranquiciaRepository;
+import com.esteban.franquicias_api.repository.ProductoStore;
+import com.esteban.franquicias_api.repository.PuntosControl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class AlertasStockBajoTest {
+
+    private final FranquiciaRepository repository = mock(FranquiciaRepository.class);
+    private final ProductoStore store = mock(ProductoStore.class);
+    private final PuntosControl puntosControl = mock(PuntosControl.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final FranquiciasProperties properties = new FranquiciasProperties();
+    private final AlertasStockBajo alertas;
+
+    AlertasStockBajoTest() {
+        properties.getAlertas().setUmbralPorDefecto(5);
+        properties.getAlertas().getBarrido().setFranquiciasPorIntervalo(2);
+        alertas = new AlertasStockBajo(repository, store, puntosControl, properties, registry);
+    }
+
+    @Test
+    void unaAlertaPorProductoHastaQueVuelveAlUmbral() {
+        alertas.aplicar(new SucursalAgregadaEvent("f1", new Sucursal("s1", "Centro", new ArrayList<>(), 10)));
+
+        alertas.aplicar(new StockActualizadoEvent("f1", "s1", "p1", 3));
+        alertas.aplicar(new StockActualizadoEvent("f1", "s1", "p1", 2));
+        alertas.aplicar(new StockIncrementadoEvent("f1", "s1", "p1", 1, 3));
+        assertThat(alertas.abiertas("f1")).extracting(AlertaStockDTO::getProductoId, AlertaStockDTO::getStock, AlertaStockDTO::getUmbral)
+                .containsExactly(tuple("p1", 3, 10));
+        assertThat(contador("franquicias.alertas.stock-bajo.emitidas")).isEqualTo(1);
+
+        alertas.aplicar(new StockIncrementadoEvent("f1", "s1", "p1", 7, 10));
+        assertThat(alertas.abiertas("f1")).isEmpty();
+        assertThat(contador("franquicias.alertas.stock-bajo.resueltas")).isEqualTo(1);
+        assertThat(registry.get("franquicias.alertas.stock-bajo.abiertas").gauge().value()).isZero();
+    }
+
+    @Test
+    void sinUmbralConocidoElBarridoRevisaLaFranquiciaPrimero() {
+        when(store.stockYUmbrales("f9")).thenReturn(Optional.of(franquicia("f9",
+                new Sucursal("s1", "Centro", productos(new Producto("p1", "Café", 1), new Producto("p2", "Té", 8)), null),
+                new Sucursal("s2", "Norte", productos(new Producto("p3", "Pan", 8)), 20))));
+        when(repository.paginaFranquicias(any(), anyInt())).thenReturn(List.of());
+
+        // Sin los umbrales no se decide nada: la franquicia queda para el próximo paso
+        alertas.aplicar(new StockActualizadoEvent("f9", "s1", "p1", 1));
+        assertThat(alertas.abiertas("f9")).isEmpty();
+
+        alertas.barrer();
+
+        assertThat(alertas.abiertas("f9")).extracting(AlertaStockDTO::getSucursalId, AlertaStockDTO::getProductoId)
+                .containsExactly(tuple("s1", "p1"), tuple("s2", "p3"));
+        verify(repository).paginaFranquicias(null, 1);
+
+        // Ya con los umbrales los eventos se evalúan al llegar
+        alertas.aplicar(new StockActualizadoEvent("f9", "s1", "p2", 4));
+        assertThat(alertas.abiertas("f9")).hasSize(3);
+    }
+
+    @Test
+    void subirElUmbralAbreEnElBarridoLasQueQuedanPorDebajo() {
+        when(store.stockYUmbrales("f1")).thenReturn(Optional.of(franquicia("f1",
+                new Sucursal("s1", "Centro", productos(new Producto("p1", "Café", 4), new Producto("p2", "Té", 15)), 20))));
+        when(repository.paginaFranquicias(any(), anyInt())).thenReturn(List.of());
+        alertas.aplicar(new SucursalAgregadaEvent("f1",
+                new Sucursal("s1", "Centro", productos(new Producto("p1", "Café", 4), new Producto("p2", "Té", 15)), null)));
+        assertThat(alertas.abiertas("f1")).extracting(AlertaStockDTO::getUmbral).containsExactly(5);
+
+        alertas.aplicar(new UmbralStockActualizadoEvent("f1", "s1", 20));
+        assertThat(alertas.abiertas("f1")).extracting(AlertaStockDTO::getProductoId, AlertaStockDTO::getUmbral)
+                .containsExactly(tuple("p1", 20));
+
+        alertas.barrer();
+        assertThat(alertas.abiertas("f1")).extracting(AlertaStockDTO::getProductoId).containsExactly("p1", "p2");
+    }
+
+    @Test
+    void loLeidoDuranteUnaEscrituraNoPisaLasAlertas() {
+        alertas.aplicar(new SucursalAgregadaEvent("f1", new Sucursal("s1", "Centro", productos(new Producto("p1", "Café", 1)), null)));
+        when(repository.paginaFranquicias(any(), anyInt())).thenReturn(List.of());
+        // El stock sube mientras se lee de Mongo: lo leído ya no sirve para cerrar ni abrir alertas
+        when(store.stockYUmbrales("f1")).thenAnswer(invocation -> {
+            alertas.aplicar(new StockActualizadoEvent("f1", "s1", "p2", 2));
+            return Optional.of(franquicia("f1", new Sucursal("s1", "Centro", productos(new Producto("p1", "Café", 1)), null)));
+        });
+        alertas.aplicar(new UmbralStockActualizadoEvent("f1", "s1", 5));
+
+        alertas.barrer();
+
+        assertThat(alertas.abiertas("f1")).extracting(AlertaStockDTO::getProductoId).containsExactly("p1", "p2");
+    }
+
+    @Test
+    void elBarridoRetomaDesdeElPuntoDeControlYCierraLoQueYaNoEsta() {
+        when(puntosControl.leer(AlertasStockBajo.BARRIDO)).thenReturn(Optional.of("f1"));
+        when(repository.paginaFranquicias("f1", 2)).thenReturn(List.of(resumen("f2"), resumen("f3")));
+        when(repository.paginaFranquicias("f3", 2)).thenReturn(List.of(resumen("f4")));
+        when(store.stockYUmbrales(any())).thenAnswer(invocation -> Optional.of(
+                franquicia(invocation.getArgument(0), new Sucursal("s1", "Centro", productos(new Producto("p1", "Café", 1)), null))));
+        alertas.aplicar(new SucursalAgregadaEvent("f2", new Sucursal("s1", "Centro", productos(new Producto("viejo", "Té", 0)), null)));
+
+        assertThat(alertas.barrer()).isEqualTo(2);
+        verify(puntosControl).guardar(AlertasStockBajo.BARRIDO, "f3");
+        assertThat(alertas.abiertas("f2")).extracting(AlertaStockDTO::getProductoId).containsExactly("p1");
+
+        // Página corta: terminó la vuelta y la próxima empieza desde el principio
+        assertThat(alertas.barrer()).isEqualTo(1);
+        verify(puntosControl).guardar(AlertasStockBajo.BARRIDO, null);
+        assertThat(contador("franquicias.alertas.barrido.vueltas")).isEqualTo(1);
+        assertThat(contador("franquicias.alertas.barrido.franquicias")).isEqualTo(3);
+        assertThat(alertas.abiertas(null)).extracting(AlertaStockDTO::getFranquiciaId).containsExactly("f2", "f3", "f4");
+        verify(puntosControl, times(1)).leer(AlertasStockBajo.BARRIDO);
+
+        alertas.barrer();
+        verify(repository).paginaFranquicias(null, 2);
+    }
+
+    @Test
+    void cadaPasoRevisaALoSumoElLote() {
+        for (String id : List.of("a", "b", "c")) {
+            alertas.aplicar(new StockActualizadoEvent(id, "s1", "p1", 0));
+        }
+        when(store.stockYUmbrales(any())).thenReturn(Optional.empty());
+
+        assertThat(alertas.barrer()).isEqualTo(2);
+        verify(repository, never()).paginaFranquicias(any(), anyInt());
+        verify(store, times(2)).stockYUmbrales(any());
+    }
+
+    @Test
+    void sinNingunUmbralElBarridoNoLeeFranquicias() {
+        properties.getAlertas().setUmbralPorDefecto(0);
+        alertas.aplicar(new StockActualizadoEvent("f1", "s1", "p1", 0));
+
+        assertThat(alertas.barrer()).isZero();
+        verify(repository).hayUmbralStock();
+        verify(repository, never()).paginaFranquicias(any(), anyInt());
+        verifyNoInteractions(store);
+
+        // Con un umbral propio en alguna sucursal el barrido vuelve a recorrer desde el punto de control
+        when(repository.hayUmbralStock()).thenReturn(true);
+        when(repository.paginaFranquicias(any(), anyInt())).thenReturn(List.of());
+        alertas.barrer();
+        verify(repository).paginaFranquicias(null, 2);
+    }
+
+    private double contador(String nombre) {
+        return registry.get(nombre).counter().count();
+    }
+
+    private static Franquicia franquicia(String id, Sucursal... sucursales) {
+        return new Franquicia(id, "Franquicia " + id, new ArrayList<>(List.of(sucursales)));
+    }
+
+    private static Franquicia resumen(String id) {
+        return new Franquicia(id, "Franquicia " + id, List.of());
+    }
+
+    private static List<Producto> productos(Producto... productos) {
+        return new ArrayList<>(List.of(productos));
+    }
+}
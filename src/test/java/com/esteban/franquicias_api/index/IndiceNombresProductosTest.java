@@ -0,0 +1,126 @@
+package com.esteban.franquicias_api.index;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.dto.ProductoEncontradoDTO;
+import com.esteban.franquicias_api.event.ProductoAgregadoEvent;
+import com.esteban.franquicias_api.event.ProductoEliminadoEvent;
+import com.esteban.franquicias_api.event.ProductoRenombradoEvent;
+import com.esteban.franquicias_api.event.SucursalAgregadaEvent;
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.Producto;
+import com.esteban.franquicias_api.model.Sucursal;
+import com.esteban.franquicias_api.repository.PosicionBusqueda;
+import com.esteban.franquicias_api.repository.ProductoStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IndiceNombresProductosTest {
+
+    private final ProductoStore store = mock(ProductoStore.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final IndiceNombresProductos indice = new IndiceNombresProductos(store, new FranquiciasProperties(), registry);
+
+    @Test
+    void ordenaPorCoincidenciaLargoEIdsSinDistinguirTildesNiMayusculas() {
+        cargar(franquicia("f2", sucursal("s1", new Producto("p1", "Café", 1), new Producto("p2", "Cafetera Grande", 1))),
+                franquicia("f1", sucursal("s1", new Producto("p3", "CAFE", 1), new Producto("p4", "Descafeinado", 1),
+                        new Producto("p5", "Cafetera", 1), new Producto("p6", "Té", 1))));
+
+        assertThat(indice.buscar(null, "cafe", false, null, 10))
+                .extracting(ProductoEncontradoDTO::getProductoId, ProductoEncontradoDTO::getCoincidencia)
+                .containsExactly(tuple("p3", "exacta"), tuple("p1", "exacta"), tuple("p5", "prefijo"),
+                        tuple("p2", "prefijo"), tuple("p4", "contiene"));
+        assertThat(indice.buscar(null, "Café", true, null, 10)).extracting(ProductoEncontradoDTO::getProductoId)
+                .containsExactly("p3", "p1", "p5", "p2");
+        assertThat(indice.buscar("f1", "afei", false, null, 10)).extracting(ProductoEncontradoDTO::getProductoId)
+                .containsExactly("p4");
+        assertThat(indice.buscar(null, "xyz", false, null, 10)).isEmpty();
+    }
+
+    @Test
+    void elCursorSigueDondeTerminoLaPaginaAnterior() {
+        cargar(franquicia("f1", sucursal("s1", new Producto("p1", "Pan", 1), new Producto("p2", "Pan Dulce", 1),
+                new Producto("p3", "Pan", 1), new Producto("p4", "Mazapán", 1))));
+
+        List<ProductoEncontradoDTO> primera = indice.buscar(null, "pan", false, null, 2);
+        assertThat(primera).extracting(ProductoEncontradoDTO::getProductoId).containsExactly("p1", "p3");
+        assertThat(indice.buscar(null, "pan", false, PosicionBusqueda.de(primera.get(1)), 2))
+                .extracting(ProductoEncontradoDTO::getProductoId).containsExactly("p2", "p4");
+    }
+
+    @Test
+    void unTextoCortoSoloBuscaPorPrefijo() {
+        cargar(franquicia("f1", sucursal("s1", new Producto("p1", "Té", 1), new Producto("p2", "Té Verde", 1),
+                new Producto("p3", "Mate", 1))));
+
+        assertThat(indice.buscar(null, "te", false, null, 10)).extracting(ProductoEncontradoDTO::getProductoId)
+                .containsExactly("p1", "p2");
+    }
+
+    @Test
+    void losEventosAgreganRenombranYQuitanProductos() {
+        cargar();
+        indice.aplicar(new SucursalAgregadaEvent("f1", sucursal("s1", new Producto("p1", "Yerba", 1))));
+        indice.aplicar(new ProductoAgregadoEvent("f1", "s1", new Producto("p2", "Yerba Suave", 1)));
+        indice.aplicar(new ProductoAgregadoEvent("f2", "s9", new Producto("p3", "Yerba", 1)));
+        assertThat(indice.buscar(null, "yerba", false, null, 10)).hasSize(3);
+        assertThat(gauge("franquicias.busqueda.indice.productos")).isEqualTo(3);
+        assertThat(gauge("franquicias.busqueda.indice.nombres")).isEqualTo(2);
+
+        indice.aplicar(new ProductoRenombradoEvent("f1", "s1", "p1", "Azúcar"));
+        indice.aplicar(new ProductoEliminadoEvent("f2", "s9", "p3"));
+        assertThat(indice.buscar(null, "yerba", false, null, 10)).extracting(ProductoEncontradoDTO::getProductoId)
+                .containsExactly("p2");
+        assertThat(indice.buscar(null, "azucar", false, null, 10)).extracting(ProductoEncontradoDTO::getNombre)
+                .containsExactly("Azúcar");
+
+        indice.aplicar(new ProductoEliminadoEvent("f1", "s1", "p1"));
+        indice.aplicar(new ProductoEliminadoEvent("f1", "s1", "p2"));
+        assertThat(gauge("franquicias.busqueda.indice.productos")).isZero();
+        assertThat(gauge("franquicias.busqueda.indice.nombres")).isZero();
+        assertThat(gauge("franquicias.busqueda.indice.bytes")).isZero();
+    }
+
+    @Test
+    void unaFranquiciaModificadaMientrasSeCargabaSeVuelveALeer() {
+        Franquicia vieja = franquicia("f1", sucursal("s1", new Producto("p1", "Galleta", 1)));
+        Franquicia nueva = franquicia("f1", sucursal("s1", new Producto("p1", "Galleta", 1), new Producto("p2", "Galletita", 1)));
+        // El producto se agrega después de leer la franquicia y antes de que la carga la indexe
+        when(store.franquiciasCompletas()).thenAnswer(invocation -> Stream.of(vieja).peek(f ->
+                indice.aplicar(new ProductoAgregadoEvent("f1", "s1", new Producto("p2", "Galletita", 1)))));
+        when(store.franquiciaCompleta("f1")).thenReturn(Optional.of(nueva));
+
+        indice.reconstruir();
+
+        assertThat(indice.listo()).isTrue();
+        assertThat(indice.buscar(null, "galle", false, null, 10)).extracting(ProductoEncontradoDTO::getProductoId)
+                .containsExactly("p1", "p2");
+    }
+
+    private void cargar(Franquicia... franquicias) {
+        when(store.franquiciasCompletas()).thenReturn(Stream.of(franquicias));
+        indice.reconstruir();
+    }
+
+    private double gauge(String nombre) {
+        return registry.get(nombre).gauge().value();
+    }
+
+    private static Franquicia franquicia(String id, Sucursal... sucursales) {
+        return new Franquicia(id, "Franquicia " + id, new ArrayList<>(List.of(sucursales)));
+    }
+
+    private static Sucursal sucursal(String id, Producto... productos) {
+        return new Sucursal(id, "Centro", new ArrayList<>(List.of(productos)), null);
+    }
+}
@@ -0,0 +1,177 @@
+package com.esteban.franquicias_api.index;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.dto.ProductoDTO;
+import com.esteban.franquicias_api.event.*;
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.Producto;
+import com.esteban.franquicias_api.model.Sucursal;
+import com.esteban.franquicias_api.repository.ProductoStore;
+import com.esteban.franquicias_api.repository.ProductosConMasStock;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.*;
+
+class TopStockIndexTest {
+
+    private final ProductoStore store = mock(ProductoStore.class);
+    private final TopStockIndex index = new TopStockIndex(store, new FranquiciasProperties());
+
+    @Test
+    void seMantieneIgualAlCalculoCompletoTrasEscriturasAleatorias() {
+        Random random = new Random(7);
+        Franquicia franquicia = new Franquicia("f1", "Franquicia", new ArrayList<>());
+        for (int s = 0; s < 4; s++) {
+            franquicia.getSucursales().add(new Sucursal("s" + s, "Sucursal " + s, new ArrayList<>()));
+        }
+        when(store.franquiciaCompleta("f1")).thenReturn(Optional.of(franquicia));
+        index.productosConMasStock("f1");
+
+        for (int i = 0; i < 2000; i++) {
+            index.aplicar(escrituraAleatoria(random, franquicia, i));
+            assertThat(index.productosConMasStock("f1")).contains(ProductosConMasStock.calcular(franquicia));
+        }
+        verify(store, times(1)).franquiciaCompleta("f1");
+    }
+
+    @Test
+    void unaCargaConcurrenteConUnaEscrituraNoQuedaEnElIndice() {
+        Franquicia antes = new Franquicia("f1", "Franquicia", new ArrayList<>(List.of(
+                new Sucursal("s1", "Centro", new ArrayList<>(List.of(new Producto("p1", "Café", 5)))))));
+        // La escritura llega mientras se lee de Mongo: lo leído ya no sirve para indexar
+        when(store.franquiciaCompleta("f1")).thenAnswer(invocation -> {
+            index.aplicar(new StockActualizadoEvent("f1", "s1", "p1", 9));
+            return Optional.of(antes);
+        });
+
+        index.productosConMasStock("f1");
+
+        assertThat(index.franquiciasIndexadas()).isEmpty();
+    }
+
+    @Test
+    void unIncrementoQueLaCargaYaLeyoNoSeSumaDosVeces() {
+        // El $inc de 5 a 6 ya está en lo leído, pero su evento llega después de publicar la carga
+        when(store.franquiciaCompleta("f1")).thenReturn(Optional.of(new Franquicia("f1", "Franquicia", new ArrayList<>(List.of(
+                new Sucursal("s1", "Centro", new ArrayList<>(List.of(new Producto("p1", "Café", 6), new Producto("p2", "Té", 6)))))))));
+        index.productosConMasStock("f1");
+
+        index.aplicar(new StockIncrementadoEvent("f1", "s1", "p1", 1, 6));
+
+        assertThat(index.productosConMasStock("f1")).hasValueSatisfying(top ->
+                assertThat(top).extracting(ProductoDTO::getId, ProductoDTO::getStock).containsExactly(tuple("p1", 6)));
+    }
+
+    @Test
+    void laVerificacionRecargaUnaFranquiciaConEventosFueraDeOrden() {
+        Franquicia franquicia = new Franquicia("f1", "Franquicia", new ArrayList<>(List.of(
+                new Sucursal("s1", "Centro", new ArrayList<>(List.of(new Producto("p1", "Café", 5), new Producto("p2", "Té", 7)))))));
+        when(store.franquiciaCompleta("f1")).thenReturn(Optional.of(franquicia));
+        when(store.releerFranquiciaCompleta("f1")).thenReturn(Optional.of(franquicia));
+        when(store.productosConMasStock("f1")).thenAnswer(invocation -> ProductosConMasStock.calcular(franquicia));
+        index.productosConMasStock("f1");
+
+        // En Mongo quedó 9, pero el evento de la escritura anterior llega último
+        franquicia.getSucursales().get(0).getProductos().get(0).setStock(9);
+        index.aplicar(new StockActualizadoEvent("f1", "s1", "p1", 9));
+        index.aplicar(new StockActualizadoEvent("f1", "s1", "p1", 1));
+        assertThat(index.productosConMasStock("f1")).hasValueSatisfying(top -> assertThat(top.get(0).getId()).isEqualTo("p2"));
+
+        assertThat(index.verificarSiguientes(10)).isEqualTo(1);
+        assertThat(index.productosConMasStock("f1")).contains(ProductosConMasStock.calcular(franquicia));
+        assertThat(index.verificarSiguientes(10)).isZero();
+        // La recarga no se junta con una lectura en vuelo que pudo empezar antes de la escritura
+        verify(store, times(1)).franquiciaCompleta("f1");
+        verify(store, times(1)).releerFranquiciaCompleta("f1");
+    }
+
+    @Test
+    void unaFranquiciaSinConsultasSeSueltaAunqueSeVerifiqueYRecibaEventos() {
+        FranquiciasProperties properties = new FranquiciasProperties();
+        properties.getTopStock().setInactividad(Duration.ofMinutes(30));
+        AtomicLong reloj = new AtomicLong();
+        TopStockIndex acotado = new TopStockIndex(store, properties, reloj::get);
+        for (String id : List.of("f1", "f2")) {
+            Franquicia franquicia = new Franquicia(id, "Franquicia", new ArrayList<>(List.of(
+                    new Sucursal("s1", "Centro", new ArrayList<>(List.of(new Producto("p1", "Café", 5)))))));
+            when(store.franquiciaCompleta(id)).thenReturn(Optional.of(franquicia));
+            when(store.productosConMasStock(id)).thenReturn(ProductosConMasStock.calcular(franquicia));
+        }
+        acotado.productosConMasStock("f1");
+        acotado.productosConMasStock("f2");
+
+        reloj.addAndGet(Duration.ofMinutes(20).toNanos());
+        acotado.productosConMasStock("f2");
+        acotado.verificarSiguientes(10);
+        acotado.aplicar(new StockActualizadoEvent("f1", "s1", "p1", 9));
+        reloj.addAndGet(Duration.ofMinutes(20).toNanos());
+
+        assertThat(acotado.franquiciasIndexadas()).containsExactly("f2");
+    }
+
+    @Test
+    void laVerificacionAvanzaPorTurnos() {
+        for (String id : List.of("f1", "f2", "f3")) {
+            when(store.franquiciaCompleta(id)).thenReturn(Optional.of(new Franquicia(id, "Franquicia", new ArrayList<>())));
+            when(store.productosConMasStock(id)).thenReturn(List.of());
+            index.productosConMasStock(id);
+        }
+
+        index.verificarSiguientes(2);
+        verify(store).productosConMasStock("f1");
+        verify(store).productosConMasStock("f2");
+        verify(store, never()).productosConMasStock("f3");
+
+        // Sigue en f3 y vuelve a empezar por f1
+        index.verificarSiguientes(2);
+        verify(store).productosConMasStock("f3");
+        verify(store, times(2)).productosConMasStock("f1");
+        verify(store, times(1)).productosConMasStock("f2");
+    }
+
+    @Test
+    void franquiciaInexistente() {
+        when(store.franquiciaCompleta("nada")).thenReturn(Optional.empty());
+
+        assertThat(index.productosConMasStock("nada")).isEmpty();
+    }
+
+    // Aplica una escritura al modelo y devuelve el evento que publicaría el servicio
+    private static FranquiciaEvent escrituraAleatoria(Random random, Franquicia franquicia, int n) {
+        Sucursal sucursal = franquicia.getSucursales().get(random.nextInt(franquicia.getSucursales().size()));
+        List<Producto> productos = sucursal.getProductos();
+        int operacion = productos.isEmpty() ? 0 : random.nextInt(5);
+
+        switch (operacion) {
+            case 1 -> {
+                Producto producto = productos.get(random.nextInt(productos.size()));
+                producto.setStock(random.nextInt(10));
+                return new StockActualizadoEvent("f1", sucursal.getId(), producto.getId(), producto.getStock());
+            }
+            case 2 -> {
+                Producto producto = productos.remove(random.nextInt(productos.size()));
+                return new ProductoEliminadoEvent("f1", sucursal.getId(), producto.getId());
+            }
+            case 3 -> {
+                Producto producto = productos.get(random.nextInt(productos.size()));
+                producto.setNombre("Renombrado " + n);
+                return new ProductoRenombradoEvent("f1", sucursal.getId(), producto.getId(), producto.getNombre());
+            }
+            case 4 -> {
+                sucursal.setNombre("Sucursal renombrada " + n);
+                return new SucursalRenombradaEvent("f1", sucursal.getId(), sucursal.getNombre());
+            }
+            default -> {
+                Producto producto = new Producto("p" + n, "Producto " + n, random.nextInt(10));
+                productos.add(producto);
+                return new ProductoAgregadoEvent("f1", sucursal.getId(), new Producto(producto.getId(), producto.getNombre(), producto.getStock()));
+            }
+        }
+    }
+}
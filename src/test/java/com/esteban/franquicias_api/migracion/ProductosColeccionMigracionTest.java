@@ -0,0 +1,94 @@
+package com.esteban.franquicias_api.migracion;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.config.IndicesMongo;
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.Producto;
+import com.esteban.franquicias_api.model.ProductoDocument;
+import com.esteban.franquicias_api.model.Sucursal;
+import com.esteban.franquicias_api.repository.CollectionProductoStore;
+import com.esteban.franquicias_api.repository.FranquiciaRepository;
+import com.esteban.franquicias_api.repository.ProductosConMasStock;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataMongoTest(properties = {
+        "franquicias.productos.almacenamiento=coleccion",
+        "franquicias.productos.migracion.habilitada=true",
+        "franquicias.productos.migracion.tamano-lote=7"
+})
+@Testcontainers(disabledWithoutDocker = true)
+@Import({CollectionProductoStore.class, ProductosColeccionMigracion.class, IndicesMongo.class, ProductosColeccionMigracionTest.Config.class})
+class ProductosColeccionMigracionTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @Autowired
+    private FranquiciaRepository franquiciaRepository;
+    @Autowired
+    private CollectionProductoStore store;
+    @Autowired
+    private ProductosColeccionMigracion migracion;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Test
+    void laMigracionConservaProductosOrdenYTopStockYSePuedeRepetir() {
+        Random random = new Random(42);
+        List<Franquicia> originales = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            originales.add(franquiciaRepository.save(franquiciaAleatoria(random)));
+        }
+        long productos = originales.stream().flatMap(f -> f.getSucursales().stream())
+                .mapToLong(s -> s.getProductos().size()).sum();
+
+        migracion.run(new DefaultApplicationArguments());
+        migracion.run(new DefaultApplicationArguments());
+
+        assertThat(mongoTemplate.count(new Query(), ProductoDocument.class))
+                .isEqualTo(productos);
+        for (Franquicia original : originales) {
+            assertThat(franquiciaRepository.findById(original.getId()).orElseThrow().getSucursales())
+                    .allSatisfy(s -> assertThat(s.getProductos()).isEmpty());
+            assertThat(store.franquiciaCompleta(original.getId())).contains(original);
+            assertThat(store.productosConMasStock(original.getId())).isEqualTo(ProductosConMasStock.calcular(original));
+        }
+    }
+
+    private static Franquicia franquiciaAleatoria(Random random) {
+        List<Sucursal> sucursales = new ArrayList<>();
+        for (int s = 0, n = random.nextInt(6); s < n; s++) {
+            List<Producto> productos = new ArrayList<>();
+            for (int p = 0, m = random.nextInt(10); p < m; p++) {
+                productos.add(new Producto(UUID.randomUUID().toString(), "Producto " + p, random.nextInt(5)));
+            }
+            sucursales.add(new Sucursal(UUID.randomUUID().toString(), "Sucursal " + s, productos));
+        }
+        return Franquicia.builder().nombre("Franquicia").sucursales(sucursales).build();
+    }
+
+    @TestConfiguration
+    @EnableConfigurationProperties(FranquiciasProperties.class)
+    static class Config {
+    }
+}
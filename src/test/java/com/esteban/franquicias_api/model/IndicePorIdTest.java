@@ -0,0 +1,76 @@
+package com.esteban.franquicias_api.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndicePorIdTest {
+
+    @Test
+    void sigueALaListaCuandoSeAgreganOQuitanProductos() {
+        Sucursal sucursal = new Sucursal("s1", "Centro", new ArrayList<>(List.of(
+                new Producto("p1", "Café", 5), new Producto("p2", "Té", 3), new Producto("p3", "Pan", 1))));
+        assertThat(sucursal.producto("p3")).map(Producto::getNombre).contains("Pan");
+
+        sucursal.getProductos().add(new Producto("p4", "Sal", 2));
+        assertThat(sucursal.producto("p4")).map(Producto::getNombre).contains("Sal");
+
+        // Las posiciones de p3 y p4 quedan corridas
+        sucursal.getProductos().removeIf(p -> p.getId().equals("p1"));
+        assertThat(sucursal.producto("p1")).isEmpty();
+        assertThat(sucursal.producto("p3")).map(Producto::getNombre).contains("Pan");
+        assertThat(sucursal.producto("p4")).map(Producto::getNombre).contains("Sal");
+
+        // Mismo tamaño y otro elemento en la misma posición
+        sucursal.getProductos().set(0, new Producto("p5", "Miel", 9));
+        assertThat(sucursal.producto("p2")).isEmpty();
+        assertThat(sucursal.producto("p5")).map(Producto::getNombre).contains("Miel");
+    }
+
+    @Test
+    void agregarYQuitarActualizanElIndiceSinVolverAArmarlo() {
+        AtomicInteger ids = new AtomicInteger();
+        IndicePorId<Producto> indice = new IndicePorId<>(p -> {
+            ids.incrementAndGet();
+            return p.getId();
+        });
+        List<Producto> productos = new ArrayList<>(List.of(new Producto("p1", "Café", 5), new Producto("p2", "Té", 3)));
+        assertThat(indice.buscar(productos, "p1")).isPresent();
+        assertThat(ids.getAndSet(0)).isEqualTo(3);
+
+        indice.agregar(productos, new Producto("p3", "Pan", 1));
+        assertThat(indice.buscar(productos, "p4")).isEmpty();
+        assertThat(indice.quitar(productos, "p1")).isTrue();
+        assertThat(indice.quitar(productos, "p1")).isFalse();
+        assertThat(indice.buscar(productos, "p3")).map(Producto::getNombre).contains("Pan");
+        assertThat(indice.buscar(productos, "p2")).map(Producto::getNombre).contains("Té");
+        assertThat(productos).extracting(Producto::getId).containsExactly("p2", "p3");
+        // Un id por elemento agregado y uno por acierto verificado: nunca se recorrió la lista entera
+        assertThat(ids.get()).isEqualTo(4);
+    }
+
+    @Test
+    void seVuelveAArmarAlReemplazarLaLista() {
+        Franquicia franquicia = new Franquicia("f1", "Franquicia", new ArrayList<>(List.of(new Sucursal("s1", "Centro", new ArrayList<>()))));
+        assertThat(franquicia.sucursal("s1")).isPresent();
+
+        franquicia.setSucursales(new ArrayList<>(List.of(new Sucursal("s2", "Norte", new ArrayList<>()))));
+        assertThat(franquicia.sucursal("s1")).isEmpty();
+        assertThat(franquicia.sucursal("s2")).map(Sucursal::getNombre).contains("Norte");
+        assertThat(franquicia.sucursal(null)).isEmpty();
+    }
+
+    @Test
+    void noEntraEnEqualsNiEnToString() {
+        Franquicia buscada = new Franquicia("f1", "Franquicia", new ArrayList<>(List.of(new Sucursal("s1", "Centro", new ArrayList<>()))));
+        Franquicia otra = new Franquicia("f1", "Franquicia", new ArrayList<>(List.of(new Sucursal("s1", "Centro", new ArrayList<>()))));
+        buscada.sucursal("s1");
+
+        assertThat(buscada).isEqualTo(otra).hasSameHashCodeAs(otra);
+        assertThat(buscada.toString()).doesNotContain("indice");
+    }
+}
@@ -0,0 +1,71 @@
+package com.esteban.franquicias_api.repository;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.Producto;
+import com.esteban.franquicias_api.model.Sucursal;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FranquiciaRepositoryEnMemoriaTest {
+
+    private final FranquiciaRepositoryEnMemoria repository = new FranquiciaRepositoryEnMemoria(new FranquiciasProperties());
+
+    @Test
+    void lasProyeccionesDevuelvenSoloLoPedido() {
+        Franquicia franquicia = repository.save(franquicia());
+
+        Franquicia producto = repository.findProductoBySucursalIdAndProductoId(franquicia.getId(), "s2", "p3").orElseThrow();
+        assertThat(producto.getId()).isNull();
+        assertThat(producto.getSucursales()).singleElement().satisfies(s -> {
+            assertThat(s.getNombre()).isEqualTo("Norte");
+            assertThat(s.getProductos()).containsExactly(new Producto("p3", "Pan", 7));
+        });
+        assertThat(repository.findProductoBySucursalIdAndProductoId(franquicia.getId(), "s1", "p3")).isEmpty();
+        assertThat(repository.findSucursalByFranquiciaIdAndSucursalId(franquicia.getId(), "s1").orElseThrow().getSucursales())
+                .extracting(Sucursal::getId).containsExactly("s1");
+        assertThat(repository.actualizarNombre(franquicia.getId(), "Otra").orElseThrow().getSucursales())
+                .allSatisfy(s -> assertThat(s.getProductos()).isEmpty());
+        assertThat(repository.findById(franquicia.getId()).orElseThrow().getSucursales().get(1).getProductos()).hasSize(2);
+    }
+
+    @Test
+    void loDevueltoNoModificaLoGuardado() {
+        Franquicia franquicia = repository.save(franquicia());
+
+        repository.findById(franquicia.getId()).orElseThrow().getSucursales().clear();
+        repository.actualizarStock(franquicia.getId(), "s1", "p1", 99).orElseThrow().setStock(0);
+
+        assertThat(repository.findById(franquicia.getId()).orElseThrow().getSucursales().get(0).getProductos().get(0).getStock())
+                .isEqualTo(99);
+    }
+
+    @Test
+    void lasEscriturasConcurrentesNoSePierden() throws Exception {
+        Franquicia franquicia = repository.save(franquicia());
+
+        try (ExecutorService hilos = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 1000; i++) {
+                int n = i;
+                hilos.submit(() -> repository.agregarProducto(franquicia.getId(), "s1", new Producto("n" + n, "Nuevo", n)));
+                hilos.submit(() -> repository.actualizarStock(franquicia.getId(), "s2", "p2", n));
+            }
+        }
+
+        Franquicia guardada = repository.findById(franquicia.getId()).orElseThrow();
+        assertThat(guardada.getSucursales().get(0).getProductos()).hasSize(1001);
+        assertThat(guardada.getSucursales().get(1).getProductos()).hasSize(2);
+    }
+
+    private static Franquicia franquicia() {
+        return new Franquicia(null, "Franquicia", new ArrayList<>(List.of(
+                new Sucursal("s1", "Centro", new ArrayList<>(List.of(new Producto("p1", "Café", 5)))),
+                new Sucursal("s2", "Norte", new ArrayList<>(List.of(new Producto("p2", "Té", 3), new Producto("p3", "Pan", 7)))))));
+    }
+}
@@ -0,0 +1,123 @@
+package com.esteban.franquicias_api.repository;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.event.FranquiciaRenombradaEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LecturasCompartidasTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final LecturasCompartidas lecturas = new LecturasCompartidas(new FranquiciasProperties(), registry);
+    private final ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Test
+    void lasLecturasSimultaneasDeLoMismoHacenUnaSolaConsulta() throws Exception {
+        CountDownLatch liberar = new CountDownLatch(1);
+        AtomicInteger consultas = new AtomicInteger();
+        Supplier<String> lectura = () -> {
+            consultas.incrementAndGet();
+            esperar(liberar);
+            return "f1";
+        };
+
+        List<CompletableFuture<String>> resultados = IntStream.range(0, 20)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> lecturas.leer("f1", List.of("completa"), lectura), hilos))
+                .toList();
+        esperarCompartidas(19);
+        // Otra consulta de la misma franquicia no se junta con esta
+        assertThat(lecturas.leer("f1", List.of("sucursal", "s1"), () -> "s1")).isEqualTo("s1");
+        liberar.countDown();
+
+        assertThat(resultados).allSatisfy(r -> assertThat(r.get(5, TimeUnit.SECONDS)).isEqualTo("f1"));
+        assertThat(consultas).hasValue(1);
+        assertThat(contador("consulta")).isEqualTo(2);
+    }
+
+    @Test
+    void despuesDeUnaEscrituraNoSeUsaLaLecturaAnterior() throws Exception {
+        CountDownLatch empezo = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        CompletableFuture<String> vieja = CompletableFuture.supplyAsync(() -> lecturas.leer("f1", List.of("completa"), () -> {
+            empezo.countDown();
+            esperar(liberar);
+            return "antes";
+        }), hilos);
+        empezo.await();
+        CompletableFuture<String> compartida = CompletableFuture.supplyAsync(
+                () -> lecturas.leer("f1", List.of("completa"), () -> "no debería leer"), hilos);
+        esperarCompartidas(1);
+
+        lecturas.nuevaGeneracion(new FranquiciaRenombradaEvent("f1", "Nueva"));
+        assertThat(lecturas.leer("f1", List.of("completa"), () -> "después")).isEqualTo("después");
+
+        liberar.countDown();
+        assertThat(vieja.get(5, TimeUnit.SECONDS)).isEqualTo("antes");
+        assertThat(compartida.get(5, TimeUnit.SECONDS)).isEqualTo("antes");
+        // Sin lecturas en curso no queda nada de la franquicia
+        assertThat(lecturas.franquiciasEnCurso()).isZero();
+    }
+
+    @Test
+    void lasEscriturasSinLecturasEnCursoNoGuardanNada() {
+        IntStream.range(0, 100).forEach(i -> lecturas.escrita("f" + i));
+        assertThat(lecturas.franquiciasEnCurso()).isZero();
+
+        assertThat(lecturas.leer("f1", List.of("completa"), () -> "f1")).isEqualTo("f1");
+        assertThat(lecturas.franquiciasEnCurso()).isZero();
+    }
+
+    @Test
+    void unErrorLlegaATodosLosQueEsperabanYNoQueda() throws Exception {
+        CountDownLatch empezo = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        CompletableFuture<String> primera = CompletableFuture.supplyAsync(() -> lecturas.leer("f1", List.of("completa"), () -> {
+            empezo.countDown();
+            esperar(liberar);
+            throw new IllegalStateException("Mongo no responde");
+        }), hilos);
+        empezo.await();
+        CompletableFuture<String> segunda = CompletableFuture.supplyAsync(
+                () -> lecturas.leer("f1", List.of("completa"), () -> "no debería leer"), hilos);
+        esperarCompartidas(1);
+        liberar.countDown();
+
+        assertThatThrownBy(() -> primera.get(5, TimeUnit.SECONDS)).hasRootCauseMessage("Mongo no responde");
+        assertThatThrownBy(() -> segunda.get(5, TimeUnit.SECONDS)).hasRootCauseMessage("Mongo no responde");
+        assertThat(lecturas.leer("f1", List.of("completa"), () -> "otra vez")).isEqualTo("otra vez");
+        assertThat(lecturas.franquiciasEnCurso()).isZero();
+    }
+
+    private void esperarCompartidas(int cantidad) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (contador("compartida") < cantidad && System.nanoTime() < limite) {
+            Thread.sleep(5);
+        }
+        assertThat(contador("compartida")).isEqualTo(cantidad);
+    }
+
+    private double contador(String origen) {
+        return registry.get("franquicias.lecturas").tag("origen", origen).counter().count();
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
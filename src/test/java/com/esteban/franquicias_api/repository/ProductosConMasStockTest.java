@@ -0,0 +1,61 @@
+package com.esteban.franquicias_api.repository;
+
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.Producto;
+import com.esteban.franquicias_api.model.Sucursal;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataMongoTest
+@Testcontainers(disabledWithoutDocker = true)
+class ProductosConMasStockTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @Autowired
+    private FranquiciaRepository franquiciaRepository;
+
+    @Test
+    void laAgregacionCoincideConElCalculoEnMemoria() {
+        Random random = new Random(20251118L);
+
+        for (int i = 0; i < 50; i++) {
+            Franquicia franquicia = franquiciaRepository.save(franquiciaAleatoria(random));
+
+            assertThat(franquiciaRepository.productosConMasStock(franquicia.getId()))
+                    .isEqualTo(ProductosConMasStock.calcular(franquicia));
+        }
+    }
+
+    @Test
+    void franquiciaInexistenteDevuelveListaVacia() {
+        assertThat(franquiciaRepository.productosConMasStock("000000000000000000000000")).isEmpty();
+    }
+
+    // Stocks en un rango corto para forzar empates; sucursales sin productos incluidas
+    private static Franquicia franquiciaAleatoria(Random random) {
+        List<Sucursal> sucursales = new ArrayList<>();
+        for (int s = 0, n = random.nextInt(8); s < n; s++) {
+            List<Producto> productos = new ArrayList<>();
+            for (int p = 0, m = random.nextInt(12); p < m; p++) {
+                productos.add(new Producto(UUID.randomUUID().toString(), "Producto " + p, random.nextInt(6)));
+            }
+            sucursales.add(new Sucursal(UUID.randomUUID().toString(), "Sucursal " + s, productos));
+        }
+        return Franquicia.builder().nombre("Franquicia").sucursales(sucursales).build();
+    }
+}
@@ -0,0 +1,70 @@
+package com.esteban.franquicias_api.repository;
+
+import com.esteban.franquicias_api.model.Franquicia;
+import com.esteban.franquicias_api.model.Producto;
+import com.esteban.franquicias_api.model.Sucursal;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Bytes BSON que devuelve Mongo por petición: antes cada lectura traía el documento completo,
+// ahora las consultas proyectadas traen solo la sucursal o el producto pedido
+class ProyeccionesBytesTest {
+
+    private final MappingMongoConverter converter;
+
+    ProyeccionesBytesTest() {
+        MongoMappingContext contexto = new MongoMappingContext();
+        contexto.afterPropertiesSet();
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, contexto);
+        converter.afterPropertiesSet();
+    }
+
+    @Test
+    void lasProyeccionesTraenSoloElSubarbolPedido() {
+        for (int[] forma : new int[][]{{10, 10}, {20, 200}, {100, 1000}}) {
+            Franquicia franquicia = franquicia(forma[0], forma[1]);
+            Sucursal sucursal = franquicia.getSucursales().get(0);
+            Producto producto = sucursal.getProductos().get(0);
+
+            int completo = bytes(franquicia);
+            int soloSucursal = bytes(new Franquicia(null, null, List.of(sucursal)));
+            int soloProducto = bytes(new Franquicia(null, null,
+                    List.of(new Sucursal(sucursal.getId(), sucursal.getNombre(), List.of(producto)))));
+
+            System.out.printf("%dx%d: documento %d B, sucursal/productos %d B, producto %d B%n",
+                    forma[0], forma[1], completo, soloSucursal, soloProducto);
+
+            assertThat(soloSucursal).isLessThanOrEqualTo(completo / forma[0] + 128);
+            assertThat(soloProducto).isLessThan(300);
+        }
+    }
+
+    private int bytes(Franquicia franquicia) {
+        Document documento = new Document();
+        converter.write(franquicia, documento);
+        return new RawBsonDocument(documento, new DocumentCodec()).getByteBuffer().remaining();
+    }
+
+    private static Franquicia franquicia(int sucursales, int productos) {
+        List<Sucursal> lista = new ArrayList<>();
+        for (int s = 0; s < sucursales; s++) {
+            List<Producto> catalogo = new ArrayList<>();
+            for (int p = 0; p < productos; p++) {
+                catalogo.add(new Producto(UUID.randomUUID().toString(), "Producto " + p, p % 50));
+            }
+            lista.add(new Sucursal(UUID.randomUUID().toString(), "Sucursal " + s, catalogo));
+        }
+        return new Franquicia("65a1b2c3d4e5f60718293a4b", "Franquicia", lista);
+    }
+}
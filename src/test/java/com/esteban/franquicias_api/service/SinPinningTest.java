@@ -0,0 +1,74 @@
+package com.esteban.franquicias_api.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// En Java 21 un hilo virtual que bloquea dentro de synchronized fija su hilo portador. Revisa el bytecode
+// de las capas que atienden peticiones (métodos synchronized y bloques monitorenter); para exclusión
+// mutua se usa ReentrantLock, como en TopStockIndex.
+class SinPinningTest {
+
+    private static final List<String> PAQUETES = List.of("controller", "service", "repository", "index");
+
+    @Test
+    void lasCapasDelCaminoDeUnaPeticionNoUsanSynchronized() throws Exception {
+        List<String> encontrados = new ArrayList<>();
+        for (String paquete : PAQUETES) {
+            try (Stream<Path> clases = Files.walk(raiz().resolve(paquete))) {
+                for (Path clase : clases.filter(p -> p.toString().endsWith(".class")).toList()) {
+                    encontrados.addAll(synchronizedEn(clase));
+                }
+            }
+        }
+        assertThat(encontrados).isEmpty();
+    }
+
+    private static Path raiz() throws URISyntaxException {
+        return Path.of(SinPinningTest.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                .resolveSibling("classes").resolve("com/esteban/franquicias_api");
+    }
+
+    private static List<String> synchronizedEn(Path clase) throws IOException {
+        List<String> encontrados = new ArrayList<>();
+        try (InputStream bytes = Files.newInputStream(clase)) {
+            new ClassReader(bytes).accept(new ClassVisitor(Opcodes.ASM9) {
+                private String nombre;
+
+                @Override
+                public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+                    nombre = name.replace('/', '.');
+                }
+
+                @Override
+                public MethodVisitor visitMethod(int access, String metodo, String descriptor, String signature, String[] exceptions) {
+                    if ((access & Opcodes.ACC_SYNCHRONIZED) != 0) {
+                        encontrados.add(nombre + "#" + metodo + " (método synchronized)");
+                    }
+                    return new MethodVisitor(Opcodes.ASM9) {
+                        @Override
+                        public void visitInsn(int opcode) {
+                            if (opcode == Opcodes.MONITORENTER) {
+                                encontrados.add(nombre + "#" + metodo + " (bloque synchronized)");
+                            }
+                        }
+                    };
+                }
+            }, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        }
+        return encontrados;
+    }
+}
@@ -0,0 +1,87 @@
+package com.esteban.franquicias_api.service.impl;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.event.ProductoRenombradoEvent;
+import com.esteban.franquicias_api.event.StockIncrementadoEvent;
+import com.esteban.franquicias_api.repository.HistorialStock;
+import com.esteban.franquicias_api.repository.MovimientoStock;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class MovimientosStockServiceImplTest {
+
+    private final HistorialStock historial = mock(HistorialStock.class);
+    private final TaskScheduler scheduler = mock(TaskScheduler.class);
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final List<List<MovimientoStock>> lotes = new ArrayList<>();
+
+    private MovimientosStockServiceImpl servicio(int capacidad, int tamanoLote) {
+        FranquiciasProperties properties = new FranquiciasProperties();
+        properties.getMovimientos().setCapacidad(capacidad);
+        properties.getMovimientos().setTamanoLote(tamanoLote);
+        // El servicio reutiliza la lista del lote: se guarda una copia
+        doAnswer(invocacion -> lotes.add(List.copyOf(invocacion.<List<MovimientoStock>>getArgument(0))))
+                .when(historial).registrar(anyList());
+        return new MovimientosStockServiceImpl(historial, scheduler, properties, registry);
+    }
+
+    @Test
+    void conLaColaLlenaSeDescartaYSeCuenta() {
+        MovimientosStockServiceImpl servicio = servicio(3, 10);
+
+        for (int i = 0; i < 5; i++) {
+            servicio.registrar(new StockIncrementadoEvent("f", "s", "p" + i, -1, 9));
+        }
+
+        assertThat(registry.get("franquicias.movimientos.pendientes").gauge().value()).isEqualTo(3);
+        assertThat(descartados("cola-llena")).isEqualTo(2);
+        assertThat(servicio.vaciar()).isEqualTo(3);
+        assertThat(lotes).singleElement().satisfies(lote -> assertThat(lote)
+                .extracting(MovimientoStock::productoId).containsExactly("p0", "p1", "p2"));
+        assertThat(registry.get("franquicias.movimientos.escritos").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void seEscribeEnLotesYUnLoteLlenoPideUnVaciado() {
+        MovimientosStockServiceImpl servicio = servicio(100, 2);
+
+        for (int i = 0; i < 5; i++) {
+            servicio.registrar(new StockIncrementadoEvent("f", "s", "p" + i, 1, 11));
+        }
+        // Los eventos sin cambio de stock no dejan movimiento
+        servicio.registrar(new ProductoRenombradoEvent("f", "s", "p0", "Otro"));
+
+        // Uno solo aunque la cola siga por encima del lote: el vaciado pendiente se lleva todo
+        verify(scheduler, times(1)).schedule(any(Runnable.class), any(Instant.class));
+        assertThat(servicio.vaciar()).isEqualTo(5);
+        assertThat(lotes).extracting(List::size).containsExactly(2, 2, 1);
+    }
+
+    @Test
+    void unLoteQueFallaSeDescartaSinReintentar() {
+        MovimientosStockServiceImpl servicio = servicio(100, 10);
+        servicio.registrar(new StockIncrementadoEvent("f", "s", "p", 1, 11));
+        doThrow(new IllegalStateException("sin conexión")).when(historial).registrar(anyList());
+
+        assertThat(servicio.vaciar()).isZero();
+        assertThat(descartados("error")).isEqualTo(1);
+        assertThat(servicio.vaciar()).isZero();
+        verify(historial, times(1)).registrar(anyList());
+    }
+
+    private double descartados(String motivo) {
+        var contador = registry.find("franquicias.movimientos.descartados").tag("motivo", motivo).counter();
+        return contador == null ? 0 : contador.count();
+    }
+}
@@ -0,0 +1,103 @@
+package com.esteban.franquicias_api.service.impl;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.exception.SobrecargaException;
+import com.esteban.franquicias_api.exception.StockInsuficienteException;
+import com.esteban.franquicias_api.repository.LecturasCompartidas;
+import com.esteban.franquicias_api.repository.PendientesProyeccion;
+import com.esteban.franquicias_api.repository.ProductoStore;
+import com.esteban.franquicias_api.service.VistaSucursalesService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class StockDiferidoServiceImplTest {
+
+    private final ProductoStore productoStore = mock(ProductoStore.class);
+    private final TaskScheduler scheduler = mock(TaskScheduler.class);
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final FranquiciasProperties properties = new FranquiciasProperties();
+
+    StockDiferidoServiceImplTest() {
+        // Todos los productos tienen 5 unidades guardadas
+        when(productoStore.stockProductos(anyString(), anyMap())).thenAnswer(invocation -> {
+            Map<String, Set<String>> pedidos = invocation.getArgument(1);
+            Map<String, Map<String, Integer>> stock = new HashMap<>();
+            pedidos.forEach((sucursal, productos) -> productos.forEach(producto ->
+                    stock.computeIfAbsent(sucursal, id -> new HashMap<>()).put(producto, 5)));
+            return stock;
+        });
+    }
+
+    private StockDiferidoServiceImpl servicio() {
+        MarcasProyeccion marcas = new MarcasProyeccion(mock(PendientesProyeccion.class), mock(VistaSucursalesService.class), properties);
+        return new StockDiferidoServiceImpl(productoStore, mock(LecturasCompartidas.class), mock(ApplicationEventPublisher.class),
+                marcas, scheduler, properties, registry);
+    }
+
+    @Test
+    void conElLimiteAlcanzadoUnProductoNuevoSeRechazaYLosPendientesSiguenSumando() {
+        properties.getStock().getDiferido().setLimitePendientes(2);
+        StockDiferidoServiceImpl servicio = servicio();
+        servicio.acumular("f", "s", "p1", -1);
+        servicio.acumular("f", "s", "p2", -1);
+
+        assertThatThrownBy(() -> servicio.acumular("f", "s", "p3", -1)).isInstanceOf(SobrecargaException.class)
+                .extracting("reintentarEnSegundos").isEqualTo(1L);
+        assertThat(servicio.acumular("f", "s", "p1", -1)).isEqualTo(-2);
+        assertThat(servicio.pendientes()).isEqualTo(2);
+        assertThat(descartados("limite")).isEqualTo(1);
+    }
+
+    @Test
+    void alApagarSinMongoSeReintentaHastaElPlazoYLoQueQuedaSeDescarta() {
+        properties.getStock().getDiferido().setPlazoApagado(Duration.ofMillis(300));
+        when(productoStore.incrementarStockEnLote(anyString(), anyList())).thenThrow(new IllegalStateException("Mongo caído"));
+        doReturn(mock(ScheduledFuture.class)).when(scheduler).scheduleWithFixedDelay(any(Runnable.class), any(Duration.class));
+        StockDiferidoServiceImpl servicio = servicio();
+        VaciadoStockDiferido vaciado = new VaciadoStockDiferido(servicio, scheduler, properties);
+        vaciado.start();
+        servicio.acumular("f", "s", "p1", -1);
+        servicio.acumular("f", "s", "p2", 3);
+
+        vaciado.stop();
+
+        // Un intento inmediato y los reintentos con espera creciente dentro del plazo
+        verify(productoStore, atLeast(2)).incrementarStockEnLote(anyString(), anyList());
+        assertThat(servicio.pendientes()).isZero();
+        assertThat(descartados("apagado")).isEqualTo(2);
+    }
+
+    @Test
+    void unDescuentoSeComparaConElStockLeidoMasLoPendiente() {
+        StockDiferidoServiceImpl servicio = servicio();
+        servicio.acumular("f", "s", "p1", -3);
+        servicio.acumular("f", "s", "p1", 1);
+
+        assertThatThrownBy(() -> servicio.acumular("f", "s", "p1", -4)).isInstanceOf(StockInsuficienteException.class);
+        assertThat(servicio.acumular("f", "s", "p1", -3)).isEqualTo(-5);
+        // El stock se leyó una sola vez, al entrar el producto a la cola
+        verify(productoStore, times(1)).stockProductos(anyString(), anyMap());
+        assertThat(descartados("sin-stock")).isEqualTo(1);
+    }
+
+    private double descartados(String motivo) {
+        return registry.get("franquicias.stock.diferido.descartados").tag("motivo", motivo).counter().count();
+    }
+}
@@ -0,0 +1,106 @@
+package com.esteban.franquicias_api.service.impl;
+
+import com.esteban.franquicias_api.config.FranquiciasProperties;
+import com.esteban.franquicias_api.model.Producto;
+import com.esteban.franquicias_api.model.Sucursal;
+import com.esteban.franquicias_api.repository.PendientesProyeccionEnMemoria;
+import com.esteban.franquicias_api.repository.ProductoStore;
+import com.esteban.franquicias_api.repository.VistaSucursalesEnMemoria;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class VistaSucursalesServiceImplTest {
+
+    private static final Map<String, List<String>> CENTRO = Map.of("f", List.of("s"));
+
+    private final PendientesProyeccionEnMemoria pendientes = new PendientesProyeccionEnMemoria();
+    private final VistaSucursalesEnMemoria vistas = new VistaSucursalesEnMemoria();
+    private final ProductoStore productoStore = mock(ProductoStore.class);
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private VistaSucursalesServiceImpl servicio(Duration plazo) {
+        FranquiciasProperties properties = new FranquiciasProperties();
+        properties.getProyeccion().setPlazo(plazo);
+        when(productoStore.sucursal("f", "s")).thenReturn(Optional.of(new Sucursal("s", "Centro",
+                List.of(new Producto("p1", "Café", 5), new Producto("p2", "Té", 8), new Producto("p3", "Mate", 8)))));
+        return new VistaSucursalesServiceImpl(vistas, pendientes, productoStore, mock(TaskScheduler.class), properties, registry);
+    }
+
+    @Test
+    void unaEscrituraAbiertaSeProyectaRecienAlCerrarla() {
+        VistaSucursalesServiceImpl servicio = servicio(Duration.ofMinutes(1));
+
+        pendientes.abrir(CENTRO);
+        assertThat(servicio.proyectar()).isZero();
+        assertThat(vistas.obtener("f", "s")).isEmpty();
+        assertThat(registry.get("franquicias.proyeccion.pendientes").gauge().value()).isEqualTo(1);
+        assertThat(registry.get("franquicias.proyeccion.retraso").timeGauge().value(TimeUnit.NANOSECONDS)).isPositive();
+
+        pendientes.cerrar(CENTRO);
+        assertThat(servicio.proyectar()).isEqualTo(1);
+        assertThat(vistas.obtener("f", "s")).hasValueSatisfying(vista -> {
+            assertThat(vista.getTotalProductos()).isEqualTo(3);
+            assertThat(vista.getStockTotal()).isEqualTo(21);
+            // A igual stock gana el primero
+            assertThat(vista.getProductoConMasStock().getId()).isEqualTo("p2");
+        });
+        assertThat(pendientes.cantidad()).isZero();
+        assertThat(registry.get("franquicias.proyeccion.retraso").timeGauge().value()).isZero();
+    }
+
+    @Test
+    void unaEscrituraQueNuncaCerroSeProyectaAlVencerElPlazo() throws InterruptedException {
+        VistaSucursalesServiceImpl servicio = servicio(Duration.ofMillis(20));
+
+        // El proceso murió entre la marca y el final de la escritura
+        pendientes.abrir(CENTRO);
+        Thread.sleep(50);
+
+        assertThat(servicio.proyectar()).isEqualTo(1);
+        assertThat(vistas.obtener("f", "s")).isPresent();
+    }
+
+    @Test
+    void unCambioDuranteLaProyeccionDejaLaMarcaParaLaProximaVuelta() {
+        VistaSucursalesServiceImpl servicio = servicio(Duration.ofMinutes(1));
+        pendientes.marcar(CENTRO);
+        Sucursal vieja = new Sucursal("s", "Centro", List.of());
+        when(productoStore.sucursal("f", "s")).thenAnswer(invocacion -> {
+            // Otra escritura termina mientras se lee la sucursal
+            pendientes.abrir(CENTRO);
+            pendientes.cerrar(CENTRO);
+            return Optional.of(vieja);
+        }).thenReturn(Optional.of(new Sucursal("s", "Centro", List.of(new Producto("p1", "Café", 5)))));
+
+        assertThat(servicio.proyectar()).isZero();
+        assertThat(pendientes.cantidad()).isEqualTo(1);
+
+        assertThat(servicio.proyectar()).isEqualTo(1);
+        assertThat(vistas.obtener("f", "s")).hasValueSatisfying(vista -> assertThat(vista.getTotalProductos()).isEqualTo(1));
+    }
+
+    @Test
+    void unaSucursalQueYaNoExisteSaleDeLaVista() {
+        VistaSucursalesServiceImpl servicio = servicio(Duration.ofMinutes(1));
+        pendientes.marcar(CENTRO);
+        servicio.proyectar();
+        assertThat(vistas.obtener("f", "s")).isPresent();
+
+        when(productoStore.sucursal("f", "s")).thenReturn(Optional.empty());
+        pendientes.marcar(CENTRO);
+
+        assertThat(servicio.proyectar()).isEqualTo(1);
+        assertThat(vistas.obtener("f", "s")).isEmpty();
+    }
+}